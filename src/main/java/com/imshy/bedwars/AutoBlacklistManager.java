@@ -12,11 +12,25 @@ public class AutoBlacklistManager {
     private static final long DAY_MS = 24L * 60L * 60L * 1000L;
 
     /**
-     * Evaluate current-loss opponents and auto-blacklist eligible players.
+     * Evaluate current-loss opponents and auto-blacklist eligible players, as
+     * one {@link PlayerDatabase#batch}.
      */
     public static List<String> processLossOutcome(PlayerDatabase db) {
+        if (db == null) {
+            return new ArrayList<String>();
+        }
+        // One save for the whole pass, including entries purged by the reads.
+        return db.batch(new PlayerDatabase.Transaction<List<String>>() {
+            @Override
+            public List<String> run(PlayerDatabase db) {
+                return evaluateLossOutcome(db);
+            }
+        });
+    }
+
+    private static List<String> evaluateLossOutcome(PlayerDatabase db) {
         List<String> autoAddedPlayers = new ArrayList<String>();
-        if (db == null || !ModConfig.isAutoBlacklistEnabled()) {
+        if (!ModConfig.isAutoBlacklistEnabled()) {
             return autoAddedPlayers;
         }
 
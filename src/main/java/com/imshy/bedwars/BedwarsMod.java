@@ -2,6 +2,7 @@ package com.imshy.bedwars;
 
 import com.imshy.bedwars.command.BedwarsCommand;
 import com.imshy.bedwars.runtime.BedwarsRuntime;
+import com.imshy.bedwars.runtime.MapLearningService;
 
 import net.minecraftforge.client.ClientCommandHandler;
 import net.minecraftforge.common.MinecraftForge;
@@ -19,6 +20,27 @@ public class BedwarsMod {
     public void preInit(net.minecraftforge.fml.common.event.FMLPreInitializationEvent event) {
         // Load configuration (including saved API key)
         ModConfig.init(event);
+
+        // Parse the on-disk stores in parallel, off the client thread. Until
+        // each one lands, its readers see it empty.
+        StartupLoader.load("UUID cache", new Runnable() {
+            @Override
+            public void run() {
+                HypixelAPI.loadPersistentCaches();
+            }
+        });
+        StartupLoader.load("player database", new Runnable() {
+            @Override
+            public void run() {
+                PlayerDatabase.preload();
+            }
+        });
+        StartupLoader.load("learned maps", new Runnable() {
+            @Override
+            public void run() {
+                MapLearningService.preload();
+            }
+        });
     }
 
     @Mod.EventHandler
@@ -35,6 +57,7 @@ public class BedwarsMod {
             @Override
             public void run() {
                 HypixelAPI.shutdown();
+                PlayerDatabase.shutdown();
             }
         }));
     }
@@ -1,16 +1,24 @@
 package com.imshy.bedwars;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Data class holding Bedwars statistics for a player.
  *
- * Parses the Hypixel API response with Gson, extracting both career counters
- * and Hypixel's rolling monthly/weekly buckets. The rolling buckets are
- * summed across the {@code _a}/{@code _b} ping-pong slots that Hypixel uses
- * internally to keep the time window fresh.
+ * Parses the Hypixel API response with Gson's streaming {@link JsonReader},
+ * extracting both career counters and Hypixel's rolling monthly/weekly
+ * buckets. The rolling buckets are summed across the {@code _a}/{@code _b}
+ * ping-pong slots that Hypixel uses internally to keep the time window fresh.
  */
 public class BedwarsStats {
 
@@ -91,6 +99,12 @@ public class BedwarsStats {
     private boolean error = false;
     private String errorMessage = null;
     private boolean nicked = false;
+    /**
+     * Set once the cached copy has outlived HypixelAPI's fresh window. It keeps
+     * being served while a background refresh replaces it. Volatile: marked on
+     * whichever thread looks it up, read by renderers.
+     */
+    private volatile boolean stale = false;
 
     /**
      * Minimum recent final-kill volume required to consider a windowed FKDR
@@ -116,94 +130,99 @@ public class BedwarsStats {
     }
 
     /**
-     * Parse stats from Hypixel API JSON response using Gson. The response is
-     * expected to look like:
+     * Parse stats from Hypixel API JSON response. The response is expected to
+     * look like:
      *   { "success": true, "player": { "stats": { "Bedwars": { ... } } } }
      */
     public void parseFromJson(String jsonResponse) {
+        if (jsonResponse == null) {
+            error = true;
+            errorMessage = "Empty API response";
+            return;
+        }
         try {
-            if (jsonResponse == null) {
-                error = true;
-                errorMessage = "Empty API response";
-                return;
-            }
+            parseFromStream(new StringReader(jsonResponse));
+        } catch (IOException e) {
+            // A StringReader cannot fail mid-read; kept for the signature.
+            error = true;
+            errorMessage = e.getMessage();
+        }
+    }
 
-            JsonElement parsed = new JsonParser().parse(jsonResponse);
-            if (parsed == null || !parsed.isJsonObject()) {
+    /**
+     * Parse a {@code /v2/player} response straight off the wire in one pass.
+     * Only {@code player.stats.Bedwars} is read; every other subtree (other
+     * games, achievements, quests — most of a veteran account's document) is
+     * skipped without building strings or a tree. Outcomes match the old tree
+     * parse: same error messages, same nick signals, same lenient number
+     * coercion. The caller owns and closes {@code in}.
+     *
+     * @throws IOException only for transport failures (e.g. a read timeout),
+     *         so the caller can treat them as a failed fetch rather than a bad
+     *         response. Malformed or truncated JSON sets the error flag.
+     */
+    public void parseFromStream(Reader in) throws IOException {
+        try {
+            JsonReader reader = new JsonReader(in);
+            // JsonParser (the previous tree parse) is lenient too.
+            reader.setLenient(true);
+
+            JsonToken first;
+            try {
+                first = reader.peek();
+            } catch (EOFException e) {
+                first = JsonToken.END_DOCUMENT;
+            }
+            if (first != JsonToken.BEGIN_OBJECT) {
                 error = true;
                 errorMessage = "Malformed API response";
                 return;
             }
 
-            JsonObject root = parsed.getAsJsonObject();
-            if (!getBoolean(root, "success")) {
+            boolean success = false;
+            boolean playerNull = true;
+            int[] bedwars = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("success".equals(name)) {
+                    success = readBoolean(reader);
+                } else if ("player".equals(name)) {
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.NULL) {
+                        reader.nextNull();
+                        playerNull = true;
+                        bedwars = null;
+                    } else if (token != JsonToken.BEGIN_OBJECT) {
+                        throw new IllegalStateException("Not a JSON Object: player");
+                    } else {
+                        playerNull = false;
+                        bedwars = readPlayer(reader);
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (!success) {
                 error = true;
                 errorMessage = "API request failed";
                 return;
             }
 
             // "player":null indicates an account that has never logged in to
-            // Hypixel — a strong nick signal.
-            JsonElement playerEl = root.get("player");
-            if (playerEl == null || playerEl.isJsonNull()) {
-                loaded = true;
-                nicked = true;
-                return;
-            }
-
-            JsonObject player = playerEl.getAsJsonObject();
-            JsonObject stats = getObject(player, "stats");
-            if (stats == null) {
-                loaded = true;
-                nicked = true;
-                return;
-            }
-
-            JsonObject bw = getObject(stats, "Bedwars");
-            if (bw == null) {
-                // Account exists but no Bedwars play history — almost always
-                // a nick when seen as an opponent in-game.
+            // Hypixel — a strong nick signal. A missing stats or Bedwars object
+            // means no Bedwars play history — almost always a nick when seen
+            // as an opponent in-game.
+            if (playerNull || bedwars == null) {
                 loaded = true;
                 nicked = true;
                 return;
             }
 
-            this.stars = calculateStars(getInt(bw, "Experience"));
-
-            this.finalKills = getInt(bw, "final_kills_bedwars");
-            this.finalDeaths = getInt(bw, "final_deaths_bedwars");
-            this.wins = getInt(bw, "wins_bedwars");
-            this.losses = getInt(bw, "losses_bedwars");
-            this.bedsBroken = getInt(bw, "beds_broken_bedwars");
-            this.fkdr = computeRatio(finalKills, finalDeaths);
-            this.wlr = computeRatio(wins, losses);
-
-            // Rolling monthly + weekly windows. Hypixel maintains two ping-pong
-            // buckets (_a/_b) per stat that together cover the full window.
-            this.monthlyFinalKills = sumBuckets(bw, "final_kills_bedwars_monthly");
-            this.monthlyFinalDeaths = sumBuckets(bw, "final_deaths_bedwars_monthly");
-            this.monthlyWins = sumBuckets(bw, "wins_bedwars_monthly");
-            this.monthlyLosses = sumBuckets(bw, "losses_bedwars_monthly");
-            this.monthlyFkdr = computeRatio(monthlyFinalKills, monthlyFinalDeaths);
-            this.monthlyWlr = computeRatio(monthlyWins, monthlyLosses);
-
-            this.weeklyFinalKills = sumBuckets(bw, "final_kills_bedwars_weekly");
-            this.weeklyFinalDeaths = sumBuckets(bw, "final_deaths_bedwars_weekly");
-            this.weeklyWins = sumBuckets(bw, "wins_bedwars_weekly");
-            this.weeklyLosses = sumBuckets(bw, "losses_bedwars_weekly");
-            this.weeklyFkdr = computeRatio(weeklyFinalKills, weeklyFinalDeaths);
-            this.weeklyWlr = computeRatio(weeklyWins, weeklyLosses);
-
-            // Per-mode career splits (solo/doubles/3s/4s). Lets a solos main be
-            // told apart from a fours stacker sitting at the same star/overall FKDR.
-            for (Mode mode : Mode.values()) {
-                int i = mode.ordinal();
-                modeFinalKills[i] = getInt(bw, mode.prefix + "_final_kills_bedwars");
-                modeFinalDeaths[i] = getInt(bw, mode.prefix + "_final_deaths_bedwars");
-                modeWins[i] = getInt(bw, mode.prefix + "_wins_bedwars");
-                modeLosses[i] = getInt(bw, mode.prefix + "_losses_bedwars");
-                modeFkdr[i] = computeRatio(modeFinalKills[i], modeFinalDeaths[i]);
-            }
+            applyBedwarsKeys(bedwars);
 
             // All zero after a successful parse => Bedwars section exists but
             // is empty — matches a nicked account.
@@ -214,39 +233,300 @@ public class BedwarsStats {
 
             loaded = true;
 
+        } catch (MalformedJsonException | EOFException e) {
+            error = true;
+            errorMessage = e.getMessage();
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
             error = true;
             errorMessage = e.getMessage();
         }
     }
 
-    private static boolean getBoolean(JsonObject obj, String key) {
-        if (obj == null) return false;
-        JsonElement el = obj.get(key);
-        if (el == null || el.isJsonNull() || !el.isJsonPrimitive()) return false;
-        try {
-            return el.getAsBoolean();
-        } catch (Exception e) {
-            return false;
+    /**
+     * Every Bedwars key the parser keeps. The streaming pass stores each raw
+     * value at its index here (last occurrence wins, as in a tree parse);
+     * {@link #applyBedwarsKeys} then derives the fields from that array.
+     */
+    private static final String[] BEDWARS_KEYS;
+    private static final Map<String, Integer> BEDWARS_KEY_INDEX = new HashMap<String, Integer>();
+
+    static {
+        java.util.List<String> keys = new java.util.ArrayList<String>();
+        keys.add("Experience");
+        keys.add("final_kills_bedwars");
+        keys.add("final_deaths_bedwars");
+        keys.add("wins_bedwars");
+        keys.add("losses_bedwars");
+        keys.add("beds_broken_bedwars");
+        for (String window : new String[] { "monthly", "weekly" }) {
+            for (String stat : new String[] { "final_kills", "final_deaths", "wins", "losses" }) {
+                keys.add(stat + "_bedwars_" + window + "_a");
+                keys.add(stat + "_bedwars_" + window + "_b");
+            }
+        }
+        for (Mode mode : Mode.values()) {
+            for (String stat : new String[] { "final_kills", "final_deaths", "wins", "losses" }) {
+                keys.add(mode.prefix + "_" + stat + "_bedwars");
+            }
+        }
+        BEDWARS_KEYS = keys.toArray(new String[keys.size()]);
+        for (int i = 0; i < BEDWARS_KEYS.length; i++) {
+            BEDWARS_KEY_INDEX.put(BEDWARS_KEYS[i], i);
         }
     }
 
-    private static int getInt(JsonObject obj, String key) {
-        if (obj == null) return 0;
-        JsonElement el = obj.get(key);
-        if (el == null || el.isJsonNull() || !el.isJsonPrimitive()) return 0;
+    /** Reads the player object; returns the Bedwars values, or null if there is no Bedwars object. */
+    private static int[] readPlayer(JsonReader reader) throws IOException {
+        int[] bedwars = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"stats".equals(reader.nextName())) {
+                reader.skipValue();
+            } else if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                bedwars = readStats(reader);
+            } else {
+                // A non-object "stats" reads as missing, like the tree parse.
+                reader.skipValue();
+                bedwars = null;
+            }
+        }
+        reader.endObject();
+        return bedwars;
+    }
+
+    private static int[] readStats(JsonReader reader) throws IOException {
+        int[] bedwars = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("Bedwars".equals(name)) {
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    bedwars = readBedwars(reader);
+                } else {
+                    reader.skipValue();
+                    bedwars = null;
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return bedwars;
+    }
+
+    private static int[] readBedwars(JsonReader reader) throws IOException {
+        int[] values = new int[BEDWARS_KEYS.length];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            Integer index = BEDWARS_KEY_INDEX.get(reader.nextName());
+            if (index != null) {
+                values[index] = readInt(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return values;
+    }
+
+    private void applyBedwarsKeys(int[] bw) {
+        this.stars = calculateStars(bwInt(bw, "Experience"));
+
+        this.finalKills = bwInt(bw, "final_kills_bedwars");
+        this.finalDeaths = bwInt(bw, "final_deaths_bedwars");
+        this.wins = bwInt(bw, "wins_bedwars");
+        this.losses = bwInt(bw, "losses_bedwars");
+        this.bedsBroken = bwInt(bw, "beds_broken_bedwars");
+        this.fkdr = computeRatio(finalKills, finalDeaths);
+        this.wlr = computeRatio(wins, losses);
+
+        // Rolling monthly + weekly windows. Hypixel maintains two ping-pong
+        // buckets (_a/_b) per stat that together cover the full window.
+        this.monthlyFinalKills = sumBuckets(bw, "final_kills_bedwars_monthly");
+        this.monthlyFinalDeaths = sumBuckets(bw, "final_deaths_bedwars_monthly");
+        this.monthlyWins = sumBuckets(bw, "wins_bedwars_monthly");
+        this.monthlyLosses = sumBuckets(bw, "losses_bedwars_monthly");
+        this.monthlyFkdr = computeRatio(monthlyFinalKills, monthlyFinalDeaths);
+        this.monthlyWlr = computeRatio(monthlyWins, monthlyLosses);
+
+        this.weeklyFinalKills = sumBuckets(bw, "final_kills_bedwars_weekly");
+        this.weeklyFinalDeaths = sumBuckets(bw, "final_deaths_bedwars_weekly");
+        this.weeklyWins = sumBuckets(bw, "wins_bedwars_weekly");
+        this.weeklyLosses = sumBuckets(bw, "losses_bedwars_weekly");
+        this.weeklyFkdr = computeRatio(weeklyFinalKills, weeklyFinalDeaths);
+        this.weeklyWlr = computeRatio(weeklyWins, weeklyLosses);
+
+        // Per-mode career splits (solo/doubles/3s/4s). Lets a solos main be
+        // told apart from a fours stacker sitting at the same star/overall FKDR.
+        for (Mode mode : Mode.values()) {
+            int i = mode.ordinal();
+            modeFinalKills[i] = bwInt(bw, mode.prefix + "_final_kills_bedwars");
+            modeFinalDeaths[i] = bwInt(bw, mode.prefix + "_final_deaths_bedwars");
+            modeWins[i] = bwInt(bw, mode.prefix + "_wins_bedwars");
+            modeLosses[i] = bwInt(bw, mode.prefix + "_losses_bedwars");
+            modeFkdr[i] = computeRatio(modeFinalKills[i], modeFinalDeaths[i]);
+        }
+    }
+
+    private static int bwInt(int[] bw, String key) {
+        return bw[BEDWARS_KEY_INDEX.get(key)];
+    }
+
+    /**
+     * Boolean coercion matching JsonPrimitive.getAsBoolean: real booleans, or
+     * strings spelling "true"; anything else is false.
+     */
+    private static boolean readBoolean(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case STRING:
+            case NUMBER:
+                return Boolean.parseBoolean(reader.nextString());
+            default:
+                reader.skipValue();
+                return false;
+        }
+    }
+
+    /**
+     * Int coercion matching JsonPrimitive.getAsInt: numbers truncate (so
+     * {@code 1234.0} XP reads as 1234), numeric strings parse, anything else
+     * is 0.
+     */
+    private static int readInt(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return 0;
+        }
+        String raw = reader.nextString();
         try {
-            return el.getAsInt();
-        } catch (Exception e) {
+            return Integer.parseInt(raw);
+        } catch (NumberFormatException e) {
+            if (token != JsonToken.NUMBER) {
+                return 0;
+            }
+        }
+        try {
+            return new BigDecimal(raw).intValue();
+        } catch (NumberFormatException e) {
             return 0;
         }
     }
 
-    private static JsonObject getObject(JsonObject obj, String key) {
-        if (obj == null) return null;
-        JsonElement el = obj.get(key);
-        if (el == null || el.isJsonNull() || !el.isJsonObject()) return null;
-        return el.getAsJsonObject();
+    /**
+     * Number of ints in the compact counter record used by the persistent
+     * stats store: 6 career + 4 monthly + 4 weekly + 4 per-mode counters for
+     * each of the four modes. Ratios are derived, so they are not stored.
+     */
+    static final int RECORD_INTS = 6 + 4 + 4 + 4 * 4;
+
+    /**
+     * Raw counters as a flat record (order fixed by {@link #fromRecord}). Only
+     * meaningful for loaded, non-error stats.
+     */
+    int[] toRecord() {
+        int[] record = new int[RECORD_INTS];
+        int i = 0;
+        record[i++] = stars;
+        record[i++] = finalKills;
+        record[i++] = finalDeaths;
+        record[i++] = wins;
+        record[i++] = losses;
+        record[i++] = bedsBroken;
+        record[i++] = monthlyFinalKills;
+        record[i++] = monthlyFinalDeaths;
+        record[i++] = monthlyWins;
+        record[i++] = monthlyLosses;
+        record[i++] = weeklyFinalKills;
+        record[i++] = weeklyFinalDeaths;
+        record[i++] = weeklyWins;
+        record[i++] = weeklyLosses;
+        for (Mode mode : Mode.values()) {
+            int m = mode.ordinal();
+            record[i++] = modeFinalKills[m];
+            record[i++] = modeFinalDeaths[m];
+            record[i++] = modeWins[m];
+            record[i++] = modeLosses[m];
+        }
+        return record;
+    }
+
+    /**
+     * Rebuild loaded stats from a {@link #toRecord} record, recomputing every
+     * ratio. Returns null when the record has the wrong length.
+     */
+    static BedwarsStats fromRecord(String playerName, String uuid, boolean nicked, int[] record) {
+        if (record == null || record.length != RECORD_INTS) {
+            return null;
+        }
+        BedwarsStats stats = new BedwarsStats(playerName, uuid);
+        int i = 0;
+        stats.stars = record[i++];
+        stats.finalKills = record[i++];
+        stats.finalDeaths = record[i++];
+        stats.wins = record[i++];
+        stats.losses = record[i++];
+        stats.bedsBroken = record[i++];
+        stats.monthlyFinalKills = record[i++];
+        stats.monthlyFinalDeaths = record[i++];
+        stats.monthlyWins = record[i++];
+        stats.monthlyLosses = record[i++];
+        stats.weeklyFinalKills = record[i++];
+        stats.weeklyFinalDeaths = record[i++];
+        stats.weeklyWins = record[i++];
+        stats.weeklyLosses = record[i++];
+        for (Mode mode : Mode.values()) {
+            int m = mode.ordinal();
+            stats.modeFinalKills[m] = record[i++];
+            stats.modeFinalDeaths[m] = record[i++];
+            stats.modeWins[m] = record[i++];
+            stats.modeLosses[m] = record[i++];
+            stats.modeFkdr[m] = computeRatio(stats.modeFinalKills[m], stats.modeFinalDeaths[m]);
+        }
+        stats.fkdr = computeRatio(stats.finalKills, stats.finalDeaths);
+        stats.wlr = computeRatio(stats.wins, stats.losses);
+        stats.monthlyFkdr = computeRatio(stats.monthlyFinalKills, stats.monthlyFinalDeaths);
+        stats.monthlyWlr = computeRatio(stats.monthlyWins, stats.monthlyLosses);
+        stats.weeklyFkdr = computeRatio(stats.weeklyFinalKills, stats.weeklyFinalDeaths);
+        stats.weeklyWlr = computeRatio(stats.weeklyWins, stats.weeklyLosses);
+        stats.nicked = nicked;
+        stats.loaded = true;
+        return stats;
+    }
+
+    /**
+     * Shallow size of this object on a 64-bit JVM with compressed oops:
+     * 12-byte header, 8 references, 14 ints, 6 doubles and 4 booleans.
+     */
+    private static final int SHALLOW_BYTES = 12 + 8 * 4 + 14 * 4 + 6 * 8 + 4;
+
+    /**
+     * Rough retained size in bytes: this object, its five per-mode arrays and
+     * its strings. Used to bound HypixelAPI's in-memory cache; accurate to
+     * within object alignment, which is all the ceiling needs.
+     */
+    long estimatedBytes() {
+        int modes = Mode.values().length;
+        long arrays = 4 * align(16 + 4L * modes) + align(16 + 8L * modes);
+        return align(SHALLOW_BYTES) + arrays
+                + estimatedStringBytes(playerName) + estimatedStringBytes(uuid)
+                + estimatedStringBytes(errorMessage);
+    }
+
+    /** A Java 8 String: the object plus its char[]; 0 for null. */
+    static long estimatedStringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return align(24) + align(16 + 2L * value.length());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
     }
 
     /**
@@ -254,8 +534,8 @@ public class BedwarsStats {
      * a rolling window for monthly/weekly counters. Either bucket may be
      * missing if the player has not played in that period.
      */
-    private static int sumBuckets(JsonObject bw, String prefix) {
-        return getInt(bw, prefix + "_a") + getInt(bw, prefix + "_b");
+    private static int sumBuckets(int[] bw, String prefix) {
+        return bwInt(bw, prefix + "_a") + bwInt(bw, prefix + "_b");
     }
 
     private static double computeRatio(int num, int den) {
@@ -387,6 +667,16 @@ public class BedwarsStats {
         return String.format("%.1f", ratio);
     }
 
+    /** True when this is an aging cached copy that a background refresh will replace. */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /** Called by HypixelAPI when it starts serving this copy past its fresh window. */
+    public void markStale() {
+        stale = true;
+    }
+
     public String getDisplayString() {
         if (error) {
             return "\u00A77[Error]";
@@ -0,0 +1,327 @@
+package com.imshy.bedwars;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of game ends for {@link PlayerDatabase}
+ * (config/bedwarsstats/encounters.jsonl). Each game end is one JSON line,
+ * e.g. {@code {"n":42,"t":1700000000000,"o":"LOSS","p":["steve","alex"]}},
+ * so recording a game costs O(players in the game) however long the history
+ * grows.
+ *
+ * <p>{@code n} is a sequence number. The snapshot (playerdata.json) records
+ * the last sequence folded into it. At startup, only journal records past
+ * that are replayed. After each snapshot write, {@link #truncateThrough}
+ * drops the records the snapshot now holds. Once the journal passes
+ * {@code compactThresholdBytes}, {@code onCompactionDue} asks the database
+ * for a snapshot, which keeps the journal short.
+ *
+ * <p>File writes run in order on one daemon thread. A torn final line from
+ * a crash mid-append is cut off on replay, before the next append could run
+ * on from it.
+ */
+final class EncounterJournal {
+
+    private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
+
+    /** One game end. */
+    static final class Record {
+        final long seq;
+        final long timestamp;
+        final PlayerDatabase.GameOutcome outcome;
+        final List<String> players;
+
+        Record(long seq, long timestamp, PlayerDatabase.GameOutcome outcome, List<String> players) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.outcome = outcome;
+            this.players = players;
+        }
+    }
+
+    interface RecordVisitor {
+        void visit(Record record);
+    }
+
+    private final File file;
+    private final long compactThresholdBytes;
+    private final Runnable onCompactionDue;
+    private final ExecutorService writer;
+    /** Last sequence handed out; guarded by this. */
+    private long lastSeq;
+    /** Set once a compaction was requested, cleared by the next truncate. */
+    private volatile boolean compactionRequested;
+
+    EncounterJournal(File file, long compactThresholdBytes, Runnable onCompactionDue) {
+        this.file = file;
+        this.compactThresholdBytes = compactThresholdBytes;
+        this.onCompactionDue = onCompactionDue;
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "BedwarsStats-journal-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Visit every readable record with a sequence above {@code afterSeq}, in
+     * file order, and continue numbering after the highest sequence seen.
+     * Synchronous; call once at startup before any append. Also repairs a
+     * final line left without its newline (see {@link #repairTail}). Returns
+     * the number of records visited.
+     */
+    synchronized int replay(long afterSeq, RecordVisitor visitor) {
+        lastSeq = Math.max(lastSeq, afterSeq);
+        if (!file.exists()) {
+            return 0;
+        }
+        int visited = 0;
+        int skipped = 0;
+        boolean lastLineReadable = true;
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Record record = parse(line);
+                    lastLineReadable = record != null;
+                    if (record == null) {
+                        skipped++;
+                        continue;
+                    }
+                    lastSeq = Math.max(lastSeq, record.seq);
+                    if (record.seq > afterSeq) {
+                        visitor.visit(record);
+                        visited++;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error reading encounter journal: {}", e.getMessage());
+        }
+        if (skipped > 0) {
+            LOGGER.warn("Skipped {} unreadable encounter journal lines", skipped);
+        }
+        repairTail(lastLineReadable);
+        return visited;
+    }
+
+    /**
+     * A crash mid-append can leave the file without its final '\n'; the next
+     * append would then run on from that line, neither record would parse,
+     * and the next truncate would drop both. Terminate a readable last line,
+     * or cut an unreadable one back to the end of the previous line.
+     */
+    private void repairTail(boolean lastLineReadable) {
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                long length = raf.length();
+                if (length == 0) {
+                    return;
+                }
+                raf.seek(length - 1);
+                if (raf.read() == '\n') {
+                    return;
+                }
+                if (lastLineReadable) {
+                    raf.write('\n');
+                    return;
+                }
+                long end = length - 1;
+                while (end > 0) {
+                    raf.seek(end - 1);
+                    if (raf.read() == '\n') {
+                        break;
+                    }
+                    end--;
+                }
+                raf.setLength(end);
+                LOGGER.warn("Cut a torn encounter journal line ({} bytes)", length - end);
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error repairing encounter journal: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Number a game end and queue its line for writing. The caller holds the
+     * database's history lock, so sequence order matches the order records
+     * reach memory, and a snapshot can name exactly what it contains.
+     */
+    synchronized Record append(long timestamp, PlayerDatabase.GameOutcome outcome, Collection<String> players) {
+        final Record record = new Record(++lastSeq, timestamp, outcome,
+                Collections.unmodifiableList(new ArrayList<String>(players)));
+        run(new Runnable() {
+            @Override
+            public void run() {
+                writeLine(record);
+            }
+        });
+        return record;
+    }
+
+    /** Highest sequence handed out so far. */
+    synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Drop every record with a sequence at or below {@code seq}; the snapshot
+     * now holds them. Queued behind any pending appends.
+     */
+    void truncateThrough(final long seq) {
+        run(new Runnable() {
+            @Override
+            public void run() {
+                rewriteWithout(seq);
+            }
+        });
+    }
+
+    /** Finish queued writes (up to {@code timeoutMs}) and stop the writer. */
+    void shutdown(long timeoutMs) {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long sizeBytes() {
+        return file.length();
+    }
+
+    private void run(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shut down: write on the caller's thread rather than drop it.
+            synchronized (writer) {
+                task.run();
+            }
+        }
+    }
+
+    private void writeLine(Record record) {
+        try {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.exists()) {
+                dir.mkdirs();
+            }
+            OutputStream out = Files.newOutputStream(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            try {
+                w.write(format(record));
+                w.write('\n');
+            } finally {
+                w.close();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error appending to encounter journal: {}", e.getMessage());
+            return;
+        }
+        if (file.length() > compactThresholdBytes && !compactionRequested) {
+            compactionRequested = true;
+            LOGGER.debug("Encounter journal at {} bytes, requesting compaction", file.length());
+            onCompactionDue.run();
+        }
+    }
+
+    private void rewriteWithout(long seq) {
+        compactionRequested = false;
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            List<String> kept = new ArrayList<String>();
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                Record record = parse(line);
+                if (record != null && record.seq > seq) {
+                    kept.add(line);
+                }
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            Files.write(tmp.toPath(), kept, StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp.toPath(), file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error compacting encounter journal: {}", e.getMessage());
+        }
+    }
+
+    static String format(Record record) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("n", record.seq);
+        obj.addProperty("t", record.timestamp);
+        obj.addProperty("o", record.outcome.name());
+        JsonArray players = new JsonArray();
+        for (String player : record.players) {
+            players.add(new JsonPrimitive(player));
+        }
+        obj.add("p", players);
+        return obj.toString();
+    }
+
+    /** The record on {@code line}, or null if the line is blank, torn or malformed. */
+    static Record parse(String line) {
+        if (line == null || line.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            JsonObject obj = new JsonParser().parse(line).getAsJsonObject();
+            List<String> players = new ArrayList<String>();
+            for (JsonElement player : obj.getAsJsonArray("p")) {
+                players.add(player.getAsString());
+            }
+            return new Record(obj.get("n").getAsLong(), obj.get("t").getAsLong(),
+                    PlayerDatabase.GameOutcome.valueOf(obj.get("o").getAsString()), players);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
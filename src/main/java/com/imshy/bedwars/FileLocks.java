@@ -0,0 +1,55 @@
+package com.imshy.bedwars;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+/**
+ * Cross-process locking for the files several game clients on one machine
+ * share under config/bedwarsstats (stats cache, rate ledger, UUID cache).
+ *
+ * <p>The lock covers one byte far past the end of the file rather than its
+ * contents: on Windows a lock on the data region also blocks the holder's own
+ * memory-mapped access from other handles, while a sentinel byte nobody maps
+ * serializes the processes without that side effect. Java file locks are per
+ * JVM, so callers must also serialize their own threads (the stores
+ * synchronize on themselves).
+ */
+final class FileLocks {
+
+    private static final long SENTINEL_POSITION = Long.MAX_VALUE - 1;
+
+    private FileLocks() {
+    }
+
+    /** Block until this process holds the file's exclusive lock. */
+    static FileLock lock(FileChannel channel) throws IOException {
+        return channel.lock(SENTINEL_POSITION, 1, false);
+    }
+
+    /**
+     * The lock if it is free right now, else null. Never waits, so a reader
+     * on the client thread can treat contention as a miss.
+     */
+    static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock(SENTINEL_POSITION, 1, false);
+        } catch (OverlappingFileLockException e) {
+            // Held through another channel in this JVM.
+            return null;
+        }
+    }
+
+    /** Release quietly; the OS drops the lock when the process dies anyway. */
+    static void release(FileLock lock) {
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.release();
+        } catch (IOException e) {
+            // channel already closed; nothing held
+        }
+    }
+}
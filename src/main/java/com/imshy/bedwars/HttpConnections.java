@@ -0,0 +1,99 @@
+package com.imshy.bedwars;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Opens and releases the HttpURLConnections behind every Hypixel and Mojang
+ * call.
+ *
+ * <p>The JDK already keeps a per-host pool of idle keep-alive sockets (and
+ * their TLS sessions), but a socket only goes back into that pool if its
+ * response body, or error body, was read to the end and closed. Before this
+ * class existed, non-200 responses and early returns left bodies unread. Each
+ * such request then cost a fresh TCP and TLS handshake on the next call, and
+ * that handshake time was spent holding a worker thread. Every call site
+ * ends in {@link #release}, which drains and closes whichever body the
+ * response has.
+ */
+final class HttpConnections {
+
+    static final int CONNECT_TIMEOUT_MS = 5000;
+    static final int READ_TIMEOUT_MS = 5000;
+
+    /** Bodies larger than this are not worth draining; the socket is dropped instead. */
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private HttpConnections() {
+    }
+
+    /** A GET with the standard timeouts; {@code apiKey} may be null. */
+    static HttpURLConnection openGet(URL url, String apiKey) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod("GET");
+        if (apiKey != null) {
+            conn.setRequestProperty("API-Key", apiKey);
+        }
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        conn.setReadTimeout(READ_TIMEOUT_MS);
+        return conn;
+    }
+
+    /** A JSON POST with the standard timeouts; the body is written before returning. */
+    static HttpURLConnection openPostJson(URL url, byte[] body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        conn.setReadTimeout(READ_TIMEOUT_MS);
+        conn.setDoOutput(true);
+        conn.setFixedLengthStreamingMode(body.length);
+        OutputStream out = conn.getOutputStream();
+        try {
+            out.write(body);
+        } finally {
+            out.close();
+        }
+        return conn;
+    }
+
+    /**
+     * Read what is left of the response (success or error body) and close it,
+     * returning the socket to the JDK keep-alive pool. Never throws; safe to
+     * call from a finally block after the body was already consumed.
+     * Deliberately does not call {@code disconnect()}, which would close the
+     * socket outright.
+     */
+    static void release(HttpURLConnection conn) {
+        if (conn == null) {
+            return;
+        }
+        InputStream body;
+        try {
+            body = conn.getInputStream();
+        } catch (IOException e) {
+            body = conn.getErrorStream();
+        }
+        if (body == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[4096];
+            int drained = 0;
+            int n;
+            while (drained < MAX_DRAIN_BYTES && (n = body.read(buffer)) != -1) {
+                drained += n;
+            }
+        } catch (IOException ignored) {
+            // Already closed or reset — nothing left to reuse.
+        } finally {
+            try {
+                body.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
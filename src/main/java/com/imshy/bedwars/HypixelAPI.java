@@ -1,6 +1,5 @@
 package com.imshy.bedwars;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -8,13 +7,12 @@ import com.google.gson.JsonParser;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Utility class for Hypixel API communication
@@ -23,9 +21,16 @@ public class HypixelAPI {
 
     private static final String HYPIXEL_API_URL = "https://api.hypixel.net/v2/player";
     private static final String MOJANG_API_URL = "https://api.minecraftservices.com/minecraft/profile/lookup/name/";
+    private static final String MOJANG_BULK_API_URL = "https://api.minecraftservices.com/minecraft/profile/lookup/bulk/byname";
 
-    // Cache configuration
+    // Cache configuration. Stats are fresh for CACHE_EXPIRATION_MS; after that they
+    // keep being served, marked stale, while one BACKGROUND refresh replaces them,
+    // until ModConfig's hard-expiry horizon drops them for real.
     private static final long CACHE_EXPIRATION_MS = 60 * 60 * 1000; // 60 minutes
+    // Soonest a stale entry re-queues its refresh after a transient failure.
+    private static final long REVALIDATE_RETRY_MS = 30 * 1000;
+    // Longest hard expiry the config allows; the disk store keeps records this long.
+    private static final long CACHE_MAX_HARD_EXPIRY_MS = 24 * 60 * 60 * 1000; // 24 hours
 
     // Rate limiting configuration (Hypixel limit is 120 req/min)
     private static final int RATE_LIMIT_MAX = 120;
@@ -38,51 +43,127 @@ public class HypixelAPI {
     private static class CachedStats {
         BedwarsStats stats;
         long timestamp;
+        /** Set while the stale copy's background refresh is queued, or after it failed for good. */
+        final java.util.concurrent.atomic.AtomicBoolean refreshScheduled =
+                new java.util.concurrent.atomic.AtomicBoolean();
+        /** No new refresh before this time, after a transient failure. */
+        volatile long retryAfter;
 
         CachedStats(BedwarsStats stats) {
+            this(stats, System.currentTimeMillis());
+        }
+
+        CachedStats(BedwarsStats stats, long timestamp) {
             this.stats = stats;
-            this.timestamp = System.currentTimeMillis();
+            this.timestamp = timestamp;
         }
 
-        boolean isExpired() {
+        /** Past the fresh window: still served, but due for a refresh. */
+        boolean isStale() {
             return System.currentTimeMillis() - timestamp > CACHE_EXPIRATION_MS;
         }
 
+        /** Past the configured hard expiry: no longer served at all. */
+        boolean isHardExpired() {
+            return System.currentTimeMillis() - timestamp > hardExpiryMs();
+        }
+
         long getAgeMinutes() {
             return (System.currentTimeMillis() - timestamp) / (60 * 1000);
         }
+
+        /** This wrapper, its AtomicBoolean and the stats it holds. */
+        long estimatedBytes() {
+            return 32 + 16 + stats.estimatedBytes();
+        }
     }
 
     // Cache to avoid repeat API calls (now with expiration). Read on the client thread
-    // (getCachedStats / status) and written on the executor pool, so use concurrent maps.
-    private static final java.util.Map<String, CachedStats> statsCache =
-            new java.util.concurrent.ConcurrentHashMap<String, CachedStats>();
-    private static final java.util.Map<String, String> uuidCache =
-            new java.util.concurrent.ConcurrentHashMap<String, String>();
-
-    // Rate limiting tracking. requestTimestamps does a compound read-modify-write in
-    // checkRateLimit and is also read from /bw status, so every access synchronizes on it.
-    private static final java.util.List<Long> requestTimestamps = new java.util.ArrayList<Long>();
+    // (getCachedStats / status) and written on the executor pool. Bounded by the
+    // estimated bytes of its entries (ModConfig.statsCacheMemoryMb) with LRU
+    // eviction; players in the current match or on the blacklist are pinned.
+    private static final WeightedLruCache<String, CachedStats> statsCache =
+            new WeightedLruCache<String, CachedStats>(statsCacheMaxBytes(),
+                    new WeightedLruCache.Weigher<String, CachedStats>() {
+                        @Override
+                        public long weigh(String key, CachedStats value) {
+                            // Map entry (~40 B) plus the key string.
+                            return 40 + BedwarsStats.estimatedStringBytes(key) + value.estimatedBytes();
+                        }
+                    });
+    // Name -> UUID, including tab-seeded UUIDs. Entries are tiny, so it is
+    // bounded by count rather than bytes.
+    private static final int UUID_MEMORY_MAX_ENTRIES = 20000;
+    private static final WeightedLruCache.Weigher<String, Object> ONE_PER_ENTRY =
+            new WeightedLruCache.Weigher<String, Object>() {
+                @Override
+                public long weigh(String key, Object value) {
+                    return 1;
+                }
+            };
+    private static final WeightedLruCache<String, String> uuidCache =
+            new WeightedLruCache<String, String>(UUID_MEMORY_MAX_ENTRIES, ONE_PER_ENTRY);
+
+    // Warm-start copy of statsCache on disk (config/bedwarsstats/statscache.bin).
+    // Memory-mapped at pre-init, never parsed up front; see StatsStore. Every
+    // client on the machine using this config directory shares it: a fetch one
+    // publishes is a cache hit (and a known UUID) for the others.
+    private static final String STATS_STORE_FILE = "config/bedwarsstats/statscache.bin";
+    private static final StatsStore statsStore =
+            new StatsStore(new File(STATS_STORE_FILE), CACHE_MAX_HARD_EXPIRY_MS, StatsStore.DEFAULT_CAPACITY);
+    private static final java.util.concurrent.atomic.AtomicInteger sharedStatsHits =
+            new java.util.concurrent.atomic.AtomicInteger();
+    private static final java.util.concurrent.atomic.AtomicInteger sharedUuidHits =
+            new java.util.concurrent.atomic.AtomicInteger();
+
+    // Token bucket for the Hypixel quota, re-synced from the RateLimit-* response
+    // headers on every Hypixel reply. Its state lives in a ledger file shared by
+    // every client on the machine, since they spend one key; see RateLimitBucket.
+    private static final String RATE_LEDGER_FILE = "config/bedwarsstats/ratelimit.bin";
+    private static final RateLimitBucket rateLimitBucket =
+            new RateLimitBucket(RATE_LIMIT_MAX, RATE_LIMIT_WINDOW_MS,
+                    new SharedRateLedger(new File(RATE_LEDGER_FILE)));
     private static volatile int rateLimitedRequests = 0;
+
+    // Recent per-name failures (nick, not found, 5xx, timeout), so automatic
+    // fetch paths stop re-requesting a broken name; see NegativeCache.
+    private static final NegativeCache negativeCache = new NegativeCache(NegativeCache.DEFAULT_MAX_ENTRIES);
+    private static final java.util.concurrent.atomic.AtomicInteger negativeCacheSkips =
+            new java.util.concurrent.atomic.AtomicInteger();
     private static volatile String lastFetchError = null;
 
     private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
 
-    // Persistent UUID cache (config/bedwarsstats/uuidcache.json, same convention as
-    // PlayerDatabase). Saves a Mojang round-trip per known name across sessions.
-    private static final String UUID_CACHE_DIR = "config/bedwarsstats";
-    private static final String UUID_CACHE_FILE = "config/bedwarsstats/uuidcache.json";
-    private static final int UUID_CACHE_SCHEMA_VERSION = 2;
+    // Persistent UUID cache: an append-only log of Mojang-confirmed mappings
+    // (see UuidLog), replayed at startup and compacted once superseded records
+    // pile up. Saves a Mojang round-trip per known name across sessions.
+    private static final String UUID_CACHE_FILE = "config/bedwarsstats/uuidcache.log";
+    // Pretty-printed JSON snapshot from before the log; imported once, then set aside.
+    private static final String LEGACY_UUID_CACHE_FILE = "config/bedwarsstats/uuidcache.json";
+    // Cross-process lock for every read and write of UUID_CACHE_FILE.
+    private static final String UUID_CACHE_LOCK_FILE = "config/bedwarsstats/uuidcache.lock";
     private static final int UUID_CACHE_MAX_ENTRIES = 5000;
+    // The log is rewritten once it holds this many more records than live
+    // mappings (superseded, expired, or appended by other clients).
+    private static final int UUID_LOG_COMPACT_SLACK = 1000;
     private static final long UUID_CACHE_FLUSH_INTERVAL_MS = 60 * 1000;
     // Mojang's name-change cooldown is 30 days: a persisted name->UUID pair older
     // than this may legitimately point at a different account, so drop it at load.
     private static final long UUID_CACHE_TTL_MS = 30L * 24 * 60 * 60 * 1000;
 
-    // While rate limited, tab-scan paths pause requeueing for this long instead
-    // of retrying at their scan cadence (the team-danger path runs at 1 Hz).
+    // While rate limited, tab-scan paths pause requeueing until the bucket
+    // refills instead of retrying at their scan cadence (the team-danger path
+    // runs at 1 Hz). This fixed value is only the fallback for a 429 that
+    // carries no RateLimit-Reset header.
     private static final long RATE_LIMIT_BACKOFF_MS = 30 * 1000;
     private static volatile long rateLimitBackoffUntil = 0;
+    // A paced BACKGROUND refusal holds further BACKGROUND admissions until the
+    // pacing line would let one through; otherwise the render path re-queues
+    // a refresh per uncached nametag per frame, only for it to be refused.
+    private static volatile long backgroundPacedUntil = 0;
+    // The key Hypixel last answered 403 for. Automatic fetches stay off until
+    // the key changes (/bw setkey) or an explicit lookup with it succeeds.
+    private static volatile String rejectedApiKey = null;
 
     /**
      * Name -> Mojang-confirmed UUID + confirmation time. Only entries in this
@@ -91,8 +172,8 @@ public class HypixelAPI {
      * for nicked players) under the same name, and that one must stay
      * in-memory for the session only.
      */
-    private static final java.util.Map<String, ConfirmedUuid> confirmedUuids =
-            new java.util.concurrent.ConcurrentHashMap<String, ConfirmedUuid>();
+    private static final WeightedLruCache<String, ConfirmedUuid> confirmedUuids =
+            new WeightedLruCache<String, ConfirmedUuid>(UUID_CACHE_MAX_ENTRIES, ONE_PER_ENTRY);
 
     private static final class ConfirmedUuid {
         final String uuid;
@@ -108,20 +189,76 @@ public class HypixelAPI {
     private static volatile long lastUuidCacheFlush = 0;
     // Guards the file write itself; the map is already concurrent.
     private static final Object uuidCacheFileLock = new Object();
+    private static final UuidLog uuidLog =
+            new UuidLog(new File(UUID_CACHE_FILE), new File(UUID_CACHE_LOCK_FILE));
+    // Confirmed mappings not yet appended to the log, oldest first.
+    private static final java.util.concurrent.ConcurrentLinkedQueue<UuidLog.Record> unflushedUuids =
+            new java.util.concurrent.ConcurrentLinkedQueue<UuidLog.Record>();
+
+    /**
+     * Folds log records into memory, keeping whichever side confirmed a name
+     * more recently and dropping anything past UUID_CACHE_TTL_MS (the name may
+     * have changed hands). Counts what it took.
+     */
+    private static final class MergeIntoMemory implements UuidLog.Sink {
+        int merged;
 
-    // Thread pool for async API calls. The PriorityBlockingQueue lets high-value
-    // fetches (user lookups, unknown players) jump ahead of background refreshes.
+        @Override
+        public void accept(UuidLog.Record record) {
+            if (mergeConfirmedUuid(record.name, record.uuid, record.recordedAt, System.currentTimeMillis())) {
+                merged++;
+            }
+        }
+    }
+
+    /** The live confirmed mappings, for rewriting the log. */
+    private static final UuidLog.Snapshot CONFIRMED_UUIDS = new UuidLog.Snapshot() {
+        @Override
+        public java.util.List<UuidLog.Record> records() {
+            long now = System.currentTimeMillis();
+            java.util.List<UuidLog.Record> records = new java.util.ArrayList<UuidLog.Record>();
+            for (java.util.Map.Entry<String, ConfirmedUuid> entry : confirmedUuids.entriesSnapshot()) {
+                ConfirmedUuid confirmed = entry.getValue();
+                if (now - confirmed.recordedAt <= UUID_CACHE_TTL_MS) {
+                    records.add(new UuidLog.Record(entry.getKey(), confirmed.uuid, confirmed.recordedAt));
+                }
+            }
+            return records;
+        }
+    };
+
+    // Thread pools for async API calls, one per stage of a fetch: uuidExecutor
+    // resolves names through Mojang, executor fetches stats from Hypixel. A slow
+    // Mojang lookup therefore never holds a Hypixel worker, and two Hypixel
+    // workers on reused keep-alive connections (see HttpConnections) already
+    // outrun the rate budget. The PriorityBlockingQueues let high-value fetches
+    // (user lookups, unknown players) jump ahead of background refreshes.
     // Tasks MUST go through execute() wrapped in PrioritizedFetchTask — submit()
     // would wrap them in a non-Comparable FutureTask and the priority queue would
     // throw ClassCastException at runtime.
     private static final java.util.concurrent.ThreadPoolExecutor executor =
-            new java.util.concurrent.ThreadPoolExecutor(3, 3, 0L,
+            new java.util.concurrent.ThreadPoolExecutor(2, 2, 0L,
                     java.util.concurrent.TimeUnit.MILLISECONDS,
                     new java.util.concurrent.PriorityBlockingQueue<Runnable>());
-
-    static {
-        loadUuidCache();
-    }
+    private static final java.util.concurrent.ThreadPoolExecutor uuidExecutor =
+            new java.util.concurrent.ThreadPoolExecutor(1, 1, 0L,
+                    java.util.concurrent.TimeUnit.MILLISECONDS,
+                    new java.util.concurrent.PriorityBlockingQueue<Runnable>());
+    // Holds BACKGROUND Hypixel stages the token bucket is pacing until the
+    // wait it predicted has passed, then hands them back to executor. Its one
+    // thread only ever re-queues, so it never holds a fetch worker.
+    private static final java.util.concurrent.ScheduledThreadPoolExecutor pacingTimer =
+            new java.util.concurrent.ScheduledThreadPoolExecutor(1);
+
+    // The UUID cache file is parsed on a StartupLoader thread (see
+    // loadPersistentCaches), not in this class's initializer. Until it lands,
+    // lookups just miss and go to Mojang; flushes wait for it so a partial
+    // cache never overwrites the file.
+    private static final java.util.concurrent.atomic.AtomicBoolean uuidCacheLoadStarted =
+            new java.util.concurrent.atomic.AtomicBoolean();
+    private static final java.util.concurrent.CountDownLatch uuidCacheLoaded =
+            new java.util.concurrent.CountDownLatch(1);
+    private static final long UUID_CACHE_LOAD_WAIT_MS = 10000;
 
     /**
      * Priority of a queued stat fetch. Declaration order is dispatch order:
@@ -151,6 +288,8 @@ public class HypixelAPI {
 
         final FetchPriority priority;
         final long sequence;
+        /** When this task entered its queue; a priority raise starts a new task. */
+        final long enqueuedAt = System.currentTimeMillis();
         private final Runnable delegate;
 
         PrioritizedFetchTask(FetchPriority priority, Runnable delegate) {
@@ -218,8 +357,8 @@ public class HypixelAPI {
     public static void fetchStatsAsync(final String playerName, final StatsCallback callback,
             FetchPriority priority) {
         // Check cache first (with expiration)
-        CachedStats cached = statsCache.get(playerName.toLowerCase());
-        if (cached != null && !cached.isExpired()) {
+        CachedStats cached = lookupCachedStats(playerName);
+        if (cached != null && !(priority == FetchPriority.EXPLICIT && cached.isStale())) {
             LOGGER.debug("Using cached stats for {} ({} min old)", playerName, cached.getAgeMinutes());
             callback.onStatsLoaded(cached.stats);
             return;
@@ -231,49 +370,11 @@ public class HypixelAPI {
             return;
         }
 
-        // Run API call on background thread
-        executor.execute(new PrioritizedFetchTask(priority, () -> {
-            try {
-                // Step 1: Get UUID from Mojang
-                LOGGER.debug("Looking up UUID for: {}", playerName);
-                UuidLookupResult uuidResult = resolveUUID(playerName);
-                if (uuidResult.notFound) {
-                    // Mojang returned HTTP 404 — the name does not resolve to any
-                    // Minecraft account, which is the signature of a Hypixel nick.
-                    BedwarsStats nickedStats = BedwarsStats.createNicked(playerName);
-                    statsCache.put(playerName.toLowerCase(), new CachedStats(nickedStats));
-                    callback.onStatsLoaded(nickedStats);
-                    return;
-                }
-                if (uuidResult.uuid == null) {
-                    callback.onError("Could not get UUID for " + playerName + " - lookup failed");
-                    return;
-                }
-                String uuid = uuidResult.uuid;
-
-                // Step 2: Fetch stats from Hypixel
-                LOGGER.debug("Fetching Hypixel stats for UUID: {}", uuid);
-                String response = fetchHypixelStats(uuid);
-                if (response == null) {
-                    String reason = lastFetchError != null ? lastFetchError : "unknown error";
-                    callback.onError("Could not fetch Hypixel stats for " + playerName + " (" + reason + ")");
-                    return;
-                }
-
-                // Step 3: Parse stats
-                BedwarsStats stats = new BedwarsStats(playerName, uuid);
-                stats.parseFromJson(response);
-
-                // Cache the result with timestamp
-                statsCache.put(playerName.toLowerCase(), new CachedStats(stats));
-
-                callback.onStatsLoaded(stats);
+        if (rejectedByNegativeCache(playerName, callback, priority)) {
+            return;
+        }
 
-            } catch (Exception e) {
-                LOGGER.error("Exception fetching stats for {}: {}", playerName, e.getMessage(), e);
-                callback.onError("Error fetching stats: " + e.getMessage());
-            }
-        }));
+        submitFetch(playerName, null, callback, priority);
     }
 
     /**
@@ -290,8 +391,8 @@ public class HypixelAPI {
     public static void fetchStatsWithUuid(final String playerName, final String uuid, final StatsCallback callback,
             FetchPriority priority) {
         // Check cache first (with expiration)
-        CachedStats cached = statsCache.get(playerName.toLowerCase());
-        if (cached != null && !cached.isExpired()) {
+        CachedStats cached = lookupCachedStats(playerName);
+        if (cached != null && !(priority == FetchPriority.EXPLICIT && cached.isStale())) {
             LOGGER.debug("Using cached stats for {} ({} min old)", playerName, cached.getAgeMinutes());
             callback.onStatsLoaded(cached.stats);
             return;
@@ -303,41 +404,799 @@ public class HypixelAPI {
             return;
         }
 
+        if (rejectedByNegativeCache(playerName, callback, priority)) {
+            return;
+        }
+
         // Cache the UUID (skip nulls — ConcurrentHashMap forbids null values).
         // Not Mojang-confirmed: tab-list UUIDs are spoofed for nicked players.
         if (uuid != null) {
             recordUuidMapping(playerName, uuid, false);
         }
 
-        // Run API call on background thread
-        executor.execute(new PrioritizedFetchTask(priority, new Runnable() {
-            @Override
-            public void run() {
+        submitFetch(playerName, uuid, callback, priority);
+    }
+
+    /**
+     * Single admission decision for the automatic fetch paths (lobby tracker,
+     * tab scans, nametag render), asked after they found no cached stats:
+     * true when queueing a fetch for {@code playerName} is worth a request
+     * now. False without an API key, while a fetch for the name is already in
+     * flight, while the name has a live negative-cache memo, and, below
+     * EXPLICIT, while Hypixel rejects the key or during rate-limit backoff
+     * (for BACKGROUND, also while the bucket is pacing it).
+     */
+    public static boolean admitFetch(String playerName, FetchPriority priority) {
+        if (!hasApiKey()) {
+            return false;
+        }
+        if (priority != FetchPriority.EXPLICIT && isApiKeyRejected()) {
+            return false;
+        }
+        String key = PlayerKey.canonicalName(playerName);
+        synchronized (pendingFetchLock) {
+            if (pendingFetches.containsKey(key)) {
+                return false;
+            }
+        }
+        if (negativeCache.active(key, System.currentTimeMillis()) != null) {
+            return false;
+        }
+        if (priority == FetchPriority.EXPLICIT) {
+            return true;
+        }
+        if (priority == FetchPriority.BACKGROUND && System.currentTimeMillis() < backgroundPacedUntil) {
+            return false;
+        }
+        return !isRateLimitBackoffActive();
+    }
+
+    /** True while the current key is the one Hypixel last rejected with a 403. */
+    private static boolean isApiKeyRejected() {
+        String rejected = rejectedApiKey;
+        return rejected != null && rejected.equals(API_KEY);
+    }
+
+    /**
+     * Answer {@code callback} with an error instead of fetching when the name
+     * failed recently and its memo has not expired. EXPLICIT lookups (the
+     * user asked for this name) always go out.
+     */
+    private static boolean rejectedByNegativeCache(String playerName, StatsCallback callback,
+            FetchPriority priority) {
+        if (priority == FetchPriority.EXPLICIT) {
+            return false;
+        }
+        NegativeCache.Failure failure = negativeCache.active(PlayerKey.canonicalName(playerName),
+                System.currentTimeMillis());
+        if (failure == null) {
+            return false;
+        }
+        negativeCacheSkips.incrementAndGet();
+        callback.onError("Skipped " + playerName + " (" + failure.kind.label + " on last lookup)");
+        return true;
+    }
+
+    private static void recordFailure(String playerName, NegativeCache.Kind kind) {
+        NegativeCache.Failure failure = negativeCache.record(PlayerKey.canonicalName(playerName), kind,
+                System.currentTimeMillis());
+        LOGGER.debug("Negative-caching {} as {} (failure #{})", playerName, kind, failure.count);
+    }
+
+    /**
+     * One in-flight stat fetch for a player, shared by every caller that asks
+     * for that name before it resolves. The lobby tracker, both tab scans, the
+     * render path and /bw all routinely request the same player within one
+     * join burst; without this each of them spent its own rate-limit token.
+     * All fields are guarded by {@link #pendingFetchLock}. Package-private for
+     * unit tests.
+     */
+    static final class PendingFetch {
+        final String playerName;
+        /** Known UUID, if any caller supplied one — lets the fetch skip Mojang. */
+        String uuid;
+        /**
+         * The queued or running stage task (Mojang lookup or Hypixel fetch);
+         * replaced when a higher-priority caller joins.
+         */
+        PrioritizedFetchTask task;
+        /**
+         * Lobby generation this ticket belongs to (see
+         * {@link #cancelStaleFetches}); refreshed whenever a caller joins.
+         */
+        int generation;
+        /** Other names queued for the same UUID, collapsed into this ticket. */
+        final java.util.List<String> aliases = new java.util.ArrayList<String>();
+        /** Set once this ticket's waiters were moved onto another for the same UUID. */
+        boolean merged;
+        /** Set while the Hypixel stage waits on pacingTimer rather than in a queue. */
+        boolean paced;
+        private final java.util.List<StatsCallback> waiters = new java.util.ArrayList<StatsCallback>();
+
+        PendingFetch(String playerName, String uuid) {
+            this.playerName = playerName;
+            this.uuid = uuid;
+        }
+
+        void addWaiter(StatsCallback callback) {
+            if (callback != null) {
+                waiters.add(callback);
+            }
+        }
+
+        int waiterCount() {
+            return waiters.size();
+        }
+
+        /**
+         * True when {@code priority} outranks the queued task, i.e. the task
+         * should be pulled from the queue and resubmitted at the new level.
+         */
+        boolean shouldRaiseTo(FetchPriority priority) {
+            FetchPriority requested = priority != null ? priority : FetchPriority.NORMAL;
+            return task != null && requested.ordinal() < task.priority.ordinal();
+        }
+
+        /**
+         * True when the lobby moved on since this ticket was last requested
+         * ({@code currentGeneration} differs) and nobody asked for it
+         * explicitly — the fetch should be dropped when its task comes up.
+         */
+        boolean isCancelledAt(int currentGeneration) {
+            return generation != currentGeneration
+                    && (task == null || task.priority != FetchPriority.EXPLICIT);
+        }
+
+        /**
+         * Deliver one result to every waiter. A throwing waiter is logged and
+         * skipped so it cannot starve the callers attached after it.
+         */
+        static void fanOut(java.util.List<StatsCallback> waiters, BedwarsStats stats, String error) {
+            for (StatsCallback waiter : waiters) {
                 try {
-                    // Fetch stats from Hypixel directly (UUID already known)
-                    LOGGER.debug("Fetching stats for {} (UUID: {})", playerName, uuid);
-                    String response = fetchHypixelStats(uuid);
-                    if (response == null) {
-                        String reason = lastFetchError != null ? lastFetchError : "unknown error";
-                        callback.onError("Could not fetch Hypixel stats for " + playerName + " (" + reason + ")");
+                    if (stats != null) {
+                        waiter.onStatsLoaded(stats);
+                    } else {
+                        waiter.onError(error);
+                    }
+                } catch (Exception e) {
+                    LOGGER.error("Stats callback threw: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    // Lowercased name -> the one fetch currently queued or running for it.
+    private static final java.util.Map<String, PendingFetch> pendingFetches =
+            new java.util.HashMap<String, PendingFetch>();
+    private static final Object pendingFetchLock = new Object();
+    private static final java.util.concurrent.atomic.AtomicInteger coalescedRequests =
+            new java.util.concurrent.atomic.AtomicInteger();
+    // Dashed UUID -> the ticket fetching it, so two names for one account share a fetch.
+    private static final java.util.Map<String, PendingFetch> pendingByUuid =
+            new java.util.HashMap<String, PendingFetch>();
+    // Bumped on lobby change; tickets from an older generation are dropped
+    // when their task is dequeued instead of being searched for in the queue.
+    private static final java.util.concurrent.atomic.AtomicInteger fetchGeneration =
+            new java.util.concurrent.atomic.AtomicInteger();
+    private static final java.util.concurrent.atomic.AtomicInteger cancelledFetches =
+            new java.util.concurrent.atomic.AtomicInteger();
+    static final String FETCH_CANCELLED = "Cancelled: lobby changed";
+
+    /**
+     * Queue a fetch for {@code playerName}, or attach {@code callback} to the
+     * fetch already pending for that name. A fetch without a known UUID starts
+     * on the Mojang stage, otherwise straight on the Hypixel stage. A joining
+     * caller with a higher priority than the queued task pulls the task out of
+     * its queue and resubmits it at the new level; a joiner that brings a UUID
+     * lets a fetch still waiting for Mojang skip that stage. Once a stage is
+     * running, joiners simply wait for its result.
+     */
+    private static void submitFetch(String playerName, String uuid, StatsCallback callback,
+            FetchPriority priority) {
+        String key = PlayerKey.canonicalName(playerName);
+        synchronized (pendingFetchLock) {
+            PendingFetch pending = pendingFetches.get(key);
+            String knownUuid = null;
+            if (pending == null) {
+                knownUuid = uuid != null ? uuid : uuidCache.get(key);
+                pending = knownUuid != null ? pendingByUuid.get(knownUuid) : null;
+                if (pending != null) {
+                    // Same account already queued under another name.
+                    pending.aliases.add(playerName);
+                    pendingFetches.put(key, pending);
+                }
+            }
+            if (pending != null) {
+                pending.addWaiter(callback);
+                pending.generation = fetchGeneration.get();
+                coalescedRequests.incrementAndGet();
+                if (pending.uuid == null && uuid != null) {
+                    pending.uuid = uuid;
+                    if (uuidExecutor.remove(pending.task)) {
+                        FetchPriority target = pending.shouldRaiseTo(priority) ? priority : pending.task.priority;
+                        PendingFetch other = pendingByUuid.get(uuid);
+                        if (other != null) {
+                            mergeInto(pending, other, target);
+                        } else {
+                            pendingByUuid.put(uuid, pending);
+                            scheduleStatsStage(pending, target);
+                        }
                         return;
                     }
+                }
+                if (pending.shouldRaiseTo(priority)) {
+                    raisePending(pending, priority);
+                    LOGGER.debug("Raised pending fetch for {} to {}", playerName, priority);
+                }
+                return;
+            }
 
-                    // Parse stats
-                    BedwarsStats stats = new BedwarsStats(playerName, uuid);
-                    stats.parseFromJson(response);
+            PendingFetch created = new PendingFetch(playerName, knownUuid);
+            created.generation = fetchGeneration.get();
+            created.addWaiter(callback);
+            pendingFetches.put(key, created);
+            if (created.uuid != null) {
+                pendingByUuid.put(created.uuid, created);
+                scheduleStatsStage(created, priority);
+            } else {
+                scheduleUuidStage(created, priority);
+            }
+        }
+    }
 
+    /**
+     * Collapse {@code from} into {@code into}, the ticket already fetching the
+     * same UUID: waiters and names move over, and {@code into} is raised to
+     * {@code priority} if that outranks it. {@code from}'s own task must
+     * already be out of its queue or running (it checks {@code merged}).
+     * Caller holds pendingFetchLock.
+     */
+    private static void mergeInto(PendingFetch from, PendingFetch into, FetchPriority priority) {
+        from.merged = true;
+        into.waiters.addAll(from.waiters);
+        into.aliases.add(from.playerName);
+        into.aliases.addAll(from.aliases);
+        pendingFetches.put(PlayerKey.canonicalName(from.playerName), into);
+        for (String alias : from.aliases) {
+            pendingFetches.put(PlayerKey.canonicalName(alias), into);
+        }
+        into.generation = Math.max(into.generation, from.generation);
+        coalescedRequests.incrementAndGet();
+        if (into.shouldRaiseTo(priority)) {
+            raisePending(into, priority);
+        }
+        LOGGER.debug("Collapsed fetch for {} into {} (same UUID)", from.playerName, into.playerName);
+    }
+
+    /**
+     * Drop every queued fetch from the current lobby, in O(1): the generation
+     * moves on, and each stale ticket finishes with {@link #FETCH_CANCELLED}
+     * when its task is dequeued, without a request. EXPLICIT tickets, and any
+     * ticket a caller joins again after this call, still run. Called on lobby
+     * change, autoplay requeue, match end and {@code /bw reset}.
+     */
+    public static void cancelStaleFetches() {
+        int generation = fetchGeneration.incrementAndGet();
+        LOGGER.debug("Fetch generation -> {}", generation);
+    }
+
+    /** Finish {@code pending} as cancelled if its lobby is gone. Caller must NOT hold the lock. */
+    private static boolean finishIfCancelled(PendingFetch pending) {
+        synchronized (pendingFetchLock) {
+            if (pending.merged || !pending.isCancelledAt(fetchGeneration.get())) {
+                return pending.merged;
+            }
+        }
+        cancelledFetches.incrementAndGet();
+        LOGGER.debug("Dropping stale fetch for {}", pending.playerName);
+        finishPending(pending, null, FETCH_CANCELLED);
+        return true;
+    }
+
+    /** Queue the Mojang stage for {@code pending}. Caller holds pendingFetchLock. */
+    private static void scheduleUuidStage(PendingFetch pending, FetchPriority priority) {
+        pending.task = new PrioritizedFetchTask(priority, new UuidStageTask(pending));
+        uuidExecutor.execute(pending.task);
+    }
+
+    /**
+     * Mojang-stage body. A named class (not an anonymous Runnable) so the
+     * batching stage can recognise queued lookups and take them over.
+     */
+    private static final class UuidStageTask implements Runnable {
+        final PendingFetch pending;
+
+        UuidStageTask(PendingFetch pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void run() {
+            runUuidBatch(pending);
+        }
+    }
+
+    /** Queue the Hypixel stage for {@code pending}. Caller holds pendingFetchLock. */
+    private static void scheduleStatsStage(final PendingFetch pending, FetchPriority priority) {
+        pending.task = new PrioritizedFetchTask(priority, new Runnable() {
+            @Override
+            public void run() {
+                runPendingFetch(pending);
+            }
+        });
+        executor.execute(pending.task);
+    }
+
+    /**
+     * Re-queue the pending stage at {@code priority}. If the stage is already
+     * running the replacement is only recorded, so the raise still carries
+     * into the Hypixel stage when the Mojang stage hands over. Caller holds
+     * pendingFetchLock.
+     */
+    private static void raisePending(PendingFetch pending, FetchPriority priority) {
+        PrioritizedFetchTask raised = new PrioritizedFetchTask(priority, pending.task.delegate);
+        if (executor.remove(pending.task)) {
+            executor.execute(raised);
+        } else if (uuidExecutor.remove(pending.task)) {
+            uuidExecutor.execute(raised);
+        } else if (pending.paced) {
+            // Pacing only holds BACKGROUND work; the raised task goes now.
+            pending.paced = false;
+            executor.execute(raised);
+        }
+        pending.task = raised;
+    }
+
+    /**
+     * Mojang stage: starting from {@code first}, gather up to
+     * UuidBatch.MAX_NAMES queued lookups — waiting up to UuidBatch.WINDOW_MS
+     * for a join burst to fill the batch, unless the first lookup is EXPLICIT
+     * — and resolve them in one bulk request. Queued tasks are taken in
+     * priority order straight from the stage's queue, so a batch never holds
+     * back a higher-priority name. Each pending fetch then completes exactly
+     * as a single lookup would have.
+     */
+    private static void runUuidBatch(PendingFetch first) {
+        java.util.List<PendingFetch> batch = new java.util.ArrayList<PendingFetch>();
+        batch.add(first);
+        try {
+            boolean wait;
+            synchronized (pendingFetchLock) {
+                wait = first.task.priority != FetchPriority.EXPLICIT;
+            }
+            long deadline = System.currentTimeMillis() + UuidBatch.WINDOW_MS;
+            java.util.concurrent.BlockingQueue<Runnable> queue = uuidExecutor.getQueue();
+            while (batch.size() < UuidBatch.MAX_NAMES) {
+                long remaining = deadline - System.currentTimeMillis();
+                Runnable next = wait && remaining > 0
+                        ? queue.poll(remaining, java.util.concurrent.TimeUnit.MILLISECONDS)
+                        : queue.poll();
+                if (next == null) {
+                    break;
+                }
+                PendingFetch queued = uuidStagePending(next);
+                if (queued == null) {
+                    // Not a lookup: hand it back for the worker to run after
+                    // this batch. It sorted ahead of everything left, so stop.
+                    queue.offer(next);
+                    break;
+                }
+                batch.add(queued);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        java.util.Iterator<PendingFetch> live = batch.iterator();
+        while (live.hasNext()) {
+            if (finishIfCancelled(live.next())) {
+                live.remove();
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        java.util.Map<String, UuidLookupResult> results;
+        try {
+            results = resolveUuids(batch);
+        } catch (Exception e) {
+            LOGGER.error("Exception resolving UUIDs: {}", e.getMessage(), e);
+            for (PendingFetch pending : batch) {
+                recordFailure(pending.playerName, NegativeCache.Kind.TIMEOUT);
+                finishPending(pending, null, "Error fetching stats: " + e.getMessage());
+            }
+            return;
+        }
+        for (PendingFetch pending : batch) {
+            completeUuidStage(pending, results.get(PlayerKey.canonicalName(pending.playerName)));
+        }
+    }
+
+    /** The fetch a queued Mojang-stage task carries, or null for any other task. */
+    private static PendingFetch uuidStagePending(Runnable task) {
+        if (task instanceof PrioritizedFetchTask
+                && ((PrioritizedFetchTask) task).delegate instanceof UuidStageTask) {
+            return ((UuidStageTask) ((PrioritizedFetchTask) task).delegate).pending;
+        }
+        return null;
+    }
+
+    /**
+     * Lowercased name -> lookup result for every fetch in {@code batch}.
+     * Cached names need no request; a single unknown name uses the plain
+     * lookup, two or more share one bulk request.
+     */
+    private static java.util.Map<String, UuidLookupResult> resolveUuids(java.util.List<PendingFetch> batch) {
+        java.util.Map<String, UuidLookupResult> results = new java.util.HashMap<String, UuidLookupResult>();
+        java.util.List<String> unknown = new java.util.ArrayList<String>();
+        for (PendingFetch pending : batch) {
+            String key = PlayerKey.canonicalName(pending.playerName);
+            String cached = uuidCache.get(key);
+            if (cached == null) {
+                cached = publishedUuid(pending.playerName);
+            }
+            if (cached != null) {
+                results.put(key, new UuidLookupResult(cached, false));
+            } else if (!results.containsKey(key)) {
+                results.put(key, null);
+                unknown.add(pending.playerName);
+            }
+        }
+        if (unknown.size() == 1) {
+            LOGGER.debug("Looking up UUID for: {}", unknown.get(0));
+            results.put(PlayerKey.canonicalName(unknown.get(0)), resolveUUID(unknown.get(0)));
+        } else if (!unknown.isEmpty()) {
+            LOGGER.debug("Looking up {} UUIDs in one bulk request", unknown.size());
+            results.putAll(resolveUuidsBulk(unknown));
+        }
+        return results;
+    }
+
+    /**
+     * Hand one fetch on after its Mojang lookup: nicked on a 404 (or absence
+     * from a bulk response), an error on a failed lookup, otherwise on to the
+     * Hypixel stage at the fetch's current priority.
+     */
+    private static void completeUuidStage(PendingFetch pending, UuidLookupResult uuidResult) {
+        String playerName = pending.playerName;
+        if (uuidResult != null && uuidResult.notFound) {
+            // Mojang does not know the name — the name does not resolve to any
+            // Minecraft account, which is the signature of a Hypixel nick.
+            BedwarsStats nicked = BedwarsStats.createNicked(playerName);
+            cacheStats(playerName, nicked);
+            recordFailure(playerName, NegativeCache.Kind.NICKED);
+            finishPending(pending, nicked, null);
+            return;
+        }
+        if (uuidResult == null || uuidResult.uuid == null) {
+            // Mojang timed out, failed or rate limited us — retry soon.
+            recordFailure(playerName, NegativeCache.Kind.TIMEOUT);
+            finishPending(pending, null, "Could not get UUID for " + playerName + " - lookup failed");
+            return;
+        }
+        try {
+            synchronized (pendingFetchLock) {
+                if (pending.merged) {
+                    return;
+                }
+                pending.uuid = uuidResult.uuid;
+                PendingFetch other = pendingByUuid.get(pending.uuid);
+                if (other != null && other != pending) {
+                    mergeInto(pending, other, pending.task.priority);
+                    return;
+                }
+                pendingByUuid.put(pending.uuid, pending);
+                scheduleStatsStage(pending, pending.task.priority);
+            }
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // Shutting down.
+            finishPending(pending, null, "Error fetching stats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hypixel stage of a coalesced fetch: fetch, parse, cache — then
+     * unregister and fan the result out.
+     */
+    private static void runPendingFetch(PendingFetch pending) {
+        if (finishIfCancelled(pending)) {
+            return;
+        }
+        String playerName = pending.playerName;
+        String uuid;
+        FetchPriority priority;
+        java.util.List<String> aliases;
+        synchronized (pendingFetchLock) {
+            uuid = pending.uuid;
+            priority = pending.task != null ? pending.task.priority : FetchPriority.NORMAL;
+            aliases = new java.util.ArrayList<String>(pending.aliases);
+        }
+
+        BedwarsStats result = null;
+        String error = null;
+        try {
+            CachedStats published = uuid != null ? publishedStats(playerName) : null;
+            if (published != null) {
+                // Another client on this machine fetched them first.
+                LOGGER.debug("Using stats for {} published by another client", playerName);
+                putCachedStats(PlayerKey.canonicalName(playerName), published);
+                for (String alias : aliases) {
+                    putCachedStats(PlayerKey.canonicalName(alias), published);
+                }
+                negativeCache.succeeded(PlayerKey.canonicalName(playerName));
+                sharedStatsHits.incrementAndGet();
+                result = published.stats;
+            } else if (uuid == null) {
+                error = "Could not get UUID for " + playerName + " - lookup failed";
+            } else {
+                long wait = checkRateLimit(priority);
+                if (wait > 0 && priority == FetchPriority.BACKGROUND && pace(pending, wait)) {
+                    return;
+                }
+                // Fetch stats from Hypixel
+                LOGGER.debug("Fetching stats for {} (UUID: {})", playerName, uuid);
+                // Parsing happens inside, straight off the response stream.
+                BedwarsStats stats = wait > 0 ? null : fetchHypixelStats(playerName, uuid);
+                if (stats == null) {
+                    String reason = lastFetchError != null ? lastFetchError : "unknown error";
+                    error = "Could not fetch Hypixel stats for " + playerName + " (" + reason + ")";
+                } else if (stats.hasError()) {
+                    // Answered without a usable profile: hand the error object
+                    // to the waiters, but memo it instead of caching it.
+                    recordFailure(playerName, NegativeCache.Kind.NOT_FOUND);
+                    result = stats;
+                } else {
                     // Cache the result with timestamp
-                    statsCache.put(playerName.toLowerCase(), new CachedStats(stats));
+                    cacheStats(playerName, stats);
+                    for (String alias : aliases) {
+                        putCachedStats(PlayerKey.canonicalName(alias), new CachedStats(stats));
+                    }
+                    if (stats.isNicked()) {
+                        recordFailure(playerName, NegativeCache.Kind.NICKED);
+                    } else {
+                        negativeCache.succeeded(PlayerKey.canonicalName(playerName));
+                    }
+                    result = stats;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception fetching stats for {}: {}", playerName, e.getMessage(), e);
+            recordFailure(playerName, NegativeCache.Kind.TIMEOUT);
+            result = null;
+            error = "Error fetching stats: " + e.getMessage();
+        }
 
-                    callback.onStatsLoaded(stats);
+        finishPending(pending, result, error);
+    }
 
-                } catch (Exception e) {
-                    LOGGER.error("Exception fetching stats for {}: {}", playerName, e.getMessage(), e);
-                    callback.onError("Error fetching stats: " + e.getMessage());
+    /**
+     * Hold {@code pending}'s Hypixel stage for {@code waitMs}, the time the
+     * bucket predicted until BACKGROUND may spend again, then queue it
+     * again. Waiters stay attached throughout, and a caller that raises the
+     * ticket meanwhile releases it at once (see {@link #raisePending}).
+     * False when the timer is shut down; the fetch then fails as throttled.
+     */
+    private static boolean pace(final PendingFetch pending, long waitMs) {
+        synchronized (pendingFetchLock) {
+            if (pending.merged) {
+                return true;
+            }
+            pending.paced = true;
+            try {
+                pacingTimer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        releasePaced(pending);
+                    }
+                }, waitMs, java.util.concurrent.TimeUnit.MILLISECONDS);
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                pending.paced = false;
+                return false;
+            }
+        }
+        LOGGER.debug("Pacing BACKGROUND fetch for {} by {} ms", pending.playerName, waitMs);
+        return true;
+    }
+
+    /** Hand a paced stage back to executor, unless a raise already did. */
+    private static void releasePaced(PendingFetch pending) {
+        try {
+            synchronized (pendingFetchLock) {
+                if (!pending.paced) {
+                    return;
+                }
+                pending.paced = false;
+                executor.execute(pending.task);
+            }
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // Shutting down.
+            finishPending(pending, null, "Error fetching stats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fresh stats another client sharing the stats store published since this
+     * one last cached the name, or null. Checked just before a Hypixel
+     * request, so clients in the same lobby fetch each player once between
+     * them.
+     */
+    private static CachedStats publishedStats(String playerName) {
+        long now = System.currentTimeMillis();
+        StatsStore.Entry stored = statsStore.get(playerName, now);
+        if (stored == null || now - stored.savedAt > CACHE_EXPIRATION_MS) {
+            return null;
+        }
+        CachedStats held = statsCache.peek(PlayerKey.canonicalName(playerName));
+        if (held != null && held.timestamp >= stored.savedAt) {
+            return null;
+        }
+        return new CachedStats(stored.stats, stored.savedAt);
+    }
+
+    /**
+     * A UUID for {@code playerName} from the shared stats store, which keeps
+     * the UUID of every fetched player, or null. Recorded as unconfirmed, so
+     * this client does not persist it; the publisher already has.
+     */
+    private static String publishedUuid(String playerName) {
+        String uuid = statsStore.uuidFor(playerName, System.currentTimeMillis(), UUID_CACHE_TTL_MS);
+        if (uuid != null) {
+            recordUuidMapping(playerName, uuid, false);
+            sharedUuidHits.incrementAndGet();
+        }
+        return uuid;
+    }
+
+    /**
+     * Unregister {@code pending} and fan its result out. The entry is removed
+     * under the lock BEFORE delivery, so a caller arriving after that point
+     * starts a fresh fetch (or hits the cache) instead of attaching to a
+     * request that has already answered.
+     */
+    private static void finishPending(PendingFetch pending, BedwarsStats result, String error) {
+        java.util.List<StatsCallback> waiters;
+        synchronized (pendingFetchLock) {
+            pendingFetches.remove(PlayerKey.canonicalName(pending.playerName), pending);
+            for (String alias : pending.aliases) {
+                pendingFetches.remove(PlayerKey.canonicalName(alias), pending);
+            }
+            if (pending.uuid != null) {
+                pendingByUuid.remove(pending.uuid, pending);
+            }
+            waiters = new java.util.ArrayList<StatsCallback>(pending.waiters);
+        }
+        PendingFetch.fanOut(waiters, result, error);
+    }
+
+    /**
+     * Cached stats from memory, falling back to the on-disk warm-start store,
+     * or null once they are past the hard expiry. A disk hit is promoted into
+     * statsCache with its original fetch time, so its age carries over. Stale
+     * entries are still returned; the first lookup that finds one marks it
+     * stale and queues its refresh. Runs on the client thread, so the store is
+     * only tried without waiting; a record it could not reach then is found
+     * by the queued fetch's {@link #publishedStats} check instead.
+     */
+    private static CachedStats lookupCachedStats(String playerName) {
+        String key = PlayerKey.canonicalName(playerName);
+        CachedStats cached = statsCache.get(key);
+        if (cached == null || cached.isHardExpired()) {
+            long now = System.currentTimeMillis();
+            StatsStore.Entry stored = statsStore.tryGet(playerName, now);
+            if (stored == null || now - stored.savedAt > hardExpiryMs()) {
+                if (cached != null) {
+                    statsCache.remove(key, cached);
                 }
+                return null;
             }
-        }));
+            cached = new CachedStats(stored.stats, stored.savedAt);
+            putCachedStats(key, cached);
+        }
+        if (cached.isStale()) {
+            scheduleRevalidation(playerName, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Mark a stale entry and queue its single BACKGROUND refresh. The refresh
+     * goes through the normal coalesced path, so it joins (or is raised by) any
+     * other fetch for the name. A refresh that fails transiently (cancelled,
+     * throttled, timeout, 5xx) is queued again by a lookup at least
+     * REVALIDATE_RETRY_MS later; one the negative cache holds as not found
+     * or nicked is not retried for that entry, which keeps serving until hard
+     * expiry or the next successful fetch.
+     */
+    private static void scheduleRevalidation(final String playerName, final CachedStats cached) {
+        if (cached.refreshScheduled.get() || System.currentTimeMillis() < cached.retryAfter) {
+            return;
+        }
+        cached.stats.markStale();
+        if (!hasApiKey() || isApiKeyRejected()) {
+            return;
+        }
+        if (!cached.refreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        LOGGER.debug("Revalidating stale stats for {} ({} min old)", playerName, cached.getAgeMinutes());
+        submitFetch(playerName, uuidCache.get(PlayerKey.canonicalName(playerName)), new StatsCallback() {
+            @Override
+            public void onStatsLoaded(BedwarsStats stats) {
+            }
+
+            @Override
+            public void onError(String error) {
+                long now = System.currentTimeMillis();
+                NegativeCache.Failure failure = negativeCache.active(PlayerKey.canonicalName(playerName), now);
+                if (failure != null && (failure.kind == NegativeCache.Kind.NOT_FOUND
+                        || failure.kind == NegativeCache.Kind.NICKED)) {
+                    return;
+                }
+                long retryAt = Math.max(now + REVALIDATE_RETRY_MS,
+                        Math.max(rateLimitBackoffUntil, backgroundPacedUntil));
+                if (failure != null) {
+                    retryAt = Math.max(retryAt, failure.until);
+                }
+                cached.retryAfter = retryAt;
+                cached.refreshScheduled.set(false);
+            }
+        }, FetchPriority.BACKGROUND);
+    }
+
+    /**
+     * Callback for fetches that are only wanted for the cache they fill
+     * (tab scans, the render path); results land there via
+     * cacheStats, failures in the negative cache.
+     */
+    public static final StatsCallback DISCARD_RESULT = new StatsCallback() {
+        @Override
+        public void onStatsLoaded(BedwarsStats stats) {
+        }
+
+        @Override
+        public void onError(String error) {
+        }
+    };
+
+    private static long hardExpiryMs() {
+        return Math.max(CACHE_EXPIRATION_MS, ModConfig.getStatsHardExpiryMinutes() * 60L * 1000L);
+    }
+
+    /** Cache freshly fetched stats in memory and write them through to disk. */
+    private static void cacheStats(String playerName, BedwarsStats stats) {
+        CachedStats cached = new CachedStats(stats);
+        putCachedStats(PlayerKey.canonicalName(playerName), cached);
+        statsStore.put(stats, cached.timestamp);
+    }
+
+    private static void putCachedStats(String key, CachedStats cached) {
+        // Picks up a /bw config change on the next insert.
+        statsCache.setMaxWeight(statsCacheMaxBytes());
+        statsCache.put(key, cached);
+    }
+
+    private static long statsCacheMaxBytes() {
+        return ModConfig.getStatsCacheMemoryMb() * 1024L * 1024L;
+    }
+
+    /**
+     * Replace the set of players the in-memory caches must not evict: the
+     * current match and the blacklist. Pushed once a second by a scheduled
+     * client-thread job; the caches only ever read the snapshot.
+     */
+    public static void setPinnedPlayers(java.util.Collection<String> playerNames) {
+        java.util.Set<String> keys = new java.util.HashSet<String>();
+        for (String name : playerNames) {
+            if (name != null) {
+                keys.add(PlayerKey.canonicalName(name));
+            }
+        }
+        java.util.Set<String> pinned = java.util.Collections.unmodifiableSet(keys);
+        statsCache.setPinned(pinned);
+        uuidCache.setPinned(pinned);
+        confirmedUuids.setPinned(pinned);
     }
 
     /**
@@ -361,16 +1220,14 @@ public class HypixelAPI {
      */
     private static UuidLookupResult resolveUUID(String playerName) {
         // Check cache
-        if (uuidCache.containsKey(playerName.toLowerCase())) {
-            return new UuidLookupResult(uuidCache.get(playerName.toLowerCase()), false);
+        String key = PlayerKey.canonicalName(playerName);
+        if (uuidCache.containsKey(key)) {
+            return new UuidLookupResult(uuidCache.get(key), false);
         }
 
+        HttpURLConnection conn = null;
         try {
-            URL url = new URL(MOJANG_API_URL + playerName);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
+            conn = HttpConnections.openGet(new URL(MOJANG_API_URL + playerName), null);
 
             int responseCode = conn.getResponseCode();
             if (responseCode == 404) {
@@ -380,17 +1237,9 @@ public class HypixelAPI {
                 return new UuidLookupResult(null, false);
             }
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-            reader.close();
-
             // Parse UUID from response using Gson
-            String json = response.toString();
-            JsonObject jsonObj = new JsonParser().parse(json).getAsJsonObject();
+            JsonObject jsonObj = new JsonParser().parse(
+                    new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8)).getAsJsonObject();
 
             if (!jsonObj.has("id")) {
                 return new UuidLookupResult(null, false);
@@ -406,95 +1255,170 @@ public class HypixelAPI {
         } catch (Exception e) {
             LOGGER.warn("Error getting UUID for {}: {}", playerName, e.getMessage());
             return new UuidLookupResult(null, false);
+        } finally {
+            HttpConnections.release(conn);
         }
     }
 
     /**
-     * Check and update rate limit before making a request
-     * Returns true if request is allowed, false if rate limited
+     * Resolve several names with one Mojang bulk request. Every name found is
+     * recorded as Mojang-confirmed; a name missing from a successful response
+     * is reported as not found (nicked), the same as a single-lookup 404. Any
+     * request failure leaves every name as a failed lookup.
      */
-    private static boolean checkRateLimit() {
-        long now = System.currentTimeMillis();
-
-        synchronized (requestTimestamps) {
-            // Remove old timestamps outside the window
-            java.util.Iterator<Long> iter = requestTimestamps.iterator();
-            while (iter.hasNext()) {
-                if (now - iter.next() > RATE_LIMIT_WINDOW_MS) {
-                    iter.remove();
-                }
+    private static java.util.Map<String, UuidLookupResult> resolveUuidsBulk(java.util.List<String> names) {
+        java.util.Map<String, UuidLookupResult> results = new java.util.HashMap<String, UuidLookupResult>();
+        HttpURLConnection conn = null;
+        try {
+            conn = HttpConnections.openPostJson(new URL(MOJANG_BULK_API_URL),
+                    UuidBatch.requestBody(names).getBytes(StandardCharsets.UTF_8));
+            int responseCode = conn.getResponseCode();
+            if (responseCode != 200) {
+                LOGGER.warn("Mojang bulk lookup returned HTTP {} for {} names", responseCode, names.size());
+                return results;
             }
-
-            // Check if we're at the limit
-            if (requestTimestamps.size() >= RATE_LIMIT_MAX) {
-                rateLimitedRequests++;
-                return false;
+            java.util.Map<String, String> ids = UuidBatch.parseResponse(
+                    new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+            for (String name : names) {
+                String id = ids.get(PlayerKey.canonicalName(name));
+                if (id == null) {
+                    results.put(PlayerKey.canonicalName(name), new UuidLookupResult(null, true));
+                } else {
+                    String uuid = formatUUID(id);
+                    recordUuidMapping(name, uuid, true);
+                    results.put(PlayerKey.canonicalName(name), new UuidLookupResult(uuid, false));
+                }
             }
+            return results;
+        } catch (Exception e) {
+            LOGGER.warn("Error in Mojang bulk lookup for {} names: {}", names.size(), e.getMessage());
+            return results;
+        } finally {
+            HttpConnections.release(conn);
+        }
+    }
 
-            // Record this request
-            requestTimestamps.add(now);
-            return true;
+    /**
+     * Take a token for a Hypixel request. Returns 0 if the request may go
+     * out, otherwise the ms until this priority could have one. A refused
+     * non-BACKGROUND request is dropped and arms the tab-scan backoff until
+     * the bucket refills; a paced BACKGROUND refusal only holds back further
+     * BACKGROUND admissions, since higher priorities may still have tokens,
+     * and its fetch is paced rather than dropped (see {@link #pace}).
+     */
+    private static long checkRateLimit(FetchPriority priority) {
+        long now = System.currentTimeMillis();
+        long wait = rateLimitBucket.tryAcquire(priority, now);
+        if (wait == 0) {
+            return 0;
+        }
+        rateLimitedRequests++;
+        lastFetchError = "rate limited (local throttle)";
+        if (priority != FetchPriority.BACKGROUND) {
+            LOGGER.warn("Rate limited — {} request dropped (local throttle)", priority);
+            rateLimitBackoffUntil = Math.max(rateLimitBackoffUntil, now + wait);
+        } else {
+            backgroundPacedUntil = Math.max(backgroundPacedUntil, now + wait);
         }
+        return wait;
     }
 
     /**
-     * Fetch player stats from Hypixel API
+     * Re-sync the token bucket from Hypixel's RateLimit-Limit / -Remaining /
+     * -Reset headers. Returns false when the response carried none of them.
      */
-    private static String fetchHypixelStats(String uuid) {
-        if (!checkRateLimit()) {
-            LOGGER.warn("Rate limited — request dropped (local throttle)");
-            lastFetchError = "rate limited (local throttle)";
-            rateLimitBackoffUntil = System.currentTimeMillis() + RATE_LIMIT_BACKOFF_MS;
-            return null;
+    private static boolean syncRateLimit(HttpURLConnection conn, long now) {
+        int limit = parseHeaderInt(conn.getHeaderField("RateLimit-Limit"));
+        int remaining = parseHeaderInt(conn.getHeaderField("RateLimit-Remaining"));
+        int reset = parseHeaderInt(conn.getHeaderField("RateLimit-Reset"));
+        if (limit < 0 && remaining < 0 && reset < 0) {
+            return false;
+        }
+        rateLimitBucket.sync(limit, remaining, reset, now);
+        return true;
+    }
+
+    private static int parseHeaderInt(String value) {
+        if (value == null) {
+            return -1;
         }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 
+    /**
+     * Fetch player stats from Hypixel API and parse them as the body streams
+     * in. The /v2/player document is never buffered: BedwarsStats reads only
+     * player.stats.Bedwars and skips the rest. Returns null (with
+     * lastFetchError set) when the request itself fails. The caller has
+     * already taken a token (see {@link #checkRateLimit}).
+     */
+    private static BedwarsStats fetchHypixelStats(String playerName, String uuid) {
+        HttpURLConnection conn = null;
         try {
-            String urlString = HYPIXEL_API_URL + "?uuid=" + uuid;
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("API-Key", API_KEY);
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
+            conn = HttpConnections.openGet(new URL(HYPIXEL_API_URL + "?uuid=" + uuid), API_KEY);
 
             int responseCode = conn.getResponseCode();
+            long now = System.currentTimeMillis();
+            boolean synced = syncRateLimit(conn, now);
             if (responseCode == 429) {
                 LOGGER.warn("Hypixel API rate limit reached (429)");
                 rateLimitedRequests++;
                 lastFetchError = "rate limited by Hypixel (429)";
-                rateLimitBackoffUntil = System.currentTimeMillis() + RATE_LIMIT_BACKOFF_MS;
+                if (!synced) {
+                    rateLimitBucket.drainUntil(now + RATE_LIMIT_BACKOFF_MS);
+                }
+                rateLimitBackoffUntil = rateLimitBucket.snapshot(now).resetAt;
                 return null;
             }
             if (responseCode == 403) {
                 LOGGER.error("Hypixel API returned 403 — invalid API key. Use /bw setkey <key> to set a valid key.");
                 lastFetchError = "invalid API key (403)";
+                rejectedApiKey = API_KEY;
                 return null;
             }
             if (responseCode != 200) {
                 LOGGER.warn("Hypixel API returned unexpected status: {}", responseCode);
                 lastFetchError = "HTTP " + responseCode;
+                recordFailure(playerName, failureKindForStatus(responseCode));
                 return null;
             }
 
             lastFetchError = null;
+            rejectedApiKey = null;
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-            reader.close();
-
-            return response.toString();
+            BedwarsStats stats = new BedwarsStats(playerName, uuid);
+            stats.parseFromStream(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+            return stats;
 
         } catch (Exception e) {
             LOGGER.error("Error fetching Hypixel stats: {}", e.getMessage());
             lastFetchError = e.getMessage();
+            recordFailure(playerName, NegativeCache.Kind.TIMEOUT);
             return null;
+        } finally {
+            // Drain + close either body so the socket returns to the keep-alive pool.
+            HttpConnections.release(conn);
         }
     }
 
+    /**
+     * How a non-200 answer is remembered for the name, or null when it is not
+     * a per-name failure at all: a 429 is backed off by the token bucket and a
+     * 403 is the API key, which {@link #isApiKeyRejected} gates. Only a 404
+     * says the player is absent; any other status (400, 5xx, ...) is a short
+     * SERVER_ERROR memo, retried soon and never taken as absent.
+     */
+    static NegativeCache.Kind failureKindForStatus(int responseCode) {
+        if (responseCode == 429 || responseCode == 403) {
+            return null;
+        }
+        return responseCode == 404 ? NegativeCache.Kind.NOT_FOUND : NegativeCache.Kind.SERVER_ERROR;
+    }
+
     /**
      * Format UUID without dashes to UUID with dashes
      */
@@ -515,12 +1439,14 @@ public class HypixelAPI {
      * from the tab list can be Hypixel nick fakes and must not outlive the session.
      */
     private static void recordUuidMapping(String playerName, String uuid, boolean mojangConfirmed) {
-        String key = playerName.toLowerCase();
+        String key = PlayerKey.canonicalName(playerName);
         uuidCache.put(key, uuid);
         if (mojangConfirmed) {
-            ConfirmedUuid previous = confirmedUuids.get(key);
+            ConfirmedUuid previous = confirmedUuids.peek(key);
             if (previous == null || !previous.uuid.equals(uuid)) {
-                confirmedUuids.put(key, new ConfirmedUuid(uuid, System.currentTimeMillis()));
+                long now = System.currentTimeMillis();
+                confirmedUuids.put(key, new ConfirmedUuid(uuid, now));
+                unflushedUuids.add(new UuidLog.Record(key, uuid, now));
                 uuidCacheDirty = true;
             }
         }
@@ -531,34 +1457,117 @@ public class HypixelAPI {
      * loaded from disk), i.e. no Mojang round-trip is needed to fetch stats.
      */
     public static boolean hasKnownUuid(String playerName) {
-        return uuidCache.containsKey(playerName.toLowerCase());
+        return uuidCache.containsKey(PlayerKey.canonicalName(playerName));
     }
 
     /**
-     * Load the persisted UUID cache once at class init. Format is a versioned
-     * root ({"version": 2, "entries": {lowercased-name: {"uuid": dashed-uuid,
-     * "t": epochMs}}}); v1 bare-string entries are accepted and re-stamped as if
-     * recorded now. Entries older than UUID_CACHE_TTL_MS are dropped — the name
-     * may have changed hands. Anything malformed is skipped — a broken file just
-     * means a cold cache.
+     * Load the persisted caches on the calling thread, once. Started from
+     * pre-init through {@link StartupLoader}; anything that needs the loaded
+     * cache and finds the load never started runs it inline instead.
      */
-    private static void loadUuidCache() {
+    public static void loadPersistentCaches() {
+        if (uuidCacheLoadStarted.compareAndSet(false, true)) {
+            try {
+                statsStore.open();
+                loadUuidCache();
+            } finally {
+                uuidCacheLoaded.countDown();
+            }
+        }
+    }
+
+    /** True once the UUID cache file has been read (or found missing). */
+    public static boolean isUuidCacheLoaded() {
+        return uuidCacheLoaded.getCount() == 0;
+    }
+
+    /** Wait (bounded) for the UUID cache load; false if it is still running. */
+    private static boolean awaitUuidCacheLoad() {
+        loadPersistentCaches();
         try {
-            File file = new File(UUID_CACHE_FILE);
-            if (!file.exists()) {
-                return;
+            return uuidCacheLoaded.await(UUID_CACHE_LOAD_WAIT_MS, java.util.concurrent.TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return isUuidCacheLoaded();
+        }
+    }
+
+    /**
+     * Load the persisted UUID cache: replay uuidcache.log into memory (see
+     * {@link UuidLog}), importing the old uuidcache.json on the first start
+     * after the format change. A log that is not one is set aside as
+     * .corrupt and the cache starts cold; a torn tail just ends the replay.
+     */
+    private static void loadUuidCache() {
+        synchronized (uuidCacheFileLock) {
+            MergeIntoMemory sink = new MergeIntoMemory();
+            try {
+                uuidLog.catchUp(sink);
+            } catch (java.io.IOException e) {
+                LOGGER.warn("Error loading UUID cache: {}", e.getMessage());
+                File quarantined = JsonFileUtil.quarantineCorrupt(new File(UUID_CACHE_FILE));
+                if (quarantined != null) {
+                    LOGGER.warn("Unreadable UUID cache moved to {}", quarantined.getName());
+                }
+            }
+
+            File legacy = new File(LEGACY_UUID_CACHE_FILE);
+            if (legacy.exists()) {
+                sink.merged += readLegacyUuidCache(legacy);
             }
+            LOGGER.info("Loaded {} cached UUID mappings", sink.merged);
 
+            try {
+                if (legacy.exists()) {
+                    uuidLog.rewrite(sink, CONFIRMED_UUIDS);
+                    if (!legacy.renameTo(new File(LEGACY_UUID_CACHE_FILE + ".imported"))) {
+                        LOGGER.warn("Could not rename {} after import", legacy.getName());
+                    }
+                } else {
+                    compactUuidLogIfNeeded(sink);
+                }
+            } catch (java.io.IOException e) {
+                LOGGER.error("Error rewriting UUID cache: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Record a persisted mapping in memory unless it has expired or a newer
+     * confirmation for the name is already held. True if it was taken.
+     */
+    private static boolean mergeConfirmedUuid(String name, String uuid, long recordedAt, long now) {
+        if (uuid == null || uuid.isEmpty() || now - recordedAt > UUID_CACHE_TTL_MS) {
+            return false;
+        }
+        String key = PlayerKey.canonicalName(name);
+        ConfirmedUuid held = confirmedUuids.peek(key);
+        if (held != null && held.recordedAt >= recordedAt) {
+            return false;
+        }
+        uuidCache.put(key, uuid);
+        confirmedUuids.put(key, new ConfirmedUuid(uuid, recordedAt));
+        return true;
+    }
+
+    /**
+     * Read the pre-log JSON cache ({"version": 2, "entries": {name: {"uuid":
+     * dashed-uuid, "t": epochMs}}}; v1 bare-string entries are stamped as if
+     * recorded now). Anything malformed is skipped. Returns the number of
+     * mappings taken.
+     */
+    private static int readLegacyUuidCache(File file) {
+        int loaded = 0;
+        try {
             FileReader reader = new FileReader(file);
             JsonObject root = new JsonParser().parse(reader).getAsJsonObject();
             reader.close();
 
             if (!root.has("entries") || !root.get("entries").isJsonObject()) {
-                return;
+                return 0;
             }
 
             long now = System.currentTimeMillis();
-            int loaded = 0;
             for (java.util.Map.Entry<String, JsonElement> entry : root.getAsJsonObject("entries").entrySet()) {
                 if (loaded >= UUID_CACHE_MAX_ENTRIES) {
                     break;
@@ -566,7 +1575,6 @@ public class HypixelAPI {
                 String uuid = null;
                 long recordedAt = now;
                 if (entry.getValue().isJsonPrimitive()) {
-                    // Schema v1: bare uuid string, age unknown — expires 30 days from now.
                     uuid = entry.getValue().getAsString();
                 } else if (entry.getValue().isJsonObject()) {
                     JsonObject obj = entry.getValue().getAsJsonObject();
@@ -577,18 +1585,22 @@ public class HypixelAPI {
                         }
                     }
                 }
-                if (uuid == null || now - recordedAt > UUID_CACHE_TTL_MS) {
-                    continue;
+                if (mergeConfirmedUuid(entry.getKey(), uuid, recordedAt, now)) {
+                    loaded++;
                 }
-                String key = entry.getKey().toLowerCase();
-                uuidCache.put(key, uuid);
-                confirmedUuids.put(key, new ConfirmedUuid(uuid, recordedAt));
-                loaded++;
             }
-            LOGGER.info("Loaded {} cached UUID mappings", loaded);
 
         } catch (Exception e) {
-            LOGGER.warn("Error loading UUID cache: {}", e.getMessage());
+            LOGGER.warn("Error loading legacy UUID cache: {}", e.getMessage());
+        }
+        return loaded;
+    }
+
+    /** Rewrite the log when dead records outnumber live mappings by the slack. */
+    private static void compactUuidLogIfNeeded(MergeIntoMemory sink) throws java.io.IOException {
+        if (uuidLog.recordsInFile() > 2 * confirmedUuids.size() + UUID_LOG_COMPACT_SLACK) {
+            uuidLog.rewrite(sink, CONFIRMED_UUIDS);
+            LOGGER.debug("Compacted UUID cache to {} mappings", uuidLog.recordsInFile());
         }
     }
 
@@ -608,62 +1620,40 @@ public class HypixelAPI {
     }
 
     /**
-     * Write the UUID cache to disk immediately (PlayerDatabase pattern: mkdirs +
-     * pretty Gson). Serialized under a private lock so two pool threads never
-     * interleave writes; the write goes to a temp file that is renamed into
-     * place so a JVM halt mid-write can never leave a truncated uuidcache.json.
-     * Only Mojang-confirmed entries (confirmedUuids) are persisted. Overflow
-     * policy: past UUID_CACHE_MAX_ENTRIES, only the first N entries in
-     * (arbitrary) iteration order are persisted — the simplest honest cap. In
-     * practice the map is bounded by the players actually seen, so overflow is
-     * a non-event.
+     * Append the mappings confirmed since the last flush to the UUID log and
+     * force them to disk; the work is proportional to what changed, not to
+     * the cache. Serialized under a private lock so two pool threads never
+     * interleave appends. Only Mojang-confirmed entries are ever queued.
+     *
+     * <p>Other clients on the machine append to the same log; whatever they
+     * added since the last flush is merged into memory first, and the log is
+     * compacted once dead records pile up.
      */
     private static void flushUuidCacheNow() {
+        if (!awaitUuidCacheLoad()) {
+            LOGGER.warn("UUID cache still loading; skipping flush");
+            return;
+        }
         synchronized (uuidCacheFileLock) {
+            // Clear the dirty flag before draining: an insert racing the
+            // append re-marks it and gets picked up by the next flush.
+            uuidCacheDirty = false;
+            java.util.List<UuidLog.Record> records = new java.util.ArrayList<UuidLog.Record>();
+            UuidLog.Record record;
+            while ((record = unflushedUuids.poll()) != null) {
+                records.add(record);
+            }
             try {
-                // Clear the dirty flag before serializing: an insert racing the
-                // write re-marks it and gets picked up by the next flush.
-                uuidCacheDirty = false;
-
-                File dir = new File(UUID_CACHE_DIR);
-                if (!dir.exists()) {
-                    dir.mkdirs();
-                }
-
-                JsonObject entries = new JsonObject();
-                int written = 0;
-                for (java.util.Map.Entry<String, ConfirmedUuid> entry : confirmedUuids.entrySet()) {
-                    if (written >= UUID_CACHE_MAX_ENTRIES) {
-                        break;
-                    }
-                    JsonObject obj = new JsonObject();
-                    obj.addProperty("uuid", entry.getValue().uuid);
-                    obj.addProperty("t", entry.getValue().recordedAt);
-                    entries.add(entry.getKey(), obj);
-                    written++;
-                }
-
-                JsonObject root = new JsonObject();
-                root.addProperty("version", UUID_CACHE_SCHEMA_VERSION);
-                root.add("entries", entries);
-
-                File tmp = new File(UUID_CACHE_FILE + ".tmp");
-                FileWriter writer = new FileWriter(tmp);
-                new GsonBuilder().setPrettyPrinting().create().toJson(root, writer);
-                writer.close();
-                File target = new File(UUID_CACHE_FILE);
-                if (target.exists() && !target.delete()) {
-                    LOGGER.warn("Could not delete old UUID cache file before rename");
-                }
-                if (!tmp.renameTo(target)) {
-                    LOGGER.warn("Could not move new UUID cache file into place");
-                }
-
+                MergeIntoMemory sink = new MergeIntoMemory();
+                uuidLog.append(records, sink);
+                compactUuidLogIfNeeded(sink);
                 lastUuidCacheFlush = System.currentTimeMillis();
-                LOGGER.debug("Saved UUID cache ({} entries)", written);
-
-            } catch (Exception e) {
+                LOGGER.debug("Appended {} UUID mappings ({} from other clients)", records.size(), sink.merged);
+            } catch (java.io.IOException e) {
                 LOGGER.error("Error saving UUID cache: {}", e.getMessage());
+                // Keep them for the next flush.
+                unflushedUuids.addAll(records);
+                uuidCacheDirty = true;
             }
         }
     }
@@ -672,6 +1662,14 @@ public class HypixelAPI {
      * Shut down the background thread pool. Call this when the mod unloads.
      */
     public static void shutdown() {
+        // Mojang stage first: it hands work to executor, which must still accept it.
+        uuidExecutor.shutdown();
+        try {
+            uuidExecutor.awaitTermination(1, java.util.concurrent.TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pacingTimer.shutdownNow();
         executor.shutdown();
         // Let in-flight fetches finish before the final flush, so a pool thread
         // can neither record a mapping after the flush (lost at JVM halt) nor be
@@ -685,20 +1683,7 @@ public class HypixelAPI {
         if (uuidCacheDirty) {
             flushUuidCacheNow();
         }
-    }
-
-    /**
-     * True when a fetch error is transient (rate limiting, timeouts) and the
-     * caller may sensibly re-queue the same name later. Permanent failures —
-     * missing or invalid API key, malformed responses — return false so
-     * one-attempt fetch paths stay one-attempt instead of retrying every scan.
-     */
-    public static boolean isRetryableError(String error) {
-        if (error == null) {
-            return false;
-        }
-        String lower = error.toLowerCase();
-        return lower.contains("rate limited") || lower.contains("timed out");
+        statsStore.flush();
     }
 
     /**
@@ -716,29 +1701,122 @@ public class HypixelAPI {
         return executor.getQueue();
     }
 
+    /** Test seam: the live Mojang-stage queue. */
+    static java.util.concurrent.BlockingQueue<Runnable> uuidQueueForTests() {
+        return uuidExecutor.getQueue();
+    }
+
+    /** Test seam: queue a fetch past the cache and API-key checks. */
+    static void submitFetchForTests(String playerName, String uuid, StatsCallback callback,
+            FetchPriority priority) {
+        submitFetch(playerName, uuid, callback, priority);
+    }
+
+    /** Test seam: entries in the by-name and by-UUID ticket registries. */
+    static int pendingEntriesForTests() {
+        synchronized (pendingFetchLock) {
+            return pendingFetches.size() + pendingByUuid.size();
+        }
+    }
+
+    /**
+     * Test seam: occupy every worker of both stages until {@code release}
+     * opens, so submitted fetches stay queued. {@code held} counts down once
+     * per worker taken (three in all).
+     */
+    static void holdWorkersForTests(final java.util.concurrent.CountDownLatch held,
+            final java.util.concurrent.CountDownLatch release) {
+        Runnable hold = new Runnable() {
+            @Override
+            public void run() {
+                held.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        for (int i = 0; i < executor.getMaximumPoolSize(); i++) {
+            executor.execute(new PrioritizedFetchTask(FetchPriority.EXPLICIT, hold));
+        }
+        uuidExecutor.execute(new PrioritizedFetchTask(FetchPriority.EXPLICIT, hold));
+    }
+
     /**
      * Clear the stats cache
      */
     public static void clearCache() {
+        // A load still in flight would bring the cleared names back.
+        awaitUuidCacheLoad();
         statsCache.clear();
+        statsStore.clear();
         uuidCache.clear();
         confirmedUuids.clear();
+        negativeCache.clear();
+        negativeCacheSkips.set(0);
         rateLimitedRequests = 0;
         // /bw clear is an explicit user action — rewrite the persisted UUID cache
         // right away so cleared entries do not resurrect next launch (PlayerDatabase
         // precedent: synchronous writes on the client thread for direct mutations).
-        flushUuidCacheNow();
+        synchronized (uuidCacheFileLock) {
+            unflushedUuids.clear();
+            uuidCacheDirty = false;
+            try {
+                uuidLog.rewrite(null, CONFIRMED_UUIDS);
+            } catch (java.io.IOException e) {
+                LOGGER.error("Error clearing UUID cache: {}", e.getMessage());
+            }
+        }
     }
 
     /**
-     * Get cached stats for a player (or null if not cached/expired)
+     * Get cached stats for a player (or null if not cached/hard-expired).
+     * Stats past the fresh window are still returned with
+     * {@link BedwarsStats#isStale()} set while a background refresh runs.
      */
     public static BedwarsStats getCachedStats(String playerName) {
-        CachedStats cached = statsCache.get(playerName.toLowerCase());
-        if (cached != null && !cached.isExpired()) {
-            return cached.stats;
+        CachedStats cached = lookupCachedStats(playerName);
+        return cached != null ? cached.stats : null;
+    }
+
+    /**
+     * Queued tickets per priority level across both stages, with the age of
+     * the oldest at each level, e.g. "normal 4 (oldest 3s), background 9
+     * (oldest 41s)". Copies both queues, so it is for /bw status only.
+     */
+    private static String describeQueues(long now) {
+        int[] depth = new int[FetchPriority.values().length];
+        long[] oldest = new long[depth.length];
+        for (java.util.concurrent.BlockingQueue<Runnable> queue : java.util.Arrays.asList(
+                uuidExecutor.getQueue(), executor.getQueue())) {
+            for (Runnable queued : queue.toArray(new Runnable[0])) {
+                PrioritizedFetchTask task = (PrioritizedFetchTask) queued;
+                int level = task.priority.ordinal();
+                depth[level]++;
+                oldest[level] = Math.max(oldest[level], now - task.enqueuedAt);
+            }
         }
-        return null;
+        StringBuilder sb = new StringBuilder();
+        for (FetchPriority priority : FetchPriority.values()) {
+            int level = priority.ordinal();
+            if (depth[level] == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(priority.name().toLowerCase()).append(' ').append(depth[level])
+                    .append(" (oldest ").append(oldest[level] / 1000).append("s)");
+        }
+        int paced = pacingTimer.getQueue().size();
+        if (paced > 0) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(paced).append(" paced");
+        }
+        return sb.length() > 0 ? sb.toString() : "empty";
     }
 
     /**
@@ -747,11 +1825,14 @@ public class HypixelAPI {
     public static String getCacheStatus() {
         int cacheSize = statsCache.size();
         int validCacheEntries = 0;
+        int staleCacheEntries = 0;
         long oldestAge = 0;
 
-        for (CachedStats cached : statsCache.values()) {
-            if (!cached.isExpired()) {
+        for (CachedStats cached : statsCache.valuesSnapshot()) {
+            if (!cached.isStale()) {
                 validCacheEntries++;
+            } else if (!cached.isHardExpired()) {
+                staleCacheEntries++;
             }
             long age = cached.getAgeMinutes();
             if (age > oldestAge) {
@@ -759,23 +1840,36 @@ public class HypixelAPI {
             }
         }
 
-        // Clean old rate limit timestamps
         long now = System.currentTimeMillis();
-        int recentRequests = 0;
-        synchronized (requestTimestamps) {
-            for (Long ts : requestTimestamps) {
-                if (now - ts <= RATE_LIMIT_WINDOW_MS) {
-                    recentRequests++;
-                }
-            }
+        RateLimitBucket.State bucket = rateLimitBucket.snapshot(now);
+        long refillSeconds = Math.max(0, (bucket.resetAt - now + 999) / 1000);
+
+        int[] negative = negativeCache.activeCounts(now);
+
+        int inFlight;
+        synchronized (pendingFetchLock) {
+            inFlight = new java.util.HashSet<PendingFetch>(pendingFetches.values()).size();
         }
 
         return String.format(
-                "Cache: %d entries (%d valid, oldest %d min)\n" +
-                        "Rate: %d/%d requests in last minute\n" +
-                        "Rate limited: %d requests blocked",
-                cacheSize, validCacheEntries, oldestAge,
-                recentRequests, RATE_LIMIT_MAX,
-                rateLimitedRequests);
+                "Cache: %d entries (%d fresh, %d stale, oldest %d min)\n" +
+                        "Rate: %d/%d tokens left, refill in %ds\n" +
+                        "Rate limited: %d requests blocked\n" +
+                        "In flight: %d players (%d duplicate requests coalesced)\n" +
+                        "Queue: %s; %d stale fetches cancelled\n" +
+                        "Memory: ~%d of %d KB (%d hits, %d misses, %d evicted)\n" +
+                        "Negative cache: %d nicked, %d not found, %d server error, %d timeout (%d lookups skipped)\n" +
+                        "Disk cache: %d players (%d stats, %d UUIDs from other clients)",
+                cacheSize, validCacheEntries, staleCacheEntries, oldestAge,
+                bucket.tokens, bucket.capacity, refillSeconds,
+                rateLimitedRequests,
+                inFlight, coalescedRequests.get(),
+                describeQueues(now), cancelledFetches.get(),
+                statsCache.weight() / 1024, statsCache.maxWeight() / 1024,
+                statsCache.hits(), statsCache.misses(), statsCache.evictions(),
+                negative[NegativeCache.Kind.NICKED.ordinal()], negative[NegativeCache.Kind.NOT_FOUND.ordinal()],
+                negative[NegativeCache.Kind.SERVER_ERROR.ordinal()], negative[NegativeCache.Kind.TIMEOUT.ordinal()],
+                negativeCacheSkips.get(),
+                statsStore.size(), sharedStatsHits.get(), sharedUuidHits.get());
     }
 }
@@ -31,6 +31,15 @@ public final class JsonFileUtil {
         } finally {
             writer.close();
         }
+        replaceAtomic(tmp, target);
+    }
+
+    /**
+     * Move a fully written {@code tmp} over {@code target} atomically where the
+     * filesystem allows, so readers see the old file or the new one, never
+     * neither. Also used by the binary stores.
+     */
+    public static void replaceAtomic(File tmp, File target) throws IOException {
         try {
             Files.move(tmp.toPath(), target.toPath(),
                     StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
@@ -1,13 +1,5 @@
 package com.imshy.bedwars;
 
-import net.minecraft.client.Minecraft;
-import net.minecraft.scoreboard.Score;
-import net.minecraft.scoreboard.ScoreObjective;
-import net.minecraft.scoreboard.ScorePlayerTeam;
-import net.minecraft.scoreboard.Scoreboard;
-import net.minecraft.util.EnumChatFormatting;
-
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,47 +32,20 @@ public class MapMetadataRegistry {
     }
 
     /**
-     * Tries to detect current map name from the Bedwars sidebar.
+     * The map name from one stripped sidebar row ("Map: Lighthouse"), or null
+     * when the row is not the map row.
      */
-    public static String detectCurrentMapName(Minecraft mc) {
-        if (mc == null || mc.theWorld == null) {
-            return null;
-        }
-
-        Scoreboard scoreboard = mc.theWorld.getScoreboard();
-        if (scoreboard == null) {
-            return null;
-        }
-
-        ScoreObjective objective = scoreboard.getObjectiveInDisplaySlot(1);
-        if (objective == null) {
+    public static String parseMapRow(String stripped) {
+        if (stripped == null) {
             return null;
         }
-
-        Collection<Score> scores = scoreboard.getSortedScores(objective);
-        for (Score score : scores) {
-            String playerName = score.getPlayerName();
-            if (playerName == null || playerName.startsWith("#")) {
-                continue;
-            }
-
-            ScorePlayerTeam team = scoreboard.getPlayersTeam(playerName);
-            String formatted = ScorePlayerTeam.formatPlayerName(team, playerName);
-            String stripped = EnumChatFormatting.getTextWithoutFormattingCodes(formatted);
-            if (stripped == null) {
-                continue;
-            }
-
-            String trimmed = stripped.trim();
-            String lower = trimmed.toLowerCase();
-            if (lower.startsWith("map:")) {
-                String mapName = trimmed.substring(4).trim();
-                if (!mapName.isEmpty()) {
-                    return mapName;
-                }
+        String trimmed = stripped.trim();
+        if (trimmed.regionMatches(true, 0, "map:", 0, 4)) {
+            String mapName = trimmed.substring(4).trim();
+            if (!mapName.isEmpty()) {
+                return mapName;
             }
         }
-
         return null;
     }
 
@@ -51,6 +51,9 @@ public class ModConfig {
     private static int autoBlacklistLookbackDays = 14;
     private static int autoBlacklistCooldownDays = 7;
     private static int autoBlacklistExpiryDays = 30;
+    private static int encounterRetentionDays = 180;
+    private static int statsHardExpiryMinutes = 360;
+    private static int statsCacheMemoryMb = 4;
     private static String autoplayMaxThreatLevel = "HIGH"; // HIGH or EXTREME
     private static boolean autoplayRequeueEnabled = false;
     private static int lobbyMaxPlayerCount = 8;
@@ -523,6 +526,31 @@ public class ModConfig {
                     0, 180);
             autoBlacklistExpiryDays = autoBlacklistExpiryProp.getInt();
 
+            Property encounterRetentionProp = config.get(
+                    Configuration.CATEGORY_GENERAL,
+                    "encounterRetentionDays",
+                    180,
+                    "Days to keep individual encounters; older ones are kept only as per-day counts",
+                    7, 3650);
+            encounterRetentionDays = encounterRetentionProp.getInt();
+
+            // Stats cache
+            Property statsHardExpiryProp = config.get(
+                    Configuration.CATEGORY_GENERAL,
+                    "statsHardExpiryMinutes",
+                    360,
+                    "Minutes cached player stats may still be shown (marked stale) while a refresh runs; older stats are dropped. Stats count as fresh for 60 minutes.",
+                    60, 1440);
+            statsHardExpiryMinutes = statsHardExpiryProp.getInt();
+
+            Property statsCacheMemoryProp = config.get(
+                    Configuration.CATEGORY_GENERAL,
+                    "statsCacheMemoryMb",
+                    4,
+                    "Approximate memory (MB) for player stats kept in memory; least recently used players are dropped past it. Players in your match and blacklisted players are always kept.",
+                    1, 64);
+            statsCacheMemoryMb = statsCacheMemoryProp.getInt();
+
             // Generator display settings
             Property generatorDisplayProp = config.get(
                     Configuration.CATEGORY_GENERAL,
@@ -1370,6 +1398,18 @@ public class ModConfig {
         return autoBlacklistExpiryDays;
     }
 
+    public static int getEncounterRetentionDays() {
+        return encounterRetentionDays;
+    }
+
+    public static int getStatsHardExpiryMinutes() {
+        return statsHardExpiryMinutes;
+    }
+
+    public static int getStatsCacheMemoryMb() {
+        return statsCacheMemoryMb;
+    }
+
     public static String getAutoplayMaxThreatLevel() {
         return autoplayMaxThreatLevel;
     }
@@ -0,0 +1,107 @@
+package com.imshy.bedwars;
+
+/**
+ * Remembers recent failed lookups so a broken name is not re-requested by
+ * every scan path at its own cadence.
+ *
+ * <p>Each failure is classified ({@link Kind}) and held for that class's TTL;
+ * consecutive failures of a name double the TTL up to {@link #MAX_BACKOFF_SHIFT}
+ * doublings. A success for the name forgets the memo. Rate limiting and a bad
+ * API key are not per-name failures and are never recorded here; the token
+ * bucket and {@link HypixelAPI#hasApiKey} already gate those.
+ *
+ * <p>Entries are bounded by count with LRU eviction. An expired memo no
+ * longer blocks but is kept, so a name that fails again backs off further;
+ * it goes once the name succeeds or LRU pushes it out.
+ */
+final class NegativeCache {
+
+    /** Failure classes, each with its own base TTL. */
+    enum Kind {
+        /** Mojang does not know the name, or Hypixel has no player for it. */
+        NICKED("nicked", 30 * 60 * 1000L),
+        /** Hypixel answered 404, or without a usable profile (success:false, malformed body). */
+        NOT_FOUND("not found", 10 * 60 * 1000L),
+        /** Hypixel answered 5xx or another unexpected status (400, ...); never taken as absent. */
+        SERVER_ERROR("server error", 2 * 60 * 1000L),
+        /** Timeout or I/O failure on either stage, including a failed Mojang lookup. */
+        TIMEOUT("timeout", 30 * 1000L);
+
+        final String label;
+        final long ttlMs;
+
+        Kind(String label, long ttlMs) {
+            this.label = label;
+            this.ttlMs = ttlMs;
+        }
+    }
+
+    /** One remembered failure. Immutable; a repeat failure replaces it. */
+    static final class Failure {
+        final Kind kind;
+        /** Consecutive failures of this name, across kinds. */
+        final int count;
+        final long until;
+
+        Failure(Kind kind, int count, long until) {
+            this.kind = kind;
+            this.count = count;
+            this.until = until;
+        }
+    }
+
+    static final int MAX_BACKOFF_SHIFT = 3;
+    static final int DEFAULT_MAX_ENTRIES = 2000;
+
+    private final WeightedLruCache<String, Failure> failures;
+
+    NegativeCache(int maxEntries) {
+        failures = new WeightedLruCache<String, Failure>(maxEntries,
+                new WeightedLruCache.Weigher<String, Failure>() {
+                    @Override
+                    public long weigh(String key, Failure value) {
+                        return 1;
+                    }
+                });
+    }
+
+    /** Remember a failure for {@code key} (lowercased name) at {@code now}. */
+    Failure record(String key, Kind kind, long now) {
+        Failure previous = failures.peek(key);
+        int count = previous != null ? previous.count + 1 : 1;
+        long ttl = kind.ttlMs << Math.min(count - 1, MAX_BACKOFF_SHIFT);
+        Failure failure = new Failure(kind, count, now + ttl);
+        failures.put(key, failure);
+        return failure;
+    }
+
+    /**
+     * The failure still blocking {@code key} at {@code now}, or null. An
+     * expired memo is kept (so a repeat failure still backs off further) but
+     * no longer blocks.
+     */
+    Failure active(String key, long now) {
+        Failure failure = failures.peek(key);
+        return failure != null && now < failure.until ? failure : null;
+    }
+
+    /** Forget {@code key} after a successful lookup. */
+    void succeeded(String key) {
+        failures.remove(key);
+    }
+
+    void clear() {
+        failures.clear();
+    }
+
+    /** Active memos per kind, indexed by {@link Kind#ordinal()}. */
+    int[] activeCounts(long now) {
+        int[] counts = new int[Kind.values().length];
+        for (Failure failure : failures.valuesSnapshot()) {
+            if (now < failure.until) {
+                counts[failure.kind.ordinal()]++;
+            }
+        }
+        return counts;
+    }
+}
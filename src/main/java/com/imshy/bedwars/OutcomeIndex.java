@@ -0,0 +1,389 @@
+package com.imshy.bedwars;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-player outcome counts for {@link PlayerDatabase}, so lookback queries
+ * and W/L records never walk the encounter list.
+ *
+ * <p>Each player keeps, per {@link PlayerDatabase.GameOutcome}, a sorted array
+ * of raw encounter timestamps (the encounters still held in the history map)
+ * and a sorted array of day buckets for encounters rolled up past the
+ * retention window. "How many since T" is a binary search in each, and
+ * totals are kept alongside, so a W/L record is O(1).
+ *
+ * <p>Buckets are the only copy of rolled-up encounters, so the database
+ * persists them ({@link #rollupsToJson}). Per-player state is immutable and
+ * replaced on write: readers never lock, and writers are serialized by the
+ * database's history lock.
+ */
+final class OutcomeIndex {
+
+    static final long DAY_MS = 24L * 60L * 60L * 1000L;
+
+    private static final PlayerDatabase.GameOutcome[] OUTCOMES = PlayerDatabase.GameOutcome.values();
+    private static final long[] NO_TIMES = new long[0];
+    private static final int[] NO_DAYS = new int[0];
+
+    /** One player's counts. Never mutated once published. */
+    private static final class Counts {
+        /** [outcome] raw timestamps, ascending. */
+        final long[][] times;
+        /** [outcome] epoch days of rolled-up buckets, ascending. */
+        final int[][] days;
+        /** [outcome] running total of bucket counts, parallel to days. */
+        final int[][] cumulative;
+
+        Counts(long[][] times, int[][] days, int[][] cumulative) {
+            this.times = times;
+            this.days = days;
+            this.cumulative = cumulative;
+        }
+
+        static Counts empty() {
+            long[][] times = new long[OUTCOMES.length][];
+            int[][] days = new int[OUTCOMES.length][];
+            int[][] cumulative = new int[OUTCOMES.length][];
+            Arrays.fill(times, NO_TIMES);
+            Arrays.fill(days, NO_DAYS);
+            Arrays.fill(cumulative, NO_DAYS);
+            return new Counts(times, days, cumulative);
+        }
+
+        Counts copy() {
+            return new Counts(times.clone(), days.clone(), cumulative.clone());
+        }
+
+        int rolledUp(int outcome) {
+            int[] c = cumulative[outcome];
+            return c.length == 0 ? 0 : c[c.length - 1];
+        }
+
+        int total(int outcome) {
+            return times[outcome].length + rolledUp(outcome);
+        }
+
+        boolean isEmpty() {
+            for (int o = 0; o < OUTCOMES.length; o++) {
+                if (total(o) > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Map<String, Counts> players = new ConcurrentHashMap<String, Counts>();
+
+    /** Index one encounter. Caller serializes writes. */
+    void add(String key, PlayerDatabase.GameOutcome outcome, long timestamp) {
+        Counts previous = players.get(key);
+        Counts next = previous != null ? previous.copy() : Counts.empty();
+        int o = outcome.ordinal();
+        long[] times = next.times[o];
+        // Encounters arrive in time order, so this is almost always the end.
+        int at = upperBound(times, timestamp);
+        long[] grown = new long[times.length + 1];
+        System.arraycopy(times, 0, grown, 0, at);
+        grown[at] = timestamp;
+        System.arraycopy(times, at, grown, at + 1, times.length - at);
+        next.times[o] = grown;
+        players.put(key, next);
+    }
+
+    /**
+     * Replace a player's raw timestamps with {@code encounters}, keeping any
+     * rolled-up buckets. Used at load, where adding one by one would be
+     * quadratic for long histories. Caller serializes writes.
+     */
+    void rebuild(String key, List<PlayerDatabase.EncounterEntry> encounters) {
+        int[] sizes = new int[OUTCOMES.length];
+        for (PlayerDatabase.EncounterEntry entry : encounters) {
+            if (entry != null && entry.outcome != null) {
+                sizes[entry.outcome.ordinal()]++;
+            }
+        }
+        Counts previous = players.get(key);
+        Counts next = previous != null ? previous.copy() : Counts.empty();
+        int[] filled = new int[OUTCOMES.length];
+        for (int o = 0; o < OUTCOMES.length; o++) {
+            next.times[o] = sizes[o] == 0 ? NO_TIMES : new long[sizes[o]];
+        }
+        for (PlayerDatabase.EncounterEntry entry : encounters) {
+            if (entry != null && entry.outcome != null) {
+                int o = entry.outcome.ordinal();
+                next.times[o][filled[o]++] = entry.timestamp;
+            }
+        }
+        for (long[] times : next.times) {
+            Arrays.sort(times);
+        }
+        put(key, next);
+    }
+
+    /**
+     * Move a player's raw timestamps before {@code cutoff} into day buckets.
+     * The caller drops the matching raw entries from the history. Returns the
+     * number of encounters rolled up. Caller serializes writes.
+     */
+    int rollUp(String key, long cutoff) {
+        Counts previous = players.get(key);
+        if (previous == null) {
+            return 0;
+        }
+        Counts next = previous.copy();
+        int moved = 0;
+        for (int o = 0; o < OUTCOMES.length; o++) {
+            long[] times = previous.times[o];
+            int split = lowerBound(times, cutoff);
+            if (split == 0) {
+                continue;
+            }
+            int[][] merged = mergeBuckets(previous.days[o], previous.cumulative[o], times, split);
+            next.days[o] = merged[0];
+            next.cumulative[o] = merged[1];
+            next.times[o] = split == times.length ? NO_TIMES : Arrays.copyOfRange(times, split, times.length);
+            moved += split;
+        }
+        if (moved > 0) {
+            players.put(key, next);
+        }
+        return moved;
+    }
+
+    /**
+     * Encounters with {@code outcome} at or after {@code since}. Raw
+     * timestamps are exact; rolled-up buckets count whole days from the day
+     * containing {@code since}.
+     */
+    int countSince(String key, PlayerDatabase.GameOutcome outcome, long since) {
+        Counts counts = players.get(key);
+        if (counts == null) {
+            return 0;
+        }
+        int o = outcome.ordinal();
+        long[] times = counts.times[o];
+        int count = times.length - lowerBound(times, since);
+
+        int[] days = counts.days[o];
+        if (days.length > 0) {
+            int first = lowerBound(days, dayOf(since));
+            int[] cumulative = counts.cumulative[o];
+            count += cumulative[cumulative.length - 1] - (first == 0 ? 0 : cumulative[first - 1]);
+        }
+        return count;
+    }
+
+    int total(String key, PlayerDatabase.GameOutcome outcome) {
+        Counts counts = players.get(key);
+        return counts == null ? 0 : counts.total(outcome.ordinal());
+    }
+
+    int total(String key) {
+        Counts counts = players.get(key);
+        if (counts == null) {
+            return 0;
+        }
+        int total = 0;
+        for (int o = 0; o < OUTCOMES.length; o++) {
+            total += counts.total(o);
+        }
+        return total;
+    }
+
+    boolean contains(String key) {
+        return players.containsKey(key);
+    }
+
+    /** Players with at least one encounter, raw or rolled up. */
+    int size() {
+        return players.size();
+    }
+
+    void clear() {
+        players.clear();
+    }
+
+    /**
+     * Rolled-up buckets as {@code {player: {OUTCOME: [[day, count], ...]}}}.
+     * Players with only raw encounters are omitted; the history holds them.
+     */
+    JsonObject rollupsToJson() {
+        JsonObject root = new JsonObject();
+        for (Map.Entry<String, Counts> entry : players.entrySet()) {
+            Counts counts = entry.getValue();
+            JsonObject player = null;
+            for (int o = 0; o < OUTCOMES.length; o++) {
+                int[] days = counts.days[o];
+                if (days.length == 0) {
+                    continue;
+                }
+                JsonArray buckets = new JsonArray();
+                int[] cumulative = counts.cumulative[o];
+                for (int i = 0; i < days.length; i++) {
+                    JsonArray bucket = new JsonArray();
+                    bucket.add(new JsonPrimitive(days[i]));
+                    bucket.add(new JsonPrimitive(cumulative[i] - (i == 0 ? 0 : cumulative[i - 1])));
+                    buckets.add(bucket);
+                }
+                if (player == null) {
+                    player = new JsonObject();
+                    root.add(entry.getKey(), player);
+                }
+                player.add(OUTCOMES[o].name(), buckets);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Restore buckets written by {@link #rollupsToJson}, replacing any the
+     * listed players had. Unreadable players or buckets are skipped.
+     */
+    void loadRollups(JsonObject root) {
+        for (Map.Entry<String, JsonElement> entry : root.entrySet()) {
+            if (!entry.getValue().isJsonObject()) {
+                continue;
+            }
+            Counts previous = players.get(entry.getKey());
+            Counts next = previous != null ? previous.copy() : Counts.empty();
+            for (Map.Entry<String, JsonElement> outcome : entry.getValue().getAsJsonObject().entrySet()) {
+                int o;
+                try {
+                    o = PlayerDatabase.GameOutcome.valueOf(outcome.getKey()).ordinal();
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (!outcome.getValue().isJsonArray()) {
+                    continue;
+                }
+                int[] days = NO_DAYS;
+                int[] cumulative = NO_DAYS;
+                for (JsonElement element : outcome.getValue().getAsJsonArray()) {
+                    try {
+                        JsonArray bucket = element.getAsJsonArray();
+                        int day = bucket.get(0).getAsInt();
+                        int count = bucket.get(1).getAsInt();
+                        if (count <= 0 || (days.length > 0 && day <= days[days.length - 1])) {
+                            continue; // written ascending and unique; anything else is damage
+                        }
+                        int before = cumulative.length == 0 ? 0 : cumulative[cumulative.length - 1];
+                        days = insert(days, days.length, day);
+                        cumulative = insert(cumulative, cumulative.length, before + count);
+                    } catch (RuntimeException e) {
+                        // skip the bucket
+                    }
+                }
+                next.days[o] = days;
+                next.cumulative[o] = cumulative;
+            }
+            put(entry.getKey(), next);
+        }
+    }
+
+    /**
+     * Merge the first {@code count} of the sorted {@code times} into the
+     * buckets; returns {days, cumulative}.
+     */
+    private static int[][] mergeBuckets(int[] days, int[] cumulative, long[] times, int count) {
+        int[] outDays = new int[days.length + count];
+        int[] outCumulative = new int[days.length + count];
+        int size = 0;
+        int running = 0;
+        int b = 0;
+        int t = 0;
+        while (b < days.length || t < count) {
+            int day;
+            int added = 0;
+            if (t >= count || (b < days.length && days[b] <= dayOf(times[t]))) {
+                day = days[b];
+                added = cumulative[b] - (b == 0 ? 0 : cumulative[b - 1]);
+                b++;
+            } else {
+                day = dayOf(times[t]);
+            }
+            // Times are sorted, so a day's encounters come in one run.
+            while (t < count && dayOf(times[t]) == day) {
+                added++;
+                t++;
+            }
+            running += added;
+            outDays[size] = day;
+            outCumulative[size] = running;
+            size++;
+        }
+        return new int[][] { Arrays.copyOf(outDays, size), Arrays.copyOf(outCumulative, size) };
+    }
+
+    static int dayOf(long timestamp) {
+        return (int) Math.floorDiv(timestamp, DAY_MS);
+    }
+
+    private void put(String key, Counts counts) {
+        if (counts.isEmpty()) {
+            players.remove(key);
+        } else {
+            players.put(key, counts);
+        }
+    }
+
+    /** First index whose value is >= key. */
+    private static int lowerBound(long[] values, long key) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int lowerBound(int[] values, int key) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** First index whose value is > key. */
+    private static int upperBound(long[] values, long key) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int[] insert(int[] values, int at, int value) {
+        int[] grown = new int[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, at);
+        grown[at] = value;
+        System.arraycopy(values, at, grown, at + 1, values.length - at);
+        return grown;
+    }
+}
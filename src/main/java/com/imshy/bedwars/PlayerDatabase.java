@@ -9,33 +9,107 @@ import org.apache.logging.log4j.Logger;
 import java.io.*;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Persistent storage for player data including blacklist and encounter history.
  * Data is stored as JSON in config/bedwarsstats/playerdata.json
+ *
+ * Game ends are appended to an encounter journal
+ * (config/bedwarsstats/encounters.jsonl, see {@link EncounterJournal}) instead
+ * of rewriting the file, so their cost does not grow with the history. The
+ * full snapshot is written behind by a background writer (see
+ * {@link WriteBehind}) after blacklist changes, or when the journal asks for
+ * compaction; startup loads the snapshot and replays the journal past it.
+ * Nothing here writes on the client thread. The maps are concurrent because
+ * the writers read them while the client thread keeps mutating.
+ *
+ * <p>Loading normally runs on a {@link StartupLoader} thread from pre-init.
+ * Until it finishes, reads see an empty database rather than blocking, while
+ * mutations and snapshot writes wait for it so nothing loaded from disk is
+ * overwritten or renumbered.
  */
 public class PlayerDatabase {
 
     private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
 
     private static final String DATA_DIR = "config/bedwarsstats";
-    private static final String DATA_FILE = DATA_DIR + "/playerdata.json";
+    private static final String DATA_FILE_NAME = "playerdata.json";
+    private static final String JOURNAL_FILE_NAME = "encounters.jsonl";
+    // Past this the journal is folded into a fresh snapshot.
+    private static final long JOURNAL_COMPACT_BYTES = 256 * 1024;
     private static final long DAY_MS = 24L * 60L * 60L * 1000L;
+    // Coalesces a burst of mutations (a game end, an auto-blacklist pass) into one write.
+    private static final long SAVE_DELAY_MS = 2000;
+    private static final long SHUTDOWN_WRITE_TIMEOUT_MS = 2000;
 
     // Singleton instance
-    private static PlayerDatabase instance;
+    private static volatile PlayerDatabase instance;
+    // Upper bound on how long a mutation or write waits for the initial load.
+    private static final long LOAD_WAIT_TIMEOUT_MS = 10000;
 
     // Blacklist: playerName (lowercase) -> BlacklistEntry
-    private Map<String, BlacklistEntry> blacklist = new HashMap<String, BlacklistEntry>();
-
-    // Encounter history: playerName (lowercase) -> List of encounters
-    private Map<String, List<EncounterEntry>> history = new HashMap<String, List<EncounterEntry>>();
+    private final Map<String, BlacklistEntry> blacklist = new ConcurrentHashMap<String, BlacklistEntry>();
+
+    // Encounter history: playerName (lowercase) -> List of encounters. Each list
+    // is unmodifiable and replaced on append, so a snapshot can take a shallow
+    // copy of the map under stateLock and serialize it later.
+    private final Map<String, List<EncounterEntry>> history = new ConcurrentHashMap<String, List<EncounterEntry>>();
+    // Held by batches and multi-step mutations, and by snapshot capture, so a
+    // snapshot never sees half a batch. Also orders history appends against
+    // journal sequence numbers.
+    private final Object stateLock = new Object();
+    // Open batch() calls on the thread holding stateLock; save() waits for the
+    // outermost one to close. Guarded by stateLock.
+    private int batchDepth;
+    private boolean batchDirty;
+    // Outcome counts per player, so lookback and W/L queries never walk the
+    // lists. Also holds encounters rolled up past the retention window, which
+    // have left the history map. Written under stateLock.
+    private final OutcomeIndex outcomeIndex = new OutcomeIndex();
+
+    private static final Type BLACKLIST_TYPE = new TypeToken<Map<String, BlacklistEntry>>() {
+    }.getType();
+    private static final Type HISTORY_TYPE = new TypeToken<Map<String, List<EncounterEntry>>>() {
+    }.getType();
 
     // Players in current game session (for recording encounters on game end)
-    private Set<String> currentGamePlayers = new HashSet<String>();
+    private final Set<String> currentGamePlayers =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     private Gson gson;
 
+    private final File dataDir;
+    private final File dataFile;
+
+    private final AtomicBoolean loadStarted = new AtomicBoolean();
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private volatile long loadWaitMs = LOAD_WAIT_TIMEOUT_MS;
+    // Test seam: load() waits on this before reading, holding the database mid-load.
+    private volatile CountDownLatch loadGate;
+
+    private final WriteBehind persister = new WriteBehind("playerdata", SAVE_DELAY_MS, new WriteBehind.WriteAction() {
+        @Override
+        public boolean write() {
+            return writeNow();
+        }
+    });
+    // Saves handed to the persister; a batch contributes at most one.
+    private final AtomicInteger saveRequests = new AtomicInteger();
+
+    private final EncounterJournal journal;
+
+    /**
+     * A group of mutations for {@link #batch}.
+     */
+    public interface Transaction<T> {
+        T run(PlayerDatabase db);
+    }
+
     /**
      * Blacklist entry data
      */
@@ -74,7 +148,11 @@ public class PlayerDatabase {
         public GameOutcome outcome;
 
         public EncounterEntry(String uuid, GameOutcome outcome) {
-            this.timestamp = System.currentTimeMillis();
+            this(uuid, outcome, System.currentTimeMillis());
+        }
+
+        public EncounterEntry(String uuid, GameOutcome outcome, long timestamp) {
+            this.timestamp = timestamp;
             this.uuid = uuid;
             this.outcome = outcome;
         }
@@ -90,20 +168,98 @@ public class PlayerDatabase {
     }
 
     private PlayerDatabase() {
+        this(new File(DATA_DIR));
+    }
+
+    /** A database kept in {@code dataDir}. Package-private for tests; the game uses {@link #getInstance}. */
+    PlayerDatabase(File dataDir) {
+        this.dataDir = dataDir;
+        this.dataFile = new File(dataDir, DATA_FILE_NAME);
+        this.journal = new EncounterJournal(new File(dataDir, JOURNAL_FILE_NAME), JOURNAL_COMPACT_BYTES,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        // Compaction is just a snapshot: writeNow truncates the journal after it.
+                        save();
+                    }
+                });
         gson = new GsonBuilder()
                 .setPrettyPrinting()
                 .create();
-        load();
     }
 
     /**
-     * Get singleton instance
+     * Get singleton instance. Loads from disk on the calling thread only if no
+     * one has started the load yet; otherwise returns at once, possibly still
+     * empty while the startup load runs.
      */
     public static PlayerDatabase getInstance() {
-        if (instance == null) {
-            instance = new PlayerDatabase();
+        PlayerDatabase db = instance;
+        if (db == null) {
+            synchronized (PlayerDatabase.class) {
+                db = instance;
+                if (db == null) {
+                    db = new PlayerDatabase();
+                    instance = db;
+                }
+            }
         }
-        return instance;
+        db.ensureLoading();
+        return db;
+    }
+
+    /** Load the database on the calling thread; for {@link StartupLoader}. */
+    public static void preload() {
+        getInstance();
+    }
+
+    public boolean isLoaded() {
+        return loaded.getCount() == 0;
+    }
+
+    private void ensureLoading() {
+        if (loadStarted.compareAndSet(false, true)) {
+            try {
+                load();
+            } finally {
+                loaded.countDown();
+            }
+        }
+    }
+
+    /**
+     * Wait for the initial load before mutating or writing. The loading thread
+     * itself (which holds stateLock throughout) passes straight through.
+     */
+    private boolean awaitLoaded() {
+        if (isLoaded() || Thread.holdsLock(stateLock)) {
+            return true;
+        }
+        ensureLoading();
+        try {
+            return loaded.await(loadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return isLoaded();
+        }
+    }
+
+    /**
+     * Write any unsaved changes and stop the background writer. Called from
+     * the JVM shutdown hook; does nothing if the database was never loaded.
+     */
+    public static void shutdown() {
+        PlayerDatabase db = instance;
+        if (db != null) {
+            db.close();
+        }
+    }
+
+    /** Write any unsaved changes and stop this database's writers. */
+    void close() {
+        // Journal first: its queued appends must land before the final snapshot truncates it.
+        journal.shutdown(SHUTDOWN_WRITE_TIMEOUT_MS);
+        persister.shutdown(SHUTDOWN_WRITE_TIMEOUT_MS);
     }
 
     // ==================== BLACKLIST METHODS ====================
@@ -112,7 +268,8 @@ public class PlayerDatabase {
      * Add a player to the blacklist
      */
     public void addToBlacklist(String playerName, String reason) {
-        String key = playerName.toLowerCase();
+        awaitLoaded();
+        String key = PlayerKey.canonicalName(playerName);
         blacklist.put(key, new BlacklistEntry(playerName, reason, "MANUAL", 0L, 0L));
         save();
         LOGGER.info("Added {} to blacklist: {}", playerName, reason);
@@ -122,29 +279,33 @@ public class PlayerDatabase {
      * Add or refresh an auto-blacklist entry.
      */
     public boolean addOrRefreshAutoBlacklist(String playerName, String reason, int expiryDays) {
-        String key = playerName.toLowerCase();
-        BlacklistEntry existing = blacklist.get(key);
-
-        // Never overwrite manual blacklist entries.
-        if (existing != null && !existing.isAuto()) {
-            return false;
-        }
-
+        awaitLoaded();
+        String key = PlayerKey.canonicalName(playerName);
         long now = System.currentTimeMillis();
         long expiresAt = expiryDays > 0 ? now + (expiryDays * DAY_MS) : 0L;
 
-        if (existing == null) {
-            blacklist.put(key, new BlacklistEntry(playerName, reason, "AUTO", expiresAt, now));
-        } else {
-            existing.playerName = playerName;
-            existing.reason = reason;
-            existing.source = "AUTO";
-            existing.addedAt = now;
-            existing.expiresAt = expiresAt;
-            existing.lastAutoAddAt = now;
-        }
+        // Refreshing edits the entry in place; don't let a snapshot see half of it.
+        synchronized (stateLock) {
+            BlacklistEntry existing = blacklist.get(key);
 
-        save();
+            // Never overwrite manual blacklist entries.
+            if (existing != null && !existing.isAuto()) {
+                return false;
+            }
+
+            if (existing == null) {
+                blacklist.put(key, new BlacklistEntry(playerName, reason, "AUTO", expiresAt, now));
+            } else {
+                existing.playerName = playerName;
+                existing.reason = reason;
+                existing.source = "AUTO";
+                existing.addedAt = now;
+                existing.expiresAt = expiresAt;
+                existing.lastAutoAddAt = now;
+            }
+
+            save();
+        }
         return true;
     }
 
@@ -152,7 +313,8 @@ public class PlayerDatabase {
      * Remove a player from the blacklist
      */
     public boolean removeFromBlacklist(String playerName) {
-        String key = playerName.toLowerCase();
+        awaitLoaded();
+        String key = PlayerKey.canonicalName(playerName);
         if (blacklist.remove(key) != null) {
             save();
             LOGGER.info("Removed {} from blacklist", playerName);
@@ -165,7 +327,7 @@ public class PlayerDatabase {
      * Check if a player is blacklisted
      */
     public boolean isBlacklisted(String playerName) {
-        String key = playerName.toLowerCase();
+        String key = PlayerKey.canonicalName(playerName);
         BlacklistEntry entry = blacklist.get(key);
         if (entry == null) {
             return false;
@@ -184,7 +346,7 @@ public class PlayerDatabase {
      * Get blacklist entry for a player
      */
     public BlacklistEntry getBlacklistEntry(String playerName) {
-        String key = playerName.toLowerCase();
+        String key = PlayerKey.canonicalName(playerName);
         BlacklistEntry entry = blacklist.get(key);
         if (entry == null) {
             return null;
@@ -215,6 +377,21 @@ public class PlayerDatabase {
         return blacklist.values();
     }
 
+    /**
+     * Names of the live blacklist entries. Expired AUTO entries are skipped,
+     * not purged, so this never mutates or saves; safe from any thread.
+     */
+    public Set<String> getBlacklistedNamesSnapshot() {
+        Set<String> names = new HashSet<String>();
+        long now = System.currentTimeMillis();
+        for (BlacklistEntry entry : blacklist.values()) {
+            if (entry != null && entry.playerName != null && !isBlacklistEntryExpired(entry, now)) {
+                names.add(entry.playerName);
+            }
+        }
+        return names;
+    }
+
     /**
      * Get blacklist size
      */
@@ -227,23 +404,28 @@ public class PlayerDatabase {
      * Remove expired AUTO entries.
      */
     public int cleanupExpiredAutoBlacklistEntries() {
-        int removed = 0;
-        long now = System.currentTimeMillis();
-
-        Iterator<Map.Entry<String, BlacklistEntry>> iterator = blacklist.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, BlacklistEntry> entry = iterator.next();
-            if (isBlacklistEntryExpired(entry.getValue(), now)) {
-                iterator.remove();
-                removed++;
-            }
-        }
+        return batch(new Transaction<Integer>() {
+            @Override
+            public Integer run(PlayerDatabase db) {
+                int removed = 0;
+                long now = System.currentTimeMillis();
+
+                Iterator<Map.Entry<String, BlacklistEntry>> iterator = blacklist.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, BlacklistEntry> entry = iterator.next();
+                    if (isBlacklistEntryExpired(entry.getValue(), now)) {
+                        iterator.remove();
+                        removed++;
+                    }
+                }
 
-        if (removed > 0) {
-            save();
-        }
+                if (removed > 0) {
+                    save();
+                }
 
-        return removed;
+                return removed;
+            }
+        });
     }
 
     // ==================== HISTORY METHODS ====================
@@ -270,36 +452,78 @@ public class PlayerDatabase {
     }
 
     /**
-     * Record encounter for all players in current game
+     * Record encounter for all players in current game. Appends one journal
+     * line; the snapshot is not rewritten.
      */
     public void recordGameEnd(GameOutcome outcome) {
-        for (String playerKey : currentGamePlayers) {
-            recordEncounter(playerKey, null, outcome);
+        // Journal numbering continues from the replayed journal.
+        awaitLoaded();
+        List<String> players = new ArrayList<String>(currentGamePlayers);
+        long now = System.currentTimeMillis();
+        synchronized (stateLock) {
+            for (String playerKey : players) {
+                appendEncounter(playerKey, new EncounterEntry(null, outcome, now));
+            }
+            journal.append(now, outcome, players);
         }
-        save();
-        LOGGER.info("Recorded {} against {} players", outcome, currentGamePlayers.size());
+        LOGGER.info("Recorded {} against {} players", outcome, players.size());
+    }
+
+    /** Add one encounter in memory. Caller holds stateLock. */
+    private void appendEncounter(String playerName, EncounterEntry entry) {
+        String key = PlayerKey.canonicalName(playerName);
+        List<EncounterEntry> previous = history.get(key);
+        List<EncounterEntry> updated = previous != null
+                ? new ArrayList<EncounterEntry>(previous)
+                : new ArrayList<EncounterEntry>(1);
+        updated.add(entry);
+        history.put(key, Collections.unmodifiableList(updated));
+        outcomeIndex.add(key, entry.outcome, entry.timestamp);
     }
 
     /**
-     * Record a single encounter
+     * Fold raw encounters older than the retention window into the outcome
+     * index's day buckets and drop them from the history map. Never rolls up
+     * inside the auto-blacklist lookback, so its counts stay exact.
      */
-    public void recordEncounter(String playerName, String uuid, GameOutcome outcome) {
-        String key = playerName.toLowerCase();
-        if (!history.containsKey(key)) {
-            history.put(key, new ArrayList<EncounterEntry>());
+    private void rollUpOldEncounters() {
+        int retentionDays = Math.max(ModConfig.getEncounterRetentionDays(), ModConfig.getAutoBlacklistLookbackDays());
+        long cutoff = System.currentTimeMillis() - retentionDays * DAY_MS;
+        int rolled = 0;
+        synchronized (stateLock) {
+            for (Map.Entry<String, List<EncounterEntry>> mapEntry : history.entrySet()) {
+                List<EncounterEntry> encounters = mapEntry.getValue();
+                List<EncounterEntry> kept = new ArrayList<EncounterEntry>(encounters.size());
+                for (EncounterEntry encounter : encounters) {
+                    if (encounter.timestamp >= cutoff) {
+                        kept.add(encounter);
+                    }
+                }
+                if (kept.size() == encounters.size()) {
+                    continue;
+                }
+                rolled += outcomeIndex.rollUp(mapEntry.getKey(), cutoff);
+                if (kept.isEmpty()) {
+                    history.remove(mapEntry.getKey());
+                } else {
+                    history.put(mapEntry.getKey(), Collections.unmodifiableList(kept));
+                }
+            }
+        }
+        if (rolled > 0) {
+            LOGGER.info("Rolled up {} encounters older than {} days", rolled, retentionDays);
+            save();
         }
-        history.get(key).add(new EncounterEntry(uuid, outcome));
     }
 
     /**
-     * Get encounter history for a player
+     * Get encounter history for a player (read-only). Encounters past the
+     * retention window are only counted, so this may be shorter than
+     * {@link #getEncounterCount}.
      */
     public List<EncounterEntry> getEncounterHistory(String playerName) {
-        String key = playerName.toLowerCase();
-        if (history.containsKey(key)) {
-            return history.get(key);
-        }
-        return new ArrayList<EncounterEntry>();
+        List<EncounterEntry> encounters = history.get(PlayerKey.canonicalName(playerName));
+        return encounters != null ? encounters : Collections.<EncounterEntry>emptyList();
     }
 
     /**
@@ -310,59 +534,37 @@ public class PlayerDatabase {
             return 0;
         }
 
-        long now = System.currentTimeMillis();
-        long lookbackMs = lookbackDays * DAY_MS;
-        int count = 0;
-
-        List<EncounterEntry> encounters = getEncounterHistory(playerName);
-        for (EncounterEntry encounter : encounters) {
-            if (encounter.outcome != outcome) {
-                continue;
-            }
-            if (now - encounter.timestamp <= lookbackMs) {
-                count++;
-            }
-        }
-
-        return count;
+        long since = System.currentTimeMillis() - lookbackDays * DAY_MS;
+        return outcomeIndex.countSince(PlayerKey.canonicalName(playerName), outcome, since);
     }
 
     /**
      * Check if we've played against this player before
      */
     public boolean hasPlayedBefore(String playerName) {
-        return history.containsKey(playerName.toLowerCase());
+        return outcomeIndex.contains(PlayerKey.canonicalName(playerName));
     }
 
     /**
      * Get encounter count for a player
      */
     public int getEncounterCount(String playerName) {
-        List<EncounterEntry> encounters = getEncounterHistory(playerName);
-        return encounters.size();
+        return outcomeIndex.total(PlayerKey.canonicalName(playerName));
     }
 
     /**
      * Get win/loss record against a player
      */
     public int[] getWinLossRecord(String playerName) {
-        List<EncounterEntry> encounters = getEncounterHistory(playerName);
-        int wins = 0;
-        int losses = 0;
-        for (EncounterEntry e : encounters) {
-            if (e.outcome == GameOutcome.WIN)
-                wins++;
-            else if (e.outcome == GameOutcome.LOSS)
-                losses++;
-        }
-        return new int[] { wins, losses };
+        String key = PlayerKey.canonicalName(playerName);
+        return new int[] { outcomeIndex.total(key, GameOutcome.WIN), outcomeIndex.total(key, GameOutcome.LOSS) };
     }
 
     /**
      * Get total history size (unique players)
      */
     public int getHistorySize() {
-        return history.size();
+        return outcomeIndex.size();
     }
 
     private boolean isBlacklistEntryExpired(BlacklistEntry entry, long now) {
@@ -413,44 +615,163 @@ public class PlayerDatabase {
     // ==================== PERSISTENCE ====================
 
     /**
-     * Save data to JSON file
+     * Schedule a save. Returns immediately; the background writer persists
+     * the current state shortly after, once per burst of changes. Inside a
+     * {@link #batch} the save is held until the batch commits.
      */
     public void save() {
+        // Batches run entirely under stateLock, so a thread not holding it is
+        // not in one and need not wait for it (e.g. during the startup load).
+        if (Thread.holdsLock(stateLock) && batchDepth > 0) {
+            batchDirty = true;
+            return;
+        }
+        requestSave();
+    }
+
+    private void requestSave() {
+        saveRequests.incrementAndGet();
+        persister.markDirty();
+    }
+
+    /** Test seam: saves handed to the background writer so far. */
+    int saveRequestsForTests() {
+        return saveRequests.get();
+    }
+
+    /** Test seam: hold the load until {@code gate} opens, and wait only {@code waitMs} for it. */
+    void holdLoadForTests(CountDownLatch gate, long waitMs) {
+        loadGate = gate;
+        loadWaitMs = waitMs;
+    }
+
+    /**
+     * Run a group of mutations as one unit: they apply under the state lock,
+     * so no snapshot sees part of them, and however many of them (or reads
+     * that purge expired entries) ask to save, the batch commits with a
+     * single save when the outermost batch returns. Batches nest. Keep them
+     * to in-memory work; they block the background snapshot while open.
+     */
+    public <T> T batch(Transaction<T> transaction) {
+        awaitLoaded();
+        boolean commit = false;
+        try {
+            synchronized (stateLock) {
+                batchDepth++;
+                try {
+                    return transaction.run(this);
+                } finally {
+                    if (--batchDepth == 0) {
+                        commit = batchDirty;
+                        batchDirty = false;
+                    }
+                }
+            }
+        } finally {
+            if (commit) {
+                requestSave();
+            }
+        }
+    }
+
+    /** Write any unsaved changes now, on the calling thread. */
+    public void flush() {
+        persister.flush();
+    }
+
+    /**
+     * Serialize and write the database. Runs on the writer thread (or at
+     * shutdown). False when nothing was written, so the persister retries.
+     */
+    private boolean writeNow() {
+        if (!awaitLoaded()) {
+            // Writing now would replace the file with whatever has loaded so far.
+            LOGGER.warn("Player database still loading; deferring save");
+            return false;
+        }
         try {
             // Create directory if needed
-            File dir = new File(DATA_DIR);
-            if (!dir.exists()) {
-                dir.mkdirs();
+            if (!dataDir.exists()) {
+                dataDir.mkdirs();
+            }
+
+            // Capture state between batches, with the last journal record it
+            // contains. Blacklist entries are edited in place, so they are
+            // serialized here; history lists are immutable, so a shallow copy
+            // is serialized after the lock is released.
+            long journalSeq;
+            JsonElement blacklistJson;
+            Map<String, List<EncounterEntry>> historySnapshot;
+            JsonObject rollups;
+            synchronized (stateLock) {
+                journalSeq = journal.lastSeq();
+                blacklistJson = gson.toJsonTree(blacklist, BLACKLIST_TYPE);
+                historySnapshot = new HashMap<String, List<EncounterEntry>>(history);
+                rollups = outcomeIndex.rollupsToJson();
             }
 
             // Create data object
             JsonObject root = new JsonObject();
 
             // Serialize blacklist
-            root.add("blacklist", gson.toJsonTree(blacklist));
+            root.add("blacklist", blacklistJson);
 
             // Serialize history
-            root.add("history", gson.toJsonTree(history));
+            root.add("history", gson.toJsonTree(historySnapshot, HISTORY_TYPE));
+            root.add("rollups", rollups);
+            root.addProperty("journalSeq", journalSeq);
 
             // Temp file + atomic move: this is the only copy of the user's
             // blacklist and history, so a crash mid-write must never truncate it.
-            JsonFileUtil.writeAtomic(new File(DATA_FILE), gson, root);
+            JsonFileUtil.writeAtomic(dataFile, gson, root);
+            // Only now is it safe to drop what the snapshot holds.
+            journal.truncateThrough(journalSeq);
 
             LOGGER.debug("Saved player database");
+            return true;
 
         } catch (Exception e) {
             LOGGER.error("Error saving player database: {}", e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Load data from JSON file
+     * Load the snapshot, then replay journaled game ends it does not hold yet
      */
-    public void load() {
-        File file = new File(DATA_FILE);
+    private void load() {
+        CountDownLatch gate = loadGate;
+        if (gate != null) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Held throughout, so mutations queue up behind the load.
+        synchronized (stateLock) {
+            long journalSeq = loadSnapshot();
+            int replayed = journal.replay(journalSeq, new EncounterJournal.RecordVisitor() {
+                @Override
+                public void visit(EncounterJournal.Record record) {
+                    for (String playerKey : record.players) {
+                        appendEncounter(playerKey, new EncounterEntry(null, record.outcome, record.timestamp));
+                    }
+                }
+            });
+            if (replayed > 0) {
+                LOGGER.info("Replayed {} journaled games", replayed);
+            }
+            rollUpOldEncounters();
+        }
+    }
+
+    /** Load playerdata.json; returns the last journal sequence it holds. */
+    private long loadSnapshot() {
+        File file = dataFile;
         if (!file.exists()) {
             LOGGER.info("No player database found, starting fresh");
-            return;
+            return 0;
         }
 
         try {
@@ -464,28 +785,43 @@ public class PlayerDatabase {
 
             // Deserialize blacklist
             if (root.has("blacklist")) {
-                Type blacklistType = new TypeToken<Map<String, BlacklistEntry>>() {
-                }.getType();
-                blacklist = gson.fromJson(root.get("blacklist"), blacklistType);
-                if (blacklist == null) {
-                    blacklist = new HashMap<String, BlacklistEntry>();
+                Map<String, BlacklistEntry> loaded = gson.fromJson(root.get("blacklist"), BLACKLIST_TYPE);
+                if (loaded != null) {
+                    for (Map.Entry<String, BlacklistEntry> entry : loaded.entrySet()) {
+                        // ConcurrentHashMap rejects nulls; a null entry is unusable anyway.
+                        if (entry.getKey() != null && entry.getValue() != null) {
+                            blacklist.put(entry.getKey(), entry.getValue());
+                        }
+                    }
                 }
             }
 
+            // Deserialize rolled-up encounter counts before the raw history
+            // joins them in the index
+            if (root.has("rollups") && root.get("rollups").isJsonObject()) {
+                outcomeIndex.loadRollups(root.getAsJsonObject("rollups"));
+            }
+
             // Deserialize history
             if (root.has("history")) {
-                Type historyType = new TypeToken<Map<String, List<EncounterEntry>>>() {
-                }.getType();
-                history = gson.fromJson(root.get("history"), historyType);
-                if (history == null) {
-                    history = new HashMap<String, List<EncounterEntry>>();
+                Map<String, List<EncounterEntry>> loaded = gson.fromJson(root.get("history"), HISTORY_TYPE);
+                if (loaded != null) {
+                    for (Map.Entry<String, List<EncounterEntry>> entry : loaded.entrySet()) {
+                        if (entry.getKey() != null && entry.getValue() != null) {
+                            history.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+                            outcomeIndex.rebuild(entry.getKey(), entry.getValue());
+                        }
+                    }
                 }
             }
 
             normalizeBlacklistEntries();
             cleanupExpiredAutoBlacklistEntries();
 
-            LOGGER.info("Loaded player database: {} blacklisted, {} in history", blacklist.size(), history.size());
+            LOGGER.info("Loaded player database: {} blacklisted, {} in history", blacklist.size(), outcomeIndex.size());
+
+            // Files from before the journal hold no sequence: replay it all.
+            return root.has("journalSeq") ? root.get("journalSeq").getAsLong() : 0;
 
         } catch (Exception e) {
             // Quarantine the bad file: silently starting fresh here used to mean
@@ -495,6 +831,7 @@ public class PlayerDatabase {
             if (quarantined != null) {
                 LOGGER.error("Corrupt player database moved to {} — starting fresh", quarantined.getName());
             }
+            return 0;
         }
     }
 }
@@ -0,0 +1,90 @@
+package com.imshy.bedwars;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical identity of a player name.
+ *
+ * <p>Every name-keyed map in the mod (stats and UUID caches, the player
+ * database, the per-match trackers) is case-insensitive, and the hot paths
+ * (nametag render, tab injection, kill feed) used to lowercase the same names
+ * on every frame. {@link #of} answers from a table keyed by the name exactly
+ * as the caller holds it, so a repeat lookup allocates nothing; only the
+ * first sighting of a spelling lowercases it. The key carries the lowercase
+ * {@link #name} (one shared String while the key is remembered, so
+ * string-keyed maps reuse its cached hash) and compares by that name.
+ *
+ * <p>The table is only a cache: past {@link #MAX_NAMES} names it starts over,
+ * like the stats store's remembered misses. Keys handed out before the reset
+ * stay valid, since equality never depended on the instance.
+ */
+public final class PlayerKey {
+
+    /** Cap on remembered names before the table starts over. */
+    static final int MAX_NAMES = 8192;
+    /** Cap on remembered exact spellings (case variants of known names). */
+    static final int MAX_ALIASES = 4 * MAX_NAMES;
+
+    private static final ConcurrentHashMap<String, PlayerKey> byName =
+            new ConcurrentHashMap<String, PlayerKey>();
+    private static final ConcurrentHashMap<String, PlayerKey> byAlias =
+            new ConcurrentHashMap<String, PlayerKey>();
+
+    /** Lowercase name. */
+    public final String name;
+
+    private PlayerKey(String name) {
+        this.name = name;
+    }
+
+    /** The canonical key for {@code playerName}, in any capitalization. */
+    public static PlayerKey of(String playerName) {
+        PlayerKey key = byAlias.get(playerName);
+        if (key != null) {
+            return key;
+        }
+        String lower = playerName.toLowerCase(Locale.ROOT);
+        key = byName.get(lower);
+        if (key == null) {
+            if (byName.size() >= MAX_NAMES || byAlias.size() >= MAX_ALIASES) {
+                byName.clear();
+                byAlias.clear();
+            }
+            PlayerKey created = new PlayerKey(lower);
+            key = byName.putIfAbsent(lower, created);
+            if (key == null) {
+                key = created;
+            }
+        }
+        if (byAlias.size() < MAX_ALIASES) {
+            byAlias.put(playerName, key);
+        }
+        return key;
+    }
+
+    /** Shorthand for {@code of(playerName).name}: the shared lowercase key string. */
+    public static String canonicalName(String playerName) {
+        return of(playerName).name;
+    }
+
+    /** Number of distinct names currently remembered. */
+    public static int size() {
+        return byName.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || (o instanceof PlayerKey && name.equals(((PlayerKey) o).name));
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,203 @@
+package com.imshy.bedwars;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket for the Hypixel API quota.
+ *
+ * <p>Hypixel meters keys in fixed windows: {@code RateLimit-Remaining}
+ * requests are left until the window resets {@code RateLimit-Reset} seconds
+ * from now, at which point the full {@code RateLimit-Limit} comes back. The
+ * bucket models exactly that — tokens never trickle back mid-window, they
+ * refill all at once at the reset time — and every Hypixel response
+ * re-syncs it from those headers, so local state never drifts from the
+ * server's. Before the first response it runs a local window of
+ * {@code capacity} tokens.
+ *
+ * <p>State is one immutable {@link State} swapped by CAS, so
+ * {@link #tryAcquire} is O(1) and never blocks a pool thread.
+ *
+ * <p>Lower priorities cannot drain the bucket: everything except
+ * {@link HypixelAPI.FetchPriority#EXPLICIT} stops at a small reserve, and
+ * {@link HypixelAPI.FetchPriority#BACKGROUND} is additionally paced along a
+ * line from "full" at window start down to the reserve at reset, so
+ * refreshes spread across the window instead of bursting at its start.
+ *
+ * <p>With a {@link SharedRateLedger}, the state lives in the ledger instead
+ * and every operation is a locked read-modify-write of it, so clients sharing
+ * the key share one budget. The local reference then just mirrors the last
+ * state seen, and takes over if the ledger becomes unavailable.
+ */
+final class RateLimitBucket {
+
+    /** Tokens only EXPLICIT lookups may spend. */
+    static final int EXPLICIT_RESERVE = 10;
+    /** BACKGROUND may run this far ahead of its pacing line. */
+    static final int BACKGROUND_BURST = 5;
+
+    /** Immutable bucket snapshot. */
+    static final class State {
+        final int capacity;
+        final int tokens;
+        final long resetAt;
+
+        State(int capacity, int tokens, long resetAt) {
+            this.capacity = capacity;
+            this.tokens = tokens;
+            this.resetAt = resetAt;
+        }
+    }
+
+    private final long windowMs;
+    private final AtomicReference<State> state;
+    private final SharedRateLedger ledger;
+
+    RateLimitBucket(int capacity, long windowMs) {
+        this(capacity, windowMs, null);
+    }
+
+    RateLimitBucket(int capacity, long windowMs, SharedRateLedger ledger) {
+        this.windowMs = windowMs;
+        // resetAt 0 = already past: the first acquire opens a fresh window.
+        this.state = new AtomicReference<State>(new State(capacity, capacity, 0));
+        this.ledger = ledger;
+    }
+
+    /**
+     * Take one token for a request at {@code priority}.
+     *
+     * @return 0 when granted, otherwise how many ms until a token would be
+     *         available to this priority (always at least 1)
+     */
+    long tryAcquire(final HypixelAPI.FetchPriority priority, final long now) {
+        if (ledger != null) {
+            final long[] wait = new long[1];
+            State written = ledger.update(new SharedRateLedger.Update() {
+                @Override
+                public State apply(State current) {
+                    State live = refilled(current != null ? current : state.get(), now);
+                    wait[0] = waitFor(live, priority, now);
+                    return wait[0] > 0 ? live : new State(live.capacity, live.tokens - 1, live.resetAt);
+                }
+            });
+            if (written != null) {
+                state.set(written);
+                return wait[0];
+            }
+        }
+        while (true) {
+            State current = state.get();
+            State live = refilled(current, now);
+            long wait = waitFor(live, priority, now);
+            if (wait > 0) {
+                if (live != current) {
+                    state.compareAndSet(current, live);
+                }
+                return wait;
+            }
+            State taken = new State(live.capacity, live.tokens - 1, live.resetAt);
+            if (state.compareAndSet(current, taken)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Adopt the server's view of the quota. Values come straight from the
+     * response headers; a negative argument means the header was absent and
+     * the local value is kept.
+     */
+    void sync(final int limit, final int remaining, final long resetSeconds, final long now) {
+        if (ledger != null) {
+            State written = ledger.update(new SharedRateLedger.Update() {
+                @Override
+                public State apply(State current) {
+                    return synced(current != null ? current : state.get(), limit, remaining, resetSeconds, now);
+                }
+            });
+            if (written != null) {
+                state.set(written);
+                return;
+            }
+        }
+        while (true) {
+            State current = state.get();
+            if (state.compareAndSet(current, synced(current, limit, remaining, resetSeconds, now))) {
+                return;
+            }
+        }
+    }
+
+    /** Empty the bucket until {@code resetAt} (used on a 429 without headers). */
+    void drainUntil(final long resetAt) {
+        if (ledger != null) {
+            State written = ledger.update(new SharedRateLedger.Update() {
+                @Override
+                public State apply(State current) {
+                    State base = current != null ? current : state.get();
+                    return new State(base.capacity, 0, resetAt);
+                }
+            });
+            if (written != null) {
+                state.set(written);
+                return;
+            }
+        }
+        while (true) {
+            State current = state.get();
+            if (state.compareAndSet(current, new State(current.capacity, 0, resetAt))) {
+                return;
+            }
+        }
+    }
+
+    /** Current state with any due refill applied, for /bw status. */
+    State snapshot(long now) {
+        State shared = ledger != null ? ledger.read() : null;
+        return refilled(shared != null ? shared : state.get(), now);
+    }
+
+    private static State synced(State current, int limit, int remaining, long resetSeconds, long now) {
+        int capacity = limit > 0 ? limit : current.capacity;
+        int tokens = remaining >= 0 ? Math.min(remaining, capacity) : current.tokens;
+        long resetAt = resetSeconds >= 0 ? now + resetSeconds * 1000L : current.resetAt;
+        return new State(capacity, tokens, resetAt);
+    }
+
+    private State refilled(State s, long now) {
+        if (now < s.resetAt) {
+            return s;
+        }
+        return new State(s.capacity, s.capacity, now + windowMs);
+    }
+
+    private long waitFor(State s, HypixelAPI.FetchPriority priority, long now) {
+        long untilReset = Math.max(1, s.resetAt - now);
+        int reserve = Math.min(EXPLICIT_RESERVE, s.capacity - 1);
+        if (priority == HypixelAPI.FetchPriority.EXPLICIT) {
+            return s.tokens > 0 ? 0 : untilReset;
+        }
+        if (s.tokens <= reserve) {
+            return untilReset;
+        }
+        if (priority != HypixelAPI.FetchPriority.BACKGROUND) {
+            return 0;
+        }
+
+        // Pacing line: floor(t) = reserve + span * (time left / window).
+        // BACKGROUND may spend while tokens - 1 stays at or above it.
+        double span = Math.max(0, s.capacity - reserve - BACKGROUND_BURST);
+        double left = Math.min(1.0, (double) (s.resetAt - now) / windowMs);
+        double floor = reserve + span * left;
+        if (s.tokens - 1 >= floor) {
+            return 0;
+        }
+        if (span <= 0) {
+            return untilReset;
+        }
+        // Time until the line drops to tokens - 1.
+        double allowedLeft = (s.tokens - 1 - reserve) / span;
+        long wait = (s.resetAt - now) - (long) (allowedLeft * windowMs);
+        return Math.max(1, Math.min(wait, untilReset));
+    }
+}
@@ -0,0 +1,134 @@
+package com.imshy.bedwars;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+/**
+ * The API key's quota as one {@link RateLimitBucket.State} in a small shared
+ * file ({@code config/bedwarsstats/ratelimit.bin}), so every game client on
+ * the machine spends from the same bucket instead of each assuming the whole
+ * 120 requests per minute is its own.
+ *
+ * <p>Each {@link #update} maps the file, takes the cross-process
+ * {@link FileLocks lock}, reads the state, applies the caller's change and
+ * writes it back, all within a few microseconds. A file no instance has
+ * written yet reads as null and the caller seeds it from its local state.
+ * If the file cannot be used the ledger turns itself off for the session and
+ * the bucket falls back to counting alone.
+ */
+final class SharedRateLedger {
+
+    private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
+
+    private static final int MAGIC = 0x4257524C; // "BWRL"
+    private static final int FORMAT_VERSION = 1;
+    // magic(4) version(4) capacity(4) tokens(4) resetAt(8)
+    private static final int FILE_BYTES = 24;
+
+    /** A read-modify-write of the shared state. */
+    interface Update {
+        /** The new state, given the current one (null if none stored yet). */
+        RateLimitBucket.State apply(RateLimitBucket.State current);
+    }
+
+    private final File file;
+    private RandomAccessFile raf;
+    private MappedByteBuffer map;
+    private boolean disabled;
+
+    SharedRateLedger(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Apply {@code update} atomically across processes. Returns the state
+     * written, or null when the ledger is unavailable.
+     */
+    synchronized RateLimitBucket.State update(Update update) {
+        if (!ensureOpen()) {
+            return null;
+        }
+        FileLock lock = null;
+        try {
+            lock = FileLocks.lock(raf.getChannel());
+            RateLimitBucket.State next = update.apply(read());
+            if (next != null) {
+                write(next);
+            }
+            return next;
+        } catch (IOException e) {
+            disable(e);
+            return null;
+        } finally {
+            FileLocks.release(lock);
+        }
+    }
+
+    /** The stored state, or null if unavailable or not yet written. */
+    synchronized RateLimitBucket.State read() {
+        if (!ensureOpen() || map.getInt(0) != MAGIC || map.getInt(4) != FORMAT_VERSION) {
+            return null;
+        }
+        int capacity = map.getInt(8);
+        int tokens = map.getInt(12);
+        if (capacity <= 0 || tokens < 0 || tokens > capacity) {
+            return null;
+        }
+        return new RateLimitBucket.State(capacity, tokens, map.getLong(16));
+    }
+
+    synchronized void close() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // nothing useful to do on close
+            }
+        }
+        raf = null;
+        map = null;
+    }
+
+    private void write(RateLimitBucket.State state) {
+        // Header last, so a reader never sees a valid header over half a state.
+        map.putInt(8, state.capacity);
+        map.putInt(12, state.tokens);
+        map.putLong(16, state.resetAt);
+        map.putInt(4, FORMAT_VERSION);
+        map.putInt(0, MAGIC);
+    }
+
+    private boolean ensureOpen() {
+        if (map != null) {
+            return true;
+        }
+        if (disabled) {
+            return false;
+        }
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null && !dir.exists()) {
+                dir.mkdirs();
+            }
+            raf = new RandomAccessFile(file, "rw");
+            map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_BYTES);
+            return true;
+        } catch (IOException e) {
+            disable(e);
+            return false;
+        }
+    }
+
+    private void disable(IOException e) {
+        LOGGER.warn("Shared rate ledger unavailable, budgeting this client alone: {}", e.getMessage());
+        disabled = true;
+        close();
+    }
+}
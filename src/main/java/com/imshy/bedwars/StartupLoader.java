@@ -0,0 +1,149 @@
+package com.imshy.bedwars;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the mod's on-disk stores (UUID cache, player database, learned maps)
+ * in parallel on daemon threads, started from pre-init so no parse ever runs
+ * on the client thread during the first tick or chat event.
+ *
+ * <p>Each store decides what a caller sees before its {@link Task} is done:
+ * reads get an empty view, and anything that would persist waits for the
+ * load (on a background thread where possible) so a half-loaded store is
+ * never written over the file. Per-store load times are logged and shown in
+ * {@code /bw status}.
+ */
+public final class StartupLoader {
+
+    private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
+
+    /** One store's load. Acts as its future: poll {@link #isDone} or {@link #await}. */
+    public static final class Task implements Runnable {
+        private final String name;
+        private final Runnable load;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final long queuedAt = System.currentTimeMillis();
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile Throwable failure;
+
+        Task(String name, Runnable load) {
+            this.name = name;
+            this.load = load;
+        }
+
+        @Override
+        public void run() {
+            startedAt = System.currentTimeMillis();
+            try {
+                load.run();
+            } catch (Throwable t) {
+                // The store falls back to empty; the mod keeps working.
+                failure = t;
+                LOGGER.error("Loading {} failed: {}", name, t.toString());
+            } finally {
+                finishedAt = System.currentTimeMillis();
+                done.countDown();
+                if (failure == null) {
+                    LOGGER.info("Loaded {} in {} ms", name, finishedAt - startedAt);
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        /** Wait up to {@code timeoutMs}; true if the load has finished. */
+        public boolean await(long timeoutMs) {
+            try {
+                return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return isDone();
+            }
+        }
+
+        /** Load time so far (or in total, once done); 0 while still queued. */
+        public long elapsedMs() {
+            long start = startedAt;
+            if (start == 0) {
+                return 0;
+            }
+            long end = finishedAt;
+            return (end != 0 ? end : System.currentTimeMillis()) - start;
+        }
+
+        /** e.g. "player database 42 ms", "learned maps loading (120 ms)". */
+        public String describe() {
+            if (!isDone()) {
+                return startedAt == 0
+                        ? name + " queued (" + (System.currentTimeMillis() - queuedAt) + " ms)"
+                        : name + " loading (" + elapsedMs() + " ms)";
+            }
+            return failure != null ? name + " failed" : name + " " + elapsedMs() + " ms";
+        }
+    }
+
+    private static final List<Task> tasks = new CopyOnWriteArrayList<Task>();
+    private static ExecutorService pool;
+
+    private StartupLoader() {
+    }
+
+    /**
+     * Start loading a store on a background thread. The returned task is the
+     * store's future.
+     */
+    public static Task load(String name, Runnable load) {
+        Task task = new Task(name, load);
+        tasks.add(task);
+        pool().execute(task);
+        return task;
+    }
+
+    /** One line per store, in registration order, for /bw status. */
+    public static List<String> describe() {
+        List<String> lines = new ArrayList<String>();
+        for (Task task : tasks) {
+            lines.add(task.describe());
+        }
+        return lines;
+    }
+
+    private static synchronized ExecutorService pool() {
+        if (pool == null) {
+            // One thread per store: they are independent files, and the pool
+            // idles out once they are loaded.
+            final AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(3, 3, 5L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "BedwarsStats-startup-" + counter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            pool = executor;
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,708 @@
+package com.imshy.bedwars;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Warm-start stats cache on disk ({@code config/bedwarsstats/statscache.bin}).
+ *
+ * <p>The file is an open-addressing hash table of fixed-size slots, keyed by
+ * case-insensitive player name and memory-mapped read/write. Nothing is
+ * parsed at startup: a lookup hashes the name, probes a few slots in the
+ * mapping and decodes only the matching record. A write overwrites one slot
+ * in place. Each record holds the {@link BedwarsStats#toRecord} counters
+ * rather than raw Hypixel JSON, plus the fetch time so the in-memory
+ * {@code CACHE_EXPIRATION_MS} keeps applying across restarts.
+ *
+ * <p>Every slot carries a CRC32 of its payload; a slot torn by a crash
+ * mid-write fails the check and reads as a miss. It is a cache, so a bad
+ * header simply reinitializes the file. All methods hold the store's guard
+ * lock: writes come from the HypixelAPI executor, reads from the client
+ * thread on an in-memory miss. The client thread only ever uses
+ * {@link #tryGet}, which never waits for the guard or the file lock.
+ *
+ * <p>The file is shared by every game client on the machine that uses this
+ * config directory: one instance's fetch is another's cache hit. Each
+ * operation holds a cross-process {@link FileLocks lock} for its few
+ * microseconds and first re-reads the header, so a table another instance
+ * grew is remapped and its record count adopted before use.
+ *
+ * <p>The header also carries a write sequence that every change to the table
+ * bumps. {@link #get} remembers the names it missed at the current sequence
+ * and answers them again without the lock or a probe until it moves, so the
+ * client thread pays for a disk miss once per name, not once per frame.
+ */
+final class StatsStore {
+
+    private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
+
+    private static final int MAGIC = 0x42575343; // "BWSC"
+    private static final int FORMAT_VERSION = 2;
+
+    // Header: magic, version, capacity, used slots, write sequence.
+    private static final int OFF_WRITE_SEQ = 16;
+    static final int HEADER_BYTES = 24;
+
+    /** Minecraft names are [A-Za-z0-9_]{1,16}; anything else is not persisted. */
+    static final int MAX_NAME_BYTES = 16;
+
+    // Slot layout (bytes): crc(4) nameLength(4) name(16) uuidMost(8)
+    // uuidLeast(8) savedAt(8) flags(4) counters(RECORD_INTS * 4).
+    private static final int OFF_CRC = 0;
+    private static final int OFF_NAME_LENGTH = 4;
+    private static final int OFF_NAME = 8;
+    private static final int OFF_UUID_MOST = OFF_NAME + MAX_NAME_BYTES;
+    private static final int OFF_UUID_LEAST = OFF_UUID_MOST + 8;
+    private static final int OFF_SAVED_AT = OFF_UUID_LEAST + 8;
+    private static final int OFF_FLAGS = OFF_SAVED_AT + 8;
+    private static final int OFF_RECORD = OFF_FLAGS + 4;
+    static final int SLOT_BYTES = OFF_RECORD + BedwarsStats.RECORD_INTS * 4;
+
+    private static final int FLAG_NICKED = 1;
+    private static final int FLAG_HAS_UUID = 2;
+
+    static final int DEFAULT_CAPACITY = 4096;
+    // Rehash (dropping expired records) once the table is three quarters full.
+    private static final int MAX_LOAD_PERCENT = 75;
+    // Known misses kept between writes; past this the set starts over.
+    private static final int MAX_REMEMBERED_MISSES = 4096;
+
+    /** A stored record plus the time its stats were fetched. */
+    static final class Entry {
+        final BedwarsStats stats;
+        final long savedAt;
+
+        Entry(BedwarsStats stats, long savedAt) {
+            this.stats = stats;
+            this.savedAt = savedAt;
+        }
+    }
+
+    private final File file;
+    private final long expirationMs;
+    private final int initialCapacity;
+
+    private RandomAccessFile raf;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int used;
+    private boolean opened;
+
+    // Lowercased names get() missed while the write sequence was missesAtSeq.
+    private final Set<String> misses = new HashSet<String>();
+    private long missesAtSeq;
+
+    // Serializes this process's threads; tryGet must be able to back off.
+    private final ReentrantLock guard = new ReentrantLock();
+
+    StatsStore(File file, long expirationMs, int initialCapacity) {
+        this.file = file;
+        this.expirationMs = expirationMs;
+        this.initialCapacity = Integer.highestOneBit(Math.max(16, initialCapacity));
+    }
+
+    /**
+     * Fresh (non-expired) stats for {@code playerName}, or null. Expired and
+     * torn records are misses. A name already missed at the current write
+     * sequence is answered without touching the file lock. Blocks while
+     * another thread or instance holds the store; off the client thread only.
+     */
+    Entry get(String playerName, long now) {
+        if (!isStorableName(playerName)) {
+            return null;
+        }
+        guard.lock();
+        try {
+            String key = playerName.toLowerCase(Locale.ROOT);
+            if (isKnownMiss(key)) {
+                return null;
+            }
+            FileLock lock = acquire();
+            return lock == null ? null : readAndRelease(lock, playerName, key, now);
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    /**
+     * {@link #get} for the client thread: never waits. When a put on this
+     * client (possibly mid-rehash) or another instance holds the store, or
+     * the store is not open yet, this answers null at once; the fetch that
+     * miss queues consults the store again off-thread before calling Hypixel.
+     * Contention is not remembered as a miss.
+     */
+    Entry tryGet(String playerName, long now) {
+        if (!isStorableName(playerName) || !guard.tryLock()) {
+            return null;
+        }
+        try {
+            String key = playerName.toLowerCase(Locale.ROOT);
+            if (map == null || isKnownMiss(key)) {
+                return null;
+            }
+            FileLock lock = tryAcquire();
+            return lock == null ? null : readAndRelease(lock, playerName, key, now);
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    private Entry readAndRelease(FileLock lock, String playerName, String key, long now) {
+        try {
+            Entry entry = read(playerName, now);
+            if (entry == null) {
+                rememberMiss(key);
+            }
+            return entry;
+        } finally {
+            FileLocks.release(lock);
+        }
+    }
+
+    /** The lookup itself; caller holds the lock. */
+    private Entry read(String playerName, long now) {
+        int slot = findSlot(playerName);
+        if (slot < 0 || !isOccupied(slot)) {
+            return null;
+        }
+        int base = slotOffset(slot);
+        long savedAt = map.getLong(base + OFF_SAVED_AT);
+        if (now - savedAt > expirationMs || !checksumMatches(base)) {
+            return null;
+        }
+        return new Entry(decode(base), savedAt);
+    }
+
+    /**
+     * True when {@code key} missed and nothing has been written since. The
+     * sequence is read from the mapping without the lock: a write racing
+     * this read is simply picked up by the next lookup.
+     */
+    private boolean isKnownMiss(String key) {
+        if (map == null || misses.isEmpty()) {
+            return false;
+        }
+        if (map.getLong(OFF_WRITE_SEQ) != missesAtSeq) {
+            misses.clear();
+            return false;
+        }
+        return misses.contains(key);
+    }
+
+    /** Remember a miss at the current sequence; caller holds the lock. */
+    private void rememberMiss(String key) {
+        long seq = map.getLong(OFF_WRITE_SEQ);
+        if (seq != missesAtSeq || misses.size() >= MAX_REMEMBERED_MISSES) {
+            misses.clear();
+            missesAtSeq = seq;
+        }
+        misses.add(key);
+    }
+
+    /** Invalidates every instance's remembered misses; caller holds the lock. */
+    private void bumpWriteSeq() {
+        map.putLong(OFF_WRITE_SEQ, map.getLong(OFF_WRITE_SEQ) + 1);
+    }
+
+    /**
+     * The UUID stored with {@code playerName}'s record if it was saved within
+     * {@code maxAgeMs}, else null. Unlike {@link #get} this ignores the stats
+     * expiry: a name's UUID outlives its stats. Nicked records never answer.
+     */
+    String uuidFor(String playerName, long now, long maxAgeMs) {
+        guard.lock();
+        try {
+            if (!isStorableName(playerName)) {
+                return null;
+            }
+            FileLock lock = acquire();
+            if (lock == null) {
+                return null;
+            }
+            try {
+                int slot = findSlot(playerName);
+                if (slot < 0 || !isOccupied(slot)) {
+                    return null;
+                }
+                int base = slotOffset(slot);
+                int flags = map.getInt(base + OFF_FLAGS);
+                if ((flags & FLAG_HAS_UUID) == 0 || (flags & FLAG_NICKED) != 0
+                        || now - map.getLong(base + OFF_SAVED_AT) > maxAgeMs || !checksumMatches(base)) {
+                    return null;
+                }
+                return new UUID(map.getLong(base + OFF_UUID_MOST), map.getLong(base + OFF_UUID_LEAST)).toString();
+            } finally {
+                FileLocks.release(lock);
+            }
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    /**
+     * Persist loaded, non-error stats fetched at {@code savedAt}. Anything else
+     * (errors, unloaded placeholders, names that cannot be a real Minecraft
+     * name) is silently skipped.
+     */
+    void put(BedwarsStats stats, long savedAt) {
+        guard.lock();
+        try {
+            if (stats == null || !stats.isLoaded() || stats.hasError()
+                    || !isStorableName(stats.getPlayerName())) {
+                return;
+            }
+            FileLock lock = acquire();
+            if (lock == null) {
+                return;
+            }
+            try {
+                int slot = findSlot(stats.getPlayerName());
+                if (slot < 0 || !isOccupied(slot)) {
+                    if ((used + 1) * 100 > capacity * MAX_LOAD_PERCENT) {
+                        rehash(savedAt);
+                    }
+                    slot = findSlot(stats.getPlayerName());
+                    if (slot < 0) {
+                        return;
+                    }
+                    if (!isOccupied(slot)) {
+                        used++;
+                        map.putInt(12, used);
+                    }
+                } else if (map.getLong(slotOffset(slot) + OFF_SAVED_AT) > savedAt
+                        && checksumMatches(slotOffset(slot))) {
+                    // Another instance already published a newer fetch.
+                    return;
+                }
+                encode(slotOffset(slot), stats, savedAt);
+                bumpWriteSeq();
+            } finally {
+                FileLocks.release(lock);
+            }
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    /** Number of occupied slots (including expired records not yet rehashed away). */
+    int size() {
+        guard.lock();
+        try {
+            FileLock lock = acquire();
+            if (lock == null) {
+                return 0;
+            }
+            FileLocks.release(lock);
+            return used;
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    /** Drop every record (/bw clear) — for every instance sharing the file. */
+    void clear() {
+        guard.lock();
+        try {
+            FileLock lock = acquire();
+            if (lock == null) {
+                return;
+            }
+            try {
+                for (int slot = 0; slot < capacity; slot++) {
+                    map.putInt(slotOffset(slot) + OFF_NAME_LENGTH, 0);
+                }
+                used = 0;
+                map.putInt(12, 0);
+                bumpWriteSeq();
+            } finally {
+                FileLocks.release(lock);
+            }
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    /** Push dirty pages to disk (shutdown). The OS flushes them eventually anyway. */
+    void flush() {
+        guard.lock();
+        try {
+            if (map != null) {
+                map.force();
+            }
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    void close() {
+        guard.lock();
+        try {
+            flush();
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    // nothing useful to do on close
+                }
+            }
+            raf = null;
+            map = null;
+            opened = false;
+            misses.clear();
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    static boolean isStorableName(String playerName) {
+        if (playerName == null || playerName.isEmpty() || playerName.length() > MAX_NAME_BYTES) {
+            return false;
+        }
+        for (int i = 0; i < playerName.length(); i++) {
+            char c = playerName.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== FILE LIFECYCLE ====================
+
+    /**
+     * Map the file on first use. A missing, foreign or old-version file is
+     * (re)initialized empty. Returns false when the disk is unusable, in which
+     * case the store behaves as permanently empty for the session.
+     */
+    private boolean ensureOpen() {
+        if (opened) {
+            return map != null;
+        }
+        opened = true;
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null && !dir.exists()) {
+                dir.mkdirs();
+            }
+            raf = new RandomAccessFile(file, "rw");
+            // Another instance may be creating the same file right now.
+            FileLock lock = FileLocks.lock(raf.getChannel());
+            try {
+                int existingCapacity = readValidCapacity();
+                if (existingCapacity > 0) {
+                    mapTable(existingCapacity);
+                    used = map.getInt(12);
+                    LOGGER.info("Opened stats cache ({} records)", used);
+                } else {
+                    mapTable(initialCapacity);
+                    initializeTable();
+                }
+            } finally {
+                FileLocks.release(lock);
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Stats cache unavailable: {}", e.getMessage());
+            map = null;
+            return false;
+        }
+    }
+
+    /**
+     * Map the file now rather than on first use (pre-init), so the client
+     * thread's {@link #tryGet} finds it open.
+     */
+    void open() {
+        guard.lock();
+        try {
+            ensureOpen();
+        } finally {
+            guard.unlock();
+        }
+    }
+
+    /**
+     * Open if needed, take the cross-process lock and adopt whatever another
+     * instance changed since: a grown table is remapped, the record count
+     * re-read. Null if the store is unusable; otherwise the caller releases.
+     */
+    private FileLock acquire() {
+        if (!ensureOpen()) {
+            return null;
+        }
+        FileLock lock = null;
+        try {
+            lock = FileLocks.lock(raf.getChannel());
+            if (!adoptHeader()) {
+                // No instance writes a header like this: damage, so start over.
+                initializeTable();
+            }
+            return lock;
+        } catch (IOException e) {
+            FileLocks.release(lock);
+            LOGGER.warn("Stats cache lock failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * {@link #acquire} without waiting: null when another instance holds the
+     * lock. A damaged header is left for the next writer to reinitialize.
+     */
+    private FileLock tryAcquire() {
+        FileLock lock = null;
+        try {
+            lock = FileLocks.tryLock(raf.getChannel());
+            if (lock != null && !adoptHeader()) {
+                FileLocks.release(lock);
+                return null;
+            }
+            return lock;
+        } catch (IOException e) {
+            FileLocks.release(lock);
+            return null;
+        }
+    }
+
+    /**
+     * Validate the shared header and adopt its capacity and record count.
+     * The file length is only checked when another instance grew the table,
+     * since this instance's mapping already covers its own capacity. False
+     * for a damaged header; caller holds the lock.
+     */
+    private boolean adoptHeader() throws IOException {
+        int storedCapacity = map.getInt(8);
+        if (map.getInt(0) != MAGIC || map.getInt(4) != FORMAT_VERSION || storedCapacity <= 0
+                || Integer.bitCount(storedCapacity) != 1) {
+            return false;
+        }
+        if (storedCapacity != capacity) {
+            if (raf.length() < tableBytes(storedCapacity)) {
+                return false;
+            }
+            mapTable(storedCapacity);
+        }
+        used = map.getInt(12);
+        return true;
+    }
+
+    /** Capacity from a well-formed header the file is large enough for, else 0. */
+    private int readValidCapacity() throws IOException {
+        if (raf.length() < HEADER_BYTES) {
+            return 0;
+        }
+        raf.seek(0);
+        int magic = raf.readInt();
+        int version = raf.readInt();
+        int storedCapacity = raf.readInt();
+        if (magic != MAGIC || version != FORMAT_VERSION || storedCapacity <= 0
+                || Integer.bitCount(storedCapacity) != 1
+                || raf.length() < tableBytes(storedCapacity)) {
+            return 0;
+        }
+        return storedCapacity;
+    }
+
+    private void mapTable(int newCapacity) throws IOException {
+        FileChannel channel = raf.getChannel();
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, tableBytes(newCapacity));
+        capacity = newCapacity;
+    }
+
+    private void initializeTable() {
+        for (int slot = 0; slot < capacity; slot++) {
+            map.putInt(slotOffset(slot) + OFF_NAME_LENGTH, 0);
+        }
+        used = 0;
+        map.putInt(0, MAGIC);
+        map.putInt(4, FORMAT_VERSION);
+        map.putInt(8, capacity);
+        map.putInt(12, 0);
+        bumpWriteSeq();
+    }
+
+    /**
+     * Rebuild the table in place: collect live (non-expired, intact) records,
+     * grow if they alone would keep the table over half full, reinsert.
+     * Growing remaps the same file rather than swapping files, because a
+     * mapped file cannot be replaced on Windows while the mapping is alive.
+     */
+    private void rehash(long now) {
+        List<Entry> live = new ArrayList<Entry>();
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = slotOffset(slot);
+            if (!isOccupied(slot) || !checksumMatches(base)) {
+                continue;
+            }
+            long savedAt = map.getLong(base + OFF_SAVED_AT);
+            if (now - savedAt <= expirationMs) {
+                live.add(new Entry(decode(base), savedAt));
+            }
+        }
+
+        int newCapacity = capacity;
+        while ((live.size() + 1) * 2 > newCapacity) {
+            newCapacity *= 2;
+        }
+        try {
+            if (newCapacity != capacity) {
+                raf.setLength(tableBytes(newCapacity));
+                mapTable(newCapacity);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not grow stats cache: {}", e.getMessage());
+        }
+        initializeTable();
+        for (Entry entry : live) {
+            int slot = findSlot(entry.stats.getPlayerName());
+            if (slot >= 0) {
+                encode(slotOffset(slot), entry.stats, entry.savedAt);
+                used++;
+            }
+        }
+        map.putInt(12, used);
+        LOGGER.debug("Rehashed stats cache: {} live records, capacity {}", used, capacity);
+    }
+
+    // ==================== SLOTS ====================
+
+    private static long tableBytes(int slots) {
+        return HEADER_BYTES + (long) slots * SLOT_BYTES;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private boolean isOccupied(int slot) {
+        return map.getInt(slotOffset(slot) + OFF_NAME_LENGTH) > 0;
+    }
+
+    /**
+     * Linear probe from the name's home slot: the slot holding this name, or
+     * the first empty slot. -1 only if the table is completely full.
+     */
+    private int findSlot(String playerName) {
+        int mask = capacity - 1;
+        int slot = nameHash(playerName) & mask;
+        for (int probes = 0; probes < capacity; probes++) {
+            if (!isOccupied(slot) || nameMatches(slotOffset(slot), playerName)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** ASCII case-insensitive hash, allocation-free (no toLowerCase copy). */
+    static int nameHash(String playerName) {
+        int h = 0;
+        for (int i = 0; i < playerName.length(); i++) {
+            h = 31 * h + asciiLower(playerName.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private boolean nameMatches(int base, String playerName) {
+        int length = map.getInt(base + OFF_NAME_LENGTH);
+        if (length != playerName.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (asciiLower((char) map.get(base + OFF_NAME + i)) != asciiLower(playerName.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char asciiLower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private void encode(int base, BedwarsStats stats, long savedAt) {
+        byte[] name = stats.getPlayerName().getBytes(StandardCharsets.US_ASCII);
+        // Name length and CRC go last: an interrupted write leaves a bad CRC, never
+        // a slot that passes the check with a half-written record.
+        for (int i = 0; i < MAX_NAME_BYTES; i++) {
+            map.put(base + OFF_NAME + i, i < name.length ? name[i] : 0);
+        }
+        int flags = stats.isNicked() ? FLAG_NICKED : 0;
+        UUID uuid = parseUuid(stats.getUuid());
+        if (uuid != null) {
+            flags |= FLAG_HAS_UUID;
+            map.putLong(base + OFF_UUID_MOST, uuid.getMostSignificantBits());
+            map.putLong(base + OFF_UUID_LEAST, uuid.getLeastSignificantBits());
+        } else {
+            map.putLong(base + OFF_UUID_MOST, 0L);
+            map.putLong(base + OFF_UUID_LEAST, 0L);
+        }
+        map.putLong(base + OFF_SAVED_AT, savedAt);
+        map.putInt(base + OFF_FLAGS, flags);
+        int[] record = stats.toRecord();
+        for (int i = 0; i < record.length; i++) {
+            map.putInt(base + OFF_RECORD + i * 4, record[i]);
+        }
+        map.putInt(base + OFF_NAME_LENGTH, name.length);
+        map.putInt(base + OFF_CRC, checksum(base));
+    }
+
+    private BedwarsStats decode(int base) {
+        int length = map.getInt(base + OFF_NAME_LENGTH);
+        byte[] name = new byte[length];
+        for (int i = 0; i < length; i++) {
+            name[i] = map.get(base + OFF_NAME + i);
+        }
+        int flags = map.getInt(base + OFF_FLAGS);
+        String uuid = "";
+        if ((flags & FLAG_HAS_UUID) != 0) {
+            uuid = new UUID(map.getLong(base + OFF_UUID_MOST), map.getLong(base + OFF_UUID_LEAST)).toString();
+        }
+        int[] record = new int[BedwarsStats.RECORD_INTS];
+        for (int i = 0; i < record.length; i++) {
+            record[i] = map.getInt(base + OFF_RECORD + i * 4);
+        }
+        return BedwarsStats.fromRecord(new String(name, StandardCharsets.US_ASCII), uuid,
+                (flags & FLAG_NICKED) != 0, record);
+    }
+
+    private boolean checksumMatches(int base) {
+        return map.getInt(base + OFF_CRC) == checksum(base);
+    }
+
+    /** CRC32 over everything in the slot after the CRC field itself. */
+    private int checksum(int base) {
+        CRC32 crc = new CRC32();
+        for (int i = OFF_NAME_LENGTH; i < SLOT_BYTES; i++) {
+            crc.update(map.get(base + i));
+        }
+        return (int) crc.getValue();
+    }
+
+    private static UUID parseUuid(String uuid) {
+        if (uuid == null || uuid.isEmpty()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
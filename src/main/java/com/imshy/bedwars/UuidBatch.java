@@ -0,0 +1,69 @@
+package com.imshy.bedwars;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire format of Mojang's bulk name lookup
+ * ({@code POST /minecraft/profile/lookup/bulk/byname}), which resolves up to
+ * {@link #MAX_NAMES} names in one round-trip. The request is a JSON array of
+ * names; the response is an array of {@code {"id", "name"}} profiles for the
+ * names that exist. A name absent from a successful response is unknown to
+ * Mojang — the bulk equivalent of the single lookup's HTTP 404, i.e. a nick.
+ */
+final class UuidBatch {
+
+    /** Mojang rejects bulk requests with more names than this. */
+    static final int MAX_NAMES = 10;
+
+    /**
+     * How long the Mojang stage waits for more names after picking up the
+     * first one. A lobby join burst queues its names within a few ticks.
+     */
+    static final long WINDOW_MS = 50;
+
+    private UuidBatch() {
+    }
+
+    static String requestBody(List<String> names) {
+        JsonArray array = new JsonArray();
+        for (String name : names) {
+            array.add(new JsonPrimitive(name));
+        }
+        return array.toString();
+    }
+
+    /**
+     * Lowercased name -> undashed id for every profile in a bulk response.
+     * Malformed entries are skipped. Throws on a response that is not an
+     * array, so the caller treats the whole batch as a failed lookup.
+     */
+    static Map<String, String> parseResponse(Reader json) {
+        JsonElement parsed = new JsonParser().parse(json);
+        if (parsed == null || !parsed.isJsonArray()) {
+            throw new IllegalStateException("Bulk lookup response is not an array");
+        }
+        Map<String, String> ids = new HashMap<String, String>();
+        for (JsonElement element : parsed.getAsJsonArray()) {
+            if (!element.isJsonObject()) {
+                continue;
+            }
+            JsonObject profile = element.getAsJsonObject();
+            JsonElement id = profile.get("id");
+            JsonElement name = profile.get("name");
+            if (id == null || name == null || !id.isJsonPrimitive() || !name.isJsonPrimitive()) {
+                continue;
+            }
+            ids.put(name.getAsString().toLowerCase(), id.getAsString());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,330 @@
+package com.imshy.bedwars;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of Mojang-confirmed name -> UUID mappings
+ * ({@code config/bedwarsstats/uuidcache.log}).
+ *
+ * <p>Layout: a header of magic(4) version(4) generation(8), then records of
+ * length(2) crc(4) payload, where the payload is the name, the UUID and the
+ * confirmation time. A flush appends only the mappings confirmed since the
+ * last one and forces them to disk, so its cost follows what changed rather
+ * than the size of the cache. Reading stops at the first record that is cut
+ * short or fails its checksum, the tail a crash mid-append leaves; the next
+ * append truncates that tail before writing.
+ *
+ * <p>Superseded and expired records pile up until {@link #rewrite} replaces
+ * the file with just the live mappings, via temp file and atomic move, under
+ * a fresh generation number.
+ *
+ * <p>Every game client on the machine that shares the config directory
+ * appends to the same file. Each operation holds the cross-process lock on a
+ * separate lock file (the log itself is replaced by rewrites) and first reads
+ * whatever the others appended since this instance last looked, handing
+ * those records to the caller's {@link Sink}. A changed generation means
+ * another client rewrote the file, and it is read again from the top. The
+ * caller serializes its own threads.
+ */
+final class UuidLog {
+
+    private static final int MAGIC = 0x4257554C; // "BWUL"
+    private static final int FORMAT_VERSION = 1;
+    // magic(4) version(4) generation(8)
+    private static final int HEADER_BYTES = 16;
+    // length(2) crc(4)
+    private static final int RECORD_HEADER_BYTES = 6;
+    private static final int MAX_PAYLOAD_BYTES = 0xFFFF;
+
+    /** One persisted mapping. */
+    static final class Record {
+        final String name;
+        final String uuid;
+        final long recordedAt;
+
+        Record(String name, String uuid, long recordedAt) {
+            this.name = name;
+            this.uuid = uuid;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    /** Receives records read from the file, oldest first. */
+    interface Sink {
+        void accept(Record record);
+    }
+
+    /** Supplies the live mappings for a rewrite, after any catch-up. */
+    interface Snapshot {
+        List<Record> records();
+    }
+
+    private final File file;
+    private final File lockFile;
+
+    // What this instance has read: the file generation and the offset of the
+    // first byte not yet read. -1 generation = nothing read yet.
+    private long generation = -1;
+    private long readOffset;
+    private boolean tornTail;
+    private int recordsInFile;
+
+    UuidLog(File file, File lockFile) {
+        this.file = file;
+        this.lockFile = lockFile;
+    }
+
+    boolean exists() {
+        return file.exists();
+    }
+
+    /** Records in the file, live or not, as of the last operation. */
+    synchronized int recordsInFile() {
+        return recordsInFile;
+    }
+
+    /**
+     * Read records this instance has not seen yet into {@code sink}. At
+     * startup that is the whole file. Returns how many were read.
+     */
+    synchronized int catchUp(Sink sink) throws IOException {
+        RandomAccessFile lockRaf = openLock();
+        FileLock lock = null;
+        try {
+            lock = FileLocks.lock(lockRaf.getChannel());
+            return readNew(sink);
+        } finally {
+            FileLocks.release(lock);
+            lockRaf.close();
+        }
+    }
+
+    /**
+     * Catch up into {@code sink}, then append {@code records} and force them
+     * to disk. Returns how many records were read.
+     */
+    synchronized int append(List<Record> records, Sink sink) throws IOException {
+        RandomAccessFile lockRaf = openLock();
+        FileLock lock = null;
+        try {
+            lock = FileLocks.lock(lockRaf.getChannel());
+            int read = readNew(sink);
+            if (records.isEmpty()) {
+                return read;
+            }
+            if (generation < 0) {
+                // No file yet: start one so the appends have a header.
+                writeFresh(Collections.<Record>emptyList());
+            }
+            byte[] bytes = encode(records);
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                if (tornTail) {
+                    raf.setLength(readOffset);
+                    tornTail = false;
+                }
+                raf.seek(readOffset);
+                raf.write(bytes);
+                raf.getChannel().force(false);
+            } finally {
+                raf.close();
+            }
+            readOffset += bytes.length;
+            recordsInFile += records.size();
+            return read;
+        } finally {
+            FileLocks.release(lock);
+            lockRaf.close();
+        }
+    }
+
+    /**
+     * Replace the file with the mappings {@code snapshot} returns. With a
+     * {@code sink}, records other clients appended are read into it first,
+     * so the snapshot can include them; without one (clearing the cache) they
+     * are dropped.
+     */
+    synchronized void rewrite(Sink sink, Snapshot snapshot) throws IOException {
+        RandomAccessFile lockRaf = openLock();
+        FileLock lock = null;
+        try {
+            lock = FileLocks.lock(lockRaf.getChannel());
+            if (sink != null) {
+                readNew(sink);
+            }
+            writeFresh(snapshot.records());
+        } finally {
+            FileLocks.release(lock);
+            lockRaf.close();
+        }
+    }
+
+    // ==================== FILE ACCESS (lock held) ====================
+
+    private RandomAccessFile openLock() throws IOException {
+        File dir = lockFile.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        return new RandomAccessFile(lockFile, "rw");
+    }
+
+    private int readNew(Sink sink) throws IOException {
+        if (!file.exists()) {
+            generation = -1;
+            readOffset = 0;
+            recordsInFile = 0;
+            tornTail = false;
+            return 0;
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long length = raf.length();
+            long fileGeneration = -1;
+            if (length >= HEADER_BYTES) {
+                int magic = raf.readInt();
+                int version = raf.readInt();
+                if (magic == MAGIC && version == FORMAT_VERSION) {
+                    fileGeneration = raf.readLong();
+                }
+            }
+            if (fileGeneration < 0) {
+                throw new IOException("not a UUID log");
+            }
+            if (fileGeneration != generation || length < readOffset) {
+                generation = fileGeneration;
+                readOffset = HEADER_BYTES;
+                recordsInFile = 0;
+            }
+            if (length == readOffset) {
+                return 0;
+            }
+
+            byte[] tail = new byte[(int) (length - readOffset)];
+            raf.seek(readOffset);
+            raf.readFully(tail);
+            ByteBuffer buffer = ByteBuffer.wrap(tail);
+            int read = 0;
+            tornTail = false;
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                if (buffer.remaining() < RECORD_HEADER_BYTES) {
+                    tornTail = true;
+                    break;
+                }
+                int payloadLength = buffer.getShort() & 0xFFFF;
+                int crc = buffer.getInt();
+                if (buffer.remaining() < payloadLength || crc(tail, buffer.position(), payloadLength) != crc) {
+                    buffer.position(start);
+                    tornTail = true;
+                    break;
+                }
+                int end = buffer.position() + payloadLength;
+                Record record = decode(buffer);
+                if (record == null || buffer.position() != end) {
+                    buffer.position(start);
+                    tornTail = true;
+                    break;
+                }
+                sink.accept(record);
+                read++;
+            }
+            readOffset += buffer.position();
+            recordsInFile += read;
+            return read;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void writeFresh(List<Record> records) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        // Random, so two clients rewriting in turn never reuse a generation
+        // the other has already read.
+        long newGeneration;
+        do {
+            newGeneration = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+        } while (newGeneration == generation);
+        byte[] body = encode(records);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_BYTES + body.length);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeLong(newGeneration);
+        data.write(body);
+        data.flush();
+
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.write(tmp.toPath(), out.toByteArray());
+        JsonFileUtil.replaceAtomic(tmp, file);
+
+        generation = newGeneration;
+        readOffset = HEADER_BYTES + body.length;
+        recordsInFile = records.size();
+        tornTail = false;
+    }
+
+    // ==================== RECORD CODEC ====================
+
+    static byte[] encode(List<Record> records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(records.size() * 64);
+        DataOutputStream data = new DataOutputStream(out);
+        for (Record record : records) {
+            byte[] name = record.name.getBytes(StandardCharsets.UTF_8);
+            byte[] uuid = record.uuid.getBytes(StandardCharsets.UTF_8);
+            int payloadLength = 1 + name.length + 1 + uuid.length + 8;
+            if (name.length > 0xFF || uuid.length > 0xFF || payloadLength > MAX_PAYLOAD_BYTES) {
+                continue;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+            payload.put((byte) name.length).put(name);
+            payload.put((byte) uuid.length).put(uuid);
+            payload.putLong(record.recordedAt);
+            byte[] bytes = payload.array();
+            data.writeShort(payloadLength);
+            data.writeInt(crc(bytes, 0, bytes.length));
+            data.write(bytes);
+        }
+        data.flush();
+        return out.toByteArray();
+    }
+
+    private static Record decode(ByteBuffer buffer) {
+        int nameLength = buffer.get() & 0xFF;
+        if (buffer.remaining() < nameLength + 1) {
+            return null;
+        }
+        byte[] name = new byte[nameLength];
+        buffer.get(name);
+        int uuidLength = buffer.get() & 0xFF;
+        if (buffer.remaining() < uuidLength + 8) {
+            return null;
+        }
+        byte[] uuid = new byte[uuidLength];
+        buffer.get(uuid);
+        long recordedAt = buffer.getLong();
+        return new Record(new String(name, StandardCharsets.UTF_8),
+                new String(uuid, StandardCharsets.UTF_8), recordedAt);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
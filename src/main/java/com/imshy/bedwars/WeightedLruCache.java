@@ -0,0 +1,192 @@
+package com.imshy.bedwars;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thread-safe LRU map bounded by total entry weight rather than entry count.
+ *
+ * <p>Every entry is weighed once on insert (e.g. estimated bytes). When the
+ * total passes {@code maxWeight}, least-recently-used entries are evicted until
+ * it fits again, skipping pinned keys. Pinned entries are never evicted, even
+ * if that leaves the cache over its ceiling; the pinned set is a small
+ * snapshot replaced wholesale by the owner (current match plus blacklist).
+ *
+ * <p>A single monitor guards an access-ordered LinkedHashMap. Lookups come from
+ * the client/render thread and inserts from the HypixelAPI executor; each call
+ * is a few pointer moves, so contention stays negligible. Hit, miss and
+ * eviction counters feed /bw status.
+ */
+final class WeightedLruCache<K, V> {
+
+    /** Weight of one entry; must not change while the entry is cached. */
+    interface Weigher<K, V> {
+        long weigh(K key, V value);
+    }
+
+    /**
+     * Recency order. {@code index} holds the same slots so peeks and
+     * conditional removes can read without reordering.
+     */
+    private final LinkedHashMap<K, Slot<V>> order = new LinkedHashMap<K, Slot<V>>(16, 0.75f, true);
+    private final HashMap<K, Slot<V>> index = new HashMap<K, Slot<V>>();
+    private final Weigher<? super K, ? super V> weigher;
+    private long maxWeight;
+    private long totalWeight;
+    private volatile Set<K> pinned = Collections.emptySet();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    WeightedLruCache(long maxWeight, Weigher<? super K, ? super V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /** Counting lookup: refreshes recency and records a hit or miss. */
+    synchronized V get(K key) {
+        Slot<V> slot = order.get(key);
+        if (slot == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return slot.value;
+    }
+
+    /** Lookup that touches neither recency nor the hit/miss counters. */
+    synchronized V peek(K key) {
+        Slot<V> slot = index.get(key);
+        return slot != null ? slot.value : null;
+    }
+
+    synchronized boolean containsKey(K key) {
+        return index.containsKey(key);
+    }
+
+    synchronized V put(K key, V value) {
+        Slot<V> slot = new Slot<V>(value, Math.max(0, weigher.weigh(key, value)));
+        Slot<V> previous = order.put(key, slot);
+        index.put(key, slot);
+        totalWeight += slot.weight - (previous != null ? previous.weight : 0);
+        evictIfNeeded();
+        return previous != null ? previous.value : null;
+    }
+
+    synchronized V remove(K key) {
+        Slot<V> removed = index.remove(key);
+        if (removed == null) {
+            return null;
+        }
+        order.remove(key);
+        totalWeight -= removed.weight;
+        return removed.value;
+    }
+
+    /** Remove only if {@code key} still maps to {@code value}. */
+    synchronized boolean remove(K key, V value) {
+        Slot<V> current = index.get(key);
+        if (current == null || !(current.value == value || current.value.equals(value))) {
+            return false;
+        }
+        remove(key);
+        return true;
+    }
+
+    synchronized void clear() {
+        order.clear();
+        index.clear();
+        totalWeight = 0;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long weight() {
+        return totalWeight;
+    }
+
+    synchronized long maxWeight() {
+        return maxWeight;
+    }
+
+    /** Change the ceiling; shrinking evicts right away. */
+    synchronized void setMaxWeight(long maxWeight) {
+        if (this.maxWeight != maxWeight) {
+            this.maxWeight = maxWeight;
+            evictIfNeeded();
+        }
+    }
+
+    /** Replace the set of keys that eviction must skip. */
+    void setPinned(Set<K> keys) {
+        pinned = keys != null ? keys : Collections.<K>emptySet();
+    }
+
+    /** Values, least recently used first. */
+    synchronized List<V> valuesSnapshot() {
+        List<V> values = new ArrayList<V>(order.size());
+        for (Slot<V> slot : order.values()) {
+            values.add(slot.value);
+        }
+        return values;
+    }
+
+    /** Entries, least recently used first. */
+    synchronized List<Map.Entry<K, V>> entriesSnapshot() {
+        List<Map.Entry<K, V>> entries = new ArrayList<Map.Entry<K, V>>(order.size());
+        for (Map.Entry<K, Slot<V>> entry : order.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<K, V>(entry.getKey(), entry.getValue().value));
+        }
+        return entries;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    private void evictIfNeeded() {
+        if (totalWeight <= maxWeight) {
+            return;
+        }
+        Set<K> pinnedNow = pinned;
+        Iterator<Map.Entry<K, Slot<V>>> it = order.entrySet().iterator();
+        while (totalWeight > maxWeight && it.hasNext()) {
+            Map.Entry<K, Slot<V>> eldest = it.next();
+            if (pinnedNow.contains(eldest.getKey())) {
+                continue;
+            }
+            it.remove();
+            index.remove(eldest.getKey());
+            totalWeight -= eldest.getValue().weight;
+            evictions++;
+        }
+    }
+
+    private static final class Slot<V> {
+        final V value;
+        final long weight;
+
+        Slot(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
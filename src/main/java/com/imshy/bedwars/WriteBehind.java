@@ -0,0 +1,130 @@
+package com.imshy.bedwars;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Debounced write-behind for a file-backed store. Mutations call
+ * {@link #markDirty()} (cheap, any thread); one daemon thread runs the write
+ * action {@code delayMs} after the first unsaved mutation, so a burst of
+ * changes costs a single write and never blocks the caller.
+ *
+ * <p>The dirty flag is cleared just before each write. A mutation that races
+ * the write sets it again and schedules another, so nothing is lost, and
+ * writes never overlap. A write that reports it did not save (or throws)
+ * marks the store dirty again and is retried {@code delayMs} later.
+ * {@link #shutdown} cancels pending delays and writes once more on the
+ * calling thread if anything is unsaved; after shutdown, {@link #markDirty()}
+ * writes inline.
+ */
+public final class WriteBehind {
+
+    private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
+
+    /** The save itself. */
+    public interface WriteAction {
+        /** True once the state is on disk; false leaves it unsaved for a retry. */
+        boolean write();
+    }
+
+    private final String name;
+    private final long delayMs;
+    private final WriteAction write;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Object writeLock = new Object();
+    private final ScheduledThreadPoolExecutor writer;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public WriteBehind(final String name, long delayMs, WriteAction write) {
+        this.name = name;
+        this.delayMs = delayMs;
+        this.write = write;
+        this.writer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "BedwarsStats-" + name + "-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // shutdown() does its own final write; don't wait out pending delays.
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /** Record an unsaved change; schedules a write unless one is already due. */
+    public void markDirty() {
+        if (!dirty.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writer.schedule(flushTask, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down: nobody else will write it.
+            flush();
+        }
+    }
+
+    /** Write now, on the calling thread, if anything is unsaved. */
+    public void flush() {
+        synchronized (writeLock) {
+            if (!dirty.compareAndSet(true, false)) {
+                return;
+            }
+            boolean written = false;
+            try {
+                written = write.write();
+            } catch (RuntimeException e) {
+                LOGGER.error("Write-behind save of {} failed: {}", name, e.getMessage());
+            }
+            if (!written) {
+                retryLater();
+            }
+        }
+    }
+
+    /**
+     * Put back the change a failed write dropped. A mutation since the write
+     * already scheduled the next one; after shutdown the change stays unsaved
+     * rather than retrying inline forever.
+     */
+    private void retryLater() {
+        if (!dirty.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writer.schedule(flushTask, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Write-behind save of {} failed after shutdown; changes left unsaved", name);
+        }
+    }
+
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * Stop the writer, waiting up to {@code timeoutMs} for a write already in
+     * progress, then write any remaining changes on the calling thread.
+     */
+    public void shutdown(long timeoutMs) {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -5,6 +5,7 @@ import com.imshy.bedwars.ClientThread;
 import com.imshy.bedwars.HypixelAPI;
 import com.imshy.bedwars.ModConfig;
 import com.imshy.bedwars.PlayerDatabase;
+import com.imshy.bedwars.StartupLoader;
 import com.imshy.bedwars.runtime.BedwarsRuntime;
 import com.imshy.bedwars.runtime.GamePhase;
 import com.imshy.bedwars.runtime.MapLearningService;
@@ -35,7 +36,7 @@ public class BedwarsCommand extends CommandBase {
 
     @Override
     public String getCommandUsage(ICommandSender sender) {
-        return "/bw <setkey|lookup|all|info|autoplay|afk|rejoin|blacklist|history|status|health|clear|reset|disable|enable|pearlpreview|nametags|maps|edithud> [args]";
+        return "/bw <setkey|lookup|all|info|autoplay|afk|rejoin|blacklist|history|status|health|clear|reset|disable|enable|pearlpreview|nametags|maps|edithud|record> [args]";
     }
 
     @Override
@@ -57,7 +58,7 @@ public class BedwarsCommand extends CommandBase {
             sendMessage(sender, "/bw blacklist <add|remove|list> [player] [reason] - Manage blacklist");
             sendMessage(sender, "/bw history [player] - View encounter history");
             sendMessage(sender, "/bw status - Show cache and rate limit info");
-            sendMessage(sender, "/bw health [rearm] - Show or re-arm crash-shielded subsystems");
+            sendMessage(sender, "/bw health [rearm] - Show subsystem health and tick cost, or re-arm");
             sendMessage(sender, "/bw clear - Clear the stats cache");
             sendMessage(sender, "/bw reset - Reset all HUD and runtime state (like a fresh boot)");
             sendMessage(sender, "/bw disable - Disable all automatic features (stat lookup, alerts, HUD, audio)");
@@ -66,6 +67,7 @@ public class BedwarsCommand extends CommandBase {
             sendMessage(sender, "/bw nametags - Toggle in-world nametags above player heads");
             sendMessage(sender, "/bw maps - List map layouts learned from played games");
             sendMessage(sender, "/bw edithud - Open the drag-and-drop HUD layout editor");
+            sendMessage(sender, "/bw record [stop] - Record this match's inputs for offline replay");
             sendMessage(sender, EnumChatFormatting.GRAY + "Tactical features (toggle in config GUI):");
             sendMessage(sender, EnumChatFormatting.GRAY + "  pre-game briefing, generator countdown, enemy loadout row,");
             sendMessage(sender, EnumChatFormatting.GRAY + "  final-kill feed, ender-pearl trajectory overlay");
@@ -188,6 +190,10 @@ public class BedwarsCommand extends CommandBase {
 
             sendMessage(sender, String.format("Blacklist: %d players", db.getBlacklistSize()));
             sendMessage(sender, String.format("History: %d unique players", db.getHistorySize()));
+            List<String> startup = StartupLoader.describe();
+            if (!startup.isEmpty()) {
+                sendMessage(sender, "Startup: " + String.join(", ", startup));
+            }
             sendMessage(sender, "Game phase: " + runtime.getGamePhase().name());
             sendMessage(sender, "Rush predictor: " + (ModConfig.isRushPredictorEnabled() ? "Enabled" : "Disabled"));
             sendMessage(sender, "Mod: " + (ModConfig.isModEnabled() ? EnumChatFormatting.GREEN + "Enabled" : EnumChatFormatting.RED + "Disabled"));
@@ -213,6 +219,10 @@ public class BedwarsCommand extends CommandBase {
                     boolean bad = row.contains("QUARANTINED");
                     sendMessage(sender, (bad ? EnumChatFormatting.RED : EnumChatFormatting.GREEN) + row);
                 }
+                sendMessage(sender, EnumChatFormatting.GOLD + "=== Tick Budget ===");
+                for (String row : runtime.getTickCostReport()) {
+                    sendMessage(sender, EnumChatFormatting.GRAY + row);
+                }
                 sendMessage(sender, EnumChatFormatting.GRAY
                         + "Use /bw health rearm to re-enable quarantined subsystems.");
             }
@@ -220,7 +230,6 @@ public class BedwarsCommand extends CommandBase {
         } else if (subCommand.equals("clear")) {
             HypixelAPI.clearCache();
             runtime.clearRecentJoins();
-            runtime.clearPendingTabListFetches();
             sendMessage(sender, EnumChatFormatting.GREEN + "Cache cleared!");
 
         } else if (subCommand.equals("reset")) {
@@ -276,6 +285,9 @@ public class BedwarsCommand extends CommandBase {
         } else if (subCommand.equals("maps")) {
             handleMapsCommand(sender);
 
+        } else if (subCommand.equals("record")) {
+            handleRecordCommand(sender, args);
+
         } else if (subCommand.equals("edithud")) {
             // Vanilla closes the chat screen right after command execution
             // (and addScheduledTask runs synchronously on the client thread),
@@ -296,7 +308,7 @@ public class BedwarsCommand extends CommandBase {
             return getListOfStringsMatchingLastWord(args, "setkey", "lookup", "all", "info", "autoplay",
                     "afk", "rejoin", "blacklist", "history",
                     "status", "clear", "reset", "disable", "enable", "pearlpreview", "nametags", "maps",
-                    "edithud", "health");
+                    "edithud", "health", "record");
         }
 
         if (args.length == 2) {
@@ -320,6 +332,10 @@ public class BedwarsCommand extends CommandBase {
             if (subCommand.equals("autoplay")) {
                 return getListOfStringsMatchingLastWord(args, runtime.getAutoplayModeSuggestions());
             }
+
+            if (subCommand.equals("record")) {
+                return getListOfStringsMatchingLastWord(args, "stop");
+            }
         }
 
         if (args.length == 3 && args[0].toLowerCase().equals("blacklist")) {
@@ -505,9 +521,8 @@ public class BedwarsCommand extends CommandBase {
         }
 
         String playerName = args[1];
-        java.util.List<PlayerDatabase.EncounterEntry> encounters = db.getEncounterHistory(playerName);
-
-        if (encounters.isEmpty()) {
+        int games = db.getEncounterCount(playerName);
+        if (games == 0) {
             sendMessage(sender, EnumChatFormatting.YELLOW + "No encounter history for " + playerName);
             return;
         }
@@ -515,8 +530,13 @@ public class BedwarsCommand extends CommandBase {
         int[] record = db.getWinLossRecord(playerName);
         sendMessage(sender, EnumChatFormatting.GOLD + "=== History: " + playerName + " ===");
         sendMessage(sender, String.format("Games: %d | Record: %d-%d (W-L)",
-                encounters.size(), record[0], record[1]));
+                games, record[0], record[1]));
 
+        // Only encounters inside the retention window are kept individually
+        java.util.List<PlayerDatabase.EncounterEntry> encounters = db.getEncounterHistory(playerName);
+        if (encounters.isEmpty()) {
+            return;
+        }
         int showCount = Math.min(5, encounters.size());
         sendMessage(sender, EnumChatFormatting.GRAY + "Last " + showCount + " games:");
         for (int i = encounters.size() - 1; i >= Math.max(0, encounters.size() - 5); i--) {
@@ -616,6 +636,29 @@ public class BedwarsCommand extends CommandBase {
         }
     }
 
+    private void handleRecordCommand(ICommandSender sender, String[] args) {
+        if (args.length >= 2 && args[1].equalsIgnoreCase("stop")) {
+            java.io.File finished = runtime.stopRecording();
+            if (finished == null) {
+                sendMessage(sender, EnumChatFormatting.YELLOW + "No recording is running.");
+            } else {
+                sendMessage(sender, EnumChatFormatting.GOLD + "[BW] " +
+                        EnumChatFormatting.GREEN + "Recording saved to " + finished.getPath());
+            }
+            return;
+        }
+
+        try {
+            java.io.File target = runtime.startRecording();
+            sendMessage(sender, EnumChatFormatting.GOLD + "[BW] " +
+                    EnumChatFormatting.GREEN + "Recording to " + target.getPath());
+            sendMessage(sender, EnumChatFormatting.GRAY
+                    + "Stops when the next match ends, or use /bw record stop.");
+        } catch (java.io.IOException e) {
+            sendMessage(sender, EnumChatFormatting.RED + "Could not start recording: " + e.getMessage());
+        }
+    }
+
     private void handleRejoinCommand(ICommandSender sender) {
         Minecraft mc = Minecraft.getMinecraft();
         if (mc.theWorld == null || mc.thePlayer == null) {
@@ -2,39 +2,22 @@ package com.imshy.bedwars.runtime;
 
 import com.imshy.bedwars.ModConfig;
 
-import io.netty.channel.ChannelDuplexHandler;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelPipeline;
-
-import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.entity.EntityOtherPlayerMP;
-import net.minecraft.client.network.NetHandlerPlayClient;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.init.Blocks;
 import net.minecraft.item.ItemBlock;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.ItemSword;
-import net.minecraft.network.NetworkManager;
-import net.minecraft.network.play.server.S0BPacketAnimation;
-import net.minecraft.network.play.server.S22PacketMultiBlockChange;
-import net.minecraft.network.play.server.S23PacketBlockChange;
-import net.minecraft.util.BlockPos;
 import net.minecraft.util.ChatComponentText;
 import net.minecraft.util.EnumChatFormatting;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Client-side hacker detector. Two modules:
@@ -52,8 +35,6 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  */
 public class AntiCheatService {
 
-    private static final Logger LOGGER = LogManager.getLogger(AntiCheatService.class);
-    private static final String HANDLER_NAME = "bedwars_anticheat";
     private static final String PREFIX = EnumChatFormatting.RED + "[AntiCheat] " + EnumChatFormatting.RESET;
 
     // Scaffold heuristics
@@ -70,8 +51,9 @@ public class AntiCheatService {
 
     // Placement gate: must have placed blocks near themselves recently.
     private static final long PLACEMENT_RECENCY_MS = 2500L;
-    private static final double PLACEMENT_PROXIMITY_SQ = 5.0 * 5.0;     // 5-block radius
-    private static final int PLACEMENT_BUFFER_LIMIT = 256;              // safety cap on the netty queue
+    private static final double PLACEMENT_PROXIMITY = 5.0;              // 5-block radius
+    private static final int PLACEMENT_BUFFER_LIMIT = 256;              // packet ring capacity
+    private static final int RECENT_PLACEMENT_LIMIT = 1024;             // oldest dropped beyond this
 
     // AutoBlock confirmation: count blocking-while-swinging events before flagging
     private static final int AUTOBLOCK_MIN_HITS = 2;
@@ -90,29 +72,39 @@ public class AntiCheatService {
     private final ConcurrentHashMap<UUID, Deque<Long>> swingTimes =
             new ConcurrentHashMap<UUID, Deque<Long>>();
 
-    // Swing-arm packets arrive on the netty thread; onClientTick drains them on the
-    // client thread, where the world/entity access and flag bookkeeping are safe.
+    // Swing-arm packets arrive on the netty thread (PacketTap); onClientTick drains them
+    // on the client thread, where the world/entity access and flag bookkeeping are safe.
     private static final int SWING_BUFFER_LIMIT = 256;
-    private final ConcurrentLinkedQueue<SwingEvent> pendingSwings =
-            new ConcurrentLinkedQueue<SwingEvent>();
-
-    // Block updates arrive on the netty thread; main-thread scanScaffold drains.
-    private final ConcurrentLinkedQueue<PlacementEvent> pendingPlacements =
-            new ConcurrentLinkedQueue<PlacementEvent>();
-    private final Deque<PlacementEvent> recentPlacements = new ArrayDeque<PlacementEvent>();
-
-    private NetworkManager attachedManager;
-    private boolean handlerInstalled;
+    private final PacketRing.Swings swings;
+
+    // Non-air block updates, captured by PacketTap; main-thread scanScaffold drains
+    // them into the recent window below (a circular buffer, oldest first).
+    private final PacketRing.BlockChanges placements;
+    private final int[] recentX = new int[RECENT_PLACEMENT_LIMIT];
+    private final int[] recentY = new int[RECENT_PLACEMENT_LIMIT];
+    private final int[] recentZ = new int[RECENT_PLACEMENT_LIMIT];
+    private final long[] recentWhen = new long[RECENT_PLACEMENT_LIMIT];
+    private int recentStart;
+    private int recentCount;
+    // The recent window, re-indexed each scan tick.
+    private final SpatialGrid placementGrid = new SpatialGrid(4.0);
+
+    public AntiCheatService(PacketTap packetTap) {
+        this.swings = packetTap.subscribeSwings(SWING_BUFFER_LIMIT);
+        this.placements = packetTap.subscribeBlockChanges(PLACEMENT_BUFFER_LIMIT, false);
+    }
 
     public void onClientTick(Minecraft mc) {
         if (!ModConfig.isAntiCheatEnabled()) {
+            setCapturing(swings, false);
+            setCapturing(placements, false);
             return;
         }
+        setCapturing(swings, ModConfig.isAntiCheatCpsEnabled() || ModConfig.isAntiCheatAutoBlockEnabled());
+        setCapturing(placements, ModConfig.isAntiCheatScaffoldEnabled());
         if (mc == null || mc.theWorld == null || mc.thePlayer == null) {
-            uninstallHandler();
             return;
         }
-        ensureHandlerInstalled(mc);
         if (ModConfig.isAntiCheatScaffoldEnabled()) {
             scanScaffold(mc);
         }
@@ -125,97 +117,23 @@ public class AntiCheatService {
     }
 
     public void shutdown() {
-        uninstallHandler();
         scaffoldStates.clear();
         autoBlockStates.clear();
         lastFlagAt.clear();
-        pendingPlacements.clear();
-        recentPlacements.clear();
-        pendingSwings.clear();
+        setCapturing(swings, false);
+        setCapturing(placements, false);
+        recentCount = 0;
+        placementGrid.clear();
         swingTimes.clear();
     }
 
-    // ---------------------------------------------------------------------
-    // Packet handler installation
-    // ---------------------------------------------------------------------
-
-    private void ensureHandlerInstalled(Minecraft mc) {
-        NetHandlerPlayClient netHandler = mc.getNetHandler();
-        if (netHandler == null) {
-            uninstallHandler();
-            return;
-        }
-        NetworkManager manager = netHandler.getNetworkManager();
-        if (manager == null || manager.channel() == null || !manager.channel().isOpen()) {
-            uninstallHandler();
-            return;
-        }
-        if (handlerInstalled && manager == attachedManager) {
-            return;
-        }
-        // Connection swapped (returning to lobby, joining a new game) — reinstall.
-        uninstallHandler();
-        try {
-            ChannelPipeline pipeline = manager.channel().pipeline();
-            if (pipeline.get(HANDLER_NAME) == null) {
-                pipeline.addBefore("packet_handler", HANDLER_NAME, new InboundHandler());
+    /** Starts or stops a ring's capture; a stopped ring's backlog is discarded. */
+    private static void setCapturing(PacketRing ring, boolean capture) {
+        if (ring.isActive() != capture) {
+            ring.setActive(capture);
+            if (!capture) {
+                ring.clear();
             }
-            attachedManager = manager;
-            handlerInstalled = true;
-        } catch (Throwable t) {
-            LOGGER.warn("AntiCheat handler installation failed: {}", t.toString());
-        }
-    }
-
-    private void uninstallHandler() {
-        if (attachedManager != null && attachedManager.channel() != null) {
-            try {
-                ChannelPipeline pipeline = attachedManager.channel().pipeline();
-                if (pipeline.get(HANDLER_NAME) != null) {
-                    pipeline.remove(HANDLER_NAME);
-                }
-            } catch (Throwable ignored) {
-                // Channel may already be closed.
-            }
-        }
-        attachedManager = null;
-        handlerInstalled = false;
-    }
-
-    private final class InboundHandler extends ChannelDuplexHandler {
-        @Override
-        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-            if (msg instanceof S0BPacketAnimation) {
-                // Capture the swing here (netty thread) but do all world/entity access and
-                // flag bookkeeping on the client thread via drainSwings. The arrival
-                // timestamp is taken now so CPS stays accurate despite deferred processing.
-                try {
-                    S0BPacketAnimation anim = (S0BPacketAnimation) msg;
-                    boolean wanted = ModConfig.isAntiCheatCpsEnabled()
-                            || ModConfig.isAntiCheatAutoBlockEnabled();
-                    if (wanted && anim.getAnimationType() == 0
-                            && pendingSwings.size() < SWING_BUFFER_LIMIT) {
-                        pendingSwings.add(new SwingEvent(
-                                anim.getEntityID(), System.currentTimeMillis()));
-                    }
-                } catch (Throwable t) {
-                    // Never let a detection error break the network pipeline.
-                    LOGGER.debug("AntiCheat animation handling error", t);
-                }
-            } else if (msg instanceof S23PacketBlockChange && ModConfig.isAntiCheatScaffoldEnabled()) {
-                try {
-                    enqueueBlockChange((S23PacketBlockChange) msg);
-                } catch (Throwable t) {
-                    LOGGER.debug("AntiCheat block-change handling error", t);
-                }
-            } else if (msg instanceof S22PacketMultiBlockChange && ModConfig.isAntiCheatScaffoldEnabled()) {
-                try {
-                    enqueueMultiBlockChange((S22PacketMultiBlockChange) msg);
-                } catch (Throwable t) {
-                    LOGGER.debug("AntiCheat multi-block-change handling error", t);
-                }
-            }
-            super.channelRead(ctx, msg);
         }
     }
 
@@ -234,23 +152,24 @@ public class AntiCheatService {
         }
         boolean cps = ModConfig.isAntiCheatCpsEnabled();
         boolean autoBlock = ModConfig.isAntiCheatAutoBlockEnabled();
-        SwingEvent ev;
-        while ((ev = pendingSwings.poll()) != null) {
-            if (!cps && !autoBlock) {
-                continue; // flags toggled off after enqueue; just drain the queue
-            }
-            Entity entity = mc.theWorld.getEntityByID(ev.entityId);
+        int count = swings.readable();
+        for (int i = 0; i < count && (cps || autoBlock); i++) {
+            int slot = swings.slot(i);
+            Entity entity = mc.theWorld.getEntityByID(swings.entityId[slot]);
             if (!(entity instanceof EntityOtherPlayerMP)) {
                 continue;
             }
             EntityOtherPlayerMP player = (EntityOtherPlayerMP) entity;
+            long when = swings.when[slot];
             if (cps) {
-                recordSwing(player.getUniqueID(), ev.when);
+                recordSwing(player.getUniqueID(), when);
             }
             if (autoBlock) {
-                handleAutoBlock(player, ev.when);
+                handleAutoBlock(player, when);
             }
         }
+        // Flags toggled off after capture: the backlog is just dropped.
+        swings.release(count);
     }
 
     /**
@@ -374,7 +293,7 @@ public class AntiCheatService {
             // Hard gates: must hold a block AND have placed a block nearby recently.
             ItemStack held = other.getHeldItem();
             boolean holdingBlock = held != null && held.getItem() instanceof ItemBlock;
-            boolean placedNearby = holdingBlock && hasRecentPlacementNear(other, now);
+            boolean placedNearby = holdingBlock && hasRecentPlacementNear(other);
 
             if (!placedNearby) {
                 // Decay tick-based suspicion when the placement gate isn't satisfied.
@@ -428,54 +347,41 @@ public class AntiCheatService {
         }
     }
 
-    private void enqueueBlockChange(S23PacketBlockChange p) {
-        IBlockState state = p.getBlockState();
-        if (state == null || state.getBlock() == Blocks.air) return;
-        if (pendingPlacements.size() >= PLACEMENT_BUFFER_LIMIT) return;
-        pendingPlacements.add(new PlacementEvent(p.getBlockPosition(), System.currentTimeMillis()));
-    }
-
-    private void enqueueMultiBlockChange(S22PacketMultiBlockChange p) {
-        long now = System.currentTimeMillis();
-        S22PacketMultiBlockChange.BlockUpdateData[] updates = p.getChangedBlocks();
-        if (updates == null) return;
-        for (S22PacketMultiBlockChange.BlockUpdateData u : updates) {
-            IBlockState state = u.getBlockState();
-            if (state == null || state.getBlock() == Blocks.air) continue;
-            if (pendingPlacements.size() >= PLACEMENT_BUFFER_LIMIT) break;
-            pendingPlacements.add(new PlacementEvent(u.getPos(), now));
-        }
-    }
-
     private void drainAndPrunePlacements(long now) {
-        PlacementEvent ev;
-        while ((ev = pendingPlacements.poll()) != null) {
-            recentPlacements.addLast(ev);
+        int count = placements.readable();
+        for (int i = 0; i < count; i++) {
+            int slot = placements.slot(i);
+            long packed = placements.packedPos[slot];
+            if (recentCount == RECENT_PLACEMENT_LIMIT) {
+                recentStart = (recentStart + 1) % RECENT_PLACEMENT_LIMIT;
+                recentCount--;
+            }
+            int at = (recentStart + recentCount) % RECENT_PLACEMENT_LIMIT;
+            recentX[at] = PacketRing.BlockChanges.unpackX(packed);
+            recentY[at] = PacketRing.BlockChanges.unpackY(packed);
+            recentZ[at] = PacketRing.BlockChanges.unpackZ(packed);
+            recentWhen[at] = placements.when[slot];
+            recentCount++;
         }
+        placements.release(count);
+
         long cutoff = now - PLACEMENT_RECENCY_MS;
-        Iterator<PlacementEvent> it = recentPlacements.iterator();
-        while (it.hasNext()) {
-            if (it.next().when < cutoff) {
-                it.remove();
-            } else {
-                break; // entries are append-ordered ≈ time-ordered
+        // Entries are append-ordered ≈ time-ordered.
+        while (recentCount > 0 && recentWhen[recentStart] < cutoff) {
+            recentStart = (recentStart + 1) % RECENT_PLACEMENT_LIMIT;
+            recentCount--;
+        }
+        placementGrid.clear();
+        for (int i = 0; i < recentCount; i++) {
+            int at = (recentStart + i) % RECENT_PLACEMENT_LIMIT;
+            if (recentWhen[at] >= cutoff) {
+                placementGrid.add(recentX[at] + 0.5, recentY[at] + 0.5, recentZ[at] + 0.5);
             }
         }
     }
 
-    private boolean hasRecentPlacementNear(EntityOtherPlayerMP other, long now) {
-        if (recentPlacements.isEmpty()) return false;
-        double px = other.posX, py = other.posY, pz = other.posZ;
-        long cutoff = now - PLACEMENT_RECENCY_MS;
-        for (PlacementEvent ev : recentPlacements) {
-            if (ev.when < cutoff) continue;
-            double ex = ev.pos.getX() + 0.5;
-            double ey = ev.pos.getY() + 0.5;
-            double ez = ev.pos.getZ() + 0.5;
-            double dx = ex - px, dy = ey - py, dz = ez - pz;
-            if (dx * dx + dy * dy + dz * dz <= PLACEMENT_PROXIMITY_SQ) return true;
-        }
-        return false;
+    private boolean hasRecentPlacementNear(EntityOtherPlayerMP other) {
+        return placementGrid.anyWithin(other.posX, other.posY, other.posZ, PLACEMENT_PROXIMITY, null);
     }
 
     private void pruneStateMaps(Minecraft mc) {
@@ -532,23 +438,4 @@ public class AntiCheatService {
         long firstHit;
         int hits;
     }
-
-    private static final class PlacementEvent {
-        final BlockPos pos;
-        final long when;
-        PlacementEvent(BlockPos pos, long when) {
-            this.pos = pos;
-            this.when = when;
-        }
-    }
-
-    /** A swing-arm packet captured on the netty thread, drained on the client thread. */
-    private static final class SwingEvent {
-        final int entityId;
-        final long when;
-        SwingEvent(int entityId, long when) {
-            this.entityId = entityId;
-            this.when = when;
-        }
-    }
 }
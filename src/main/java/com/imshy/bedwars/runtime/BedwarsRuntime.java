@@ -55,11 +55,11 @@ public class BedwarsRuntime {
     private static final Pattern PARTY_LINE_PATTERN = Pattern.compile("^Party (?:Leader|Members|Moderators): (.+)$");
     private static final Pattern PARTY_MEMBER_NAME_PATTERN = Pattern
             .compile("(?:\\[[A-Za-z0-9+]+\\] )?([A-Za-z0-9_]{1,16})");
-    private static final Pattern DEATH_MESSAGE_PATTERN = Pattern
-            .compile("^([A-Za-z0-9_]{1,16}) (?:was |died|fell |disconnected|burned |walked |suffocated|drowned)");
     private static final Pattern VALID_PLAYER_NAME_PATTERN = Pattern.compile("^[A-Za-z0-9_]{1,16}$");
     private static final long PARTY_LIST_TIMEOUT_MS = 3000;
     private static final long LOBBY_BAIT_RETRY_DELAY_MS = 4000;
+    /** The mod's share of a 50ms client tick before LOW scheduled jobs start slipping. */
+    private static final long TICK_BUDGET_NANOS = 2_000_000L;
     private static final String[] LOBBY_BAIT_MESSAGES = {
             "Is anyone good in this lobby?",
             "Any sweats in here?",
@@ -72,8 +72,6 @@ public class BedwarsRuntime {
     };
     private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
     private static final Random baitRandom = new Random();
-    private static final long RENDER_FETCH_COOLDOWN_MS = 60_000L;
-    private final java.util.Map<String, Long> renderFetchRequests = new java.util.concurrent.ConcurrentHashMap<String, Long>();
 
     private final RuntimeState state;
     private final TeamDangerAnalyzer teamDangerAnalyzer;
@@ -87,6 +85,9 @@ public class BedwarsRuntime {
     private final FinalKillLedger finalKillLedger;
     private final KillFeedTracker killFeedTracker;
     private final RespawnTracker respawnTracker;
+    private final MatchChatHandler matchChatHandler;
+    private final PacketTap packetTap;
+    private final SidebarSnapshot sidebarSnapshot;
     private final BlockChangeFeed blockChangeFeed;
     private final BridgeRadarService bridgeRadarService;
     private final AntiCheatService antiCheatService;
@@ -98,6 +99,49 @@ public class BedwarsRuntime {
     private final LastSeenArrowRenderer lastSeenArrowRenderer;
     private final MatchSummaryRenderer matchSummaryRenderer;
     private final PreGameBriefingRenderer preGameBriefingRenderer;
+    private final MatchRecorder matchRecorder;
+    /** Entities bucketed once per IN_GAME tick for every scanner below. */
+    private final WorldSnapshot worldSnapshot = new WorldSnapshot();
+    /**
+     * Cadence owner for the periodic jobs: staggers them across ticks and
+     * lets low-priority ones slip when the mod's share of a tick is spent.
+     */
+    private final TickScheduler tickScheduler = new TickScheduler(TICK_BUDGET_NANOS);
+
+    /**
+     * Team lookups for {@link MatchChatHandler}. The color comes from the live
+     * entity or its scoreboard registration. The ledger's team name comes from
+     * the entity's scoreboard team; victims are often despawned by the time the
+     * final-kill line arrives, so the fallback is the sidebar team wearing that
+     * color, which keeps the ledger key joinable with the TEAMS status board.
+     */
+    private final MatchChatHandler.Teams liveTeams = new MatchChatHandler.Teams() {
+        @Override
+        public String colorCode(String playerName) {
+            return resolveTeamColorCode(Minecraft.getMinecraft(), playerName);
+        }
+
+        @Override
+        public String teamName(String playerName, String colorCode) {
+            Minecraft mc = Minecraft.getMinecraft();
+            if (mc != null && mc.theWorld != null) {
+                for (EntityPlayer p : mc.theWorld.playerEntities) {
+                    if (!p.getName().equals(playerName)) continue;
+                    net.minecraft.scoreboard.Team t = p.getTeam();
+                    if (t instanceof net.minecraft.scoreboard.ScorePlayerTeam) {
+                        return ((net.minecraft.scoreboard.ScorePlayerTeam) t).getRegisteredName();
+                    }
+                    break;
+                }
+            }
+            for (ScoreboardGameStateDetector.TeamStatus ts : state.scoreboardTeamStatuses.values()) {
+                if (colorCode.equals(ts.colorCode)) {
+                    return ts.teamName;
+                }
+            }
+            return null;
+        }
+    };
 
     /**
      * One-shot countdown set by /bw edithud and consumed in onClientTick.
@@ -114,7 +158,9 @@ public class BedwarsRuntime {
     public BedwarsRuntime() {
         this.state = new RuntimeState();
         this.teamDangerAnalyzer = new TeamDangerAnalyzer(state);
-        this.matchThreatService = new MatchThreatService(state, teamDangerAnalyzer);
+        this.packetTap = new PacketTap();
+        this.sidebarSnapshot = new SidebarSnapshot(packetTap);
+        this.matchThreatService = new MatchThreatService(state, teamDangerAnalyzer, sidebarSnapshot);
         this.lobbyTrackerService = new LobbyTrackerService(state, matchThreatService);
         this.worldScanService = new WorldScanService(state, matchThreatService);
         this.enemyTrackingService = new EnemyTrackingService(state, matchThreatService);
@@ -124,17 +170,21 @@ public class BedwarsRuntime {
         this.finalKillLedger = new FinalKillLedger();
         this.killFeedTracker = new KillFeedTracker();
         this.respawnTracker = new RespawnTracker();
-        this.blockChangeFeed = new BlockChangeFeed();
+        this.blockChangeFeed = new BlockChangeFeed(packetTap);
         this.bridgeRadarService = new BridgeRadarService();
-        this.antiCheatService = new AntiCheatService();
+        this.matchChatHandler = new MatchChatHandler(finalKillLedger, killFeedTracker, respawnTracker,
+                bridgeRadarService);
+        this.antiCheatService = new AntiCheatService(packetTap);
         this.tabStatsInjector = new TabStatsInjector(state);
-        this.mapLearningService = new MapLearningService(state);
+        this.mapLearningService = new MapLearningService(state, sidebarSnapshot);
         this.overlayRenderer = new BedwarsOverlayRenderer();
         this.hudRenderer = new BedwarsHudRenderer();
         this.killFeedRenderer = new KillFeedRenderer();
         this.lastSeenArrowRenderer = new LastSeenArrowRenderer();
         this.matchSummaryRenderer = new MatchSummaryRenderer();
         this.preGameBriefingRenderer = new PreGameBriefingRenderer();
+        this.matchRecorder = new MatchRecorder();
+        registerScheduledJobs();
     }
 
     public boolean isInMatch() {
@@ -161,15 +211,6 @@ public class BedwarsRuntime {
         lobbyTrackerService.clearRecentJoins();
     }
 
-    /**
-     * Clear the tab-list fetch in-flight guard. Called by {@code /bw clear} so
-     * that cleared players (whose cached stats were just dropped) are eligible
-     * for a fresh tab-scan fetch instead of staying suppressed. Client-thread only.
-     */
-    public void clearPendingTabListFetches() {
-        state.pendingTabListFetches.clear();
-    }
-
     /**
      * First-run onboarding: once per session, when the player is in a world but
      * no Hypixel API key is configured (so every stat feature silently does
@@ -220,12 +261,11 @@ public class BedwarsRuntime {
         enemyTrackingService.clearAll();
         fireballTrackingService.clearAll();
         projectileTrackingService.clearAll();
-        finalKillLedger.clear();
-        killFeedTracker.clear();
-        respawnTracker.clear();
-        bridgeRadarService.clear();
+        matchChatHandler.resetMatch();
+        tickScheduler.resetStats();
         PlayerDatabase.getInstance().clearCurrentGame();
         AudioCueManager.clearCooldowns();
+        HypixelAPI.cancelStaleFetches();
     }
 
     public boolean rerunMatchStartup(Minecraft mc) {
@@ -337,22 +377,19 @@ public class BedwarsRuntime {
         String message = event.message.getUnformattedText().replaceAll("\u00a7.", "");
         Minecraft mc = Minecraft.getMinecraft();
 
+        matchRecorder.onChat(event.type, message);
+
         parsePartyListResponse(mc, message);
         trackJoinMessageBurst(mc, message);
         checkLobbyBaitResponse(mc, message);
         handleChatMessageStatLookup(mc, message);
         handleReconnectMessage(mc, message);
 
-        if (message.contains(HypixelMessages.GAME_START)
-                && !HypixelMessages.isPlayerTyped(message, HypixelMessages.GAME_START)) {
+        if (MatchChatHandler.isGameStart(message)) {
             if (state.gamePhase != GamePhase.IN_GAME) {
-                finalKillLedger.clear();
-                killFeedTracker.clear();
-                respawnTracker.clear();
-                bridgeRadarService.clear();
+                matchChatHandler.resetMatch();
                 state.generatorCueFired.clear();
-                state.scoreboardTeamStatuses.clear();
-                state.nextSidebarEvent = null;
+                state.clearSidebarCopy();
                 mapLearningService.onMatchStart();
                 lobbyTrackerService.activateMatchTracking(mc);
             }
@@ -383,6 +420,7 @@ public class BedwarsRuntime {
                 mapLearningService.onMatchEnd(mc);
                 PlayerDatabase.getInstance().recordGameEnd(PlayerDatabase.GameOutcome.WIN);
                 PlayerDatabase.getInstance().clearCurrentGame();
+                HypixelAPI.cancelStaleFetches();
                 state.gamePhase = GamePhase.IDLE;
                 state.disconnectedFromGame = false;
                 synchronized (state.chatDetectedPlayers) {
@@ -395,12 +433,8 @@ public class BedwarsRuntime {
                 enemyTrackingService.clearAll();
                 fireballTrackingService.clearAll();
                 projectileTrackingService.clearAll();
-                finalKillLedger.clear();
-                killFeedTracker.clear();
-                respawnTracker.clear();
-                bridgeRadarService.clear();
-                state.scoreboardTeamStatuses.clear();
-                state.nextSidebarEvent = null;
+                matchChatHandler.resetMatch();
+                state.clearSidebarCopy();
                 return;
             }
 
@@ -411,9 +445,11 @@ public class BedwarsRuntime {
                 captureMatchSummary(MatchSummary.Outcome.LOSS);
                 mapLearningService.onMatchEnd(mc);
                 PlayerDatabase db = PlayerDatabase.getInstance();
-                db.recordGameEnd(PlayerDatabase.GameOutcome.LOSS);
-
-                List<String> autoBlacklisted = AutoBlacklistManager.processLossOutcome(db);
+                // Record the loss and run the auto-blacklist pass as one commit.
+                List<String> autoBlacklisted = db.batch(batchDb -> {
+                    batchDb.recordGameEnd(PlayerDatabase.GameOutcome.LOSS);
+                    return AutoBlacklistManager.processLossOutcome(batchDb);
+                });
                 if (!autoBlacklisted.isEmpty() && mc.thePlayer != null) {
                     mc.thePlayer.addChatMessage(new ChatComponentText(
                             EnumChatFormatting.GOLD + "[AutoBlacklist] " +
@@ -422,6 +458,7 @@ public class BedwarsRuntime {
                 }
 
                 db.clearCurrentGame();
+                HypixelAPI.cancelStaleFetches();
                 state.gamePhase = GamePhase.IDLE;
                 state.disconnectedFromGame = false;
                 synchronized (state.chatDetectedPlayers) {
@@ -434,41 +471,18 @@ public class BedwarsRuntime {
                 enemyTrackingService.clearAll();
                 fireballTrackingService.clearAll();
                 projectileTrackingService.clearAll();
-                finalKillLedger.clear();
-                killFeedTracker.clear();
-                respawnTracker.clear();
-                bridgeRadarService.clear();
-                state.scoreboardTeamStatuses.clear();
-                state.nextSidebarEvent = null;
+                matchChatHandler.resetMatch();
+                state.clearSidebarCopy();
                 return;
             }
 
-            // Detect player death messages for enemy tracking + killfeed
-            Matcher deathMatcher = DEATH_MESSAGE_PATTERN.matcher(message);
-            if (deathMatcher.find()) {
-                String deadPlayer = deathMatcher.group(1);
-                if (ModConfig.isEnemyTrackingEnabled()) {
-                    enemyTrackingService.handleDeathMessage(deadPlayer);
-                }
-                boolean isFinalLine = message.contains(HypixelMessages.FINAL_KILL_SUFFIX);
-                // Non-final deaths respawn on Hypixel's fixed delay — start the
-                // countdown (final-kill victims never come back).
-                if (!isFinalLine && ModConfig.isRespawnCountdownEnabled()) {
-                    respawnTracker.recordDeath(deadPlayer, System.currentTimeMillis());
-                }
-                // Victim-only killfeed entry. Final kills are skipped here —
-                // handleFinalKill below records them with the killer attached.
-                if (ModConfig.isKillfeedEnabled()
-                        && !isFinalLine
-                        && !deadPlayer.equals(playerName)) {
-                    String teamColor = resolveTeamColorCode(mc, deadPlayer);
-                    killFeedTracker.addEntry(deadPlayer, null, teamColor, System.currentTimeMillis());
-                }
-            }
-
-            if (message.contains(HypixelMessages.FINAL_KILL_SUFFIX)) {
-                handleFinalKill(mc, message);
+            // Death and final-kill lines: respawn countdown, killfeed, ledger.
+            long now = System.currentTimeMillis();
+            String deadPlayer = matchChatHandler.handleDeath(message, playerName, liveTeams, now);
+            if (deadPlayer != null && ModConfig.isEnemyTrackingEnabled()) {
+                enemyTrackingService.handleDeathMessage(deadPlayer);
             }
+            maybeWarnCarry(mc, matchChatHandler.handleFinalKill(message, playerName, liveTeams, now));
         }
 
         if (state.autoplayEnabled && message.contains(HypixelMessages.AUTOPLAY_RATE_LIMIT)) {
@@ -484,6 +498,8 @@ public class BedwarsRuntime {
         String trimmedLeave = message.trim();
         if (trimmedLeave.equals(HypixelMessages.PLAYER_LEFT)
                 || trimmedLeave.startsWith(HypixelMessages.PLAYER_SENDING)) {
+            // New server: lookups still queued for the old lobby are dead weight.
+            HypixelAPI.cancelStaleFetches();
             synchronized (state.chatDetectedPlayers) {
                 state.chatDetectedPlayers.clear();
             }
@@ -500,12 +516,8 @@ public class BedwarsRuntime {
                 enemyTrackingService.clearAll();
                 fireballTrackingService.clearAll();
                 projectileTrackingService.clearAll();
-                finalKillLedger.clear();
-                killFeedTracker.clear();
-                respawnTracker.clear();
-                bridgeRadarService.clear();
-                state.scoreboardTeamStatuses.clear();
-                state.nextSidebarEvent = null;
+                matchChatHandler.resetMatch();
+                state.clearSidebarCopy();
                 LOGGER.info("Left Bedwars game - unknown outcome");
             }
             state.gamePhase = GamePhase.IDLE;
@@ -543,9 +555,9 @@ public class BedwarsRuntime {
         if (chatMatcher.matches()) {
             rawCandidates.add(chatMatcher.group(1));
         }
-        Matcher deathMatcher = DEATH_MESSAGE_PATTERN.matcher(message);
-        if (deathMatcher.find()) {
-            rawCandidates.add(deathMatcher.group(1));
+        String deadPlayer = MatchChatHandler.deadPlayer(message);
+        if (deadPlayer != null) {
+            rawCandidates.add(deadPlayer);
         }
         Matcher finalKillMatcher = HypixelMessages.FINAL_KILL_PATTERN.matcher(message);
         if (finalKillMatcher.find()) {
@@ -757,12 +769,112 @@ public class BedwarsRuntime {
 
     @SubscribeEvent
     public void onClientTick(final TickEvent.ClientTickEvent event) {
+        long tickStart = System.nanoTime();
         SafeSubsystem.run("tick", new Runnable() {
             @Override
             public void run() {
                 onClientTickImpl(event);
             }
         });
+        if (event.phase == TickEvent.Phase.START) {
+            tickScheduler.runTick(state.clientTickCounter, tickStart);
+        }
+    }
+
+    /**
+     * The periodic jobs that used to keep their own cadence inside
+     * onClientTickImpl. Registered most expensive first so the cheap ones
+     * are staggered around them; each runs under its own SafeSubsystem
+     * guard and checks its own preconditions, since the scheduler runs
+     * whatever the game phase.
+     */
+    private void registerScheduledJobs() {
+        // Generator scan: walks every item entity and nearby block column.
+        schedule("tick.generator-scan", 20, TickScheduler.Priority.LOW, 1_000_000L, new Runnable() {
+            @Override
+            public void run() {
+                Minecraft mc = Minecraft.getMinecraft();
+                if (ModConfig.isGeneratorDisplayEnabled() && isTrackingWorld(mc)) {
+                    worldSnapshot.captureForTick(mc, state.clientTickCounter);
+                    worldScanService.scanForGenerators(mc, worldSnapshot);
+                }
+            }
+        });
+
+        // Enemy armor/held items (~0.5s): feeds the threat HUD, never deferred.
+        schedule("tick.enemy-gear", 10, TickScheduler.Priority.HIGH, 500_000L, new Runnable() {
+            @Override
+            public void run() {
+                Minecraft mc = Minecraft.getMinecraft();
+                if (ModConfig.isEnemyTrackingEnabled() && isTrackingWorld(mc)) {
+                    worldSnapshot.captureForTick(mc, state.clientTickCounter);
+                    enemyTrackingService.scanArmorAndHeldItems(mc, worldSnapshot,
+                            System.currentTimeMillis());
+                }
+            }
+        });
+
+        // Lobby sweat index: pure aggregation over the stats cache, refreshed
+        // every second. No network calls happen here.
+        schedule("tick.lobby-analytics", 20, TickScheduler.Priority.LOW, 500_000L, new Runnable() {
+            @Override
+            public void run() {
+                if (ModConfig.isLobbySweatIndexEnabled() && state.gamePhase != GamePhase.IDLE) {
+                    state.lobbySummary = LobbyAnalytics.compute(Minecraft.getMinecraft());
+                } else if (state.lobbySummary != null) {
+                    state.lobbySummary = null;
+                }
+            }
+        });
+
+        // Tab-list stat suffixes: re-applied every ~0.5s (Hypixel resends
+        // display names), restored when inactive.
+        schedule("tick.tab-stats", TabStatsInjector.INJECT_INTERVAL_TICKS, TickScheduler.Priority.LOW,
+                300_000L, new Runnable() {
+                    @Override
+                    public void run() {
+                        tabStatsInjector.onClientTick(Minecraft.getMinecraft());
+                    }
+                });
+
+        // Stats-cache pins: the current match and the blacklist must survive
+        // LRU eviction. Eviction runs inside cache inserts on the fetch
+        // threads, so it reads a set pushed here once a second rather than
+        // asking PlayerDatabase each time. Both reads are side-effect-free
+        // snapshots; expired blacklist entries are purged (and saved) elsewhere.
+        schedule("tick.stats-pins", 20, TickScheduler.Priority.LOW, 200_000L, new Runnable() {
+            @Override
+            public void run() {
+                PlayerDatabase db = PlayerDatabase.getInstance();
+                java.util.Set<String> pinned = db.getCurrentGamePlayersSnapshot();
+                pinned.addAll(db.getBlacklistedNamesSnapshot());
+                HypixelAPI.setPinnedPlayers(pinned);
+            }
+        });
+    }
+
+    private void schedule(final String name, int periodTicks, TickScheduler.Priority priority,
+            long budgetNanos, final Runnable body) {
+        tickScheduler.register(name, periodTicks, priority, budgetNanos, new Runnable() {
+            @Override
+            public void run() {
+                SafeSubsystem.run(name, body);
+            }
+        });
+    }
+
+    /** Same gate the in-game scanners sit behind in onClientTickImpl. */
+    private boolean isTrackingWorld(Minecraft mc) {
+        return state.gamePhase == GamePhase.IN_GAME && !state.disconnectedFromGame
+                && mc.theWorld != null && mc.thePlayer != null;
+    }
+
+    /** Per-job cost rows for /bw health, worst tick last. */
+    public java.util.List<String> getTickCostReport() {
+        java.util.List<String> rows = tickScheduler.report();
+        rows.add(String.format(java.util.Locale.ROOT, "worst tick: %.2fms / %.2fms budget",
+                tickScheduler.worstTickNanos() / 1e6, tickScheduler.tickBudgetNanos() / 1e6));
+        return rows;
     }
 
     private void onClientTickImpl(TickEvent.ClientTickEvent event) {
@@ -774,6 +886,12 @@ public class BedwarsRuntime {
 
         Minecraft mc = Minecraft.getMinecraft();
 
+        matchRecorder.onClientTick(mc, state.gamePhase);
+
+        // One sidebar parse for every reader below, redone only when a
+        // scoreboard packet says it changed.
+        sidebarSnapshot.onClientTick(mc, state.gamePhase != GamePhase.IDLE);
+
         maybeShowApiKeyPrompt(mc);
 
         // Deferred /bw edithud open: wait for the chat screen to close.
@@ -788,42 +906,31 @@ public class BedwarsRuntime {
         antiCheatService.onClientTick(mc);
 
         // Bridge radar + bed-tamper alarm: keep the passive block-change feed
-        // attached and drain it every tick (events are only analyzed in-game,
+        // subscribed and drain it every tick (events are only analyzed in-game,
         // draining always prevents stale packets flooding a new match). Own
         // sub-guard: a radar bug must not take the whole tick pipeline down.
         SafeSubsystem.run("tick.bridge-radar", new Runnable() {
             @Override
             public void run() {
-                blockChangeFeed.onClientTick(mc);
+                blockChangeFeed.onClientTick();
                 java.util.List<BlockChangeFeed.BlockChangeEvent> blockChanges =
                         blockChangeFeed.drainNew();
+                matchRecorder.onBlockChanges(blockChanges);
                 if (state.gamePhase == GamePhase.IN_GAME
                         && mc.theWorld != null && mc.thePlayer != null) {
-                    bridgeRadarService.onClientTick(mc, blockChanges, matchThreatService,
+                    worldSnapshot.captureForTick(mc, state.clientTickCounter);
+                    bridgeRadarService.onClientTick(mc, worldSnapshot, blockChanges, matchThreatService,
                             state.playerBedBlocks, isOwnBedAlive());
                 }
             }
         });
 
-        // Tab-list stat suffixes: re-applied on the injector's own ~10-tick
-        // cadence (Hypixel resends display names), restored when inactive.
-        tabStatsInjector.onClientTick(mc);
+        // One netty handler for every packet consumer above: attached while
+        // any of them subscribes, following the connection across swaps.
+        packetTap.onClientTick(mc);
 
-        // Lobby sweat index: pure aggregation over the stats cache, refreshed
-        // every second. No network calls happen here. Own sub-guard, same
-        // rationale as the radar.
-        SafeSubsystem.run("tick.lobby-analytics", new Runnable() {
-            @Override
-            public void run() {
-                if (ModConfig.isLobbySweatIndexEnabled() && state.gamePhase != GamePhase.IDLE) {
-                    if (state.clientTickCounter % 20 == 0) {
-                        state.lobbySummary = LobbyAnalytics.compute(mc);
-                    }
-                } else if (state.lobbySummary != null) {
-                    state.lobbySummary = null;
-                }
-            }
-        });
+        // Tab-list stat suffixes, lobby sweat index, stats-cache pins and the
+        // periodic in-game scans run from tickScheduler after this method.
 
         // AFK anti-kick: strafe left then right every 60 seconds
         if (state.afkEnabled && mc.thePlayer != null) {
@@ -871,54 +978,47 @@ public class BedwarsRuntime {
         // chat doesn't match HypixelMessages.GAME_START). Only kicks in when
         // we're already in PRE_GAME — never escalates from IDLE, since the
         // mode-select lobby also has "BED WARS" in its sidebar.
-        if (state.gamePhase == GamePhase.PRE_GAME
-                && state.clientTickCounter - state.lastScoreboardPhaseScanTick >= 20) {
-            state.lastScoreboardPhaseScanTick = state.clientTickCounter;
-            if (ScoreboardGameStateDetector.isMatchInProgress(mc)) {
-                LOGGER.info("Bedwars match start detected via scoreboard (chat trigger missed)");
-                finalKillLedger.clear();
-                killFeedTracker.clear();
-                respawnTracker.clear();
-                bridgeRadarService.clear();
-                state.generatorCueFired.clear();
-                state.scoreboardTeamStatuses.clear();
-                state.nextSidebarEvent = null;
-                mapLearningService.onMatchStart();
-                lobbyTrackerService.activateMatchTracking(mc);
-            }
-        }
-
-        // Scoreboard-based in-game polling: keep the team-status snapshot fresh
-        // for downstream services (HUD, TeamDangerAnalyzer, etc.). Also acts as
-        // the passive recovery signal for disconnectedFromGame — a non-empty
-        // snapshot is positive evidence that tracking should resume.
+        if (state.gamePhase == GamePhase.PRE_GAME && sidebarSnapshot.isMatchInProgress()) {
+            LOGGER.info("Bedwars match start detected via scoreboard (chat trigger missed)");
+            matchChatHandler.resetMatch();
+            state.generatorCueFired.clear();
+            state.clearSidebarCopy();
+            mapLearningService.onMatchStart();
+            lobbyTrackerService.activateMatchTracking(mc);
+        }
+
+        // Scoreboard-based in-game tracking: mirror the sidebar snapshot's team
+        // statuses for downstream services (HUD, killfeed, team lookups) on the
+        // tick its version moves. Also acts as the passive recovery signal for
+        // disconnectedFromGame — a non-empty snapshot is positive evidence that
+        // tracking should resume.
         //
         // We do NOT end the match from this signal anymore: chat triggers
         // (LOSS_GAME_OVER, LOSS_ELIMINATED, WIN_*, PLAYER_LEFT) cover every
         // realistic end condition, and the old miss-count heuristic was the
         // dominant source of spurious "Game Over" popups when Hypixel briefly
         // mutated the sidebar (event banners, "Bed Self-Destruct in...", etc.).
-        if (state.gamePhase == GamePhase.IN_GAME
-                && state.clientTickCounter - state.lastScoreboardPhaseScanTick >= 10) {
-            state.lastScoreboardPhaseScanTick = state.clientTickCounter;
-
+        if (state.gamePhase == GamePhase.IN_GAME) {
             java.util.List<ScoreboardGameStateDetector.TeamStatus> statuses =
-                    ScoreboardGameStateDetector.parseTeamStatuses(mc);
+                    sidebarSnapshot.teamStatuses();
+            long nowMs = System.currentTimeMillis();
 
-            // Refresh the team-status map
-            state.scoreboardTeamStatuses.clear();
-            for (ScoreboardGameStateDetector.TeamStatus ts : statuses) {
-                state.scoreboardTeamStatuses.put(ts.teamName, ts);
+            int sidebarVersion = sidebarSnapshot.version();
+            if (sidebarVersion != state.sidebarVersionSeen) {
+                state.sidebarVersionSeen = sidebarVersion;
+                state.scoreboardTeamStatuses.clear();
+                for (ScoreboardGameStateDetector.TeamStatus ts : statuses) {
+                    state.scoreboardTeamStatuses.put(ts.teamName, ts);
+                }
+                // Server-exact upcoming-event clock ("Diamond II in 3:45"). Keep
+                // the last event through brief sidebar mutations (event banners).
+                SidebarEventClock.NextEvent parsedEvent = sidebarSnapshot.nextEvent();
+                if (parsedEvent != null) {
+                    state.nextSidebarEvent = parsedEvent;
+                }
             }
-
-            // Server-exact upcoming-event clock ("Diamond II in 3:45"). Keep
-            // the last event through brief sidebar mutations (event banners)
-            // and only drop it once its deadline is clearly past.
-            long nowMs = System.currentTimeMillis();
-            SidebarEventClock.NextEvent parsedEvent = SidebarEventClock.scan(mc, nowMs);
-            if (parsedEvent != null) {
-                state.nextSidebarEvent = parsedEvent;
-            } else if (state.nextSidebarEvent != null
+            // A kept event is dropped once its deadline is clearly past.
+            if (state.nextSidebarEvent != null
                     && nowMs > state.nextSidebarEvent.deadlineMs + 3_000L) {
                 state.nextSidebarEvent = null;
             }
@@ -959,6 +1059,7 @@ public class BedwarsRuntime {
 
         if (state.gamePhase != GamePhase.IN_GAME) {
             worldScanService.clearTrackedGenerators();
+            worldSnapshot.clear();
             return;
         }
 
@@ -987,7 +1088,9 @@ public class BedwarsRuntime {
             }
         }
 
-        matchThreatService.captureEarlySpawnTeammates(mc, currentTime);
+        worldSnapshot.captureForTick(mc, state.clientTickCounter);
+
+        matchThreatService.captureEarlySpawnTeammates(mc, worldSnapshot, currentTime);
 
         if (state.fallbackBedPosition == null) {
             matchThreatService.startBedTracking(mc, currentTime);
@@ -996,7 +1099,7 @@ public class BedwarsRuntime {
         matchThreatService.maybeRetryBedDetection(mc, currentTime);
 
         if (ModConfig.isRushPredictorEnabled()) {
-            matchThreatService.checkRushRiskPredictor(mc, currentTime);
+            matchThreatService.checkRushRiskPredictor(mc, worldSnapshot, currentTime);
         }
 
         if (ModConfig.isMapLearningEnabled()) {
@@ -1004,34 +1107,27 @@ public class BedwarsRuntime {
         }
 
         if (ModConfig.isInvisiblePlayerAlertsEnabled()) {
-            worldScanService.checkForInvisiblePlayers(mc, currentTime);
+            worldScanService.checkForInvisiblePlayers(mc, worldSnapshot, currentTime);
         }
 
-        if (ModConfig.isGeneratorDisplayEnabled()) {
-            if (currentTime - state.lastGeneratorScan >= RuntimeState.GENERATOR_SCAN_INTERVAL) {
-                worldScanService.scanForGenerators(mc);
-                state.lastGeneratorScan = currentTime;
-            }
-        }
-
-        matchThreatService.checkBedProximityWarnings(mc, currentTime);
+        matchThreatService.checkBedProximityWarnings(mc, worldSnapshot, currentTime);
 
-        // Enemy tracking: scan for item pickups and armor/held items
+        // Enemy tracking: item pickups every tick (a pickup is a despawn we
+        // must not miss); the armor/held-item scan is a scheduled job.
         if (ModConfig.isEnemyTrackingEnabled()) {
-            enemyTrackingService.scanItemPickups(mc);
-            enemyTrackingService.scanArmorAndHeldItems(mc, currentTime);
+            enemyTrackingService.scanItemPickups(mc, worldSnapshot);
         }
 
         // Fireball detection: scan for incoming EntityLargeFireball projectiles
         if (ModConfig.isFireballDetectionEnabled()) {
-            fireballTrackingService.scanFireballs(mc, state.playerBedBlocks);
+            fireballTrackingService.scanFireballs(mc, state.playerBedBlocks, worldSnapshot);
         } else if (!fireballTrackingService.getTracked().isEmpty()) {
             fireballTrackingService.clearAll();
         }
 
         // Ender pearl tracking (gravity-aware)
         if (ModConfig.isEnderPearlTrackingEnabled()) {
-            projectileTrackingService.scanProjectiles(mc, matchThreatService, state.playerBedBlocks);
+            projectileTrackingService.scanProjectiles(mc, matchThreatService, state.playerBedBlocks, worldSnapshot);
         } else if (!projectileTrackingService.getTracked().isEmpty()) {
             projectileTrackingService.clearAll();
         }
@@ -1112,6 +1208,11 @@ public class BedwarsRuntime {
             threatText = sb.toString();
         }
 
+        // Dim marker while the cached stats are being refreshed in the background.
+        if (stats.isStale()) {
+            threatText = threatText + EnumChatFormatting.DARK_GRAY + " *";
+        }
+
         // Append real-time clicks-per-second next to the threat level (autoclicker indicator).
         if (ModConfig.isAntiCheatEnabled() && ModConfig.isAntiCheatCpsEnabled()) {
             int cps = antiCheatService.getCps(player.getUniqueID());
@@ -1469,25 +1570,14 @@ public class BedwarsRuntime {
         if (playerName == null || playerName.isEmpty()) {
             return;
         }
-        if (!HypixelAPI.hasApiKey()) {
-            return;
-        }
-        long now = System.currentTimeMillis();
-        Long prev = renderFetchRequests.get(playerName);
-        if (prev != null && now - prev < RENDER_FETCH_COOLDOWN_MS) {
+        // Runs every frame per uncached nametag: in-flight and recently failed
+        // names, a rejected key and a pacing bucket are all turned away by
+        // HypixelAPI's admission check.
+        if (!HypixelAPI.admitFetch(playerName, HypixelAPI.FetchPriority.BACKGROUND)) {
             return;
         }
-        renderFetchRequests.put(playerName, now);
         // Render-path re-requests are retries — let everything else jump ahead.
-        HypixelAPI.fetchStatsAsync(playerName, new HypixelAPI.StatsCallback() {
-            @Override
-            public void onStatsLoaded(BedwarsStats stats) {
-            }
-
-            @Override
-            public void onError(String error) {
-            }
-        }, HypixelAPI.FetchPriority.BACKGROUND);
+        HypixelAPI.fetchStatsAsync(playerName, HypixelAPI.DISCARD_RESULT, HypixelAPI.FetchPriority.BACKGROUND);
     }
 
     private void addToChatDetectedIfEligible(String playerName, BedwarsStats stats) {
@@ -1514,75 +1604,6 @@ public class BedwarsRuntime {
         }
     }
 
-    private void handleFinalKill(Minecraft mc, String message) {
-        if (mc == null || mc.thePlayer == null) {
-            return;
-        }
-        Matcher m = HypixelMessages.FINAL_KILL_PATTERN.matcher(message);
-        if (!m.find()) {
-            return;
-        }
-        String victim = m.group(1);
-        if (victim == null || victim.equals(mc.thePlayer.getName())) {
-            // Don't tally self-deaths — local player FINAL KILL already triggers match-end paths.
-            return;
-        }
-
-        // Resolve the victim's team (color + name) from the world scoreboard, if possible.
-        String teamName = null;
-        String teamColor = EnumChatFormatting.GRAY.toString();
-        if (mc.theWorld != null) {
-            for (EntityPlayer p : mc.theWorld.playerEntities) {
-                if (!p.getName().equals(victim)) continue;
-                net.minecraft.scoreboard.Team t = p.getTeam();
-                if (t instanceof net.minecraft.scoreboard.ScorePlayerTeam) {
-                    net.minecraft.scoreboard.ScorePlayerTeam spt = (net.minecraft.scoreboard.ScorePlayerTeam) t;
-                    teamName = spt.getRegisteredName();
-                    String prefix = spt.getColorPrefix();
-                    if (prefix != null && !prefix.isEmpty()) {
-                        for (int i = 0; i < prefix.length() - 1; i++) {
-                            if (prefix.charAt(i) == '\u00a7') {
-                                char code = prefix.charAt(i + 1);
-                                if ((code >= '0' && code <= '9') || (code >= 'a' && code <= 'f')) {
-                                    teamColor = "\u00a7" + code;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-                break;
-            }
-        }
-        // Victims are frequently despawned by the time the final-kill line
-        // arrives (death teleports to spectator) \u2014 fall back to the scoreboard
-        // team registration / sidebar snapshot for the color, then map that
-        // color back to the sidebar team name so the ledger key stays joinable
-        // with the TEAMS status board (instead of landing in "UNKNOWN").
-        if (teamName == null) {
-            teamColor = resolveTeamColorCode(mc, victim);
-            for (ScoreboardGameStateDetector.TeamStatus ts : state.scoreboardTeamStatuses.values()) {
-                if (teamColor.equals(ts.colorCode)) {
-                    teamName = ts.teamName;
-                    break;
-                }
-            }
-        }
-        // FINAL_KILL_PATTERN captures the killer in group 2 ("by X") or group 3
-        // ("escape X"); environmental and possessive phrasings capture no
-        // killer at all \u2014 tolerated as null throughout.
-        String killer = m.group(2) != null ? m.group(2) : m.group(3);
-        finalKillLedger.recordFinalKill(victim, teamName, teamColor, killer);
-        maybeWarnCarry(mc, killer);
-
-        // Killfeed entry with the killer attached.
-        if (ModConfig.isKillfeedEnabled()) {
-            killFeedTracker.addEntry(victim, killer, teamColor, System.currentTimeMillis(), true);
-        }
-
-        // Final-kill chat context disabled \u2014 HUD's FINAL KILL TALLY section conveys the same info.
-    }
-
     /**
      * Own bed state from the sidebar snapshot; defaults to alive when the
      * sidebar hasn't identified our row yet (early game).
@@ -1628,9 +1649,9 @@ public class BedwarsRuntime {
     }
 
     /**
-     * Resolves a player's team color code ("\u00a7c" etc.) for the killfeed: live
-     * entity first (the same recipe {@link #handleFinalKill} uses for the
-     * ledger), then the scoreboard team registration \u2014 membership outlives the
+     * Resolves a player's team color code ("\u00a7c" etc.) for the killfeed and
+     * the final-kill ledger (through {@link #liveTeams}): live entity first,
+     * then the scoreboard team registration \u2014 membership outlives the
      * entity, which is often despawned by the time a death message arrives \u2014
      * then the sidebar snapshot in {@code state.scoreboardTeamStatuses}.
      * Falls back to gray.
@@ -1658,7 +1679,7 @@ public class BedwarsRuntime {
                 return code;
             }
             // Prefix carried no color code \u2014 match the team's registered name
-            // against the sidebar snapshot (refreshed every 10 ticks).
+            // against the sidebar team statuses (rebuilt whenever the sidebar changes).
             String registered = team.getRegisteredName();
             if (registered != null) {
                 String registeredLower = registered.toLowerCase(java.util.Locale.ROOT);
@@ -1747,6 +1768,23 @@ public class BedwarsRuntime {
         }
     }
 
+    /**
+     * Start recording this session's match inputs for offline replay
+     * ({@code /bw record}). Returns the recording file.
+     */
+    public java.io.File startRecording() throws java.io.IOException {
+        return matchRecorder.start(Minecraft.getMinecraft());
+    }
+
+    /** Stop the running recording; returns its file, or null if none was running. */
+    public java.io.File stopRecording() {
+        return matchRecorder.stop();
+    }
+
+    public boolean isRecording() {
+        return matchRecorder.isRecording();
+    }
+
     public boolean toggleAfk() {
         state.afkEnabled = !state.afkEnabled;
         if (state.afkEnabled) {
@@ -2,41 +2,21 @@ package com.imshy.bedwars.runtime;
 
 import com.imshy.bedwars.ModConfig;
 
-import io.netty.channel.ChannelDuplexHandler;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelPipeline;
-
-import net.minecraft.block.state.IBlockState;
-import net.minecraft.client.Minecraft;
-import net.minecraft.client.network.NetHandlerPlayClient;
-import net.minecraft.init.Blocks;
-import net.minecraft.network.NetworkManager;
-import net.minecraft.network.play.server.S22PacketMultiBlockChange;
-import net.minecraft.network.play.server.S23PacketBlockChange;
 import net.minecraft.util.BlockPos;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Passive feed of server block-change packets (S22/S23), INCLUDING the air
  * updates {@link AntiCheatService} discards — air updates are how block
  * BREAKS appear, which the bed-tamper alarm needs.
  *
- * <p>Mirrors the AntiCheatService netty contract exactly: {@code channelRead}
- * is enqueue-only (a timestamp and a BlockPos — no world or entity access) and
- * everything else runs on the client thread via {@link #drainNew}. Do NOT add
- * any processing to the netty path. The handler reads packets and always
- * forwards them unmodified — nothing outbound is touched.
+ * <p>The packets are captured by {@link PacketTap} into this feed's ring;
+ * everything here runs on the client thread via {@link #drainNew}.
  */
 public class BlockChangeFeed {
 
-    private static final Logger LOGGER = LogManager.getLogger(BlockChangeFeed.class);
-    private static final String HANDLER_NAME = "bedwars_blockfeed";
     private static final int BUFFER_LIMIT = 1024;
 
     /** One block update: position, whether the new state is air (= a break). */
@@ -52,132 +32,45 @@ public class BlockChangeFeed {
         }
     }
 
-    private final ConcurrentLinkedQueue<BlockChangeEvent> pending =
-            new ConcurrentLinkedQueue<BlockChangeEvent>();
-    // ConcurrentLinkedQueue.size() is O(n) — the netty path uses this counter
-    // for the buffer-limit check instead.
-    private final java.util.concurrent.atomic.AtomicInteger pendingCount =
-            new java.util.concurrent.atomic.AtomicInteger();
+    private final PacketRing.BlockChanges ring;
 
-    private NetworkManager attachedManager;
-    private boolean handlerInstalled;
+    public BlockChangeFeed(PacketTap packetTap) {
+        this.ring = packetTap.subscribeBlockChanges(BUFFER_LIMIT, true);
+    }
 
-    /** Keeps the pipeline handler attached to the live connection. Client thread only. */
-    public void onClientTick(Minecraft mc) {
-        if (!ModConfig.isBridgeRadarEnabled() && !ModConfig.isBedTamperAlarmEnabled()) {
-            uninstall();
-            return;
-        }
-        if (mc == null || mc.theWorld == null || mc.thePlayer == null) {
-            uninstall();
-            return;
+    /** Subscribes while the bridge radar or tamper alarm wants the feed. Client thread only. */
+    public void onClientTick() {
+        boolean wanted = ModConfig.isBridgeRadarEnabled() || ModConfig.isBedTamperAlarmEnabled();
+        if (wanted != ring.isActive()) {
+            ring.setActive(wanted);
+            if (!wanted) {
+                ring.clear();
+            }
         }
-        ensureInstalled(mc);
     }
 
-    /** Drains all captured events (client thread; single consumer). */
+    /**
+     * Drains all captured events (client thread; single consumer). Events
+     * are only materialized here, and only when there are any: the radar
+     * keeps them as cluster points.
+     */
     public List<BlockChangeEvent> drainNew() {
-        if (pending.isEmpty()) {
+        int count = ring.readable();
+        if (count == 0) {
             return java.util.Collections.emptyList();
         }
-        List<BlockChangeEvent> out = new ArrayList<BlockChangeEvent>();
-        BlockChangeEvent ev;
-        while ((ev = pending.poll()) != null) {
-            pendingCount.decrementAndGet();
-            out.add(ev);
+        List<BlockChangeEvent> out = new ArrayList<BlockChangeEvent>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = ring.slot(i);
+            out.add(new BlockChangeEvent(BlockPos.fromLong(ring.packedPos[slot]),
+                    ring.isAir[slot], ring.when[slot]));
         }
+        ring.release(count);
         return out;
     }
 
     public void shutdown() {
-        uninstall();
-        pending.clear();
-        pendingCount.set(0);
-    }
-
-    private void ensureInstalled(Minecraft mc) {
-        NetHandlerPlayClient netHandler = mc.getNetHandler();
-        if (netHandler == null) {
-            uninstall();
-            return;
-        }
-        NetworkManager manager = netHandler.getNetworkManager();
-        if (manager == null || manager.channel() == null || !manager.channel().isOpen()) {
-            uninstall();
-            return;
-        }
-        if (handlerInstalled && manager == attachedManager) {
-            return;
-        }
-        uninstall();
-        try {
-            ChannelPipeline pipeline = manager.channel().pipeline();
-            if (pipeline.get(HANDLER_NAME) == null) {
-                pipeline.addBefore("packet_handler", HANDLER_NAME, new InboundHandler());
-            }
-            attachedManager = manager;
-            handlerInstalled = true;
-        } catch (Throwable t) {
-            LOGGER.warn("BlockChangeFeed handler installation failed: {}", t.toString());
-        }
-    }
-
-    private void uninstall() {
-        if (attachedManager != null && attachedManager.channel() != null) {
-            try {
-                ChannelPipeline pipeline = attachedManager.channel().pipeline();
-                if (pipeline.get(HANDLER_NAME) != null) {
-                    pipeline.remove(HANDLER_NAME);
-                }
-            } catch (Throwable ignored) {
-                // Channel may already be closed.
-            }
-        }
-        attachedManager = null;
-        handlerInstalled = false;
-    }
-
-    private final class InboundHandler extends ChannelDuplexHandler {
-        @Override
-        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-            // Enqueue-only — see the class javadoc. Never let a capture error
-            // break the network pipeline.
-            if (msg instanceof S23PacketBlockChange) {
-                try {
-                    S23PacketBlockChange p = (S23PacketBlockChange) msg;
-                    IBlockState state = p.getBlockState();
-                    if (state != null && pendingCount.get() < BUFFER_LIMIT) {
-                        pending.add(new BlockChangeEvent(p.getBlockPosition(),
-                                state.getBlock() == Blocks.air, System.currentTimeMillis()));
-                        pendingCount.incrementAndGet();
-                    }
-                } catch (Throwable t) {
-                    LOGGER.debug("BlockChangeFeed S23 handling error", t);
-                }
-            } else if (msg instanceof S22PacketMultiBlockChange) {
-                try {
-                    long now = System.currentTimeMillis();
-                    S22PacketMultiBlockChange.BlockUpdateData[] updates =
-                            ((S22PacketMultiBlockChange) msg).getChangedBlocks();
-                    if (updates != null) {
-                        for (S22PacketMultiBlockChange.BlockUpdateData u : updates) {
-                            if (pendingCount.get() >= BUFFER_LIMIT) {
-                                break;
-                            }
-                            IBlockState state = u.getBlockState();
-                            if (state == null) {
-                                continue;
-                            }
-                            pending.add(new BlockChangeEvent(u.getPos(),
-                                    state.getBlock() == Blocks.air, now));
-                            pendingCount.incrementAndGet();
-                        }
-                    }
-                } catch (Throwable t) {
-                    LOGGER.debug("BlockChangeFeed S22 handling error", t);
-                }
-            }
-            super.channelRead(ctx, msg);
-        }
+        ring.setActive(false);
+        ring.clear();
     }
 }
@@ -47,7 +47,7 @@ public class BridgeRadarService {
     private static final double MAX_PROJECT_DISTANCE = 90.0;
 
     // Tamper alarm
-    private static final double TEAMMATE_NEAR_SQ = 6.0 * 6.0;
+    private static final double TEAMMATE_NEAR = 6.0;
     private static final long TAMPER_BANNER_MS = 4_000L;
     private static final long TAMPER_RECUE_MS = 5_000L;
 
@@ -87,32 +87,28 @@ public class BridgeRadarService {
     private String tamperDirection = "";
 
     /**
-     * Feeds one tick's drained block changes through both detectors.
+     * Feeds one tick's drained block changes through both detectors;
+     * {@code world} answers the "who is standing there" questions.
      * Client thread only.
      */
-    public void onClientTick(Minecraft mc, List<BlockChangeFeed.BlockChangeEvent> events,
+    public void onClientTick(Minecraft mc, WorldSnapshot world,
+            List<BlockChangeFeed.BlockChangeEvent> events,
             MatchThreatService matchThreatService, List<BlockPos> bedBlocks,
             boolean ownBedAlive) {
         long now = System.currentTimeMillis();
 
         if (ModConfig.isBedTamperAlarmEnabled() && ownBedAlive) {
-            detectTamper(mc, events, matchThreatService, bedBlocks, now);
+            detectTamper(mc, world, events, matchThreatService, bedBlocks, now);
         }
         if (ModConfig.isBridgeRadarEnabled()) {
-            boolean newPlacements = false;
-            for (BlockChangeFeed.BlockChangeEvent ev : events) {
-                if (!ev.isAir) {
-                    attach(ev);
-                    newPlacements = true;
-                }
-            }
+            boolean newPlacements = attachPlacements(events);
             // Rebuild only when the geometry changed or on the idle cadence
             // (alerts still need to expire as clusters go idle).
             ticksSinceRebuild++;
             if (newPlacements || ticksSinceRebuild >= REBUILD_INTERVAL_TICKS) {
                 ticksSinceRebuild = 0;
                 pruneClusters(now);
-                rebuildAlerts(mc, matchThreatService, bedBlocks, now);
+                rebuildAlerts(mc, world, matchThreatService, bedBlocks, now);
             }
         } else if (!clusters.isEmpty() || !activeAlerts.isEmpty()) {
             clusters.clear();
@@ -159,7 +155,8 @@ public class BridgeRadarService {
     // Bed-tamper alarm
     // -------------------------------------------------------------------
 
-    private void detectTamper(Minecraft mc, List<BlockChangeFeed.BlockChangeEvent> events,
+    private void detectTamper(Minecraft mc, WorldSnapshot world,
+            List<BlockChangeFeed.BlockChangeEvent> events,
             MatchThreatService matchThreatService, List<BlockPos> bedBlocks, long now) {
         if (bedBlocks == null || bedBlocks.isEmpty() || mc.thePlayer == null) {
             return;
@@ -185,7 +182,7 @@ public class BridgeRadarService {
             // A teammate (or the player) next to the changed block means our
             // own team is building/mining — not an attack. Teammates beyond
             // tracking range can still false-positive; accepted trade-off.
-            if (isFriendlyNear(mc, matchThreatService, ev.pos)) {
+            if (isFriendlyNear(mc, world, matchThreatService, ev.pos)) {
                 continue;
             }
             tamperDirection = octantFrom(mc.thePlayer.posX, mc.thePlayer.posZ,
@@ -198,23 +195,14 @@ public class BridgeRadarService {
         }
     }
 
-    private boolean isFriendlyNear(Minecraft mc, MatchThreatService matchThreatService,
-            BlockPos pos) {
-        double cx = pos.getX() + 0.5;
-        double cy = pos.getY() + 0.5;
-        double cz = pos.getZ() + 0.5;
-        for (Object obj : mc.theWorld.playerEntities) {
-            if (!(obj instanceof EntityPlayer)) {
-                continue;
-            }
-            EntityPlayer p = (EntityPlayer) obj;
-            double dx = p.posX - cx;
-            double dy = p.posY - cy;
-            double dz = p.posZ - cz;
-            if (dx * dx + dy * dy + dz * dz > TEAMMATE_NEAR_SQ) {
-                continue;
-            }
-            if (p == mc.thePlayer || matchThreatService.isTeammate(mc, mc.thePlayer, p)) {
+    private boolean isFriendlyNear(Minecraft mc, WorldSnapshot world,
+            MatchThreatService matchThreatService, BlockPos pos) {
+        int nearby = world.playerGrid.within(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5,
+                TEAMMATE_NEAR, null);
+        for (int h = 0; h < nearby; h++) {
+            int i = world.playerGrid.hit(h);
+            if (i == world.localPlayerIndex
+                    || matchThreatService.isTeammate(mc, mc.thePlayer, world.players[i])) {
                 return true;
             }
         }
@@ -225,6 +213,35 @@ public class BridgeRadarService {
     // Bridge clustering
     // -------------------------------------------------------------------
 
+    /** Clusters the placements in {@code events}; true if there were any. */
+    boolean attachPlacements(List<BlockChangeFeed.BlockChangeEvent> events) {
+        boolean newPlacements = false;
+        for (BlockChangeFeed.BlockChangeEvent ev : events) {
+            if (!ev.isAir) {
+                attach(ev);
+                newPlacements = true;
+            }
+        }
+        return newPlacements;
+    }
+
+    /**
+     * The geometry half of an alert rebuild: drops idle clusters and returns
+     * the runs advancing on the target, without the entity scan that picks
+     * out friendly bridges and builders. Replays drive this directly.
+     */
+    List<BridgeAlert> analyzeClusters(double targetX, double targetZ, long now) {
+        pruneClusters(now);
+        List<BridgeAlert> alerts = new ArrayList<BridgeAlert>();
+        for (Cluster c : clusters) {
+            BridgeAlert alert = analyzeCluster(c, targetX, targetZ);
+            if (alert != null) {
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
     private void attach(BlockChangeFeed.BlockChangeEvent ev) {
         for (Cluster c : clusters) {
             BlockChangeFeed.BlockChangeEvent tail = c.points.get(c.points.size() - 1);
@@ -260,7 +277,7 @@ public class BridgeRadarService {
         }
     }
 
-    private void rebuildAlerts(Minecraft mc, MatchThreatService matchThreatService,
+    private void rebuildAlerts(Minecraft mc, WorldSnapshot world, MatchThreatService matchThreatService,
             List<BlockPos> bedBlocks, long now) {
         activeAlerts.clear();
         if (mc.thePlayer == null) {
@@ -286,29 +303,15 @@ public class BridgeRadarService {
             // Friendly bridges (teammate at the head) are not alerts.
             BlockPos head = alert.points.get(alert.points.size() - 1);
             String builder = null;
-            boolean friendly = false;
-            double bestSq = 6.0 * 6.0;
-            for (Object obj : mc.theWorld.playerEntities) {
-                if (!(obj instanceof EntityPlayer)) {
+            int nearest = world.playerGrid.nearest(head.getX() + 0.5, head.getY() + 1.0,
+                    head.getZ() + 0.5, 6.0, null);
+            if (nearest >= 0) {
+                EntityPlayer p = world.players[nearest];
+                if (nearest == world.localPlayerIndex
+                        || matchThreatService.isTeammate(mc, mc.thePlayer, p)) {
                     continue;
                 }
-                EntityPlayer p = (EntityPlayer) obj;
-                double dx = p.posX - (head.getX() + 0.5);
-                double dy = p.posY - (head.getY() + 1.0);
-                double dz = p.posZ - (head.getZ() + 0.5);
-                double dSq = dx * dx + dy * dy + dz * dz;
-                if (dSq < bestSq) {
-                    bestSq = dSq;
-                    if (p == mc.thePlayer || matchThreatService.isTeammate(mc, mc.thePlayer, p)) {
-                        friendly = true;
-                    } else {
-                        friendly = false;
-                        builder = p.getName();
-                    }
-                }
-            }
-            if (friendly) {
-                continue;
+                builder = p.getName();
             }
             activeAlerts.add(new BridgeAlert(alert.points, alert.direction,
                     alert.distanceBlocks, alert.etaSeconds, builder));
@@ -5,10 +5,7 @@ import com.imshy.bedwars.ModConfig;
 import net.minecraft.client.Minecraft;
 import net.minecraft.enchantment.Enchantment;
 import net.minecraft.enchantment.EnchantmentHelper;
-import net.minecraft.entity.Entity;
-import net.minecraft.entity.item.EntityItem;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.init.Items;
 import net.minecraft.item.ItemStack;
 
 import java.util.HashMap;
@@ -16,8 +13,6 @@ import java.util.Map;
 
 public class EnemyTrackingService {
 
-    private static final long ARMOR_HELD_SCAN_INTERVAL = 500; // ms (every ~10 ticks)
-
     private final RuntimeState state;
     private final MatchThreatService matchThreatService;
 
@@ -26,33 +21,18 @@ public class EnemyTrackingService {
         this.matchThreatService = matchThreatService;
     }
 
-    public void scanItemPickups(Minecraft mc) {
+    public void scanItemPickups(Minecraft mc, WorldSnapshot world) {
         if (mc.theWorld == null || mc.thePlayer == null) {
             return;
         }
 
         Map<Integer, double[]> currentItems = new HashMap<Integer, double[]>();
 
-        for (Entity entity : mc.theWorld.loadedEntityList) {
-            if (!(entity instanceof EntityItem)) {
-                continue;
-            }
-            EntityItem entityItem = (EntityItem) entity;
-            ItemStack stack = entityItem.getEntityItem();
-            if (stack == null || stack.getItem() == null) {
-                continue;
-            }
-
-            boolean isDiamond = stack.getItem() == Items.diamond;
-            boolean isEmerald = stack.getItem() == Items.emerald;
-            if (!isDiamond && !isEmerald) {
-                continue;
-            }
-
-            currentItems.put(entity.getEntityId(), new double[]{
-                    entity.posX, entity.posY, entity.posZ,
-                    isDiamond ? 1.0 : 0.0,
-                    stack.stackSize
+        for (int i = 0; i < world.itemCount; i++) {
+            currentItems.put(world.itemId[i], new double[]{
+                    world.itemX[i], world.itemY[i], world.itemZ[i],
+                    world.itemDiamond[i] ? 1.0 : 0.0,
+                    world.itemStackSize[i]
             });
         }
 
@@ -73,7 +53,7 @@ public class EnemyTrackingService {
             boolean isDiamond = data[3] == 1.0;
             int stackSize = (int) data[4];
 
-            EntityPlayer nearest = findNearestEnemy(mc, itemX, itemY, itemZ, pickupRangeSq);
+            EntityPlayer nearest = findNearestEnemy(mc, world, itemX, itemY, itemZ, pickupRangeSq);
             if (nearest != null) {
                 TrackedEnemy tracked = getOrCreateTracked(nearest.getName());
                 if (isDiamond) {
@@ -88,26 +68,22 @@ public class EnemyTrackingService {
         state.trackedResourceItems.putAll(currentItems);
     }
 
-    public void scanArmorAndHeldItems(Minecraft mc, long currentTime) {
+    public void scanArmorAndHeldItems(Minecraft mc, WorldSnapshot world, long currentTime) {
         if (mc.theWorld == null || mc.thePlayer == null) {
             return;
         }
 
-        if (currentTime - state.lastArmorHeldItemScan < ARMOR_HELD_SCAN_INTERVAL) {
-            return;
-        }
-        state.lastArmorHeldItemScan = currentTime;
-
-        for (EntityPlayer player : mc.theWorld.playerEntities) {
-            if (player.getUniqueID().equals(mc.thePlayer.getUniqueID())) {
+        for (int i = 0; i < world.playerCount; i++) {
+            if (i == world.localPlayerIndex) {
                 continue;
             }
+            EntityPlayer player = world.players[i];
             if (matchThreatService.isTeammate(mc, mc.thePlayer, player)) {
                 continue;
             }
 
             TrackedEnemy tracked = getOrCreateTracked(player.getName());
-            tracked.recordSighting(player.posX, player.posY, player.posZ, currentTime);
+            tracked.recordSighting(world.playerX[i], world.playerY[i], world.playerZ[i], currentTime);
 
             // Scan armor for highest Protection enchantment level and material tier
             int maxProt = 0;
@@ -146,7 +122,6 @@ public class EnemyTrackingService {
     public void clearAll() {
         state.trackedEnemies.clear();
         state.trackedResourceItems.clear();
-        state.lastArmorHeldItemScan = 0;
     }
 
     public TrackedEnemy getTrackedEnemy(String playerName) {
@@ -166,29 +141,10 @@ public class EnemyTrackingService {
         return tracked;
     }
 
-    private EntityPlayer findNearestEnemy(Minecraft mc, double x, double y, double z, double maxDistSq) {
-        EntityPlayer nearest = null;
-        double nearestDistSq = maxDistSq;
-
-        for (EntityPlayer player : mc.theWorld.playerEntities) {
-            if (player.getUniqueID().equals(mc.thePlayer.getUniqueID())) {
-                continue;
-            }
-            if (matchThreatService.isTeammate(mc, mc.thePlayer, player)) {
-                continue;
-            }
-
-            double dx = player.posX - x;
-            double dy = player.posY - y;
-            double dz = player.posZ - z;
-            double distSq = dx * dx + dy * dy + dz * dz;
-
-            if (distSq < nearestDistSq) {
-                nearestDistSq = distSq;
-                nearest = player;
-            }
-        }
-
-        return nearest;
+    private EntityPlayer findNearestEnemy(Minecraft mc, WorldSnapshot world,
+            double x, double y, double z, double maxDistSq) {
+        int nearest = world.playerGrid.nearest(x, y, z, Math.sqrt(maxDistSq),
+                matchThreatService.enemyFilter(mc, world, false));
+        return nearest < 0 ? null : world.players[nearest];
     }
 }
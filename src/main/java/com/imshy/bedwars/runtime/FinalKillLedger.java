@@ -1,5 +1,7 @@
 package com.imshy.bedwars.runtime;
 
+import com.imshy.bedwars.PlayerKey;
+
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -48,8 +50,8 @@ public class FinalKillLedger {
     }
 
     private final Map<String, TeamTally> tallies = new LinkedHashMap<String, TeamTally>();
-    /** Keyed by lowercased killer name; the display name is kept on the tally. */
-    private final Map<String, KillerTally> killerTallies = new LinkedHashMap<String, KillerTally>();
+    /** Keyed by canonical killer key; the display name is kept on the tally. */
+    private final Map<PlayerKey, KillerTally> killerTallies = new LinkedHashMap<PlayerKey, KillerTally>();
 
     /**
      * Record a final kill. {@code victimTeamName} and {@code victimTeamColor} may
@@ -79,7 +81,7 @@ public class FinalKillLedger {
         tally.lastKillTime = System.currentTimeMillis();
 
         if (killerName != null && !killerName.isEmpty()) {
-            String killerKey = killerName.toLowerCase(java.util.Locale.ROOT);
+            PlayerKey killerKey = PlayerKey.of(killerName);
             KillerTally killer = killerTallies.get(killerKey);
             if (killer == null) {
                 killer = new KillerTally(killerName);
@@ -99,7 +101,7 @@ public class FinalKillLedger {
         if (playerName == null) {
             return 0;
         }
-        KillerTally tally = killerTallies.get(playerName.toLowerCase(java.util.Locale.ROOT));
+        KillerTally tally = killerTallies.get(PlayerKey.of(playerName));
         return tally == null ? 0 : tally.finalKills;
     }
 
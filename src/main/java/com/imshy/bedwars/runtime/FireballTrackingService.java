@@ -4,7 +4,6 @@ import com.imshy.bedwars.AudioCueManager;
 import com.imshy.bedwars.ModConfig;
 
 import net.minecraft.client.Minecraft;
-import net.minecraft.entity.Entity;
 import net.minecraft.entity.projectile.EntityLargeFireball;
 import net.minecraft.util.MovingObjectPosition;
 import net.minecraft.util.Vec3;
@@ -39,17 +38,15 @@ public class FireballTrackingService {
         bedAlertedIds.clear();
     }
 
-    public void scanFireballs(Minecraft mc) {
-        scanFireballs(mc, null);
-    }
-
     /**
      * @param bedBlocks the local team's bed blocks (may be null/empty when the
      *                  bed hasn't been located) — used to classify impacts as
      *                  bed-defense attacks, which alert even when the fireball
      *                  never comes near the player.
+     * @param world     this tick's entity buckets; only its fireballs are read
      */
-    public void scanFireballs(Minecraft mc, java.util.List<net.minecraft.util.BlockPos> bedBlocks) {
+    public void scanFireballs(Minecraft mc, java.util.List<net.minecraft.util.BlockPos> bedBlocks,
+            WorldSnapshot world) {
         if (mc == null || mc.theWorld == null || mc.thePlayer == null) {
             return;
         }
@@ -63,12 +60,8 @@ public class FireballTrackingService {
         double playerY = mc.thePlayer.posY + mc.thePlayer.getEyeHeight();
         double playerZ = mc.thePlayer.posZ;
 
-        for (Entity entity : mc.theWorld.loadedEntityList) {
-            if (!(entity instanceof EntityLargeFireball)) {
-                continue;
-            }
-
-            EntityLargeFireball fireball = (EntityLargeFireball) entity;
+        for (int i = 0; i < world.fireballCount; i++) {
+            EntityLargeFireball fireball = world.fireballs[i];
             int id = fireball.getEntityId();
             seenThisTick.add(id);
 
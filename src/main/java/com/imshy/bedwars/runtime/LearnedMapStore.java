@@ -0,0 +1,475 @@
+package com.imshy.bedwars.runtime;
+
+import com.imshy.bedwars.JsonFileUtil;
+import com.imshy.bedwars.runtime.MapLearningService.BedPoint;
+import com.imshy.bedwars.runtime.MapLearningService.ConsolidatedGenerator;
+import com.imshy.bedwars.runtime.MapLearningService.GeneratorPoint;
+import com.imshy.bedwars.runtime.MapLearningService.MapObservation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Learned map layouts on disk ({@code config/bedwarsstats/learnedmaps.bin}).
+ *
+ * <p>The file is a header, one segment per map and an index:
+ * <pre>
+ *   header:  magic(4) version(4) indexOffset(8)
+ *   segment: observations, then the consolidated generators computed from them
+ *   index:   length(4) crc(4) entries[name, segment offset/length/crc,
+ *            observation count, consolidated count, last seen]
+ * </pre>
+ * Opening reads only the header and index, which carry everything
+ * {@code /bw maps} shows. A map's segment is decoded the first time that map
+ * is asked for and then kept, so a session touches the maps it plays and no
+ * others. Consolidation runs when a segment is written, never on a read.
+ *
+ * <p>Recording a match appends the map's new segment and a new index at the
+ * end of the file, forces both, then repoints the header: a crash at any
+ * step leaves the previous index, and everything it references, intact. The
+ * superseded segment and index stay behind as garbage until it outweighs the
+ * live data, when the file is rewritten compactly via temp file and atomic
+ * move. All methods synchronize on the store; it is opened on a startup
+ * thread and used from the client thread.
+ */
+final class LearnedMapStore {
+
+    static final int MAGIC = 0x42574C4D; // "BWLM"
+    static final int FORMAT_VERSION = 1;
+
+    // magic(4) version(4) indexOffset(8)
+    private static final int HEADER_BYTES = 16;
+    private static final int INDEX_OFFSET_POSITION = 8;
+
+    /** Garbage is not worth a rewrite until the file is at least this large. */
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    /** One map's index entry: where its segment lives plus the summary counts. */
+    static final class IndexEntry {
+        final String name;
+        final long offset;
+        final int length;
+        final int crc;
+        final int observationCount;
+        final int consolidatedCount;
+        final long lastSeenEpochMs;
+
+        IndexEntry(String name, long offset, int length, int crc,
+                   int observationCount, int consolidatedCount, long lastSeenEpochMs) {
+            this.name = name;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+            this.observationCount = observationCount;
+            this.consolidatedCount = consolidatedCount;
+            this.lastSeenEpochMs = lastSeenEpochMs;
+        }
+
+        IndexEntry movedTo(long newOffset) {
+            return new IndexEntry(name, newOffset, length, crc, observationCount, consolidatedCount, lastSeenEpochMs);
+        }
+    }
+
+    /** One map's decoded segment. Both lists are unmodifiable. */
+    static final class Segment {
+        final List<MapObservation> observations;
+        final List<ConsolidatedGenerator> consolidated;
+
+        Segment(List<MapObservation> observations, List<ConsolidatedGenerator> consolidated) {
+            this.observations = Collections.unmodifiableList(observations);
+            this.consolidated = Collections.unmodifiableList(consolidated);
+        }
+    }
+
+    private final File file;
+    /** What the header currently points at; replaced whole once a put is durable. */
+    private Map<String, IndexEntry> index = new LinkedHashMap<String, IndexEntry>();
+    private final Map<String, Segment> decoded = new HashMap<String, Segment>();
+    /** Bytes of segments and index the header currently reaches. */
+    private long liveBytes;
+    private int indexBytes;
+
+    LearnedMapStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Read the header and index. A missing file is an empty store; a file
+     * that is not a valid store throws, and the caller decides what to do
+     * with it. The index is parsed aside and only replaces the current one
+     * once the whole file has read cleanly, so a throw leaves it as it was.
+     */
+    synchronized void open() throws IOException {
+        if (!file.exists()) {
+            adopt(new LinkedHashMap<String, IndexEntry>(), 0, 0);
+            return;
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            if (raf.length() < HEADER_BYTES) {
+                throw new IOException("truncated header");
+            }
+            if (raf.readInt() != MAGIC) {
+                throw new IOException("not a learned map store");
+            }
+            int version = raf.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("unsupported version " + version);
+            }
+            long indexOffset = raf.readLong();
+            if (indexOffset < HEADER_BYTES || indexOffset + 8 > raf.length()) {
+                throw new IOException("index offset out of range");
+            }
+            raf.seek(indexOffset);
+            int length = raf.readInt();
+            int crc = raf.readInt();
+            if (length < 4 || indexOffset + 8 + length > raf.length()) {
+                throw new IOException("index length out of range");
+            }
+            byte[] body = new byte[length];
+            raf.readFully(body);
+            if (crc(body) != crc) {
+                throw new IOException("index checksum mismatch");
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            int count = in.readInt();
+            Map<String, IndexEntry> loaded = new LinkedHashMap<String, IndexEntry>();
+            long segmentBytes = 0;
+            for (int i = 0; i < count; i++) {
+                IndexEntry entry = new IndexEntry(in.readUTF(), in.readLong(), in.readInt(), in.readInt(),
+                        in.readInt(), in.readInt(), in.readLong());
+                if (entry.offset < HEADER_BYTES || entry.offset + entry.length > indexOffset) {
+                    throw new IOException("segment for " + entry.name + " out of range");
+                }
+                loaded.put(entry.name, entry);
+                segmentBytes += entry.length;
+            }
+            adopt(loaded, segmentBytes, 8 + length);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /** Swap in a fully read index; any decoded segment may belong to the old one. */
+    private void adopt(Map<String, IndexEntry> loaded, long segmentBytes, int loadedIndexBytes) {
+        decoded.clear();
+        index = loaded;
+        indexBytes = loadedIndexBytes;
+        liveBytes = segmentBytes + loadedIndexBytes;
+    }
+
+    /** Index entries in name order; no segment is decoded. */
+    synchronized List<IndexEntry> entries() {
+        List<IndexEntry> entries = new ArrayList<IndexEntry>(index.values());
+        Collections.sort(entries, new Comparator<IndexEntry>() {
+            @Override
+            public int compare(IndexEntry a, IndexEntry b) {
+                return a.name.compareTo(b.name);
+            }
+        });
+        return entries;
+    }
+
+    synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    /** True once {@code key}'s segment has been decoded this session. */
+    synchronized boolean isDecoded(String key) {
+        return decoded.containsKey(key);
+    }
+
+    /**
+     * The map's segment, decoded from disk on first use. Null if the map has
+     * never been recorded.
+     */
+    synchronized Segment segment(String key) throws IOException {
+        Segment segment = decoded.get(key);
+        if (segment != null) {
+            return segment;
+        }
+        IndexEntry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        byte[] bytes = readSegmentBytes(entry);
+        if (crc(bytes) != entry.crc) {
+            throw new IOException("segment checksum mismatch for " + key);
+        }
+        segment = decodeSegment(bytes);
+        decoded.put(key, segment);
+        return segment;
+    }
+
+    /**
+     * Replace {@code key}'s observations: consolidate them, append the
+     * segment and a new index, then repoint the header. The in-memory index
+     * only changes once the header is down, so a failed write leaves it
+     * matching the file. Returns the segment written.
+     */
+    synchronized Segment put(String key, List<MapObservation> observations) throws IOException {
+        Segment segment = new Segment(new ArrayList<MapObservation>(observations),
+                MapLearningService.consolidate(observations));
+        byte[] bytes = encodeSegment(segment);
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        long fileLength;
+        try {
+            long segmentOffset = raf.length();
+            if (index.isEmpty() || segmentOffset < HEADER_BYTES) {
+                // Nothing live (new file, or one open() rejected): start over.
+                // The header points nowhere until the first index is down.
+                raf.setLength(0);
+                raf.writeInt(MAGIC);
+                raf.writeInt(FORMAT_VERSION);
+                raf.writeLong(0);
+                segmentOffset = HEADER_BYTES;
+            }
+            raf.seek(segmentOffset);
+            raf.write(bytes);
+
+            IndexEntry previous = index.get(key);
+            Map<String, IndexEntry> next = new LinkedHashMap<String, IndexEntry>(index);
+            next.put(key, summarize(key, segmentOffset, bytes, segment));
+            long indexOffset = segmentOffset + bytes.length;
+            byte[] newIndex = encodeIndex(next);
+            raf.write(newIndex);
+            raf.getChannel().force(false);
+
+            raf.seek(INDEX_OFFSET_POSITION);
+            raf.writeLong(indexOffset);
+            raf.getChannel().force(false);
+
+            index = next;
+            liveBytes += bytes.length - (previous != null ? previous.length : 0)
+                    + newIndex.length - indexBytes;
+            indexBytes = newIndex.length;
+            fileLength = raf.length();
+        } finally {
+            raf.close();
+        }
+        decoded.put(key, segment);
+
+        if (fileLength > MIN_COMPACT_BYTES && fileLength - HEADER_BYTES > 2 * liveBytes) {
+            compact();
+        }
+        return segment;
+    }
+
+    /**
+     * Write every map in one pass to a fresh file (temp file + atomic move).
+     * Used to import the legacy JSON file.
+     */
+    synchronized void writeAll(Map<String, List<MapObservation>> maps) throws IOException {
+        Map<String, byte[]> segments = new LinkedHashMap<String, byte[]>();
+        Map<String, Segment> built = new HashMap<String, Segment>();
+        for (Map.Entry<String, List<MapObservation>> map : maps.entrySet()) {
+            Segment segment = new Segment(new ArrayList<MapObservation>(map.getValue()),
+                    MapLearningService.consolidate(map.getValue()));
+            built.put(map.getKey(), segment);
+            segments.put(map.getKey(), encodeSegment(segment));
+        }
+        Map<String, IndexEntry> summaries = new LinkedHashMap<String, IndexEntry>();
+        for (Map.Entry<String, byte[]> segment : segments.entrySet()) {
+            summaries.put(segment.getKey(), summarize(segment.getKey(), 0, segment.getValue(),
+                    built.get(segment.getKey())));
+        }
+        rewrite(segments, summaries);
+        decoded.clear();
+        decoded.putAll(built);
+    }
+
+    /** Rewrite the live segments without the garbage superseded puts left behind. */
+    synchronized void compact() throws IOException {
+        Map<String, byte[]> segments = new LinkedHashMap<String, byte[]>();
+        for (IndexEntry entry : index.values()) {
+            segments.put(entry.name, readSegmentBytes(entry));
+        }
+        rewrite(segments, new LinkedHashMap<String, IndexEntry>(index));
+    }
+
+    // ==================== FILE LAYOUT ====================
+
+    private void rewrite(Map<String, byte[]> segments, Map<String, IndexEntry> summaries) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        Map<String, IndexEntry> moved = new LinkedHashMap<String, IndexEntry>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeLong(0); // patched below
+        long segmentBytes = 0;
+        for (Map.Entry<String, byte[]> segment : segments.entrySet()) {
+            moved.put(segment.getKey(), summaries.get(segment.getKey()).movedTo(data.size()));
+            data.write(segment.getValue());
+            segmentBytes += segment.getValue().length;
+        }
+        long indexOffset = data.size();
+        byte[] newIndex = encodeIndex(moved);
+        data.write(newIndex);
+        data.flush();
+
+        byte[] all = out.toByteArray();
+        for (int i = 0; i < 8; i++) {
+            all[INDEX_OFFSET_POSITION + i] = (byte) (indexOffset >>> (56 - 8 * i));
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.write(tmp.toPath(), all);
+        JsonFileUtil.replaceAtomic(tmp, file);
+
+        index = moved;
+        indexBytes = newIndex.length;
+        liveBytes = segmentBytes + indexBytes;
+    }
+
+    private byte[] readSegmentBytes(IndexEntry entry) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[entry.length];
+            raf.seek(entry.offset);
+            raf.readFully(bytes);
+            return bytes;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static IndexEntry summarize(String key, long offset, byte[] bytes, Segment segment) {
+        long lastSeen = 0;
+        for (MapObservation observation : segment.observations) {
+            if (observation.epochMs > lastSeen) {
+                lastSeen = observation.epochMs;
+            }
+        }
+        return new IndexEntry(key, offset, bytes.length, crc(bytes),
+                segment.observations.size(), segment.consolidated.size(), lastSeen);
+    }
+
+    /** length(4) crc(4), then the entries. */
+    private static byte[] encodeIndex(Map<String, IndexEntry> entries) throws IOException {
+        ByteArrayOutputStream bodyOut = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyOut);
+        body.writeInt(entries.size());
+        for (IndexEntry entry : entries.values()) {
+            body.writeUTF(entry.name);
+            body.writeLong(entry.offset);
+            body.writeInt(entry.length);
+            body.writeInt(entry.crc);
+            body.writeInt(entry.observationCount);
+            body.writeInt(entry.consolidatedCount);
+            body.writeLong(entry.lastSeenEpochMs);
+        }
+        body.flush();
+        byte[] bodyBytes = bodyOut.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bodyBytes.length + 8);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(bodyBytes.length);
+        data.writeInt(crc(bodyBytes));
+        data.write(bodyBytes);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    static byte[] encodeSegment(Segment segment) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(segment.observations.size());
+        for (MapObservation observation : segment.observations) {
+            data.writeLong(observation.epochMs);
+            List<GeneratorPoint> generators = observation.generators != null
+                    ? observation.generators : Collections.<GeneratorPoint>emptyList();
+            data.writeInt(generators.size());
+            for (GeneratorPoint point : generators) {
+                data.writeInt(point.x);
+                data.writeInt(point.y);
+                data.writeInt(point.z);
+                data.writeBoolean(point.diamond);
+            }
+            BedPoint bed = observation.bed;
+            data.writeBoolean(bed != null);
+            if (bed != null) {
+                data.writeInt(bed.x);
+                data.writeInt(bed.y);
+                data.writeInt(bed.z);
+                data.writeBoolean(bed.team != null);
+                if (bed.team != null) {
+                    data.writeUTF(bed.team);
+                }
+            }
+        }
+        data.writeInt(segment.consolidated.size());
+        for (ConsolidatedGenerator generator : segment.consolidated) {
+            data.writeInt(generator.x);
+            data.writeInt(generator.y);
+            data.writeInt(generator.z);
+            data.writeBoolean(generator.diamond);
+            data.writeInt(generator.agreement);
+        }
+        data.flush();
+        return out.toByteArray();
+    }
+
+    static Segment decodeSegment(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int observationCount = in.readInt();
+        List<MapObservation> observations = new ArrayList<MapObservation>(observationCount);
+        for (int i = 0; i < observationCount; i++) {
+            long epochMs = in.readLong();
+            int generatorCount = in.readInt();
+            List<GeneratorPoint> generators = new ArrayList<GeneratorPoint>(generatorCount);
+            for (int j = 0; j < generatorCount; j++) {
+                generators.add(new GeneratorPoint(in.readInt(), in.readInt(), in.readInt(), in.readBoolean()));
+            }
+            BedPoint bed = null;
+            if (in.readBoolean()) {
+                bed = new BedPoint(in.readInt(), in.readInt(), in.readInt(), null);
+                if (in.readBoolean()) {
+                    bed.team = in.readUTF();
+                }
+            }
+            observations.add(new MapObservation(epochMs, generators, bed));
+        }
+        int consolidatedCount = in.readInt();
+        List<ConsolidatedGenerator> consolidated = new ArrayList<ConsolidatedGenerator>(consolidatedCount);
+        for (int i = 0; i < consolidatedCount; i++) {
+            ConsolidatedGenerator generator = new ConsolidatedGenerator(
+                    in.readInt(), in.readInt(), in.readInt(), in.readBoolean());
+            generator.agreement = in.readInt();
+            consolidated.add(generator);
+        }
+        return new Segment(observations, consolidated);
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+}
@@ -2,7 +2,6 @@ package com.imshy.bedwars.runtime;
 
 import com.imshy.bedwars.AudioCueManager;
 import com.imshy.bedwars.BedwarsStats;
-import com.imshy.bedwars.ClientThread;
 import com.imshy.bedwars.HypixelAPI;
 import com.imshy.bedwars.ModConfig;
 import com.imshy.bedwars.PlayerDatabase;
@@ -41,12 +40,8 @@ public class LobbyTrackerService {
                     new java.lang.ref.WeakReference<net.minecraft.world.World>(mc.theWorld);
         }
         state.trackedGenerators.clear();
-        state.lastGeneratorScan = 0;
         state.chatDetectedPlayers.clear();
         state.chatDetectedStartTime = 0;
-        // Fresh in-flight guard for the new match: a name left behind by a
-        // permanent error (bad key) in a previous game must not stay suppressed.
-        state.pendingTabListFetches.clear();
 
         // Reset lobby bait state
         state.lobbyBaitActive = false;
@@ -205,47 +200,16 @@ public class LobbyTrackerService {
                 continue;
             }
 
-            if (state.pendingTabListFetches.contains(tp.name)) {
-                continue;
-            }
-
-            // Pause requeueing entirely while rate limited — retrying at scan
-            // cadence would churn the queue without ever succeeding.
-            if (HypixelAPI.isRateLimitBackoffActive()) {
+            // In flight, recently failed or rate limited: HypixelAPI decides.
+            HypixelAPI.FetchPriority priority = TabListScanner.resolveFetchPriority(tp);
+            if (!HypixelAPI.admitFetch(tp.name, priority)) {
                 continue;
             }
-
-            final String tabName = tp.name;
-            state.pendingTabListFetches.add(tabName);
-            HypixelAPI.StatsCallback callback = new HypixelAPI.StatsCallback() {
-                @Override
-                public void onStatsLoaded(BedwarsStats stats) {
-                    // Drop the in-flight guard once resolved. The cache gate above
-                    // (getCachedStats != null) suppresses refetch while stats are
-                    // fresh; once the 60-min TTL expires the name becomes eligible
-                    // again — without this it stayed suppressed for the session.
-                    // pendingTabListFetches is client-thread-only state.
-                    ClientThread.run(() -> state.pendingTabListFetches.remove(tabName));
-                }
-
-                @Override
-                public void onError(String error) {
-                    // Make the name eligible for a refetch, but only after transient
-                    // failures (local/Hypixel rate limit, timeouts) — permanent ones
-                    // like a bad API key would otherwise retry on every scan.
-                    if (!HypixelAPI.isRetryableError(error)) {
-                        return;
-                    }
-                    ClientThread.run(() -> state.pendingTabListFetches.remove(tabName));
-                }
-            };
-
-            HypixelAPI.FetchPriority priority = TabListScanner.resolveFetchPriority(tp);
             if (tp.uuid != null) {
                 // Tab list carries the real GameProfile UUID — skip the Mojang round-trip.
-                HypixelAPI.fetchStatsWithUuid(tabName, tp.uuid, callback, priority);
+                HypixelAPI.fetchStatsWithUuid(tp.name, tp.uuid, HypixelAPI.DISCARD_RESULT, priority);
             } else {
-                HypixelAPI.fetchStatsAsync(tabName, callback, priority);
+                HypixelAPI.fetchStatsAsync(tp.name, HypixelAPI.DISCARD_RESULT, priority);
             }
         }
 
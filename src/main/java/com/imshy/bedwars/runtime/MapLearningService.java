@@ -1,12 +1,10 @@
 package com.imshy.bedwars.runtime;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import com.imshy.bedwars.JsonFileUtil;
-import com.imshy.bedwars.MapMetadataRegistry;
 import com.imshy.bedwars.ModConfig;
 
 import net.minecraft.client.Minecraft;
@@ -17,10 +15,9 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -28,10 +25,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Self-building map registry: learns generator (and own-bed) layouts from the
- * matches the user actually plays and persists them to JSON.
+ * matches the user actually plays and persists them in a {@link LearnedMapStore}.
  *
  * LEARN + PERSIST + EXPOSE only — learned coordinates are deliberately NOT fed
  * back into live generator tracking, because Hypixel may offset/rotate map
@@ -44,11 +43,17 @@ import java.util.Set;
  * {@code resetToBootState}) BEFORE the phase flips and the next tick clears
  * the map. Disk writes happen only at those phase transitions, on the client
  * thread — never per-scan (mirrors the PlayerDatabase persistence pattern).
+ * Only the index is read at startup; a map's observations are decoded once
+ * the sidebar names the map being played, and a match end rewrites that one
+ * map's segment. A match that ends while the startup load is still running
+ * is queued instead, and the loader writes it once the store is open.
  */
 public class MapLearningService {
 
     private static final String DATA_DIR = "config/bedwarsstats";
-    private static final String DATA_FILE = DATA_DIR + "/learnedmaps.json";
+    private static final String DATA_FILE = DATA_DIR + "/learnedmaps.bin";
+    /** Pretty-printed JSON from before the binary store; imported once, then set aside. */
+    private static final String LEGACY_DATA_FILE = DATA_DIR + "/learnedmaps.json";
     private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
 
     /** Oldest observations are dropped once a map has this many. */
@@ -57,30 +62,29 @@ public class MapLearningService {
     /** A position must appear in at least this many observations to be consolidated. */
     static final int MIN_AGREEMENT = 2;
 
-    /** Sidebar map-name detection retry cadence while the name is still unknown. */
-    static final long MAP_NAME_RETRY_INTERVAL_MS = 5000;
-
     /** In-memory generator/bed snapshot cadence during IN_GAME. */
     static final long SNAPSHOT_INTERVAL_MS = 30000;
 
-    private final RuntimeState state;
-    private final Gson gson;
+    // The store's index is read once, normally on a StartupLoader thread
+    // (preload). Maps are keyed by trim().toLowerCase() name (the registry
+    // convention).
+    private static final AtomicBoolean preloadStarted = new AtomicBoolean();
+    private static volatile LearnedMapStore store;
+    /** Match ends that arrived before the store was open; written by whoever opens it. */
+    private static final ConcurrentLinkedQueue<QueuedObservation> queuedObservations =
+            new ConcurrentLinkedQueue<QueuedObservation>();
 
-    /** Learned data keyed by trim().toLowerCase() map name (the registry convention). */
-    private Map<String, List<MapObservation>> learnedMaps = new HashMap<String, List<MapObservation>>();
-    private boolean loaded = false;
+    private final RuntimeState state;
+    private final SidebarSnapshot sidebar;
 
     // --- Per-match working state (discarded at match start, committed at match end) ---
     private String pendingMapName = null;
     private MapObservation pendingObservation = null;
-    private long lastMapNameAttempt = 0;
     private long lastSnapshotTime = 0;
 
-    MapLearningService(RuntimeState state) {
+    MapLearningService(RuntimeState state, SidebarSnapshot sidebar) {
         this.state = state;
-        this.gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .create();
+        this.sidebar = sidebar;
     }
 
     // ==================== MATCH LIFECYCLE ====================
@@ -95,23 +99,26 @@ public class MapLearningService {
 
     /**
      * Timer-driven entry point, called from BedwarsRuntime.onClientTick while
-     * IN_GAME and connected. Retries sidebar map-name detection every ~5s
-     * until it succeeds, and snapshots the tracked generators every ~30s.
+     * IN_GAME and connected. Picks up the sidebar map name once it appears,
+     * and snapshots the tracked generators every ~30s.
      */
     public void onInGameTick(Minecraft mc, long currentTime) {
         if (!ModConfig.isModEnabled() || !ModConfig.isMapLearningEnabled()) {
             return;
         }
 
-        // Slow retry: the sidebar's "Map: ..." row can take a while to appear.
-        // Mirrors MatchThreatService.checkRushRiskPredictor's write so the
-        // existing state.lastDetectedMapName semantics are preserved.
-        if (pendingMapName == null && currentTime - lastMapNameAttempt >= MAP_NAME_RETRY_INTERVAL_MS) {
-            lastMapNameAttempt = currentTime;
-            String detectedMap = MapMetadataRegistry.detectCurrentMapName(mc);
+        // The sidebar's "Map: ..." row can take a while to appear; the
+        // snapshot makes checking every tick free. Mirrors
+        // MatchThreatService.checkRushRiskPredictor's write so the existing
+        // state.lastDetectedMapName semantics are preserved.
+        if (pendingMapName == null) {
+            String detectedMap = sidebar.mapName();
             if (detectedMap != null && !detectedMap.trim().isEmpty()) {
                 pendingMapName = detectedMap.trim();
                 state.lastDetectedMapName = detectedMap.trim();
+                // Decode this map's stored observations now, so the match end
+                // only has to append.
+                segmentFor(pendingMapName.toLowerCase());
             }
         }
 
@@ -169,19 +176,62 @@ public class MapLearningService {
             return;
         }
 
-        ensureLoaded();
-
         String key = mapName.trim().toLowerCase();
-        List<MapObservation> observations = learnedMaps.get(key);
-        if (observations == null) {
-            observations = new ArrayList<MapObservation>();
-            learnedMaps.put(key, observations);
+        LearnedMapStore loadedStore = ensureLoaded();
+        if (loadedStore == null) {
+            // Never wait on the client thread: the loader writes it once open.
+            LOGGER.debug("Learned map data still loading; queueing observation for {}", key);
+            queue(key, observation);
+            // The load may have finished (and drained) between the two steps.
+            loadedStore = store;
+            if (loadedStore != null) {
+                commitQueued(loadedStore);
+            }
+            return;
+        }
+        commit(loadedStore, key, observation);
+    }
+
+    /** Append {@code observation} to the map's stored segment and write it. */
+    static void commit(LearnedMapStore target, String key, MapObservation observation) {
+        List<MapObservation> observations = new ArrayList<MapObservation>();
+        int stored;
+        // The store locks each call; this holds it across the read and the write.
+        synchronized (target) {
+            try {
+                LearnedMapStore.Segment segment = target.segment(key);
+                if (segment != null) {
+                    observations.addAll(segment.observations);
+                }
+            } catch (IOException e) {
+                // The segment written below replaces the unreadable one.
+                LOGGER.error("Error reading learned map data for {}: {}", key, e.getMessage());
+            }
+            appendBounded(observations, observation, MAX_OBSERVATIONS_PER_MAP);
+            try {
+                target.put(key, observations);
+            } catch (IOException e) {
+                LOGGER.error("Error saving learned map data: {}", e.getMessage());
+                return;
+            }
+            stored = observations.size();
         }
-        appendBounded(observations, observation, MAX_OBSERVATIONS_PER_MAP);
-        save();
 
         LOGGER.info("Learned map observation for '{}': {} generators ({} observations total)",
-                key, observation.generators.size(), observations.size());
+                key, observation.generators.size(), stored);
+    }
+
+    /** Hold a match end until the store opens (see {@link #commitQueued}). */
+    static void queue(String key, MapObservation observation) {
+        queuedObservations.add(new QueuedObservation(key, observation));
+    }
+
+    /** Write every queued match end into {@code target}; safe from any thread. */
+    static void commitQueued(LearnedMapStore target) {
+        QueuedObservation queued;
+        while ((queued = queuedObservations.poll()) != null) {
+            commit(target, queued.key, queued.observation);
+        }
     }
 
     /**
@@ -216,55 +266,46 @@ public class MapLearningService {
     private void clearMatchState() {
         pendingMapName = null;
         pendingObservation = null;
-        lastMapNameAttempt = 0;
         lastSnapshotTime = 0;
     }
 
     // ==================== QUERY API ====================
 
     /**
-     * Summaries of all learned maps, sorted by name.
+     * Summaries of all learned maps, sorted by name. Served from the store's
+     * index alone; no map's observations are decoded.
      */
     public List<LearnedMapSummary> getLearnedMaps() {
-        ensureLoaded();
-
         List<LearnedMapSummary> summaries = new ArrayList<LearnedMapSummary>();
-        for (Map.Entry<String, List<MapObservation>> entry : learnedMaps.entrySet()) {
-            List<MapObservation> observations = entry.getValue();
-            long lastSeen = 0;
-            for (MapObservation observation : observations) {
-                if (observation.epochMs > lastSeen) {
-                    lastSeen = observation.epochMs;
-                }
-            }
-            summaries.add(new LearnedMapSummary(
-                    entry.getKey(),
-                    observations.size(),
-                    consolidate(observations).size(),
-                    lastSeen));
+        LearnedMapStore loadedStore = ensureLoaded();
+        if (loadedStore == null) {
+            return summaries;
         }
 
-        Collections.sort(summaries, new Comparator<LearnedMapSummary>() {
-            @Override
-            public int compare(LearnedMapSummary a, LearnedMapSummary b) {
-                return a.name.compareTo(b.name);
-            }
-        });
+        for (LearnedMapStore.IndexEntry entry : loadedStore.entries()) {
+            summaries.add(new LearnedMapSummary(
+                    entry.name,
+                    entry.observationCount,
+                    entry.consolidatedCount,
+                    entry.lastSeenEpochMs));
+        }
         return summaries;
     }
 
     /**
      * Consolidated generator positions for a map: only positions confirmed by
      * agreement across at least {@link #MIN_AGREEMENT} stored observations.
+     * Computed when the map's segment was last written, not per call.
      */
     public List<ConsolidatedGenerator> getConsolidated(String mapName) {
-        ensureLoaded();
-
         if (mapName == null) {
             return new ArrayList<ConsolidatedGenerator>();
         }
-        List<MapObservation> observations = learnedMaps.get(mapName.trim().toLowerCase());
-        return consolidate(observations);
+        LearnedMapStore.Segment segment = segmentFor(mapName.trim().toLowerCase());
+        if (segment == null) {
+            return new ArrayList<ConsolidatedGenerator>();
+        }
+        return new ArrayList<ConsolidatedGenerator>(segment.consolidated);
     }
 
     // ==================== PURE CONSOLIDATION CORE ====================
@@ -339,21 +380,101 @@ public class MapLearningService {
 
     // ==================== PERSISTENCE ====================
 
-    /** Load on first access — boot stays I/O-free until the feature is touched. */
-    private void ensureLoaded() {
-        if (!loaded) {
-            loaded = true;
-            load();
+    /**
+     * Open the learned map store on the calling thread, once: read its index
+     * and, on first run after the format change, import learnedmaps.json.
+     * Started from pre-init through {@link com.imshy.bedwars.StartupLoader};
+     * if it never was, the first access runs it inline. Match ends queued
+     * while it ran are written before it returns.
+     */
+    public static void preload() {
+        if (preloadStarted.compareAndSet(false, true)) {
+            LearnedMapStore opened = openStore();
+            store = opened;
+            commitQueued(opened);
+        }
+    }
+
+    /**
+     * The opened store. While the startup load is still running, returns
+     * null, so reads see an empty registry instead of blocking the client
+     * thread.
+     */
+    private static LearnedMapStore ensureLoaded() {
+        LearnedMapStore loadedStore = store;
+        if (loadedStore != null || preloadStarted.get()) {
+            return loadedStore;
+        }
+        preload();
+        return store;
+    }
+
+    /** A map's stored segment, decoding it on first use; null if none or unreadable. */
+    private static LearnedMapStore.Segment segmentFor(String key) {
+        LearnedMapStore loadedStore = ensureLoaded();
+        if (loadedStore == null) {
+            return null;
+        }
+        try {
+            return loadedStore.segment(key);
+        } catch (IOException e) {
+            // The next match on this map writes a fresh segment over it.
+            LOGGER.error("Error reading learned map data for {}: {}", key, e.getMessage());
+            return null;
         }
     }
 
-    private void load() {
+    private static LearnedMapStore openStore() {
         File file = new File(DATA_FILE);
-        if (!file.exists()) {
+        LearnedMapStore opened = new LearnedMapStore(file);
+        try {
+            opened.open();
+        } catch (IOException e) {
+            LOGGER.error("Error loading learned map data: {}", e.getMessage());
+            File quarantined = JsonFileUtil.quarantineCorrupt(file);
+            if (quarantined != null) {
+                LOGGER.error("Corrupt learned map data moved to {} — starting fresh", quarantined.getName());
+            }
+            opened = new LearnedMapStore(file);
+        }
+
+        File legacy = new File(LEGACY_DATA_FILE);
+        if (opened.size() == 0 && legacy.exists()) {
+            importLegacyJson(opened, legacy);
+        }
+        if (opened.size() == 0) {
             LOGGER.info("No learned map data found, starting fresh");
+        } else {
+            LOGGER.info("Loaded learned map index: {} maps", opened.size());
+        }
+        return opened;
+    }
+
+    /**
+     * Move the maps from the old learnedmaps.json into the binary store, then
+     * rename the JSON to learnedmaps.json.imported (kept, not deleted, in
+     * case the user wants their hand edits back).
+     */
+    private static void importLegacyJson(LearnedMapStore target, File legacy) {
+        Map<String, List<MapObservation>> maps = readLegacyJson(legacy);
+        if (maps.isEmpty()) {
+            return;
+        }
+        try {
+            target.writeAll(maps);
+        } catch (IOException e) {
+            LOGGER.error("Error importing learned map data: {}", e.getMessage());
             return;
         }
+        File imported = new File(legacy.getPath() + ".imported");
+        if (!legacy.renameTo(imported)) {
+            LOGGER.warn("Could not rename {} after import", legacy.getName());
+        }
+        LOGGER.info("Imported {} learned maps from {}", maps.size(), legacy.getName());
+    }
 
+    private static Map<String, List<MapObservation>> readLegacyJson(File file) {
+        Map<String, List<MapObservation>> maps = new HashMap<String, List<MapObservation>>();
         try {
             FileReader reader = new FileReader(file);
             JsonObject root = new JsonParser().parse(reader).getAsJsonObject();
@@ -362,16 +483,12 @@ public class MapLearningService {
             if (root.has("maps")) {
                 Type mapsType = new TypeToken<Map<String, List<MapObservation>>>() {
                 }.getType();
-                learnedMaps = gson.fromJson(root.get("maps"), mapsType);
-                if (learnedMaps == null) {
-                    learnedMaps = new HashMap<String, List<MapObservation>>();
+                Map<String, List<MapObservation>> parsed = new Gson().fromJson(root.get("maps"), mapsType);
+                if (parsed != null) {
+                    maps = parsed;
                 }
             }
 
-            normalizeLoadedData();
-
-            LOGGER.info("Loaded learned map data: {} maps", learnedMaps.size());
-
         } catch (Exception e) {
             LOGGER.error("Error loading learned map data: {}", e.getMessage());
             File quarantined = JsonFileUtil.quarantineCorrupt(file);
@@ -379,33 +496,12 @@ public class MapLearningService {
                 LOGGER.error("Corrupt learned map data moved to {} — starting fresh", quarantined.getName());
             }
         }
-    }
-
-    private void save() {
-        try {
-            File dir = new File(DATA_DIR);
-            if (!dir.exists()) {
-                dir.mkdirs();
-            }
-
-            JsonObject root = new JsonObject();
-            root.add("maps", gson.toJsonTree(learnedMaps));
-
-            // Temp-file + atomic move so a crash mid-write can never truncate
-            // the data file (the old delete-then-rename left a no-file window).
-            // Pretty printing is kept deliberately: the file is small (bounded
-            // observations) and meant to be human-editable.
-            JsonFileUtil.writeAtomic(new File(DATA_FILE), gson, root);
-
-            LOGGER.debug("Saved learned map data");
-
-        } catch (Exception e) {
-            LOGGER.error("Error saving learned map data: {}", e.getMessage());
-        }
+        normalizeLoadedData(maps);
+        return maps;
     }
 
     /** Drops malformed entries from a hand-edited/corrupt file and re-applies the bound. */
-    private void normalizeLoadedData() {
+    static void normalizeLoadedData(Map<String, List<MapObservation>> learnedMaps) {
         Iterator<Map.Entry<String, List<MapObservation>>> mapIterator = learnedMaps.entrySet().iterator();
         while (mapIterator.hasNext()) {
             Map.Entry<String, List<MapObservation>> entry = mapIterator.next();
@@ -435,6 +531,17 @@ public class MapLearningService {
 
     // ==================== MODEL CLASSES (pure — no MC types) ====================
 
+    /** A match end waiting for the store to open. */
+    private static final class QueuedObservation {
+        final String key;
+        final MapObservation observation;
+
+        QueuedObservation(String key, MapObservation observation) {
+            this.key = key;
+            this.observation = observation;
+        }
+    }
+
     /** One persisted match observation: generator anchors + optional own bed. */
     public static class MapObservation {
         public long epochMs;
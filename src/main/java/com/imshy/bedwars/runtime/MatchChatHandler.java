@@ -0,0 +1,116 @@
+package com.imshy.bedwars.runtime;
+
+import com.imshy.bedwars.HypixelMessages;
+import com.imshy.bedwars.ModConfig;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The match-tracking part of in-game chat: the game-start reset, non-final
+ * deaths into the respawn countdown and kill feed, and final kills into the
+ * ledger and kill feed. Deliberately Minecraft-free, so {@link BedwarsRuntime}
+ * and the headless replay benchmark run the same parsing; team lookups come
+ * in through {@link Teams}, and the client-side follow-ups (enemy tracking,
+ * carry warnings) stay with the caller, driven by the return values.
+ */
+final class MatchChatHandler {
+
+    private static final Pattern DEATH_MESSAGE_PATTERN = Pattern
+            .compile("^([A-Za-z0-9_]{1,16}) (?:was |died|fell |disconnected|burned |walked |suffocated|drowned)");
+
+    /** Where a player's team comes from: the world and sidebar live, the tab list in a replay. */
+    interface Teams {
+        /** The player's team color code ("§c"), gray when unknown. */
+        String colorCode(String playerName);
+
+        /** The player's team name for the ledger, given its resolved color; null when unknown. */
+        String teamName(String playerName, String colorCode);
+    }
+
+    private final FinalKillLedger finalKillLedger;
+    private final KillFeedTracker killFeedTracker;
+    private final RespawnTracker respawnTracker;
+    private final BridgeRadarService bridgeRadarService;
+
+    MatchChatHandler(FinalKillLedger finalKillLedger, KillFeedTracker killFeedTracker,
+            RespawnTracker respawnTracker, BridgeRadarService bridgeRadarService) {
+        this.finalKillLedger = finalKillLedger;
+        this.killFeedTracker = killFeedTracker;
+        this.respawnTracker = respawnTracker;
+        this.bridgeRadarService = bridgeRadarService;
+    }
+
+    /** True for Hypixel's game-start line, not a player typing it. */
+    static boolean isGameStart(String message) {
+        return message.contains(HypixelMessages.GAME_START)
+                && !HypixelMessages.isPlayerTyped(message, HypixelMessages.GAME_START);
+    }
+
+    /** The player a death line names, or null if {@code message} is not one. */
+    static String deadPlayer(String message) {
+        Matcher matcher = DEATH_MESSAGE_PATTERN.matcher(message);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /** Drop everything the previous match left in the trackers. */
+    void resetMatch() {
+        finalKillLedger.clear();
+        killFeedTracker.clear();
+        respawnTracker.clear();
+        bridgeRadarService.clear();
+    }
+
+    /**
+     * Record a death line. A non-final death starts the victim's respawn
+     * countdown and gets a victim-only kill feed entry; final kills are left
+     * to {@link #handleFinalKill}, which attaches the killer. Returns the dead
+     * player, or null if {@code message} is not a death line.
+     */
+    String handleDeath(String message, String localPlayer, Teams teams, long nowMs) {
+        String deadPlayer = deadPlayer(message);
+        if (deadPlayer == null || message.contains(HypixelMessages.FINAL_KILL_SUFFIX)) {
+            return deadPlayer;
+        }
+        // Non-final deaths respawn on Hypixel's fixed delay; final-kill victims never come back.
+        if (ModConfig.isRespawnCountdownEnabled()) {
+            respawnTracker.recordDeath(deadPlayer, nowMs);
+        }
+        if (ModConfig.isKillfeedEnabled() && !deadPlayer.equals(localPlayer)) {
+            killFeedTracker.addEntry(deadPlayer, null, teams.colorCode(deadPlayer), nowMs);
+        }
+        return deadPlayer;
+    }
+
+    /**
+     * Tally a final kill in the ledger and the kill feed. The local player's
+     * own final death (a line naming them as the victim) is skipped, since it
+     * already ends their match; kills they score are tallied like any other.
+     * Returns the killer, or null when nothing was recorded or the kill had
+     * none.
+     */
+    String handleFinalKill(String message, String localPlayer, Teams teams, long nowMs) {
+        if (!message.contains(HypixelMessages.FINAL_KILL_SUFFIX)) {
+            return null;
+        }
+        Matcher m = HypixelMessages.FINAL_KILL_PATTERN.matcher(message);
+        if (!m.find()) {
+            return null;
+        }
+        String victim = m.group(1);
+        if (victim == null || victim.equals(localPlayer)) {
+            return null;
+        }
+        String teamColor = teams.colorCode(victim);
+        String teamName = teams.teamName(victim, teamColor);
+        // FINAL_KILL_PATTERN captures the killer in group 2 ("by X") or group 3
+        // ("escape X"); environmental and possessive phrasings capture no
+        // killer at all — tolerated as null throughout.
+        String killer = m.group(2) != null ? m.group(2) : m.group(3);
+        finalKillLedger.recordFinalKill(victim, teamName, teamColor, killer);
+        if (ModConfig.isKillfeedEnabled()) {
+            killFeedTracker.addEntry(victim, killer, teamColor, nowMs, true);
+        }
+        return killer;
+    }
+}
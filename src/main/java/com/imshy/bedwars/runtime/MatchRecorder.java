@@ -0,0 +1,187 @@
+package com.imshy.bedwars.runtime;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.network.NetworkPlayerInfo;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.scoreboard.Score;
+import net.minecraft.scoreboard.ScoreObjective;
+import net.minecraft.scoreboard.ScorePlayerTeam;
+import net.minecraft.scoreboard.Scoreboard;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Captures a match's server inputs into a {@link MatchRecording} for offline
+ * replay ({@code /bw record}). Each client tick records the sidebar and tab
+ * list when they changed, and every loaded player whose position moved;
+ * chat lines and block changes are recorded as the runtime receives them.
+ * Block changes come from {@link BlockChangeFeed}, so they are only captured
+ * while the bridge radar or bed-tamper alarm keeps it attached.
+ *
+ * <p>A recording started in a lobby runs until the match it sees ends (the
+ * phase drops back to IDLE) or {@code /bw record stop}. A write failure ends
+ * it with a log line; nothing here may disturb the handlers it rides on.
+ * Client thread only.
+ */
+final class MatchRecorder {
+
+    private static final Logger LOGGER = LogManager.getLogger("BedwarsStats");
+    private static final String RECORDINGS_DIR = "config/bedwarsstats/recordings";
+
+    private MatchRecording.Writer writer;
+    private File file;
+    private boolean sawMatch;
+    private final Map<String, float[]> lastPositions = new HashMap<String, float[]>();
+
+    boolean isRecording() {
+        return writer != null;
+    }
+
+    /** Starts a new recording; returns its file. */
+    File start(Minecraft mc) throws IOException {
+        stop();
+        long now = System.currentTimeMillis();
+        String localPlayer = mc != null && mc.thePlayer != null ? mc.thePlayer.getName() : "";
+        File target = new File(RECORDINGS_DIR, "match-" + now + ".bwrec");
+        writer = new MatchRecording.Writer(target, now, localPlayer);
+        file = target;
+        sawMatch = false;
+        lastPositions.clear();
+        LOGGER.info("Recording match inputs to {}", target.getPath());
+        return target;
+    }
+
+    /** Ends the recording, if any; returns its file or null. */
+    File stop() {
+        if (writer == null) {
+            return null;
+        }
+        File finished = file;
+        try {
+            writer.close();
+            LOGGER.info("Recording finished: {} events in {}", writer.events(), finished.getPath());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to finish recording {}: {}", finished.getPath(), e.getMessage());
+        }
+        writer = null;
+        file = null;
+        lastPositions.clear();
+        return finished;
+    }
+
+    void onChat(int type, String message) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.chat(System.currentTimeMillis(), type, message);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void onBlockChanges(List<BlockChangeFeed.BlockChangeEvent> events) {
+        if (writer == null || events.isEmpty()) {
+            return;
+        }
+        try {
+            for (BlockChangeFeed.BlockChangeEvent ev : events) {
+                writer.blockChange(ev.when, ev.pos.getX(), ev.pos.getY(), ev.pos.getZ(), ev.isAir);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void onClientTick(Minecraft mc, GamePhase phase) {
+        if (writer == null) {
+            return;
+        }
+        if (phase == GamePhase.IN_GAME) {
+            sawMatch = true;
+        } else if (sawMatch && phase == GamePhase.IDLE) {
+            stop();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            writer.tick(now);
+            if (mc.theWorld == null) {
+                return;
+            }
+            writer.sidebar(now, sidebarRows(mc.theWorld.getScoreboard()));
+            recordTabList(mc, now);
+            for (EntityPlayer p : mc.theWorld.playerEntities) {
+                float x = (float) p.posX;
+                float y = (float) p.posY;
+                float z = (float) p.posZ;
+                float[] last = lastPositions.get(p.getName());
+                if (last != null && last[0] == x && last[1] == y && last[2] == z) {
+                    continue;
+                }
+                lastPositions.put(p.getName(), new float[] { x, y, z });
+                writer.entity(now, p.getName(), x, y, z);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void recordTabList(Minecraft mc, long now) throws IOException {
+        if (mc.getNetHandler() == null) {
+            return;
+        }
+        List<String> names = new ArrayList<String>();
+        List<String> displays = new ArrayList<String>();
+        for (NetworkPlayerInfo info : mc.getNetHandler().getPlayerInfoMap()) {
+            if (info.getGameProfile() == null || info.getGameProfile().getName() == null) {
+                continue;
+            }
+            names.add(info.getGameProfile().getName());
+            // The server's text, without our own injected stats suffix.
+            displays.add(info.getDisplayName() == null ? ""
+                    : TabStatsInjector.stripInjectedSuffix(info.getDisplayName().getFormattedText()));
+        }
+        writer.tabList(now, names, displays);
+    }
+
+    /** Formatted sidebar rows, in the order the scoreboard sorts them. */
+    private static List<String> sidebarRows(Scoreboard scoreboard) {
+        List<String> rows = new ArrayList<String>();
+        if (scoreboard == null) {
+            return rows;
+        }
+        ScoreObjective objective = scoreboard.getObjectiveInDisplaySlot(1);
+        if (objective == null) {
+            return rows;
+        }
+        for (Score score : scoreboard.getSortedScores(objective)) {
+            String playerName = score.getPlayerName();
+            if (playerName == null || playerName.startsWith("#")) {
+                continue;
+            }
+            rows.add(ScorePlayerTeam.formatPlayerName(scoreboard.getPlayersTeam(playerName), playerName));
+        }
+        return rows;
+    }
+
+    private void fail(IOException e) {
+        LOGGER.warn("Recording stopped after a write failure: {}", e.getMessage());
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+            // already failing
+        }
+        writer = null;
+        file = null;
+        lastPositions.clear();
+    }
+}
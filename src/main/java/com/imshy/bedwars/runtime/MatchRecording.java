@@ -0,0 +1,371 @@
+package com.imshy.bedwars.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Recorded match inputs ({@code config/bedwarsstats/recordings/*.bwrec}):
+ * everything the runtime reads from the server during a game, in arrival
+ * order, so a replay can feed the same inputs to the services without a
+ * client.
+ *
+ * <p>The file is a gzip stream of a header, magic(4) version(4)
+ * startEpochMs(8) localPlayer, then events. Each event is a type byte, the
+ * milliseconds since the previous event (varint) and a payload:
+ * <pre>
+ *   TICK     client tick boundary (no payload)
+ *   CHAT     chat type(1), unformatted text
+ *   SIDEBAR  row count, formatted rows, top to bottom
+ *   TAB      entry count, then name and formatted display name per entry
+ *   ENTITY   player name, x y z (float)
+ *   BLOCK    x y z (zigzag varint), isAir(1)
+ * </pre>
+ * Strings go through a table: the first occurrence is written as the next
+ * free id followed by the text, every later one as its id alone, so the
+ * names and rows that repeat every tick cost a byte or two. Once the table
+ * holds {@link #MAX_STRINGS} entries new text is written inline (id 0)
+ * instead, so a long session cannot grow it without bound. Sidebar and tab
+ * snapshots are written only when they differ from the previous one. A file
+ * cut short (the game closed mid-recording) replays up to the last whole
+ * event.
+ */
+final class MatchRecording {
+
+    static final int MAGIC = 0x42574D52; // "BWMR"
+    static final int FORMAT_VERSION = 1;
+
+    static final int TICK = 0;
+    static final int CHAT = 1;
+    static final int SIDEBAR = 2;
+    static final int TAB = 3;
+    static final int ENTITY = 4;
+    static final int BLOCK = 5;
+
+    /** Cap on distinct strings given an id; later ones are written inline. */
+    static final int MAX_STRINGS = 16384;
+
+    /** Receives a recording's events in order. Times are epoch ms as recorded. */
+    interface Visitor {
+        /** Called once, before any event. */
+        void start(Header header);
+
+        void tick(long nowMs);
+
+        void chat(long nowMs, int type, String message);
+
+        void sidebar(long nowMs, List<String> rows);
+
+        void tabList(long nowMs, List<String> names, List<String> displayNames);
+
+        void entity(long nowMs, String name, double x, double y, double z);
+
+        void blockChange(long nowMs, int x, int y, int z, boolean isAir);
+    }
+
+    /** What the header says about the recorded match. */
+    static final class Header {
+        final long startEpochMs;
+        final String localPlayer;
+
+        Header(long startEpochMs, String localPlayer) {
+            this.startEpochMs = startEpochMs;
+            this.localPlayer = localPlayer;
+        }
+    }
+
+    private MatchRecording() {
+    }
+
+    // ==================== WRITING ====================
+
+    /** Appends events to a new recording. Client thread only. */
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final StringTable strings = new StringTable();
+        private long lastEventMs;
+        private int events;
+        private List<String> lastSidebar = Collections.emptyList();
+        private List<String> lastTabNames = Collections.emptyList();
+        private List<String> lastTabDisplays = Collections.emptyList();
+
+        Writer(File file, long startEpochMs, String localPlayer) throws IOException {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null && !dir.exists()) {
+                dir.mkdirs();
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(file), 8192), 64 * 1024));
+            this.lastEventMs = startEpochMs;
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(startEpochMs);
+            out.writeUTF(localPlayer == null ? "" : localPlayer);
+        }
+
+        /** Events written so far. */
+        int events() {
+            return events;
+        }
+
+        void tick(long nowMs) throws IOException {
+            begin(TICK, nowMs);
+        }
+
+        void chat(long nowMs, int type, String message) throws IOException {
+            begin(CHAT, nowMs);
+            out.writeByte(type);
+            writeString(message);
+        }
+
+        /** Written only when {@code rows} differs from the last snapshot. */
+        void sidebar(long nowMs, List<String> rows) throws IOException {
+            if (rows.equals(lastSidebar)) {
+                return;
+            }
+            lastSidebar = new ArrayList<String>(rows);
+            begin(SIDEBAR, nowMs);
+            writeVarInt(rows.size());
+            for (String row : rows) {
+                writeString(row);
+            }
+        }
+
+        /** Written only when the tab list differs from the last snapshot. */
+        void tabList(long nowMs, List<String> names, List<String> displayNames) throws IOException {
+            if (names.equals(lastTabNames) && displayNames.equals(lastTabDisplays)) {
+                return;
+            }
+            lastTabNames = new ArrayList<String>(names);
+            lastTabDisplays = new ArrayList<String>(displayNames);
+            begin(TAB, nowMs);
+            writeVarInt(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                writeString(names.get(i));
+                writeString(displayNames.get(i));
+            }
+        }
+
+        void entity(long nowMs, String name, double x, double y, double z) throws IOException {
+            begin(ENTITY, nowMs);
+            writeString(name);
+            out.writeFloat((float) x);
+            out.writeFloat((float) y);
+            out.writeFloat((float) z);
+        }
+
+        void blockChange(long nowMs, int x, int y, int z, boolean isAir) throws IOException {
+            begin(BLOCK, nowMs);
+            writeVarInt(zigzag(x));
+            writeVarInt(zigzag(y));
+            writeVarInt(zigzag(z));
+            out.writeBoolean(isAir);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void begin(int type, long nowMs) throws IOException {
+            // Clock steps backwards are recorded as simultaneous.
+            long delta = Math.max(0L, nowMs - lastEventMs);
+            lastEventMs += delta;
+            out.writeByte(type);
+            writeVarLong(delta);
+            events++;
+        }
+
+        private void writeString(String s) throws IOException {
+            String text = s == null ? "" : s;
+            Integer id = strings.ids.get(text);
+            if (id != null) {
+                writeVarInt(id.intValue());
+                return;
+            }
+            writeVarInt(strings.ids.size() < MAX_STRINGS ? strings.add(text) : 0);
+            out.writeUTF(text);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+    }
+
+    // ==================== READING ====================
+
+    /** Replay {@code file} into {@code visitor}. */
+    static Header read(File file, Visitor visitor) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return read(in, visitor);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Replay a recording from {@code in} (gzip-compressed, as written) into
+     * {@code visitor}. Returns the header; a stream cut short ends the replay
+     * at the last whole event.
+     */
+    static Header read(InputStream in, Visitor visitor) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in), 64 * 1024));
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+            throw new IOException("not a match recording");
+        }
+        long startEpochMs = data.readLong();
+        Header header = new Header(startEpochMs, data.readUTF());
+        visitor.start(header);
+        Reader reader = new Reader(data, startEpochMs);
+        try {
+            while (reader.next(visitor)) {
+                // visitor does the work
+            }
+        } catch (EOFException truncated) {
+            // cut short mid-event: everything before it was delivered
+        }
+        return header;
+    }
+
+    private static final class Reader {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<String>();
+        private long nowMs;
+
+        Reader(DataInputStream in, long startEpochMs) {
+            this.in = in;
+            this.nowMs = startEpochMs;
+        }
+
+        boolean next(Visitor visitor) throws IOException {
+            int type = in.read();
+            if (type < 0) {
+                return false;
+            }
+            nowMs += readVarLong();
+            switch (type) {
+                case TICK:
+                    visitor.tick(nowMs);
+                    break;
+                case CHAT: {
+                    int chatType = in.readByte();
+                    visitor.chat(nowMs, chatType, readString());
+                    break;
+                }
+                case SIDEBAR: {
+                    int count = readVarInt();
+                    List<String> rows = new ArrayList<String>(count);
+                    for (int i = 0; i < count; i++) {
+                        rows.add(readString());
+                    }
+                    visitor.sidebar(nowMs, rows);
+                    break;
+                }
+                case TAB: {
+                    int count = readVarInt();
+                    List<String> names = new ArrayList<String>(count);
+                    List<String> displays = new ArrayList<String>(count);
+                    for (int i = 0; i < count; i++) {
+                        names.add(readString());
+                        displays.add(readString());
+                    }
+                    visitor.tabList(nowMs, names, displays);
+                    break;
+                }
+                case ENTITY: {
+                    String name = readString();
+                    float x = in.readFloat();
+                    float y = in.readFloat();
+                    float z = in.readFloat();
+                    visitor.entity(nowMs, name, x, y, z);
+                    break;
+                }
+                case BLOCK: {
+                    int x = unzigzag(readVarInt());
+                    int y = unzigzag(readVarInt());
+                    int z = unzigzag(readVarInt());
+                    visitor.blockChange(nowMs, x, y, z, in.readBoolean());
+                    break;
+                }
+                default:
+                    throw new IOException("unknown event type " + type);
+            }
+            return true;
+        }
+
+        private String readString() throws IOException {
+            int id = readVarInt();
+            if (id == 0) {
+                return in.readUTF();
+            }
+            if (id <= strings.size()) {
+                return strings.get(id - 1);
+            }
+            if (id != strings.size() + 1) {
+                throw new IOException("string id " + id + " out of order");
+            }
+            String text = in.readUTF();
+            strings.add(text);
+            return text;
+        }
+
+        private int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("varint too long");
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    private static final class StringTable {
+        final java.util.HashMap<String, Integer> ids = new java.util.HashMap<String, Integer>();
+
+        /** Ids start at 1; 0 marks inline text. */
+        int add(String text) {
+            int id = ids.size() + 1;
+            ids.put(text, Integer.valueOf(id));
+            return id;
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -33,11 +33,14 @@ public class MatchThreatService {
 
     private final RuntimeState state;
     private final TeamDangerAnalyzer teamDangerAnalyzer;
+    private final SidebarSnapshot sidebar;
+    private final EnemyFilter enemyFilter = new EnemyFilter();
     private long lastBedProximityCheckAt;
 
-    MatchThreatService(RuntimeState state, TeamDangerAnalyzer teamDangerAnalyzer) {
+    MatchThreatService(RuntimeState state, TeamDangerAnalyzer teamDangerAnalyzer, SidebarSnapshot sidebar) {
         this.state = state;
         this.teamDangerAnalyzer = teamDangerAnalyzer;
+        this.sidebar = sidebar;
     }
 
     public void startBedTracking(Minecraft mc, long currentTime) {
@@ -117,7 +120,7 @@ public class MatchThreatService {
         resetRushPredictorState();
     }
 
-    public void captureEarlySpawnTeammates(Minecraft mc, long currentTime) {
+    public void captureEarlySpawnTeammates(Minecraft mc, WorldSnapshot world, long currentTime) {
         if (mc == null || mc.theWorld == null || mc.thePlayer == null) {
             return;
         }
@@ -125,22 +128,23 @@ public class MatchThreatService {
             return;
         }
 
-        double teammateRadiusSq = TEAMMATE_SPAWN_RADIUS_BLOCKS * TEAMMATE_SPAWN_RADIUS_BLOCKS;
-        for (EntityPlayer player : mc.theWorld.playerEntities) {
-            if (player.getUniqueID().equals(mc.thePlayer.getUniqueID())) {
+        int nearby = world.playerGrid.within(mc.thePlayer.posX, mc.thePlayer.posY, mc.thePlayer.posZ,
+                TEAMMATE_SPAWN_RADIUS_BLOCKS, null);
+        for (int h = 0; h < nearby; h++) {
+            int i = world.playerGrid.hit(h);
+            if (i == world.localPlayerIndex) {
                 continue;
             }
+            EntityPlayer player = world.players[i];
             if (isWatchdogBotName(player.getName())) {
                 continue;
             }
 
-            if (mc.thePlayer.getDistanceSqToEntity(player) <= teammateRadiusSq) {
-                state.inferredTeammateUuids.add(player.getUniqueID().toString());
-            }
+            state.inferredTeammateUuids.add(player.getUniqueID().toString());
         }
     }
 
-    public void checkRushRiskPredictor(Minecraft mc, long currentTime) {
+    public void checkRushRiskPredictor(Minecraft mc, WorldSnapshot world, long currentTime) {
         if (!ModConfig.isModEnabled()) {
             return;
         }
@@ -155,14 +159,14 @@ public class MatchThreatService {
         }
         state.lastRushPredictorCheck = currentTime;
 
-        String detectedMap = com.imshy.bedwars.MapMetadataRegistry.detectCurrentMapName(mc);
+        String detectedMap = sidebar.mapName();
         if (detectedMap != null && !detectedMap.trim().isEmpty()) {
             state.lastDetectedMapName = detectedMap.trim();
         }
 
         int baseRushSeconds = com.imshy.bedwars.MapMetadataRegistry.getBaseRushSeconds(state.lastDetectedMapName);
         double highestEnemyTeamThreat = teamDangerAnalyzer.getHighestEnemyTeamThreatAverage(mc);
-        double nearestEnemyDistance = getNearestEnemyDistanceToBed(mc);
+        double nearestEnemyDistance = getNearestEnemyDistanceToBed(mc, world);
 
         RushRiskPredictor.Estimate estimate = RushRiskPredictor.estimateFirstRush(
                 baseRushSeconds,
@@ -200,7 +204,7 @@ public class MatchThreatService {
         }
     }
 
-    public void checkBedProximityWarnings(Minecraft mc, long currentTime) {
+    public void checkBedProximityWarnings(Minecraft mc, WorldSnapshot world, long currentTime) {
         if (!ModConfig.isModEnabled()) {
             return;
         }
@@ -225,10 +229,37 @@ public class MatchThreatService {
         }
         lastBedProximityCheckAt = currentTime;
 
-        for (EntityPlayer player : mc.theWorld.playerEntities) {
-            if (player.getUniqueID().equals(mc.thePlayer.getUniqueID())) {
+        // Only players in the grid cells around the bed are candidates. The
+        // query sphere covers every bed block's warning radius, plus slack for
+        // getPosition() flooring the exact check below.
+        double bedX = 0;
+        double bedY = 0;
+        double bedZ = 0;
+        for (BlockPos bedBlock : state.playerBedBlocks) {
+            bedX += bedBlock.getX();
+            bedY += bedBlock.getY();
+            bedZ += bedBlock.getZ();
+        }
+        int bedCount = state.playerBedBlocks.size();
+        bedX /= bedCount;
+        bedY /= bedCount;
+        bedZ /= bedCount;
+        double spread = 0;
+        for (BlockPos bedBlock : state.playerBedBlocks) {
+            double dx = bedBlock.getX() - bedX;
+            double dy = bedBlock.getY() - bedY;
+            double dz = bedBlock.getZ() - bedZ;
+            spread = Math.max(spread, Math.sqrt(dx * dx + dy * dy + dz * dz));
+        }
+        int nearby = world.playerGrid.within(bedX + 0.5, bedY, bedZ + 0.5,
+                BED_PROXIMITY_WARNING_DISTANCE + spread + 3.0, null);
+
+        for (int h = 0; h < nearby; h++) {
+            int i = world.playerGrid.hit(h);
+            if (i == world.localPlayerIndex) {
                 continue;
             }
+            EntityPlayer player = world.players[i];
 
             // Cheap distance cull first — only players actually near a bed pay
             // for the name heuristic and the isTeammate chain.
@@ -298,7 +329,7 @@ public class MatchThreatService {
         return closest == Double.MAX_VALUE ? -1 : closest;
     }
 
-    private double getNearestEnemyDistanceToBed(Minecraft mc) {
+    private double getNearestEnemyDistanceToBed(Minecraft mc, WorldSnapshot world) {
         if (mc == null || mc.theWorld == null || mc.thePlayer == null) {
             return -1.0;
         }
@@ -310,27 +341,42 @@ public class MatchThreatService {
             referencePos = mc.thePlayer.getPosition();
         }
 
-        double nearestDistance = Double.MAX_VALUE;
-        for (EntityPlayer player : mc.theWorld.playerEntities) {
-            if (player.getUniqueID().equals(mc.thePlayer.getUniqueID())) {
-                continue;
-            }
+        int nearest = world.playerGrid.nearest(referencePos.getX() + 0.5, referencePos.getY(),
+                referencePos.getZ() + 0.5, Double.POSITIVE_INFINITY, enemyFilter(mc, world, true));
+        if (nearest < 0) {
+            return -1.0;
+        }
+        return Math.sqrt(world.players[nearest].getPosition().distanceSq(referencePos));
+    }
 
-            if (isWatchdogBotName(player.getName())) {
-                continue;
-            }
+    /**
+     * Grid filter accepting enemies of the local player in {@code world}:
+     * not the local player, not a teammate and, when asked, not a Watchdog
+     * bot. One reused instance; valid until the next call.
+     */
+    SpatialGrid.Filter enemyFilter(Minecraft mc, WorldSnapshot world, boolean skipWatchdogBots) {
+        enemyFilter.mc = mc;
+        enemyFilter.world = world;
+        enemyFilter.skipWatchdogBots = skipWatchdogBots;
+        return enemyFilter;
+    }
 
-            if (isTeammate(mc, mc.thePlayer, player)) {
-                continue;
-            }
+    private final class EnemyFilter implements SpatialGrid.Filter {
+        Minecraft mc;
+        WorldSnapshot world;
+        boolean skipWatchdogBots;
 
-            double distance = Math.sqrt(player.getPosition().distanceSq(referencePos));
-            if (distance < nearestDistance) {
-                nearestDistance = distance;
+        @Override
+        public boolean accept(int index) {
+            if (index == world.localPlayerIndex) {
+                return false;
             }
+            EntityPlayer player = world.players[index];
+            if (skipWatchdogBots && isWatchdogBotName(player.getName())) {
+                return false;
+            }
+            return !isTeammate(mc, mc.thePlayer, player);
         }
-
-        return nearestDistance == Double.MAX_VALUE ? -1.0 : nearestDistance;
     }
 
     boolean isTeammate(Minecraft mc, EntityPlayer self, EntityPlayer other) {
@@ -358,7 +404,7 @@ public class MatchThreatService {
         // Scoreboard YOU-suffix fast path: if we know the local player's team
         // colour from the sidebar, any player whose tab-list name shares that
         // colour is definitively a teammate.
-        String ownTeamColorCode = ScoreboardGameStateDetector.getOwnTeamColorCode(mc);
+        String ownTeamColorCode = sidebar.ownTeamColorCode();
         if (ownTeamColorCode != null) {
             Character selfTabColor  = getTabNamePrimaryColorCode(mc, self);
             Character otherTabColor = getTabNamePrimaryColorCode(mc, other);
@@ -0,0 +1,184 @@
+package com.imshy.bedwars.runtime;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer/single-consumer ring of decoded packet fields,
+ * for handing packets from the netty thread ({@link PacketTap}) to one
+ * client-thread consumer without a queue node or event object per packet.
+ *
+ * <p>Subclasses hold the payload as parallel primitive arrays indexed by
+ * slot. The producer writes a slot between {@link #claim} and
+ * {@link #publish}; the consumer reads {@link #readable} slots through
+ * {@link #slot} and hands them back with {@link #release}. A full ring drops
+ * the new event, the same back-pressure the old bounded queues applied.
+ *
+ * <p>A consumer that stops caring clears {@link #setActive active} so the
+ * producer skips the ring (and the tap can detach when nobody is left).
+ */
+abstract class PacketRing {
+
+    private final int mask;
+    // Next sequence to write (producer) and to read (consumer). Each side
+    // publishes its own with lazySet; the other side reads it volatile.
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    // Producer-local copy of head, refreshed only when the ring looks full.
+    private long cachedHead;
+    private volatile boolean active;
+    private volatile int dropped;
+
+    PacketRing(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+    }
+
+    final int capacity() {
+        return mask + 1;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /** Consumer side: whether the producer should fill this ring. */
+    void setActive(boolean active) {
+        this.active = active;
+    }
+
+    /** Events dropped because the ring was full. Diagnostics only. */
+    int dropped() {
+        return dropped;
+    }
+
+    // ---- producer (netty thread) ----
+
+    /** The slot to write the next event into, or -1 when the ring is full. */
+    final int claim() {
+        long t = tail.get();
+        if (t - cachedHead > mask) {
+            cachedHead = head.get();
+            if (t - cachedHead > mask) {
+                dropped++;
+                return -1;
+            }
+        }
+        return (int) t & mask;
+    }
+
+    /** Makes the slot returned by the last {@link #claim} visible to the consumer. */
+    final void publish() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    // ---- consumer (client thread) ----
+
+    /** Events published and not yet released. */
+    final int readable() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /** The slot of the {@code i}-th readable event, oldest first. */
+    final int slot(int i) {
+        return (int) (head.get() + i) & mask;
+    }
+
+    /** Hands the oldest {@code count} events back to the producer. */
+    final void release(int count) {
+        head.lazySet(head.get() + count);
+    }
+
+    /** Discards everything published so far. */
+    final void clear() {
+        head.lazySet(tail.get());
+    }
+
+    /**
+     * Block updates from S22/S23: position packed as by
+     * {@code BlockPos.toLong()} (x 26 bits, y 12, z 26), arrival time, air
+     * flag.
+     */
+    static final class BlockChanges extends PacketRing {
+        /** Whether the producer publishes updates to air (block breaks). */
+        final boolean includeAir;
+        final long[] packedPos;
+        final long[] when;
+        final boolean[] isAir;
+
+        BlockChanges(int capacity, boolean includeAir) {
+            super(capacity);
+            this.includeAir = includeAir;
+            this.packedPos = new long[capacity];
+            this.when = new long[capacity];
+            this.isAir = new boolean[capacity];
+        }
+
+        /** Producer side; drops the event when full. */
+        void offer(long packedPos, long when, boolean isAir) {
+            int slot = claim();
+            if (slot < 0) {
+                return;
+            }
+            this.packedPos[slot] = packedPos;
+            this.when[slot] = when;
+            this.isAir[slot] = isAir;
+            publish();
+        }
+
+        // Unpacking without a BlockPos, mirroring BlockPos.fromLong.
+        static int unpackX(long packed) {
+            return (int) (packed >> 38);
+        }
+
+        static int unpackY(long packed) {
+            return (int) (packed << 26 >> 52);
+        }
+
+        static int unpackZ(long packed) {
+            return (int) (packed << 38 >> 38);
+        }
+    }
+
+    /**
+     * Payload-free marks: "a packet of this kind arrived". With capacity 1
+     * this is a dirty flag that coalesces a burst into one pending mark (the
+     * rest count as dropped, which is expected here).
+     */
+    static final class Marks extends PacketRing {
+        Marks(int capacity) {
+            super(capacity);
+        }
+
+        /** Producer side; a no-op when the ring is full. */
+        void offer() {
+            if (claim() >= 0) {
+                publish();
+            }
+        }
+    }
+
+    /** Swing-arm animations from S0B: source entity id and arrival time. */
+    static final class Swings extends PacketRing {
+        final int[] entityId;
+        final long[] when;
+
+        Swings(int capacity) {
+            super(capacity);
+            this.entityId = new int[capacity];
+            this.when = new long[capacity];
+        }
+
+        /** Producer side; drops the event when full. */
+        void offer(int entityId, long when) {
+            int slot = claim();
+            if (slot < 0) {
+                return;
+            }
+            this.entityId[slot] = entityId;
+            this.when[slot] = when;
+            publish();
+        }
+    }
+}
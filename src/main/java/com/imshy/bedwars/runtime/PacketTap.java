@@ -0,0 +1,233 @@
+package com.imshy.bedwars.runtime;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.network.NetHandlerPlayClient;
+import net.minecraft.init.Blocks;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.play.server.S0BPacketAnimation;
+import net.minecraft.network.play.server.S22PacketMultiBlockChange;
+import net.minecraft.network.play.server.S23PacketBlockChange;
+import net.minecraft.network.play.server.S3BPacketScoreboardObjective;
+import net.minecraft.network.play.server.S3CPacketUpdateScore;
+import net.minecraft.network.play.server.S3DPacketDisplayScoreboard;
+import net.minecraft.network.play.server.S3EPacketTeams;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * The one netty handler the mod installs: reads the inbound packets its
+ * passive modules care about, decodes each once, and publishes the fields
+ * into every interested subscriber's {@link PacketRing}. Modules subscribe
+ * by packet type at construction and drain their rings on the client
+ * thread.
+ *
+ * <p>The netty contract the anticheat and block feed used to enforce
+ * separately holds here for everyone: {@code channelRead} only decodes and
+ * publishes (no world or entity access, no allocation), packets are always
+ * forwarded unmodified, and nothing outbound is touched. Do NOT add any
+ * processing to the netty path.
+ *
+ * <p>The handler is attached while at least one ring is
+ * {@link PacketRing#setActive active} and a world is loaded, and follows the
+ * connection when it is swapped.
+ */
+public class PacketTap {
+
+    private static final Logger LOGGER = LogManager.getLogger(PacketTap.class);
+    private static final String HANDLER_NAME = "bedwars_packettap";
+
+    // Subscriber lists are replaced, never mutated, so the netty thread can
+    // iterate whatever array it read without locking.
+    private volatile PacketRing.BlockChanges[] blockChangeRings = new PacketRing.BlockChanges[0];
+    private volatile PacketRing.Swings[] swingRings = new PacketRing.Swings[0];
+    private volatile PacketRing.Marks[] scoreboardRings = new PacketRing.Marks[0];
+
+    private NetworkManager attachedManager;
+    private boolean handlerInstalled;
+
+    /**
+     * A new ring of S22/S23 block updates; {@code includeAir} false skips
+     * updates to air. Client thread, at setup.
+     */
+    public synchronized PacketRing.BlockChanges subscribeBlockChanges(int capacity, boolean includeAir) {
+        PacketRing.BlockChanges ring = new PacketRing.BlockChanges(capacity, includeAir);
+        PacketRing.BlockChanges[] rings = Arrays.copyOf(blockChangeRings, blockChangeRings.length + 1);
+        rings[rings.length - 1] = ring;
+        blockChangeRings = rings;
+        return ring;
+    }
+
+    /** A new ring of S0B swing-arm animations (type 0). Client thread, at setup. */
+    public synchronized PacketRing.Swings subscribeSwings(int capacity) {
+        PacketRing.Swings ring = new PacketRing.Swings(capacity);
+        PacketRing.Swings[] rings = Arrays.copyOf(swingRings, swingRings.length + 1);
+        rings[rings.length - 1] = ring;
+        swingRings = rings;
+        return ring;
+    }
+
+    /**
+     * A new one-slot mark ring set whenever a scoreboard packet (S3B-S3E:
+     * objectives, scores, display slots, teams) arrives. Client thread, at
+     * setup.
+     */
+    public synchronized PacketRing.Marks subscribeScoreboardChanges() {
+        PacketRing.Marks ring = new PacketRing.Marks(1);
+        PacketRing.Marks[] rings = Arrays.copyOf(scoreboardRings, scoreboardRings.length + 1);
+        rings[rings.length - 1] = ring;
+        scoreboardRings = rings;
+        return ring;
+    }
+
+    /** Keeps the handler attached to the live connection while anyone listens. Client thread only. */
+    public void onClientTick(Minecraft mc) {
+        if (!anyActive() || mc == null || mc.theWorld == null || mc.thePlayer == null) {
+            uninstall();
+            return;
+        }
+        ensureInstalled(mc);
+    }
+
+    public void shutdown() {
+        uninstall();
+    }
+
+    private boolean anyActive() {
+        for (PacketRing ring : blockChangeRings) {
+            if (ring.isActive()) {
+                return true;
+            }
+        }
+        for (PacketRing ring : swingRings) {
+            if (ring.isActive()) {
+                return true;
+            }
+        }
+        for (PacketRing ring : scoreboardRings) {
+            if (ring.isActive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ensureInstalled(Minecraft mc) {
+        NetHandlerPlayClient netHandler = mc.getNetHandler();
+        if (netHandler == null) {
+            uninstall();
+            return;
+        }
+        NetworkManager manager = netHandler.getNetworkManager();
+        if (manager == null || manager.channel() == null || !manager.channel().isOpen()) {
+            uninstall();
+            return;
+        }
+        if (handlerInstalled && manager == attachedManager) {
+            return;
+        }
+        // Connection swapped (returning to lobby, joining a new game) — reinstall.
+        uninstall();
+        try {
+            ChannelPipeline pipeline = manager.channel().pipeline();
+            if (pipeline.get(HANDLER_NAME) == null) {
+                pipeline.addBefore("packet_handler", HANDLER_NAME, new InboundHandler());
+            }
+            attachedManager = manager;
+            handlerInstalled = true;
+        } catch (Throwable t) {
+            LOGGER.warn("PacketTap handler installation failed: {}", t.toString());
+        }
+    }
+
+    private void uninstall() {
+        if (attachedManager != null && attachedManager.channel() != null) {
+            try {
+                ChannelPipeline pipeline = attachedManager.channel().pipeline();
+                if (pipeline.get(HANDLER_NAME) != null) {
+                    pipeline.remove(HANDLER_NAME);
+                }
+            } catch (Throwable ignored) {
+                // Channel may already be closed.
+            }
+        }
+        attachedManager = null;
+        handlerInstalled = false;
+    }
+
+    // ---------------------------------------------------------------------
+    // Netty thread
+    // ---------------------------------------------------------------------
+
+    private void publishBlockChange(PacketRing.BlockChanges[] rings, IBlockState state,
+            long packedPos, long now) {
+        boolean isAir = state.getBlock() == Blocks.air;
+        for (PacketRing.BlockChanges ring : rings) {
+            if (ring.isActive() && (ring.includeAir || !isAir)) {
+                ring.offer(packedPos, now, isAir);
+            }
+        }
+    }
+
+    private final class InboundHandler extends ChannelDuplexHandler {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            // Decode-and-publish only — see the class javadoc. Never let a
+            // capture error break the network pipeline.
+            try {
+                if (msg instanceof S0BPacketAnimation) {
+                    S0BPacketAnimation anim = (S0BPacketAnimation) msg;
+                    if (anim.getAnimationType() == 0) {
+                        // Arrival time taken now so CPS stays accurate despite
+                        // deferred processing.
+                        long now = System.currentTimeMillis();
+                        for (PacketRing.Swings ring : swingRings) {
+                            if (ring.isActive()) {
+                                ring.offer(anim.getEntityID(), now);
+                            }
+                        }
+                    }
+                } else if (msg instanceof S3EPacketTeams || msg instanceof S3CPacketUpdateScore
+                        || msg instanceof S3BPacketScoreboardObjective
+                        || msg instanceof S3DPacketDisplayScoreboard) {
+                    for (PacketRing.Marks ring : scoreboardRings) {
+                        if (ring.isActive()) {
+                            ring.offer();
+                        }
+                    }
+                } else if (msg instanceof S23PacketBlockChange) {
+                    PacketRing.BlockChanges[] rings = blockChangeRings;
+                    S23PacketBlockChange p = (S23PacketBlockChange) msg;
+                    IBlockState state = p.getBlockState();
+                    if (rings.length > 0 && state != null) {
+                        publishBlockChange(rings, state, p.getBlockPosition().toLong(),
+                                System.currentTimeMillis());
+                    }
+                } else if (msg instanceof S22PacketMultiBlockChange) {
+                    PacketRing.BlockChanges[] rings = blockChangeRings;
+                    S22PacketMultiBlockChange.BlockUpdateData[] updates =
+                            ((S22PacketMultiBlockChange) msg).getChangedBlocks();
+                    if (rings.length > 0 && updates != null) {
+                        long now = System.currentTimeMillis();
+                        for (S22PacketMultiBlockChange.BlockUpdateData u : updates) {
+                            IBlockState state = u.getBlockState();
+                            if (state != null) {
+                                publishBlockChange(rings, state, u.getPos().toLong(), now);
+                            }
+                        }
+                    }
+                }
+            } catch (Throwable t) {
+                LOGGER.debug("PacketTap handling error", t);
+            }
+            super.channelRead(ctx, msg);
+        }
+    }
+}
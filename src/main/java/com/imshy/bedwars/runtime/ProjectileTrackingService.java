@@ -4,9 +4,7 @@ import com.imshy.bedwars.AudioCueManager;
 import com.imshy.bedwars.ModConfig;
 
 import net.minecraft.client.Minecraft;
-import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
-import net.minecraft.entity.item.EntityEnderPearl;
 import net.minecraft.entity.projectile.EntityThrowable;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.MovingObjectPosition;
@@ -53,7 +51,7 @@ public class ProjectileTrackingService {
     }
 
     public void scanProjectiles(Minecraft mc, MatchThreatService matchThreatService,
-                                 List<BlockPos> ownBedBlocks) {
+                                 List<BlockPos> ownBedBlocks, WorldSnapshot world) {
         if (mc == null || mc.theWorld == null || mc.thePlayer == null) {
             return;
         }
@@ -66,12 +64,8 @@ public class ProjectileTrackingService {
         double playerY = mc.thePlayer.posY + mc.thePlayer.getEyeHeight();
         double playerZ = mc.thePlayer.posZ;
 
-        for (Entity entity : mc.theWorld.loadedEntityList) {
-            if (!(entity instanceof EntityEnderPearl)) {
-                continue;
-            }
-
-            EntityThrowable pearl = (EntityThrowable) entity;
+        for (int i = 0; i < world.pearlCount; i++) {
+            EntityThrowable pearl = world.pearls[i];
 
             // Skip pearls thrown by the local player or by confirmed teammates.
             EntityLivingBase thrower = pearl.getThrower();
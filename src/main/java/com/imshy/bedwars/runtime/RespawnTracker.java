@@ -1,5 +1,7 @@
 package com.imshy.bedwars.runtime;
 
+import com.imshy.bedwars.PlayerKey;
+
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -19,15 +21,15 @@ public class RespawnTracker {
     /** Fixed Hypixel Bedwars respawn delay after the death message. */
     public static final long RESPAWN_DELAY_MS = 5_500L;
 
-    /** Names are keyed lowercase; values are the absolute respawn timestamp. */
-    private final Map<String, Long> respawnAtMs = new HashMap<String, Long>();
+    /** Keyed by canonical player key; values are the absolute respawn timestamp. */
+    private final Map<PlayerKey, Long> respawnAtMs = new HashMap<PlayerKey, Long>();
 
     /** Records a non-final death. Final kills never respawn — don't record them. */
     public void recordDeath(String victimName, long nowMs) {
         if (victimName == null || victimName.isEmpty()) {
             return;
         }
-        respawnAtMs.put(victimName.toLowerCase(java.util.Locale.ROOT), nowMs + RESPAWN_DELAY_MS);
+        respawnAtMs.put(PlayerKey.of(victimName), nowMs + RESPAWN_DELAY_MS);
     }
 
     /**
@@ -38,7 +40,7 @@ public class RespawnTracker {
         if (victimName == null) {
             return -1;
         }
-        String key = victimName.toLowerCase(java.util.Locale.ROOT);
+        PlayerKey key = PlayerKey.of(victimName);
         Long at = respawnAtMs.get(key);
         if (at == null) {
             return -1;
@@ -59,7 +61,7 @@ public class RespawnTracker {
 
     /** Drops timers that have already expired (bounded growth between matches). */
     public void prune(long nowMs) {
-        Iterator<Map.Entry<String, Long>> it = respawnAtMs.entrySet().iterator();
+        Iterator<Map.Entry<PlayerKey, Long>> it = respawnAtMs.entrySet().iterator();
         while (it.hasNext()) {
             if (it.next().getValue() <= nowMs) {
                 it.remove();
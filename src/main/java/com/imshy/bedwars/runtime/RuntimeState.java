@@ -12,7 +12,6 @@ import java.util.Set;
 final class RuntimeState {
     static final long DISPLAY_DURATION = 10000;
     static final long AUTOPLAY_CHECK_DELAY = 5000;
-    static final long GENERATOR_SCAN_INTERVAL = 1000;
     static final long SPAM_RETRY_DELAY = 7000;
     static final long INITIAL_STAT_DISPLAY_MS = 15000;
 
@@ -24,12 +23,13 @@ final class RuntimeState {
     long disconnectTime = 0;
     long matchStartTime = 0;
     long clientTickCounter = 0;
-    long lastScoreboardPhaseScanTick = 0;
-    /** Latest parsed snapshot of all sidebar team rows, updated each scoreboard-poll tick. */
+    /** All sidebar team rows by team name, rebuilt on the tick the sidebar snapshot's version moves. */
     final java.util.Map<String, ScoreboardGameStateDetector.TeamStatus> scoreboardTeamStatuses =
             new java.util.LinkedHashMap<String, ScoreboardGameStateDetector.TeamStatus>();
     /** Server-exact upcoming event from the sidebar ("Diamond II in 3:45"), null when absent. */
     SidebarEventClock.NextEvent nextSidebarEvent = null;
+    /** SidebarSnapshot version the two fields above were built from; -1 forces a rebuild. */
+    int sidebarVersionSeen = -1;
     /** Lobby difficulty aggregate over cached stats, refreshed on a 20-tick cadence. */
     LobbyAnalytics.LobbySummary lobbySummary = null;
     /** Generator-tier cue labels already fired this match (one-shot per label). */
@@ -68,21 +68,18 @@ final class RuntimeState {
     final Set<String> inferredTeammateUuids = new HashSet<String>();
     final Map<String, Long> invisiblePlayerWarnings = new HashMap<String, Long>();
     final Map<BlockPos, WorldScanService.GeneratorEntry> trackedGenerators = new HashMap<BlockPos, WorldScanService.GeneratorEntry>();
-    long lastGeneratorScan = 0;
     long lastRushPredictorCheck = 0;
     boolean rushRiskWarningSent = false;
     int lastPredictedRushEtaSeconds = -1;
     String lastDetectedMapName = "Unknown";
 
     // --- Tab list scan state ---
-    final Set<String> pendingTabListFetches = new HashSet<String>();
     boolean tabListScanPending = false;
     long tabListScanScheduledTime = 0;
 
     // --- Enemy tracking state ---
     final Map<String, TrackedEnemy> trackedEnemies = new HashMap<String, TrackedEnemy>();
     final Map<Integer, double[]> trackedResourceItems = new HashMap<Integer, double[]>(); // entityId -> [posX, posY, posZ, isDiamond(1/0), stackSize]
-    long lastArmorHeldItemScan = 0;
 
     // --- AFK movement state ---
     boolean afkEnabled = false;
@@ -111,6 +108,13 @@ final class RuntimeState {
     boolean partyListPending = false;
     long partyListRequestTime = 0;
 
+    /** Drop the sidebar-derived fields; the next IN_GAME tick rebuilds them. */
+    void clearSidebarCopy() {
+        scoreboardTeamStatuses.clear();
+        nextSidebarEvent = null;
+        sidebarVersionSeen = -1;
+    }
+
     void reset() {
         // Phase tracking
         gamePhase = GamePhase.IDLE;
@@ -118,9 +122,7 @@ final class RuntimeState {
         disconnectTime = 0;
         matchStartTime = 0;
         clientTickCounter = 0;
-        lastScoreboardPhaseScanTick = 0;
-        scoreboardTeamStatuses.clear();
-        nextSidebarEvent = null;
+        clearSidebarCopy();
         lobbySummary = null;
         generatorCueFired.clear();
         lastTrackedWorld = null;
@@ -153,21 +155,18 @@ final class RuntimeState {
         inferredTeammateUuids.clear();
         invisiblePlayerWarnings.clear();
         trackedGenerators.clear();
-        lastGeneratorScan = 0;
         lastRushPredictorCheck = 0;
         rushRiskWarningSent = false;
         lastPredictedRushEtaSeconds = -1;
         lastDetectedMapName = "Unknown";
 
         // Tab list scan state
-        pendingTabListFetches.clear();
         tabListScanPending = false;
         tabListScanScheduledTime = 0;
 
         // Enemy tracking state
         trackedEnemies.clear();
         trackedResourceItems.clear();
-        lastArmorHeldItemScan = 0;
 
         // AFK state (intentionally NOT reset — user toggles manually)
 
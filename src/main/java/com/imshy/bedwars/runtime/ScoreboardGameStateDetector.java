@@ -1,21 +1,14 @@
 package com.imshy.bedwars.runtime;
 
-import net.minecraft.client.Minecraft;
-import net.minecraft.scoreboard.Score;
-import net.minecraft.scoreboard.ScoreObjective;
-import net.minecraft.scoreboard.ScorePlayerTeam;
-import net.minecraft.scoreboard.Scoreboard;
-import net.minecraft.util.EnumChatFormatting;
-
-import java.util.Collection;
 import java.util.regex.Pattern;
 
 /**
- * Mode-agnostic detection of an in-progress Bedwars match by inspecting the
- * sidebar scoreboard. The chat-based GAME_START trigger only handles standard
+ * Mode-agnostic detection of an in-progress Bedwars match from the sidebar
+ * scoreboard. The chat-based GAME_START trigger only handles standard
  * modes; this detector covers Lucky Block, Rush, Castle, Voidless, etc. by
- * looking for per-team status rows that only appear once a match has begun
- * (e.g. "Yellow: ✓", "Pink: ✗", "Blue: 0 YOU").
+ * recognising per-team status rows that only appear once a match has begun
+ * (e.g. "Yellow: ✓", "Pink: ✗", "Blue: 0 YOU"). {@link SidebarSnapshot}
+ * reads the rows and hands each one to {@link #parseRow}.
  */
 public final class ScoreboardGameStateDetector {
 
@@ -87,91 +80,40 @@ public final class ScoreboardGameStateDetector {
     // -----------------------------------------------------------------------
 
     /**
-     * Parses every team-status row currently visible in the sidebar and returns
-     * one {@link TeamStatus} per matched row.  Returns an empty list when the
-     * sidebar is absent or contains no in-game team rows.
+     * Parses one sidebar row given as displayed ({@code formatted}) and with
+     * its formatting codes removed ({@code stripped}). Returns {@code null}
+     * when the row is not a team-status row. Package-private: the rows come
+     * from {@link SidebarSnapshot}, or from a recorded sidebar in replay.
      */
-    public static java.util.List<TeamStatus> parseTeamStatuses(Minecraft mc) {
-        java.util.List<TeamStatus> result = new java.util.ArrayList<TeamStatus>();
-
-        if (mc == null || mc.theWorld == null) {
-            return result;
+    static TeamStatus parseRow(String formatted, String stripped) {
+        if (stripped == null) {
+            return null;
         }
 
-        Scoreboard scoreboard = mc.theWorld.getScoreboard();
-        if (scoreboard == null) {
-            return result;
+        java.util.regex.Matcher m = TEAM_STATUS_ROW.matcher(stripped.trim());
+        if (!m.matches()) {
+            return null;
         }
 
-        ScoreObjective objective = scoreboard.getObjectiveInDisplaySlot(1);
-        if (objective == null) {
-            return result;
+        String teamName  = m.group(1);
+        String statusStr = m.group(2);
+        boolean isOwnTeam = m.group(3) != null;
+
+        char statusType;
+        int bedGoneCount = 0;
+        if (statusStr.equals("✓") || statusStr.equals("✔")) {
+            statusType = 'B';
+        } else if (statusStr.equals("✗") || statusStr.equals("✘")) {
+            statusType = 'E';
+        } else {
+            statusType = 'D';
+            bedGoneCount = Character.getNumericValue(statusStr.charAt(0));
         }
 
-        Collection<Score> scores = scoreboard.getSortedScores(objective);
-        for (Score score : scores) {
-            String playerName = score.getPlayerName();
-            if (playerName == null || playerName.startsWith("#")) {
-                continue;
-            }
+        // Extract the leading colour code from the formatted (un-stripped) name
+        String colorCode = extractLeadingColorCode(formatted);
 
-            ScorePlayerTeam team = scoreboard.getPlayersTeam(playerName);
-            String formatted = ScorePlayerTeam.formatPlayerName(team, playerName);
-            String stripped  = EnumChatFormatting.getTextWithoutFormattingCodes(formatted);
-            if (stripped == null) {
-                continue;
-            }
-
-            java.util.regex.Matcher m = TEAM_STATUS_ROW.matcher(stripped.trim());
-            if (!m.matches()) {
-                continue;
-            }
-
-            String teamName  = m.group(1);
-            String statusStr = m.group(2);
-            boolean isOwnTeam = m.group(3) != null;
-
-            char statusType;
-            int bedGoneCount = 0;
-            if (statusStr.equals("✓") || statusStr.equals("✔")) {
-                statusType = 'B';
-            } else if (statusStr.equals("✗") || statusStr.equals("✘")) {
-                statusType = 'E';
-            } else {
-                statusType = 'D';
-                bedGoneCount = Character.getNumericValue(statusStr.charAt(0));
-            }
-
-            // Extract the leading colour code from the formatted (un-stripped) name
-            String colorCode = extractLeadingColorCode(formatted);
-
-            result.add(new TeamStatus(teamName, statusType, bedGoneCount, isOwnTeam, colorCode));
-        }
-
-        return result;
-    }
-
-    // -----------------------------------------------------------------------
-    // Convenience helpers
-    // -----------------------------------------------------------------------
-
-    /** Returns true iff the sidebar contains at least one in-game team-status row. */
-    public static boolean isMatchInProgress(Minecraft mc) {
-        return !parseTeamStatuses(mc).isEmpty();
-    }
-
-    /**
-     * Returns the Minecraft colour code string (e.g. {@code "§c"}) for the local
-     * player's own team as reported by the " YOU" suffix on the scoreboard row,
-     * or {@code null} if the sidebar is absent or no row carries the suffix.
-     */
-    public static String getOwnTeamColorCode(Minecraft mc) {
-        for (TeamStatus ts : parseTeamStatuses(mc)) {
-            if (ts.isOwnTeam && !ts.colorCode.isEmpty()) {
-                return ts.colorCode;
-            }
-        }
-        return null;
+        return new TeamStatus(teamName, statusType, bedGoneCount, isOwnTeam, colorCode);
     }
 
     // -----------------------------------------------------------------------
@@ -0,0 +1,224 @@
+package com.imshy.bedwars.runtime;
+
+import com.imshy.bedwars.MapMetadataRegistry;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.scoreboard.Score;
+import net.minecraft.scoreboard.ScoreObjective;
+import net.minecraft.scoreboard.ScorePlayerTeam;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.util.EnumChatFormatting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The sidebar, parsed once for every consumer: team statuses, the local
+ * player's team colour, the map name and the upcoming event, plus a
+ * {@link #version} that moves whenever any of them may have changed.
+ *
+ * <p>Re-reading is driven by {@link PacketTap}: a scoreboard packet
+ * (S3B-S3E) marks the snapshot dirty and the next client tick reads the
+ * rows. Scoreboard packets are applied through the client's scheduled-task
+ * queue, which can run after the tick that saw the mark, so a mark is
+ * honoured on that tick and the next. Rows identical to the last read are
+ * not parsed again. A slow refresh and a scoreboard-instance check cover
+ * the cases with no packet (tap not attached, world swap).
+ *
+ * <p>Readers get immutable values; accessors are free. Client thread only.
+ */
+final class SidebarSnapshot {
+
+    /** Safety re-read cadence in client ticks, for changes no packet announced. */
+    static final int REFRESH_TICKS = 100;
+
+    private final PacketRing.Marks marks;
+
+    // Formatted rows of the last read, and the buffer the next read fills.
+    private List<String> rows = new ArrayList<String>();
+    private List<String> scratch = new ArrayList<String>();
+    private Scoreboard lastScoreboard;
+    private int pendingReads;
+    private int ticksSinceRead;
+
+    private int version;
+    private List<ScoreboardGameStateDetector.TeamStatus> teamStatuses =
+            Collections.<ScoreboardGameStateDetector.TeamStatus>emptyList();
+    private String ownTeamColorCode;
+    private String mapName;
+    private SidebarEventClock.NextEvent nextEvent;
+    private String nextEventRow;
+
+    SidebarSnapshot(PacketTap packetTap) {
+        this.marks = packetTap != null ? packetTap.subscribeScoreboardChanges() : null;
+    }
+
+    /**
+     * Refreshes the snapshot if the sidebar may have changed. {@code wanted}
+     * false (no tracked lobby or match) clears it and stops listening.
+     */
+    void onClientTick(Minecraft mc, boolean wanted) {
+        if (marks != null && marks.isActive() != wanted) {
+            marks.setActive(wanted);
+            marks.clear();
+        }
+        if (!wanted) {
+            clear();
+            return;
+        }
+
+        Scoreboard scoreboard = mc != null && mc.theWorld != null ? mc.theWorld.getScoreboard() : null;
+        if (marks != null && marks.readable() > 0) {
+            marks.clear();
+            pendingReads = 2;
+        }
+        if (scoreboard != lastScoreboard) {
+            lastScoreboard = scoreboard;
+            pendingReads = Math.max(pendingReads, 1);
+        }
+        if (++ticksSinceRead >= REFRESH_TICKS) {
+            pendingReads = Math.max(pendingReads, 1);
+        }
+        if (pendingReads == 0) {
+            return;
+        }
+        pendingReads--;
+        ticksSinceRead = 0;
+        readRows(scoreboard, scratch);
+        update(scratch, System.currentTimeMillis());
+    }
+
+    /**
+     * Takes a fresh read of the formatted rows, in sidebar order. Returns
+     * true (and bumps {@link #version}) when they differ from the last read;
+     * unchanged rows cost one string comparison each and are not parsed.
+     * Package-private so recorded sidebars can be replayed.
+     */
+    boolean update(List<String> formattedRows, long nowMs) {
+        if (formattedRows.equals(rows)) {
+            return false;
+        }
+        if (formattedRows == scratch) {
+            // Keep the read; the old rows become the next scratch buffer.
+            scratch = rows;
+            rows = formattedRows;
+        } else {
+            rows = new ArrayList<String>(formattedRows);
+        }
+
+        List<ScoreboardGameStateDetector.TeamStatus> statuses =
+                new ArrayList<ScoreboardGameStateDetector.TeamStatus>();
+        String ownColor = null;
+        String map = null;
+        SidebarEventClock.NextEvent event = null;
+        String eventRow = null;
+        for (String formatted : rows) {
+            String stripped = EnumChatFormatting.getTextWithoutFormattingCodes(formatted);
+            if (stripped == null) {
+                continue;
+            }
+            ScoreboardGameStateDetector.TeamStatus status =
+                    ScoreboardGameStateDetector.parseRow(formatted, stripped);
+            if (status != null) {
+                statuses.add(status);
+                if (ownColor == null && status.isOwnTeam && !status.colorCode.isEmpty()) {
+                    ownColor = status.colorCode;
+                }
+                continue;
+            }
+            if (map == null) {
+                map = MapMetadataRegistry.parseMapRow(stripped);
+                if (map != null) {
+                    continue;
+                }
+            }
+            if (event == null) {
+                if (stripped.equals(nextEventRow)) {
+                    // Same countdown text as before: keep the deadline from
+                    // when it first appeared rather than re-deriving it late.
+                    event = nextEvent;
+                    eventRow = stripped;
+                } else {
+                    event = SidebarEventClock.parseRow(stripped, nowMs);
+                    if (event != null) {
+                        eventRow = stripped;
+                    }
+                }
+            }
+        }
+
+        teamStatuses = Collections.unmodifiableList(statuses);
+        ownTeamColorCode = ownColor;
+        mapName = map;
+        nextEvent = event;
+        nextEventRow = eventRow;
+        version++;
+        return true;
+    }
+
+    void clear() {
+        if (rows.isEmpty() && lastScoreboard == null) {
+            return;
+        }
+        rows = new ArrayList<String>();
+        lastScoreboard = null;
+        pendingReads = 0;
+        ticksSinceRead = 0;
+        teamStatuses = Collections.<ScoreboardGameStateDetector.TeamStatus>emptyList();
+        ownTeamColorCode = null;
+        mapName = null;
+        nextEvent = null;
+        nextEventRow = null;
+        version++;
+    }
+
+    /** Increments whenever the parsed content may differ from the previous read. */
+    int version() {
+        return version;
+    }
+
+    /** Every team-status row, in sidebar order; empty outside a match. */
+    List<ScoreboardGameStateDetector.TeamStatus> teamStatuses() {
+        return teamStatuses;
+    }
+
+    /** True iff the sidebar shows at least one in-game team-status row. */
+    boolean isMatchInProgress() {
+        return !teamStatuses.isEmpty();
+    }
+
+    /** Colour code ("§c") of the row carrying " YOU", or null. */
+    String ownTeamColorCode() {
+        return ownTeamColorCode;
+    }
+
+    /** The "Map: ..." row's name, or null. */
+    String mapName() {
+        return mapName;
+    }
+
+    /** The upcoming-event row ("Diamond II in 3:45"), or null. */
+    SidebarEventClock.NextEvent nextEvent() {
+        return nextEvent;
+    }
+
+    /** Formatted rows, skipping the hidden "#" entries, in the order the scoreboard sorts them. */
+    private static void readRows(Scoreboard scoreboard, List<String> out) {
+        out.clear();
+        if (scoreboard == null) {
+            return;
+        }
+        ScoreObjective objective = scoreboard.getObjectiveInDisplaySlot(1);
+        if (objective == null) {
+            return;
+        }
+        for (Score score : scoreboard.getSortedScores(objective)) {
+            String playerName = score.getPlayerName();
+            if (playerName == null || playerName.startsWith("#")) {
+                continue;
+            }
+            out.add(ScorePlayerTeam.formatPlayerName(scoreboard.getPlayersTeam(playerName), playerName));
+        }
+    }
+}
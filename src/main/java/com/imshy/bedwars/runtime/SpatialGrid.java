@@ -0,0 +1,332 @@
+package com.imshy.bedwars.runtime;
+
+import java.util.Arrays;
+
+/**
+ * Uniform hash grid over points in the world, for "who is near here"
+ * questions that used to be linear scans over every player, item or block
+ * placement. Cells are vertical columns {@code cellSize} blocks square
+ * (Bed Wars fights are flat enough that slicing by height buys nothing);
+ * distances are still measured in 3D.
+ *
+ * <p>Rebuilt from scratch each tick: {@link #clear} then {@link #add} every
+ * point. Points are numbered in insertion order, so callers index their own
+ * parallel arrays with the numbers the queries return. Clearing is O(1) (the
+ * cell table is invalidated by bumping a generation stamp), and once the
+ * arrays have grown to the busiest tick seen nothing is allocated: queries
+ * write into an internal hit buffer read back through {@link #hit}, valid
+ * until the next query.
+ *
+ * <p>Not thread-safe; one owner per grid.
+ */
+final class SpatialGrid {
+
+    /** Per-point predicate for filtered queries; called only for points already in range. */
+    interface Filter {
+        boolean accept(int index);
+    }
+
+    private static final int INITIAL_POINTS = 32;
+    private static final int INITIAL_SLOTS = 64;
+
+    private final double cellSize;
+
+    // Points, in insertion order; next[] chains points sharing a cell.
+    private double[] xs = new double[INITIAL_POINTS];
+    private double[] ys = new double[INITIAL_POINTS];
+    private double[] zs = new double[INITIAL_POINTS];
+    private int[] next = new int[INITIAL_POINTS];
+    private int size;
+
+    // Open-addressed cell table: a slot is live when its stamp matches.
+    private long[] slotKeys = new long[INITIAL_SLOTS];
+    private int[] slotHeads = new int[INITIAL_SLOTS];
+    private int[] slotStamps = new int[INITIAL_SLOTS];
+    private int generation = 1;
+    private int cells;
+
+    // Occupied cell range, so unbounded nearest searches know where to stop.
+    private int minCellX;
+    private int maxCellX;
+    private int minCellZ;
+    private int maxCellZ;
+
+    private int[] hits = new int[INITIAL_POINTS];
+    private double[] hitDistSq = new double[INITIAL_POINTS];
+
+    SpatialGrid(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double x(int index) {
+        return xs[index];
+    }
+
+    double y(int index) {
+        return ys[index];
+    }
+
+    double z(int index) {
+        return zs[index];
+    }
+
+    /** The {@code i}-th result of the last query. */
+    int hit(int i) {
+        return hits[i];
+    }
+
+    /** Squared distance of the {@code i}-th result of the last k-nearest query. */
+    double hitDistanceSq(int i) {
+        return hitDistSq[i];
+    }
+
+    void clear() {
+        size = 0;
+        cells = 0;
+        if (++generation == 0) {
+            // Wrapped after 2^32 clears: stale stamps could match again.
+            Arrays.fill(slotStamps, 0);
+            generation = 1;
+        }
+    }
+
+    /** Adds a point and returns its index. */
+    int add(double x, double y, double z) {
+        if (size == xs.length) {
+            int capacity = size * 2;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            zs = Arrays.copyOf(zs, capacity);
+            next = Arrays.copyOf(next, capacity);
+            hits = new int[capacity];
+            hitDistSq = new double[capacity];
+        }
+        int index = size++;
+        xs[index] = x;
+        ys[index] = y;
+        zs[index] = z;
+
+        int cx = cell(x);
+        int cz = cell(z);
+        if (cells == 0) {
+            minCellX = maxCellX = cx;
+            minCellZ = maxCellZ = cz;
+        } else {
+            minCellX = Math.min(minCellX, cx);
+            maxCellX = Math.max(maxCellX, cx);
+            minCellZ = Math.min(minCellZ, cz);
+            maxCellZ = Math.max(maxCellZ, cz);
+        }
+
+        long key = key(cx, cz);
+        int slot = findSlot(key);
+        if (slotStamps[slot] == generation) {
+            next[index] = slotHeads[slot];
+        } else {
+            next[index] = -1;
+            slotStamps[slot] = generation;
+            slotKeys[slot] = key;
+            cells++;
+        }
+        slotHeads[slot] = index;
+        if (cells * 2 > slotKeys.length) {
+            rehash(slotKeys.length * 2);
+        }
+        return index;
+    }
+
+    /**
+     * Points within {@code radius} (inclusive) of the given position that
+     * pass {@code filter} (null accepts all). Returns the count; read them
+     * with {@link #hit}, in no particular order.
+     */
+    int within(double x, double y, double z, double radius, Filter filter) {
+        int count = 0;
+        if (size == 0) {
+            return 0;
+        }
+        double radiusSq = radius * radius;
+        int fromX = cell(x - radius);
+        int toX = cell(x + radius);
+        int fromZ = cell(z - radius);
+        int toZ = cell(z + radius);
+        for (int cx = fromX; cx <= toX; cx++) {
+            for (int cz = fromZ; cz <= toZ; cz++) {
+                for (int i = head(cx, cz); i >= 0; i = next[i]) {
+                    if (distSq(i, x, y, z) <= radiusSq && (filter == null || filter.accept(i))) {
+                        hits[count++] = i;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /** True when any point within {@code radius} (inclusive) passes {@code filter}. */
+    boolean anyWithin(double x, double y, double z, double radius, Filter filter) {
+        if (size == 0) {
+            return false;
+        }
+        double radiusSq = radius * radius;
+        int fromX = cell(x - radius);
+        int toX = cell(x + radius);
+        int fromZ = cell(z - radius);
+        int toZ = cell(z + radius);
+        for (int cx = fromX; cx <= toX; cx++) {
+            for (int cz = fromZ; cz <= toZ; cz++) {
+                for (int i = head(cx, cz); i >= 0; i = next[i]) {
+                    if (distSq(i, x, y, z) <= radiusSq && (filter == null || filter.accept(i))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The nearest point strictly closer than {@code maxDistance} that passes
+     * {@code filter}, or -1. {@code maxDistance} may be infinite. The filter
+     * is only consulted for points that would beat the current best, so an
+     * expensive one runs a handful of times rather than once per point.
+     */
+    int nearest(double x, double y, double z, double maxDistance, Filter filter) {
+        int found = nearest(x, y, z, 1, maxDistance, filter);
+        return found == 0 ? -1 : hits[0];
+    }
+
+    /**
+     * Up to {@code k} nearest points strictly closer than {@code maxDistance}
+     * that pass {@code filter}, closest first. Returns the count; read them
+     * with {@link #hit} and {@link #hitDistanceSq}.
+     */
+    int nearest(double x, double y, double z, int k, double maxDistance, Filter filter) {
+        if (size == 0 || k <= 0) {
+            return 0;
+        }
+        k = Math.min(k, size);
+        double limitSq = maxDistance * maxDistance;
+        int count = 0;
+
+        int qx = cell(x);
+        int qz = cell(z);
+        // Rings beyond the occupied range, or beyond maxDistance, hold nothing.
+        int maxRing = Math.max(Math.max(qx - minCellX, maxCellX - qx),
+                Math.max(qz - minCellZ, maxCellZ - qz));
+        if (!Double.isInfinite(maxDistance)) {
+            maxRing = Math.min(maxRing, (int) Math.ceil(maxDistance / cellSize) + 1);
+        }
+
+        int visited = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every point in ring r is more than (r-1) cells away horizontally.
+            double floor = (ring - 1) * cellSize;
+            double boundSq = count == k ? hitDistSq[k - 1] : limitSq;
+            if (ring > 0 && floor * floor >= boundSq) {
+                break;
+            }
+            int ringCells = ring == 0 ? 1 : 8 * ring;
+            if (visited + ringCells > size * 2) {
+                // A few points spread thin: walking them beats walking cells.
+                return nearestLinear(x, y, z, k, limitSq, filter);
+            }
+            visited += ringCells;
+            for (int cx = qx - ring; cx <= qx + ring; cx++) {
+                boolean edgeColumn = cx == qx - ring || cx == qx + ring;
+                int step = edgeColumn ? 1 : 2 * ring;
+                for (int cz = qz - ring; cz <= qz + ring; cz += step) {
+                    for (int i = head(cx, cz); i >= 0; i = next[i]) {
+                        count = offer(i, distSq(i, x, y, z), k, count, limitSq, filter);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private int nearestLinear(double x, double y, double z, int k, double limitSq, Filter filter) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count = offer(i, distSq(i, x, y, z), k, count, limitSq, filter);
+        }
+        return count;
+    }
+
+    /** Inserts {@code index} into the sorted top-k hits if it qualifies; returns the new count. */
+    private int offer(int index, double dSq, int k, int count, double limitSq, Filter filter) {
+        if (dSq >= limitSq || (count == k && dSq >= hitDistSq[k - 1])) {
+            return count;
+        }
+        if (filter != null && !filter.accept(index)) {
+            return count;
+        }
+        int pos = count == k ? k - 1 : count++;
+        while (pos > 0 && hitDistSq[pos - 1] > dSq) {
+            hits[pos] = hits[pos - 1];
+            hitDistSq[pos] = hitDistSq[pos - 1];
+            pos--;
+        }
+        hits[pos] = index;
+        hitDistSq[pos] = dSq;
+        return count;
+    }
+
+    private double distSq(int i, double x, double y, double z) {
+        double dx = xs[i] - x;
+        double dy = ys[i] - y;
+        double dz = zs[i] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private int head(int cx, int cz) {
+        if (cells == 0) {
+            return -1;
+        }
+        int slot = findSlot(key(cx, cz));
+        return slotStamps[slot] == generation ? slotHeads[slot] : -1;
+    }
+
+    private static long key(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    /** The slot holding {@code key}, or the empty slot where it would go. */
+    private int findSlot(long key) {
+        int mask = slotKeys.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (slotStamps[slot] == generation && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = slotKeys;
+        int[] oldHeads = slotHeads;
+        int[] oldStamps = slotStamps;
+        int live = generation;
+        slotKeys = new long[capacity];
+        slotHeads = new int[capacity];
+        slotStamps = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == live) {
+                int slot = findSlot(oldKeys[i]);
+                slotKeys[slot] = oldKeys[i];
+                slotHeads[slot] = oldHeads[i];
+                slotStamps[slot] = live;
+            }
+        }
+    }
+}
@@ -51,22 +51,34 @@ public class TabListScanner {
                         info.getDisplayName().getFormattedText());
             }
 
-            if (formattedName == null || formattedName.isEmpty()) {
-                continue;
+            TabListPlayer player = parseEntry(name, uuid, formattedName, isLocal);
+            if (player != null) {
+                result.add(player);
             }
+        }
 
-            Character colorCode = parseFirstColorCode(formattedName);
-            if (colorCode == null) {
-                continue;
-            }
+        return result;
+    }
 
-            String teamName = parseTeamName(formattedName);
-            String teamColorPrefix = "\u00a7" + colorCode;
+    /**
+     * One tab entry from its (suffix-stripped) formatted display name; null
+     * when the name carries no team colour. Package-private so recorded tab
+     * lists can be replayed without a connection.
+     */
+    static TabListPlayer parseEntry(String name, String uuid, String formattedName, boolean isLocal) {
+        if (formattedName == null || formattedName.isEmpty()) {
+            return null;
+        }
 
-            result.add(new TabListPlayer(name, uuid, colorCode, teamName, teamColorPrefix, isLocal));
+        Character colorCode = parseFirstColorCode(formattedName);
+        if (colorCode == null) {
+            return null;
         }
 
-        return result;
+        String teamName = parseTeamName(formattedName);
+        String teamColorPrefix = "\u00a7" + colorCode;
+
+        return new TabListPlayer(name, uuid, colorCode, teamName, teamColorPrefix, isLocal);
     }
 
     public static Character getLocalPlayerColorCode(Minecraft mc) {
@@ -3,6 +3,7 @@ package com.imshy.bedwars.runtime;
 import com.imshy.bedwars.BedwarsStats;
 import com.imshy.bedwars.HypixelAPI;
 import com.imshy.bedwars.ModConfig;
+import com.imshy.bedwars.PlayerKey;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.network.NetworkPlayerInfo;
@@ -36,34 +37,37 @@ import java.util.UUID;
  */
 public class TabStatsInjector {
 
-    /** Re-apply cadence in client ticks (~0.5s) — fast enough to win against server resends. */
+    /**
+     * Re-apply cadence in client ticks (~0.5s) — fast enough to win against
+     * server resends. The runtime's TickScheduler calls in at this period.
+     */
     static final int INJECT_INTERVAL_TICKS = 10;
 
     /** Marker that opens every injected suffix; used to recognise and strip our own text. */
     static final String SUFFIX_MARKER = " §8| ";
 
+    /** Dim trailer on stats that are being refreshed in the background. */
+    static final String STALE_MARKER = " §8*";
+
     private final RuntimeState state;
 
     /** Per-entry injection bookkeeping, keyed by tab-entry UUID. */
     private final Map<UUID, InjectedEntry> injected = new HashMap<UUID, InjectedEntry>();
 
-    /** Composed-suffix memo keyed by lowercase name; invalidated when the cached stats instance changes. */
-    private final Map<String, CachedSuffix> suffixCache = new HashMap<String, CachedSuffix>();
+    /** Composed-suffix memo keyed by player key; invalidated when the cached stats instance changes. */
+    private final Map<PlayerKey, CachedSuffix> suffixCache = new HashMap<PlayerKey, CachedSuffix>();
 
     TabStatsInjector(RuntimeState state) {
         this.state = state;
     }
 
     /**
-     * Timer-driven entry point. Injects while the feature is active and the
-     * player is in a tracked lobby/match; restores touched entries the moment
-     * any activation condition stops holding.
+     * Scheduled entry point, every {@link #INJECT_INTERVAL_TICKS}. Injects
+     * while the feature is active and the player is in a tracked lobby/match;
+     * restores touched entries the moment any activation condition stops
+     * holding.
      */
     public void onClientTick(Minecraft mc) {
-        if (state.clientTickCounter % INJECT_INTERVAL_TICKS != 0) {
-            return;
-        }
-
         if (mc == null || mc.getNetHandler() == null || mc.thePlayer == null || mc.theWorld == null) {
             // Connection/world gone — the NetworkPlayerInfo objects we touched
             // no longer exist, so there is nothing left to restore against.
@@ -220,9 +224,9 @@ public class TabStatsInjector {
     }
 
     private String suffixFor(String name, BedwarsStats stats) {
-        String key = name.toLowerCase();
+        PlayerKey key = PlayerKey.of(name);
         CachedSuffix cached = suffixCache.get(key);
-        if (cached != null && cached.stats == stats) {
+        if (cached != null && cached.stats == stats && cached.stale == stats.isStale()) {
             return cached.suffix;
         }
         String suffix = buildSuffix(stats);
@@ -233,15 +237,17 @@ public class TabStatsInjector {
     /**
      * Build the appended stat suffix for a loaded stats object:
      * " §8| <threatColor><stars>✫ §7<fkdr>". Nicked players get the
-     * established "[NICK]" marker instead of meaningless zero stats.
+     * established "[NICK]" marker instead of meaningless zero stats. Stale
+     * stats (being refreshed in the background) get a trailing dark-gray "*".
      * Pure — covered by unit tests.
      */
     static String buildSuffix(BedwarsStats stats) {
+        String staleMarker = stats.isStale() ? STALE_MARKER : "";
         if (stats.getThreatLevel() == BedwarsStats.ThreatLevel.NICKED) {
-            return SUFFIX_MARKER + stats.getThreatColor() + "[NICK]";
+            return SUFFIX_MARKER + stats.getThreatColor() + "[NICK]" + staleMarker;
         }
         return SUFFIX_MARKER + stats.getThreatColor() + stats.getStars()
-                + "✫ §7" + BedwarsStats.formatRatioShort(stats.getFkdr());
+                + "✫ §7" + BedwarsStats.formatRatioShort(stats.getFkdr()) + staleMarker;
     }
 
     /**
@@ -289,10 +295,12 @@ public class TabStatsInjector {
     /** Suffix memo entry — valid only while the same stats instance is cached. */
     private static class CachedSuffix {
         final BedwarsStats stats;
+        final boolean stale;
         final String suffix;
 
         CachedSuffix(BedwarsStats stats, String suffix) {
             this.stats = stats;
+            this.stale = stats.isStale();
             this.suffix = suffix;
         }
     }
@@ -1,7 +1,6 @@
 package com.imshy.bedwars.runtime;
 
 import com.imshy.bedwars.BedwarsStats;
-import com.imshy.bedwars.ClientThread;
 import com.imshy.bedwars.HypixelAPI;
 
 import com.imshy.bedwars.runtime.TabListScanner.TabListPlayer;
@@ -109,13 +108,10 @@ public class TeamDangerAnalyzer {
 
             BedwarsStats stats = HypixelAPI.getCachedStats(tp.name);
             // Treat any cached object as "have data" (matches LobbyTrackerService's
-            // getCachedStats != null gate). A cached non-loaded error object can only
-            // be refreshed by a real network fetch after the TTL expires, so re-entering
-            // here every tick would just churn pendingTabListFetches with no benefit.
+            // getCachedStats != null gate). Whether an uncached name is worth a
+            // request (in flight, recently failed, backoff) is HypixelAPI's call.
             if (stats == null) {
-                if (!state.pendingTabListFetches.contains(tp.name) && HypixelAPI.hasApiKey()) {
-                    requestTabPlayerStats(tp);
-                }
+                requestTabPlayerStats(tp);
                 continue;
             }
 
@@ -214,13 +210,10 @@ public class TeamDangerAnalyzer {
 
             BedwarsStats stats = HypixelAPI.getCachedStats(tp.name);
             // Treat any cached object as "have data" (matches LobbyTrackerService's
-            // getCachedStats != null gate). A cached non-loaded error object can only
-            // be refreshed by a real network fetch after the TTL expires, so re-entering
-            // here every tick would just churn pendingTabListFetches with no benefit.
+            // getCachedStats != null gate). Whether an uncached name is worth a
+            // request (in flight, recently failed, backoff) is HypixelAPI's call.
             if (stats == null) {
-                if (!state.pendingTabListFetches.contains(tp.name) && HypixelAPI.hasApiKey()) {
-                    requestTabPlayerStats(tp);
-                }
+                requestTabPlayerStats(tp);
                 continue;
             }
 
@@ -265,42 +258,19 @@ public class TeamDangerAnalyzer {
 
     /**
      * Queue a stat fetch for a tab player, preferring the tab list's real
-     * GameProfile UUID (skips the Mojang round-trip). On a transient error
-     * (rate limit, timeout) the name is removed from pendingTabListFetches — on
-     * the client thread, since the set is unsynchronized — so the fetch becomes
-     * retryable; permanent failures (bad API key) stay one-attempt.
+     * GameProfile UUID (skips the Mojang round-trip). HypixelAPI.admitFetch
+     * decides whether the name is worth a request right now; the result only
+     * matters for the cache it fills.
      */
     private void requestTabPlayerStats(TabListPlayer tp) {
-        // Pause requeueing entirely while rate limited — the 1 Hz summary memo
-        // would otherwise retry every pass without ever succeeding.
-        if (HypixelAPI.isRateLimitBackoffActive()) {
+        HypixelAPI.FetchPriority priority = TabListScanner.resolveFetchPriority(tp);
+        if (!HypixelAPI.admitFetch(tp.name, priority)) {
             return;
         }
-        final String tabName = tp.name;
-        state.pendingTabListFetches.add(tabName);
-        HypixelAPI.StatsCallback callback = new HypixelAPI.StatsCallback() {
-            @Override
-            public void onStatsLoaded(BedwarsStats s) {
-                // Drop the in-flight guard once resolved; the getCachedStats gate
-                // above suppresses refetch while fresh, and after the 60-min TTL
-                // the name becomes eligible again instead of staying stuck.
-                ClientThread.run(() -> state.pendingTabListFetches.remove(tabName));
-            }
-
-            @Override
-            public void onError(String error) {
-                if (!HypixelAPI.isRetryableError(error)) {
-                    return;
-                }
-                ClientThread.run(() -> state.pendingTabListFetches.remove(tabName));
-            }
-        };
-
-        HypixelAPI.FetchPriority priority = TabListScanner.resolveFetchPriority(tp);
         if (tp.uuid != null) {
-            HypixelAPI.fetchStatsWithUuid(tabName, tp.uuid, callback, priority);
+            HypixelAPI.fetchStatsWithUuid(tp.name, tp.uuid, HypixelAPI.DISCARD_RESULT, priority);
         } else {
-            HypixelAPI.fetchStatsAsync(tabName, callback, priority);
+            HypixelAPI.fetchStatsAsync(tp.name, HypixelAPI.DISCARD_RESULT, priority);
         }
     }
 
@@ -0,0 +1,249 @@
+package com.imshy.bedwars.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cooperative scheduler for the runtime's periodic jobs (generator scan,
+ * enemy gear scan, tab injection, ...). Each job registers a period in
+ * client ticks, a {@link Priority} and a nanosecond budget; the scheduler
+ * then owns the cadence the services used to keep in private timestamps.
+ *
+ * <p>Phases are staggered at registration: a new job takes the phase whose
+ * ticks collide least, weighted by budget, with the jobs already registered,
+ * so two expensive jobs with the same period never land on the same tick.
+ *
+ * <p>Each tick has a budget of its own. Once the tick (including whatever
+ * ran before {@link #runTick}) has spent it, a {@link Priority#LOW} job that
+ * is due is deferred to the next tick with room, but never by a whole period
+ * — then it runs regardless. {@link Priority#HIGH} jobs always run on time.
+ * Deferral does not shift the phase; the next run is still on schedule.
+ *
+ * <p>Actual cost is measured per job and exposed through {@link #report()}.
+ * Jobs must guard themselves (see {@link SafeSubsystem}); a throw here
+ * propagates. Time comes from a {@link Clock}, {@link System#nanoTime} outside
+ * tests. Client thread only.
+ */
+final class TickScheduler {
+
+    enum Priority {
+        /** Runs every time it is due. */
+        HIGH,
+        /** May slip to a later tick when the current one is over budget. */
+        LOW
+    }
+
+    /** Nanosecond time source; only differences between readings matter. */
+    interface Clock {
+        long nanoTime();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    private final long tickBudgetNanos;
+    private final Clock clock;
+    private final List<Job> jobs = new ArrayList<Job>();
+    private long worstTickNanos;
+
+    TickScheduler(long tickBudgetNanos) {
+        this(tickBudgetNanos, SYSTEM_CLOCK);
+    }
+
+    TickScheduler(long tickBudgetNanos, Clock clock) {
+        this.tickBudgetNanos = tickBudgetNanos;
+        this.clock = clock;
+    }
+
+    /** Registers a job and returns the phase it was given ({@code 0 <= phase < periodTicks}). */
+    int register(String name, int periodTicks, Priority priority, long budgetNanos, Runnable body) {
+        if (periodTicks <= 0) {
+            throw new IllegalArgumentException("periodTicks must be positive: " + periodTicks);
+        }
+        Job job = new Job(name, periodTicks, priority, budgetNanos, body);
+        job.phase = leastCrowdedPhase(periodTicks);
+        // HIGH first so LOW work sees the tick's real spend when deciding to defer.
+        int at = jobs.size();
+        if (priority == Priority.HIGH) {
+            at = 0;
+            while (at < jobs.size() && jobs.get(at).priority == Priority.HIGH) {
+                at++;
+            }
+        }
+        jobs.add(at, job);
+        return job.phase;
+    }
+
+    /**
+     * Runs the jobs due on {@code tick}. {@code tickStartNanos} is the
+     * clock reading at which the tick's work began, so time spent
+     * outside the scheduler counts against the tick budget.
+     */
+    void runTick(long tick, long tickStartNanos) {
+        for (Job job : jobs) {
+            boolean due = Math.floorMod(tick - job.phase, (long) job.period) == 0;
+            if (!due && !job.deferred) {
+                continue;
+            }
+            if (job.priority == Priority.LOW) {
+                long spent = clock.nanoTime() - tickStartNanos;
+                // A pending run that is due again has waited a full period: run it now.
+                boolean overdue = job.deferred && due;
+                if (!overdue && spent + job.budgetNanos > tickBudgetNanos) {
+                    if (!job.deferred) {
+                        job.deferred = true;
+                        job.deferrals++;
+                    }
+                    continue;
+                }
+            }
+            job.deferred = false;
+            long start = clock.nanoTime();
+            try {
+                job.body.run();
+            } finally {
+                job.record(clock.nanoTime() - start);
+            }
+        }
+        long tickNanos = clock.nanoTime() - tickStartNanos;
+        if (tickNanos > worstTickNanos) {
+            worstTickNanos = tickNanos;
+        }
+    }
+
+    /** Drops every pending deferral and measurement ({@code /bw reset}). */
+    void resetStats() {
+        worstTickNanos = 0;
+        for (Job job : jobs) {
+            job.deferred = false;
+            job.runs = 0;
+            job.totalNanos = 0;
+            job.maxNanos = 0;
+            job.overBudget = 0;
+            job.deferrals = 0;
+        }
+    }
+
+    /**
+     * One row per job for {@code /bw health}: period and phase, mean and
+     * worst measured cost against the budget, over-budget runs, deferrals.
+     */
+    List<String> report() {
+        List<String> rows = new ArrayList<String>();
+        for (Job job : jobs) {
+            double avgMs = job.runs == 0 ? 0.0 : job.totalNanos / (double) job.runs / 1e6;
+            rows.add(String.format(Locale.ROOT,
+                    "%s: every %dt @%d, avg %.2fms, max %.2fms / %.2fms budget, over %d/%d, deferred %d",
+                    job.name, job.period, job.phase, avgMs, job.maxNanos / 1e6,
+                    job.budgetNanos / 1e6, job.overBudget, job.runs, job.deferrals));
+        }
+        return rows;
+    }
+
+    long worstTickNanos() {
+        return worstTickNanos;
+    }
+
+    long tickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    // Test hooks.
+
+    int runs(String name) {
+        return find(name).runs;
+    }
+
+    int deferrals(String name) {
+        return find(name).deferrals;
+    }
+
+    int overBudget(String name) {
+        return find(name).overBudget;
+    }
+
+    private Job find(String name) {
+        for (Job job : jobs) {
+            if (job.name.equals(name)) {
+                return job;
+            }
+        }
+        throw new IllegalArgumentException("no such job: " + name);
+    }
+
+    /**
+     * The phase for a new job of the given period that shares the least
+     * budget with existing jobs. Jobs with periods p and q and phases a and b
+     * meet iff a ≡ b (mod g), g = gcd(p, q), and then on g/q of the new
+     * job's runs; each candidate phase is scored by the other jobs' budgets
+     * times that fraction. Ties go to the earliest phase.
+     */
+    private int leastCrowdedPhase(int period) {
+        int best = 0;
+        double bestLoad = Double.MAX_VALUE;
+        for (int phase = 0; phase < period; phase++) {
+            double load = 0;
+            for (Job other : jobs) {
+                int g = gcd(period, other.period);
+                if (Math.floorMod(phase - other.phase, g) == 0) {
+                    load += other.budgetNanos * (double) g / other.period;
+                }
+            }
+            if (load < bestLoad) {
+                bestLoad = load;
+                best = phase;
+            }
+        }
+        return best;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static final class Job {
+        final String name;
+        final int period;
+        final Priority priority;
+        final long budgetNanos;
+        final Runnable body;
+        int phase;
+        /** A due run was deferred and has not happened yet. */
+        boolean deferred;
+
+        int runs;
+        long totalNanos;
+        long maxNanos;
+        int overBudget;
+        int deferrals;
+
+        Job(String name, int period, Priority priority, long budgetNanos, Runnable body) {
+            this.name = name;
+            this.period = period;
+            this.priority = priority;
+            this.budgetNanos = budgetNanos;
+            this.body = body;
+        }
+
+        void record(long nanos) {
+            runs++;
+            totalNanos += nanos;
+            if (nanos > maxNanos) {
+                maxNanos = nanos;
+            }
+            if (nanos > budgetNanos) {
+                overBudget++;
+            }
+        }
+    }
+}
@@ -8,11 +8,8 @@ import com.imshy.bedwars.render.BedwarsOverlayRenderer;
 
 import net.minecraft.block.Block;
 import net.minecraft.client.Minecraft;
-import net.minecraft.entity.Entity;
-import net.minecraft.entity.item.EntityItem;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.init.Blocks;
-import net.minecraft.init.Items;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.ChatComponentText;
 import net.minecraft.util.EnumChatFormatting;
@@ -30,6 +27,9 @@ import java.util.HashSet;
 
 public class WorldScanService {
     private static final double GENERATOR_RESET_DISTANCE_SQ = 25.0D; // 5 blocks
+    private static final double GENERATOR_RESET_DISTANCE = Math.sqrt(GENERATOR_RESET_DISTANCE_SQ);
+    // Sphere enclosing the Chebyshev item box scanGeneratorResources counts.
+    private static final double GENERATOR_ITEM_QUERY_RADIUS = GENERATOR_MERGE_RADIUS * Math.sqrt(3.0D);
     /**
      * Two same-type generator anchors within this many blocks (Chebyshev distance) are the
      * same generator; only one is tracked. Matches the 3-block Chebyshev item-attribution box
@@ -140,6 +140,7 @@ public class WorldScanService {
         synchronized (state.recentJoins) {
             state.recentJoins.clear();
         }
+        HypixelAPI.cancelStaleFetches();
 
         mc.thePlayer.sendChatMessage("/l");
 
@@ -173,14 +174,15 @@ public class WorldScanService {
         }).start();
     }
 
-    public void checkForInvisiblePlayers(Minecraft mc, long currentTime) {
+    public void checkForInvisiblePlayers(Minecraft mc, WorldSnapshot world, long currentTime) {
         int detectionRange = ModConfig.getInvisibleDetectionRange();
         int cooldown = ModConfig.getInvisibleWarningCooldown();
 
-        for (EntityPlayer player : mc.theWorld.playerEntities) {
-            if (player.getUniqueID().equals(mc.thePlayer.getUniqueID())) {
+        for (int i = 0; i < world.playerCount; i++) {
+            if (i == world.localPlayerIndex) {
                 continue;
             }
+            EntityPlayer player = world.players[i];
 
             if (player.isInvisible()) {
                 double distance = player.getDistanceToEntity(mc.thePlayer);
@@ -203,7 +205,7 @@ public class WorldScanService {
         }
     }
 
-    public void scanForGenerators(Minecraft mc) {
+    public void scanForGenerators(Minecraft mc, WorldSnapshot world) {
         int scanRange = ModConfig.getGeneratorScanRange();
         BlockPos playerPos = mc.thePlayer.getPosition();
         long now = System.currentTimeMillis();
@@ -305,9 +307,9 @@ public class WorldScanService {
                 state.trackedGenerators.put(checkPos, existing);
             }
 
-            GeneratorResourceScan scan = scanGeneratorResources(mc, checkPos, isDiamond);
+            GeneratorResourceScan scan = scanGeneratorResources(world, checkPos, isDiamond);
             updateGeneratorFromObservedScan(existing, scan.resourceCount, scan.hasDesignatedIngotOnTop, now);
-            existing.labelPosition = pickGeneratorLabelPosition(mc, checkPos, isDiamond);
+            existing.labelPosition = pickGeneratorLabelPosition(mc, world, checkPos, isDiamond);
         }
 
         Iterator<Map.Entry<BlockPos, GeneratorEntry>> iterator = state.trackedGenerators.entrySet().iterator();
@@ -344,7 +346,7 @@ public class WorldScanService {
                 }
             }
 
-            if (isAnyPlayerNearGenerator(mc, generatorPos)) {
+            if (isAnyPlayerNearGenerator(world, generatorPos)) {
                 resetGeneratorCount(generator, now);
                 continue;
             }
@@ -492,20 +494,14 @@ public class WorldScanService {
         generator.lastUpdate = now;
     }
 
-    private boolean isAnyPlayerNearGenerator(Minecraft mc, BlockPos generatorPos) {
+    private boolean isAnyPlayerNearGenerator(WorldSnapshot world, BlockPos generatorPos) {
         double centerX = generatorPos.getX() + 0.5D;
         double centerY = generatorPos.getY() + 1.0D;
         double centerZ = generatorPos.getZ() + 0.5D;
 
-        for (EntityPlayer player : mc.theWorld.playerEntities) {
-            if (player == null || player.isDead) {
-                continue;
-            }
-            double dx = player.posX - centerX;
-            double dy = player.posY - centerY;
-            double dz = player.posZ - centerZ;
-            double distanceSq = dx * dx + dy * dy + dz * dz;
-            if (distanceSq <= GENERATOR_RESET_DISTANCE_SQ) {
+        int nearby = world.playerGrid.within(centerX, centerY, centerZ, GENERATOR_RESET_DISTANCE, null);
+        for (int h = 0; h < nearby; h++) {
+            if (!world.players[world.playerGrid.hit(h)].isDead) {
                 return true;
             }
         }
@@ -617,7 +613,8 @@ public class WorldScanService {
      * air above) closest to dropped diamonds/emeralds. Falls back to the canonical anchor when
      * no items are present.
      */
-    private BlockPos pickGeneratorLabelPosition(Minecraft mc, BlockPos anchor, boolean isDiamond) {
+    private BlockPos pickGeneratorLabelPosition(Minecraft mc, WorldSnapshot world, BlockPos anchor,
+            boolean isDiamond) {
         Set<BlockPos> cluster = findGeneratorCluster(mc, anchor, isDiamond);
         List<BlockPos> candidates = new ArrayList<BlockPos>();
         for (BlockPos p : cluster) {
@@ -640,16 +637,16 @@ public class WorldScanService {
         double itemSumX = 0.0D;
         double itemSumZ = 0.0D;
         int itemCount = 0;
-        for (Entity entity : mc.theWorld.loadedEntityList) {
-            if (!(entity instanceof EntityItem)) continue;
-            EntityItem item = (EntityItem) entity;
-            if (!isDesignatedGeneratorItem(item, isDiamond)) continue;
-            double dx = item.posX - centerX;
-            double dz = item.posZ - centerZ;
-            if (Math.abs(item.posY - padTopY) > 4.0D) continue;
+        int nearby = world.itemGrid.within(centerX, padTopY, centerZ, 5.0D, null);
+        for (int h = 0; h < nearby; h++) {
+            int i = world.itemGrid.hit(h);
+            if (world.itemDiamond[i] != isDiamond) continue;
+            double dx = world.itemX[i] - centerX;
+            double dz = world.itemZ[i] - centerZ;
+            if (Math.abs(world.itemY[i] - padTopY) > 4.0D) continue;
             if (dx * dx + dz * dz > 9.0D) continue;
-            itemSumX += item.posX;
-            itemSumZ += item.posZ;
+            itemSumX += world.itemX[i];
+            itemSumZ += world.itemZ[i];
             itemCount++;
         }
 
@@ -674,29 +671,27 @@ public class WorldScanService {
         return best;
     }
 
-    private GeneratorResourceScan scanGeneratorResources(Minecraft mc, BlockPos generatorPos, boolean isDiamond) {
+    private GeneratorResourceScan scanGeneratorResources(WorldSnapshot world, BlockPos generatorPos,
+            boolean isDiamond) {
         int count = 0;
         boolean hasDesignatedIngotOnTop = false;
         double centerX = generatorPos.getX() + 0.5D;
         double centerY = generatorPos.getY() + 1.0D;
         double centerZ = generatorPos.getZ() + 0.5D;
 
-        for (Entity entity : mc.theWorld.loadedEntityList) {
-            if (!(entity instanceof EntityItem)) {
-                continue;
-            }
-
-            EntityItem item = (EntityItem) entity;
-            if (!isDesignatedGeneratorItem(item, isDiamond)) {
+        int nearby = world.itemGrid.within(centerX, centerY, centerZ, GENERATOR_ITEM_QUERY_RADIUS, null);
+        for (int h = 0; h < nearby; h++) {
+            int i = world.itemGrid.hit(h);
+            if (world.itemDiamond[i] != isDiamond) {
                 continue;
             }
 
-            double dx = Math.abs(item.posX - centerX);
-            double dy = Math.abs(item.posY - centerY);
-            double dz = Math.abs(item.posZ - centerZ);
+            double dx = Math.abs(world.itemX[i] - centerX);
+            double dy = Math.abs(world.itemY[i] - centerY);
+            double dz = Math.abs(world.itemZ[i] - centerZ);
 
             if (!hasDesignatedIngotOnTop && dx <= 0.75D && dz <= 0.75D) {
-                double relativeY = item.posY - generatorPos.getY();
+                double relativeY = world.itemY[i] - generatorPos.getY();
                 if (relativeY >= 0.0D && relativeY <= 3.0D) {
                     hasDesignatedIngotOnTop = true;
                 }
@@ -706,24 +701,13 @@ public class WorldScanService {
             // anchors that could count the same items are collapsed to one.
             if (dx <= GENERATOR_MERGE_RADIUS && dy <= GENERATOR_MERGE_RADIUS
                     && dz <= GENERATOR_MERGE_RADIUS) {
-                count += item.getEntityItem().stackSize;
+                count += world.itemStackSize[i];
             }
         }
 
         return new GeneratorResourceScan(count, hasDesignatedIngotOnTop);
     }
 
-    private boolean isDesignatedGeneratorItem(EntityItem item, boolean isDiamond) {
-        if (item == null || item.getEntityItem() == null || item.getEntityItem().getItem() == null) {
-            return false;
-        }
-
-        if (isDiamond) {
-            return item.getEntityItem().getItem() == Items.diamond;
-        }
-        return item.getEntityItem().getItem() == Items.emerald;
-    }
-
     static class GeneratorEntry {
         BlockPos position;
         BlockPos labelPosition;
@@ -0,0 +1,187 @@
+package com.imshy.bedwars.runtime;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.item.EntityEnderPearl;
+import net.minecraft.entity.item.EntityItem;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.projectile.EntityLargeFireball;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * The entities the in-game tick cares about, sorted into buckets in one pass
+ * over {@code loadedEntityList} and {@code playerEntities}.
+ *
+ * <p>The item-pickup, fireball, ender-pearl and generator scans each used to
+ * walk the whole entity list (the generator scan once per tracked generator,
+ * twice), and several services walked the player list on the same tick.
+ * {@link BedwarsRuntime} now {@link #capture}s once per IN_GAME tick and
+ * hands this to every scanner, so entity work per tick is one pass plus the
+ * size of the buckets each scanner actually reads.
+ *
+ * <p>Buckets are parallel arrays indexed {@code 0 .. count-1}; positions are
+ * copied out at capture time so distance loops stay on primitives. The
+ * arrays are reused from tick to tick and only grow. Players and items are
+ * also indexed in a {@link SpatialGrid} (same indices), so proximity
+ * questions look at nearby cells instead of every entity. Client thread
+ * only, and valid for the tick it was captured on.
+ */
+final class WorldSnapshot {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final double GRID_CELL_SIZE = 4.0D;
+
+    // Every loaded player, the local one included (localPlayerIndex).
+    EntityPlayer[] players = new EntityPlayer[INITIAL_CAPACITY];
+    double[] playerX = new double[INITIAL_CAPACITY];
+    double[] playerY = new double[INITIAL_CAPACITY];
+    double[] playerZ = new double[INITIAL_CAPACITY];
+    int playerCount;
+    /** Index of {@code mc.thePlayer} in {@link #players}, or -1. */
+    int localPlayerIndex = -1;
+    final SpatialGrid playerGrid = new SpatialGrid(GRID_CELL_SIZE);
+
+    // Dropped diamonds and emeralds.
+    EntityItem[] items = new EntityItem[INITIAL_CAPACITY];
+    int[] itemId = new int[INITIAL_CAPACITY];
+    double[] itemX = new double[INITIAL_CAPACITY];
+    double[] itemY = new double[INITIAL_CAPACITY];
+    double[] itemZ = new double[INITIAL_CAPACITY];
+    int[] itemStackSize = new int[INITIAL_CAPACITY];
+    boolean[] itemDiamond = new boolean[INITIAL_CAPACITY];
+    int itemCount;
+    final SpatialGrid itemGrid = new SpatialGrid(GRID_CELL_SIZE);
+
+    EntityLargeFireball[] fireballs = new EntityLargeFireball[INITIAL_CAPACITY];
+    int fireballCount;
+
+    EntityEnderPearl[] pearls = new EntityEnderPearl[INITIAL_CAPACITY];
+    int pearlCount;
+
+    private long capturedTick = -1;
+
+    /**
+     * {@link #capture}s unless this client tick was already captured, so
+     * handlers that run earlier in the tick can share the snapshot.
+     */
+    void captureForTick(Minecraft mc, long clientTick) {
+        if (clientTick != capturedTick) {
+            capture(mc);
+            capturedTick = clientTick;
+        }
+    }
+
+    /** Re-buckets the loaded world. Empty when there is no world or player. */
+    void capture(Minecraft mc) {
+        int oldPlayers = playerCount;
+        int oldItems = itemCount;
+        int oldFireballs = fireballCount;
+        int oldPearls = pearlCount;
+        playerCount = 0;
+        itemCount = 0;
+        fireballCount = 0;
+        pearlCount = 0;
+        localPlayerIndex = -1;
+        playerGrid.clear();
+        itemGrid.clear();
+
+        if (mc != null && mc.theWorld != null && mc.thePlayer != null) {
+            java.util.UUID localUuid = mc.thePlayer.getUniqueID();
+            for (EntityPlayer player : mc.theWorld.playerEntities) {
+                addPlayer(player, player.getUniqueID().equals(localUuid));
+            }
+            for (Entity entity : mc.theWorld.loadedEntityList) {
+                if (entity instanceof EntityItem) {
+                    addItem((EntityItem) entity);
+                } else if (entity instanceof EntityLargeFireball) {
+                    if (fireballCount == fireballs.length) {
+                        fireballs = Arrays.copyOf(fireballs, fireballCount * 2);
+                    }
+                    fireballs[fireballCount++] = (EntityLargeFireball) entity;
+                } else if (entity instanceof EntityEnderPearl) {
+                    if (pearlCount == pearls.length) {
+                        pearls = Arrays.copyOf(pearls, pearlCount * 2);
+                    }
+                    pearls[pearlCount++] = (EntityEnderPearl) entity;
+                }
+            }
+        }
+
+        // Drop references left over from a busier tick so a stale world
+        // isn't kept reachable.
+        Arrays.fill(players, playerCount, Math.max(oldPlayers, playerCount), null);
+        Arrays.fill(items, itemCount, Math.max(oldItems, itemCount), null);
+        Arrays.fill(fireballs, fireballCount, Math.max(oldFireballs, fireballCount), null);
+        Arrays.fill(pearls, pearlCount, Math.max(oldPearls, pearlCount), null);
+    }
+
+    /** Forget everything (match end, world change). */
+    void clear() {
+        Arrays.fill(players, 0, playerCount, null);
+        Arrays.fill(items, 0, itemCount, null);
+        Arrays.fill(fireballs, 0, fireballCount, null);
+        Arrays.fill(pearls, 0, pearlCount, null);
+        playerCount = 0;
+        itemCount = 0;
+        fireballCount = 0;
+        pearlCount = 0;
+        localPlayerIndex = -1;
+        playerGrid.clear();
+        itemGrid.clear();
+        capturedTick = -1;
+    }
+
+    private void addPlayer(EntityPlayer player, boolean local) {
+        if (playerCount == players.length) {
+            int capacity = playerCount * 2;
+            players = Arrays.copyOf(players, capacity);
+            playerX = Arrays.copyOf(playerX, capacity);
+            playerY = Arrays.copyOf(playerY, capacity);
+            playerZ = Arrays.copyOf(playerZ, capacity);
+        }
+        if (local) {
+            localPlayerIndex = playerCount;
+        }
+        players[playerCount] = player;
+        playerX[playerCount] = player.posX;
+        playerY[playerCount] = player.posY;
+        playerZ[playerCount] = player.posZ;
+        playerGrid.add(player.posX, player.posY, player.posZ);
+        playerCount++;
+    }
+
+    private void addItem(EntityItem entityItem) {
+        ItemStack stack = entityItem.getEntityItem();
+        if (stack == null) {
+            return;
+        }
+        Item item = stack.getItem();
+        boolean isDiamond = item == Items.diamond;
+        if (!isDiamond && item != Items.emerald) {
+            return;
+        }
+        if (itemCount == items.length) {
+            int capacity = itemCount * 2;
+            items = Arrays.copyOf(items, capacity);
+            itemId = Arrays.copyOf(itemId, capacity);
+            itemX = Arrays.copyOf(itemX, capacity);
+            itemY = Arrays.copyOf(itemY, capacity);
+            itemZ = Arrays.copyOf(itemZ, capacity);
+            itemStackSize = Arrays.copyOf(itemStackSize, capacity);
+            itemDiamond = Arrays.copyOf(itemDiamond, capacity);
+        }
+        items[itemCount] = entityItem;
+        itemId[itemCount] = entityItem.getEntityId();
+        itemX[itemCount] = entityItem.posX;
+        itemY[itemCount] = entityItem.posY;
+        itemZ[itemCount] = entityItem.posZ;
+        itemStackSize[itemCount] = stack.stackSize;
+        itemDiamond[itemCount] = isDiamond;
+        itemGrid.add(entityItem.posX, entityItem.posY, entityItem.posZ);
+        itemCount++;
+    }
+}
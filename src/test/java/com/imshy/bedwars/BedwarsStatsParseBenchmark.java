@@ -0,0 +1,121 @@
+package com.imshy.bedwars;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+/**
+ * Manual benchmark: the streaming {@link BedwarsStats#parseFromJson} against
+ * the Gson tree parse it replaced, on a synthetic veteran-sized
+ * {@code /v2/player} document. Not a JUnit test — run its {@code main}
+ * from the IDE or with the test classpath:
+ *
+ * <pre>java -cp build/classes/java/test:build/classes/java/main:&lt;gson&gt; com.imshy.bedwars.BedwarsStatsParseBenchmark</pre>
+ *
+ * Each round parses the document {@code OPS} times per parser after a
+ * warm-up, printing wall time per parse and bytes allocated per parse (via
+ * HotSpot's per-thread allocation counter, when available).
+ */
+public class BedwarsStatsParseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static final int OPS = 200;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        String json = veteranDocument(args.length > 0 ? Integer.parseInt(args[0]) : 40);
+        System.out.printf("document: %,d chars%n", json.length());
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runTree(json);
+            runStreaming(json);
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            report("tree     ", json, true);
+            report("streaming", json, false);
+        }
+    }
+
+    private static void report(String label, String json, boolean tree) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        if (tree) {
+            runTree(json);
+        } else {
+            runStreaming(json);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        System.out.printf("%s  %8.1f us/parse  %,12d B/parse%n",
+                label, elapsed / 1000.0 / OPS, bytesBefore < 0 ? -1 : bytes / OPS);
+    }
+
+    private static void runStreaming(String json) {
+        for (int i = 0; i < OPS; i++) {
+            BedwarsStats stats = new BedwarsStats("Veteran", "uuid");
+            stats.parseFromJson(json);
+            sink += stats.getFinalKills();
+        }
+    }
+
+    /** The previous parse: full tree, then keyed lookups into the Bedwars object. */
+    private static void runTree(String json) {
+        for (int i = 0; i < OPS; i++) {
+            JsonObject root = new JsonParser().parse(json).getAsJsonObject();
+            JsonObject bw = root.getAsJsonObject("player").getAsJsonObject("stats").getAsJsonObject("Bedwars");
+            int total = 0;
+            for (Map.Entry<String, JsonElement> entry : bw.entrySet()) {
+                if (entry.getKey().endsWith("_bedwars") || entry.getKey().equals("Experience")) {
+                    total += entry.getValue().isJsonPrimitive() ? entry.getValue().getAsInt() : 0;
+                }
+            }
+            sink += total;
+        }
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * A player document shaped like a long-time account: {@code games}
+     * unrelated game sections of a few hundred counters each, an achievements
+     * blob, and a full Bedwars section.
+     */
+    static String veteranDocument(int games) {
+        StringBuilder sb = new StringBuilder("{\"success\":true,\"player\":{\"uuid\":\"abc\",");
+        sb.append("\"achievements\":{");
+        for (int i = 0; i < 500; i++) {
+            sb.append(i == 0 ? "" : ",").append("\"general_achievement_").append(i).append("\":").append(i);
+        }
+        sb.append("},\"stats\":{");
+        for (int g = 0; g < games; g++) {
+            sb.append("\"Game").append(g).append("\":{");
+            for (int i = 0; i < 300; i++) {
+                sb.append(i == 0 ? "" : ",").append("\"counter_").append(i).append("_total\":").append(i * 7);
+            }
+            sb.append(",\"packages\":[\"a\",\"b\",\"c\"]},");
+        }
+        sb.append("\"Bedwars\":{\"Experience\":2500000");
+        for (BedwarsStats.Mode mode : BedwarsStats.Mode.values()) {
+            for (String stat : new String[] { "final_kills", "final_deaths", "wins", "losses", "beds_broken" }) {
+                sb.append(",\"").append(mode.prefix).append('_').append(stat).append("_bedwars\":1234");
+            }
+        }
+        for (int i = 0; i < 400; i++) {
+            sb.append(",\"cosmetic_or_item_").append(i).append("\":").append(i);
+        }
+        sb.append(",\"final_kills_bedwars\":5000,\"final_deaths_bedwars\":1000}}}}");
+        return sb.toString();
+    }
+}
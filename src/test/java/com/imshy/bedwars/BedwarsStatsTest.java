@@ -168,6 +168,16 @@ public class BedwarsStatsTest {
         assertFalse(stats.hasError());
     }
 
+    @Test
+    public void freshStatsAreNotStaleUntilMarked() {
+        BedwarsStats stats = parse(bedwarsJson("\"final_kills_bedwars\":10"));
+        assertFalse(stats.isStale());
+        stats.markStale();
+        assertTrue(stats.isStale());
+        // Staleness is display-only; the data keeps its threat level.
+        assertEquals(ThreatLevel.EXTREME, stats.getThreatLevel());
+    }
+
     @Test
     public void createNickedFactorySetsFlags() {
         BedwarsStats stats = BedwarsStats.createNicked("SomeNick");
@@ -213,6 +223,73 @@ public class BedwarsStatsTest {
         assertEquals(2.5, stats.getWeeklyFkdr(), 1e-9);
     }
 
+    // ── streaming parse ──────────────────────────────────────────────────────
+
+    @Test
+    public void unrelatedSubtreesAreSkipped() {
+        BedwarsStats stats = parse("{\"player\":{\"achievements\":{\"a\":[1,{\"b\":null}]},"
+                + "\"stats\":{\"SkyWars\":{\"wins\":999,\"nested\":{\"Bedwars\":{}}},"
+                + "\"Bedwars\":{\"final_kills_bedwars\":12,\"final_deaths_bedwars\":4,"
+                + "\"shop\":{\"slots\":[\"wool\",\"sword\"]}},\"Duels\":{\"wins\":7}},"
+                + "\"displayname\":\"TestPlayer\"},\"success\":true}");
+
+        // "success" after "player" still counts; SkyWars' inner "Bedwars" is ignored.
+        assertTrue(stats.isLoaded());
+        assertFalse(stats.hasError());
+        assertEquals(12, stats.getFinalKills());
+        assertEquals(3.0, stats.getFkdr(), 1e-9);
+    }
+
+    @Test
+    public void numbersCoerceLikeTheTreeParse() {
+        BedwarsStats stats = parse(bedwarsJson("\"Experience\":487000.0"
+                + ",\"final_kills_bedwars\":\"30\",\"final_deaths_bedwars\":\"abc\""
+                + ",\"wins_bedwars\":true,\"losses_bedwars\":[3]"
+                + ",\"beds_broken_bedwars\":9999999999"));
+
+        assertEquals(100, stats.getStars());
+        assertEquals(30, stats.getFinalKills());
+        assertEquals(0, stats.getFinalDeaths());
+        assertEquals(0, stats.getWins());
+        assertEquals(0, stats.getLosses());
+        assertEquals((int) 9999999999L, stats.getBedsBroken()); // narrowing, as Number.intValue
+    }
+
+    @Test
+    public void nonObjectStatsOrBedwarsMarksNicked() {
+        assertTrue(parse("{\"success\":true,\"player\":{\"stats\":null}}").isNicked());
+        assertTrue(parse("{\"success\":true,\"player\":{\"stats\":{\"Bedwars\":5}}}").isNicked());
+    }
+
+    @Test
+    public void emptyDocumentIsMalformed() {
+        assertEquals("Malformed API response", parse("").getErrorMessage());
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void transportFailureMidStreamPropagates() throws Exception {
+        final String prefix = bedwarsJson("\"final_kills_bedwars\":1");
+        java.io.Reader failing = new java.io.Reader() {
+            private int served;
+
+            @Override
+            public int read(char[] buf, int off, int len) throws java.io.IOException {
+                if (served > 0) {
+                    throw new java.net.SocketTimeoutException("Read timed out");
+                }
+                int n = Math.min(len, 20);
+                prefix.getChars(0, n, buf, off);
+                served = n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        new BedwarsStats("TestPlayer", "uuid-1234").parseFromStream(failing);
+    }
+
     // ── star calculation ─────────────────────────────────────────────────────
 
     @Test
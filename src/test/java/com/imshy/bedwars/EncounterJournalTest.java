@@ -0,0 +1,187 @@
+package com.imshy.bedwars;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link EncounterJournal}: records survive a restart, replay skips
+ * what the snapshot already holds, truncation keeps only newer records, and a
+ * torn final line is ignored and cut before the next append.
+ */
+public class EncounterJournalTest {
+
+    private File dir;
+    private File file;
+    private final AtomicInteger compactions = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal-test").toFile();
+        file = new File(dir, "encounters.jsonl");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private EncounterJournal journal(long compactThresholdBytes) {
+        return new EncounterJournal(file, compactThresholdBytes, new Runnable() {
+            @Override
+            public void run() {
+                compactions.incrementAndGet();
+            }
+        });
+    }
+
+    private static List<EncounterJournal.Record> replay(EncounterJournal journal, long afterSeq) {
+        final List<EncounterJournal.Record> seen = new ArrayList<EncounterJournal.Record>();
+        journal.replay(afterSeq, new EncounterJournal.RecordVisitor() {
+            @Override
+            public void visit(EncounterJournal.Record record) {
+                seen.add(record);
+            }
+        });
+        return seen;
+    }
+
+    @Test
+    public void recordsSurviveARestart() {
+        EncounterJournal first = journal(Long.MAX_VALUE);
+        first.append(100L, PlayerDatabase.GameOutcome.WIN, Arrays.asList("steve", "alex"));
+        first.append(200L, PlayerDatabase.GameOutcome.LOSS, Arrays.asList("notch"));
+        first.shutdown(1000);
+
+        List<EncounterJournal.Record> seen = replay(journal(Long.MAX_VALUE), 0);
+
+        assertEquals(2, seen.size());
+        assertEquals(1, seen.get(0).seq);
+        assertEquals(100L, seen.get(0).timestamp);
+        assertEquals(PlayerDatabase.GameOutcome.WIN, seen.get(0).outcome);
+        assertEquals(Arrays.asList("steve", "alex"), seen.get(0).players);
+        assertEquals(PlayerDatabase.GameOutcome.LOSS, seen.get(1).outcome);
+    }
+
+    @Test
+    public void replaySkipsWhatTheSnapshotHoldsAndContinuesNumbering() {
+        EncounterJournal first = journal(Long.MAX_VALUE);
+        for (int i = 0; i < 3; i++) {
+            first.append(i, PlayerDatabase.GameOutcome.WIN, Arrays.asList("p" + i));
+        }
+        first.shutdown(1000);
+
+        EncounterJournal second = journal(Long.MAX_VALUE);
+        List<EncounterJournal.Record> seen = replay(second, 2);
+
+        assertEquals(1, seen.size());
+        assertEquals(3, seen.get(0).seq);
+        assertEquals(4, second.append(9L, PlayerDatabase.GameOutcome.LOSS, Arrays.asList("x")).seq);
+        second.shutdown(1000);
+    }
+
+    @Test
+    public void numberingContinuesPastATruncatedJournal() {
+        EncounterJournal journal = journal(Long.MAX_VALUE);
+        replay(journal, 7);
+
+        assertEquals(8, journal.append(1L, PlayerDatabase.GameOutcome.WIN, Arrays.asList("steve")).seq);
+        journal.shutdown(1000);
+    }
+
+    @Test
+    public void truncateKeepsOnlyNewerRecords() {
+        EncounterJournal first = journal(Long.MAX_VALUE);
+        for (int i = 0; i < 4; i++) {
+            first.append(i, PlayerDatabase.GameOutcome.WIN, Arrays.asList("p" + i));
+        }
+        first.truncateThrough(3);
+        first.shutdown(1000);
+
+        List<EncounterJournal.Record> seen = replay(journal(Long.MAX_VALUE), 0);
+
+        assertEquals(1, seen.size());
+        assertEquals(4, seen.get(0).seq);
+    }
+
+    @Test
+    public void tornFinalLineIsSkipped() throws IOException {
+        EncounterJournal first = journal(Long.MAX_VALUE);
+        first.append(1L, PlayerDatabase.GameOutcome.WIN, Arrays.asList("steve"));
+        first.shutdown(1000);
+        Files.write(file.toPath(), "{\"n\":2,\"t\":5,\"o\":\"LO".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(1, replay(journal(Long.MAX_VALUE), 0).size());
+    }
+
+    @Test
+    public void appendAfterATornLineIsNotLost() throws IOException {
+        EncounterJournal first = journal(Long.MAX_VALUE);
+        first.append(1L, PlayerDatabase.GameOutcome.WIN, Arrays.asList("steve"));
+        first.shutdown(1000);
+        Files.write(file.toPath(), "{\"n\":2,\"t\":5,\"o\":\"LO".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        EncounterJournal second = journal(Long.MAX_VALUE);
+        replay(second, 0);
+        second.append(9L, PlayerDatabase.GameOutcome.LOSS, Arrays.asList("alex"));
+        second.truncateThrough(0);
+        second.shutdown(1000);
+
+        List<EncounterJournal.Record> seen = replay(journal(Long.MAX_VALUE), 0);
+        assertEquals(2, seen.size());
+        assertEquals(1, seen.get(0).seq);
+        assertEquals(Arrays.asList("alex"), seen.get(1).players);
+    }
+
+    @Test
+    public void readableLineWithoutNewlineIsKept() throws IOException {
+        Files.write(file.toPath(), "{\"n\":1,\"t\":5,\"o\":\"WIN\",\"p\":[\"steve\"]}"
+                .getBytes(StandardCharsets.UTF_8));
+
+        EncounterJournal journal = journal(Long.MAX_VALUE);
+        assertEquals(1, replay(journal, 0).size());
+        assertEquals(2, journal.append(9L, PlayerDatabase.GameOutcome.LOSS, Arrays.asList("alex")).seq);
+        journal.shutdown(1000);
+
+        assertEquals(2, replay(journal(Long.MAX_VALUE), 0).size());
+    }
+
+    @Test
+    public void malformedLinesParseToNull() {
+        assertNull(EncounterJournal.parse(""));
+        assertNull(EncounterJournal.parse("not json"));
+        assertNull(EncounterJournal.parse("{\"n\":1,\"t\":2,\"o\":\"DRAW\",\"p\":[]}"));
+    }
+
+    @Test
+    public void crossingTheThresholdRequestsOneCompaction() {
+        EncounterJournal journal = journal(10);
+        for (int i = 0; i < 5; i++) {
+            journal.append(i, PlayerDatabase.GameOutcome.WIN, Arrays.asList("steve"));
+        }
+        journal.shutdown(1000);
+
+        assertEquals(1, compactions.get());
+    }
+}
@@ -0,0 +1,107 @@
+package com.imshy.bedwars;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link HttpConnections} against a local stand-in API server:
+ * every response, success or error, must hand its socket back to the JDK
+ * keep-alive pool so one worker thread can sustain a full rate budget over a
+ * single connection.
+ */
+public class HttpConnectionsTest {
+
+    private HttpServer server;
+    private final Set<Integer> clientPorts =
+            java.util.Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    private String baseUrl;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                String path = exchange.getRequestURI().getPath();
+                int status = path.startsWith("/missing") ? 404 : path.startsWith("/limited") ? 429 : 200;
+                byte[] body = ("{\"success\":" + (status == 200) + ",\"padding\":\""
+                        + new String(new char[2000]).replace('\0', 'x') + "\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private int get(String path, boolean readBody) throws IOException {
+        HttpURLConnection conn = null;
+        try {
+            conn = HttpConnections.openGet(new URL(baseUrl + path), "test-key");
+            int status = conn.getResponseCode();
+            if (readBody && status == 200) {
+                InputStream in = conn.getInputStream();
+                in.read(new byte[16]); // partial read, like a parser stopping early
+            }
+            return status;
+        } finally {
+            HttpConnections.release(conn);
+        }
+    }
+
+    @Test
+    public void oneThreadSustainsAFullMinuteBudgetOverOneConnection() throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < 120; i++) {
+            String path = i % 10 == 3 ? "/missing/" + i : i % 10 == 7 ? "/limited" : "/player?uuid=" + i;
+            get(path, i % 2 == 0);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("sockets opened for 120 requests", 1, clientPorts.size());
+        assertTrue("120 requests took " + elapsedMs + " ms", elapsedMs < 10_000);
+    }
+
+    @Test
+    public void errorStatusesStillReportTheirCode() throws IOException {
+        assertEquals(404, get("/missing/name", true));
+        assertEquals(429, get("/limited", true));
+        assertEquals(200, get("/player", false));
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void releaseToleratesNullAndRepeatedCalls() throws IOException {
+        HttpConnections.release(null);
+        HttpURLConnection conn = HttpConnections.openGet(new URL(baseUrl + "/player"), null);
+        assertEquals(200, conn.getResponseCode());
+        HttpConnections.release(conn);
+        HttpConnections.release(conn);
+        assertEquals(200, get("/player", true));
+    }
+}
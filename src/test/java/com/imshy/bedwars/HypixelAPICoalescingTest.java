@@ -0,0 +1,304 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the single-flight fetch registry: HypixelAPI.PendingFetch decides
+ * when a joining caller should raise the queued task's priority, and fans one
+ * result out to every attached waiter. The queue tests hold every worker of
+ * both stages so fetches stay queued, and end them through
+ * cancelStaleFetches, so nothing reaches the network.
+ */
+public class HypixelAPICoalescingTest {
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    /** Records what it was handed; optionally throws to simulate a buggy consumer. */
+    private static class RecordingCallback implements HypixelAPI.StatsCallback {
+        final List<BedwarsStats> loaded = new ArrayList<BedwarsStats>();
+        final List<String> errors = new ArrayList<String>();
+        private final boolean throwOnDelivery;
+
+        RecordingCallback(boolean throwOnDelivery) {
+            this.throwOnDelivery = throwOnDelivery;
+        }
+
+        @Override
+        public void onStatsLoaded(BedwarsStats stats) {
+            loaded.add(stats);
+            if (throwOnDelivery) {
+                throw new IllegalStateException("boom");
+            }
+        }
+
+        @Override
+        public void onError(String error) {
+            errors.add(error);
+            if (throwOnDelivery) {
+                throw new IllegalStateException("boom");
+            }
+        }
+    }
+
+    /** Counts its deliveries down on a latch, for callbacks that arrive on pool threads. */
+    private static class AwaitedCallback extends RecordingCallback {
+        final CountDownLatch done = new CountDownLatch(1);
+
+        AwaitedCallback() {
+            super(false);
+        }
+
+        @Override
+        public synchronized void onStatsLoaded(BedwarsStats stats) {
+            super.onStatsLoaded(stats);
+            done.countDown();
+        }
+
+        @Override
+        public synchronized void onError(String error) {
+            super.onError(error);
+            done.countDown();
+        }
+
+        synchronized List<String> errors() {
+            return new ArrayList<String>(errors);
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("callback never answered", done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static final String UUID_A = "069a79f4-44e9-4726-a5be-fca90e38aaf5";
+    private static final String UUID_B = "853c80ef-3c37-49fd-aa49-938b674adae6";
+
+    private static CountDownLatch holdWorkers() throws InterruptedException {
+        CountDownLatch held = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        HypixelAPI.holdWorkersForTests(held, release);
+        assertTrue("workers not held", held.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private static HypixelAPI.PendingFetch pendingAt(HypixelAPI.FetchPriority priority) {
+        HypixelAPI.PendingFetch pending = new HypixelAPI.PendingFetch("Steve", null);
+        pending.task = new HypixelAPI.PrioritizedFetchTask(priority, NOOP);
+        return pending;
+    }
+
+    // ==================== PRIORITY RAISE ====================
+
+    @Test
+    public void higherPriorityJoinerRaisesQueuedTask() {
+        HypixelAPI.PendingFetch pending = pendingAt(HypixelAPI.FetchPriority.BACKGROUND);
+        assertTrue(pending.shouldRaiseTo(HypixelAPI.FetchPriority.EXPLICIT));
+        assertTrue(pending.shouldRaiseTo(HypixelAPI.FetchPriority.NORMAL));
+    }
+
+    @Test
+    public void equalOrLowerPriorityJoinerLeavesTaskAlone() {
+        HypixelAPI.PendingFetch pending = pendingAt(HypixelAPI.FetchPriority.TAB_HIGH_STAR);
+        assertFalse(pending.shouldRaiseTo(HypixelAPI.FetchPriority.TAB_HIGH_STAR));
+        assertFalse(pending.shouldRaiseTo(HypixelAPI.FetchPriority.BACKGROUND));
+    }
+
+    @Test
+    public void nullJoinerPriorityIsTreatedAsNormal() {
+        assertTrue(pendingAt(HypixelAPI.FetchPriority.BACKGROUND).shouldRaiseTo(null));
+        assertFalse(pendingAt(HypixelAPI.FetchPriority.NORMAL).shouldRaiseTo(null));
+    }
+
+    @Test
+    public void pendingWithoutTaskNeverRaises() {
+        HypixelAPI.PendingFetch pending = new HypixelAPI.PendingFetch("Steve", null);
+        assertFalse(pending.shouldRaiseTo(HypixelAPI.FetchPriority.EXPLICIT));
+    }
+
+    // ==================== WAITERS + FAN-OUT ====================
+
+    @Test
+    public void nullWaitersAreNotRegistered() {
+        HypixelAPI.PendingFetch pending = pendingAt(HypixelAPI.FetchPriority.NORMAL);
+        pending.addWaiter(new RecordingCallback(false));
+        pending.addWaiter(null);
+        assertEquals(1, pending.waiterCount());
+    }
+
+    @Test
+    public void successFansOutToEveryWaiter() {
+        RecordingCallback first = new RecordingCallback(false);
+        RecordingCallback second = new RecordingCallback(false);
+        BedwarsStats stats = BedwarsStats.createNicked("Steve");
+
+        HypixelAPI.PendingFetch.fanOut(
+                Arrays.<HypixelAPI.StatsCallback>asList(first, second), stats, null);
+
+        assertEquals(1, first.loaded.size());
+        assertSame(stats, first.loaded.get(0));
+        assertSame(stats, second.loaded.get(0));
+        assertTrue(first.errors.isEmpty());
+    }
+
+    @Test
+    public void errorFansOutToEveryWaiter() {
+        RecordingCallback first = new RecordingCallback(false);
+        RecordingCallback second = new RecordingCallback(false);
+
+        HypixelAPI.PendingFetch.fanOut(
+                Arrays.<HypixelAPI.StatsCallback>asList(first, second), null, "HTTP 500");
+
+        assertEquals(Arrays.asList("HTTP 500"), first.errors);
+        assertEquals(Arrays.asList("HTTP 500"), second.errors);
+        assertTrue(second.loaded.isEmpty());
+    }
+
+    @Test
+    public void throwingWaiterDoesNotStarveLaterWaiters() {
+        RecordingCallback broken = new RecordingCallback(true);
+        RecordingCallback after = new RecordingCallback(false);
+
+        HypixelAPI.PendingFetch.fanOut(
+                Arrays.<HypixelAPI.StatsCallback>asList(broken, after), null, "timed out");
+
+        assertEquals(1, after.errors.size());
+        assertTrue(after.loaded.isEmpty());
+    }
+
+    // ==================== LOBBY GENERATIONS ====================
+
+    @Test
+    public void ticketFromCurrentGenerationRuns() {
+        HypixelAPI.PendingFetch pending = pendingAt(HypixelAPI.FetchPriority.NORMAL);
+        pending.generation = 3;
+        assertFalse(pending.isCancelledAt(3));
+    }
+
+    @Test
+    public void ticketFromOlderGenerationIsCancelled() {
+        HypixelAPI.PendingFetch pending = pendingAt(HypixelAPI.FetchPriority.BACKGROUND);
+        pending.generation = 3;
+        assertTrue(pending.isCancelledAt(4));
+    }
+
+    @Test
+    public void explicitTicketSurvivesGenerationChange() {
+        HypixelAPI.PendingFetch pending = pendingAt(HypixelAPI.FetchPriority.EXPLICIT);
+        pending.generation = 3;
+        assertFalse(pending.isCancelledAt(4));
+    }
+
+    // ==================== QUEUES ====================
+
+    @Test
+    public void cancelDropsQueuedFetchesFromBothStages() throws InterruptedException {
+        int pendingBefore = HypixelAPI.pendingEntriesForTests();
+        CountDownLatch release = holdWorkers();
+        AwaitedCallback mojang = new AwaitedCallback();
+        AwaitedCallback hypixel = new AwaitedCallback();
+        try {
+            HypixelAPI.submitFetchForTests("QueueMojang", null, mojang, HypixelAPI.FetchPriority.NORMAL);
+            HypixelAPI.submitFetchForTests("QueueHypixel", UUID_A, hypixel, HypixelAPI.FetchPriority.NORMAL);
+            assertEquals(1, HypixelAPI.uuidQueueForTests().size());
+            assertEquals(1, HypixelAPI.executorQueueForTests().size());
+            assertEquals(pendingBefore + 3, HypixelAPI.pendingEntriesForTests());
+
+            HypixelAPI.cancelStaleFetches();
+        } finally {
+            release.countDown();
+        }
+        mojang.await();
+        hypixel.await();
+
+        assertEquals(Arrays.asList(HypixelAPI.FETCH_CANCELLED), mojang.errors());
+        assertEquals(Arrays.asList(HypixelAPI.FETCH_CANCELLED), hypixel.errors());
+        assertTrue(mojang.loaded.isEmpty());
+        assertEquals(pendingBefore, HypixelAPI.pendingEntriesForTests());
+    }
+
+    @Test
+    public void everyJoinedCallerHearsTheCancellation() throws InterruptedException {
+        CountDownLatch release = holdWorkers();
+        AwaitedCallback first = new AwaitedCallback();
+        AwaitedCallback joiner = new AwaitedCallback();
+        try {
+            HypixelAPI.submitFetchForTests("JoinedSteve", UUID_B, first, HypixelAPI.FetchPriority.BACKGROUND);
+            HypixelAPI.submitFetchForTests("joinedsteve", null, joiner, HypixelAPI.FetchPriority.BACKGROUND);
+            assertEquals(1, HypixelAPI.executorQueueForTests().size());
+
+            HypixelAPI.cancelStaleFetches();
+        } finally {
+            release.countDown();
+        }
+        first.await();
+        joiner.await();
+
+        assertEquals(Arrays.asList(HypixelAPI.FETCH_CANCELLED), first.errors());
+        assertEquals(Arrays.asList(HypixelAPI.FETCH_CANCELLED), joiner.errors());
+    }
+
+    @Test
+    public void namesForOneUuidShareOneTicket() throws InterruptedException {
+        int pendingBefore = HypixelAPI.pendingEntriesForTests();
+        CountDownLatch release = holdWorkers();
+        AwaitedCallback original = new AwaitedCallback();
+        AwaitedCallback renamed = new AwaitedCallback();
+        try {
+            HypixelAPI.submitFetchForTests("OldName", UUID_A, original, HypixelAPI.FetchPriority.NORMAL);
+            HypixelAPI.submitFetchForTests("NewName", UUID_A, renamed, HypixelAPI.FetchPriority.NORMAL);
+
+            // One queued task and one UUID entry, reachable from both names.
+            assertEquals(1, HypixelAPI.executorQueueForTests().size());
+            assertEquals(pendingBefore + 3, HypixelAPI.pendingEntriesForTests());
+
+            HypixelAPI.cancelStaleFetches();
+        } finally {
+            release.countDown();
+        }
+        original.await();
+        renamed.await();
+
+        assertEquals(Arrays.asList(HypixelAPI.FETCH_CANCELLED), renamed.errors());
+        assertEquals(pendingBefore, HypixelAPI.pendingEntriesForTests());
+    }
+
+    @Test
+    public void foreignTaskOnTheMojangQueueIsHandedBackToTheWorker() throws InterruptedException {
+        CountDownLatch release = holdWorkers();
+        AwaitedCallback lookup = new AwaitedCallback();
+        final CountDownLatch foreignRan = new CountDownLatch(1);
+        try {
+            HypixelAPI.submitFetchForTests("BatchFirst", null, lookup, HypixelAPI.FetchPriority.NORMAL);
+            // Sorts after the lookup, so the batch meets it while gathering.
+            HypixelAPI.uuidQueueForTests().offer(new HypixelAPI.PrioritizedFetchTask(
+                    HypixelAPI.FetchPriority.BACKGROUND, new Runnable() {
+                        @Override
+                        public void run() {
+                            foreignRan.countDown();
+                        }
+                    }));
+
+            HypixelAPI.cancelStaleFetches();
+        } finally {
+            release.countDown();
+        }
+        lookup.await();
+
+        assertEquals(Arrays.asList(HypixelAPI.FETCH_CANCELLED), lookup.errors());
+        assertTrue("foreign task never ran", foreignRan.await(5, TimeUnit.SECONDS));
+    }
+}
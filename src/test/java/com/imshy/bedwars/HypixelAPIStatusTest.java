@@ -0,0 +1,37 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for how a non-200 Hypixel answer is remembered per name: only a 404
+ * marks the player absent, a 429 or 403 is left to the rate-limit and
+ * API-key gates, and any other status is a short, retryable error.
+ */
+public class HypixelAPIStatusTest {
+
+    @Test
+    public void rateLimitIsNotAPerNameFailure() {
+        assertNull(HypixelAPI.failureKindForStatus(429));
+    }
+
+    @Test
+    public void forbiddenIsNotAPerNameFailure() {
+        assertNull(HypixelAPI.failureKindForStatus(403));
+    }
+
+    @Test
+    public void onlyNotFoundMarksThePlayerAbsent() {
+        assertEquals(NegativeCache.Kind.NOT_FOUND, HypixelAPI.failureKindForStatus(404));
+        assertEquals(NegativeCache.Kind.SERVER_ERROR, HypixelAPI.failureKindForStatus(400));
+        assertEquals(NegativeCache.Kind.SERVER_ERROR, HypixelAPI.failureKindForStatus(503));
+    }
+
+    @Test
+    public void otherClientErrorsExpireSoonerThanAbsence() {
+        assertTrue(NegativeCache.Kind.SERVER_ERROR.ttlMs < NegativeCache.Kind.NOT_FOUND.ttlMs);
+    }
+}
@@ -0,0 +1,81 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link NegativeCache}: per-kind TTLs, backoff on repeat failures,
+ * and forgetting a name once it succeeds.
+ */
+public class NegativeCacheTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Test
+    public void failureBlocksForItsKindsTtl() {
+        NegativeCache cache = new NegativeCache(100);
+        cache.record("steve", NegativeCache.Kind.TIMEOUT, NOW);
+
+        assertNotNull(cache.active("steve", NOW + NegativeCache.Kind.TIMEOUT.ttlMs - 1));
+        assertNull(cache.active("steve", NOW + NegativeCache.Kind.TIMEOUT.ttlMs));
+    }
+
+    @Test
+    public void kindsHaveDifferentTtls() {
+        NegativeCache cache = new NegativeCache(100);
+        cache.record("nick", NegativeCache.Kind.NICKED, NOW);
+        cache.record("flaky", NegativeCache.Kind.SERVER_ERROR, NOW);
+
+        long later = NOW + NegativeCache.Kind.SERVER_ERROR.ttlMs;
+        assertNotNull(cache.active("nick", later));
+        assertNull(cache.active("flaky", later));
+    }
+
+    @Test
+    public void repeatFailuresBackOffUpToTheCap() {
+        NegativeCache cache = new NegativeCache(100);
+        long ttl = NegativeCache.Kind.TIMEOUT.ttlMs;
+
+        assertEquals(NOW + ttl, cache.record("steve", NegativeCache.Kind.TIMEOUT, NOW).until);
+        assertEquals(NOW + 2 * ttl, cache.record("steve", NegativeCache.Kind.TIMEOUT, NOW).until);
+        assertEquals(NOW + 4 * ttl, cache.record("steve", NegativeCache.Kind.TIMEOUT, NOW).until);
+        assertEquals(NOW + 8 * ttl, cache.record("steve", NegativeCache.Kind.TIMEOUT, NOW).until);
+        assertEquals(NOW + 8 * ttl, cache.record("steve", NegativeCache.Kind.TIMEOUT, NOW).until);
+    }
+
+    @Test
+    public void successForgetsTheName() {
+        NegativeCache cache = new NegativeCache(100);
+        cache.record("steve", NegativeCache.Kind.TIMEOUT, NOW);
+        cache.succeeded("steve");
+
+        assertNull(cache.active("steve", NOW));
+        assertEquals(1, cache.record("steve", NegativeCache.Kind.TIMEOUT, NOW).count);
+    }
+
+    @Test
+    public void countsActiveMemosPerKind() {
+        NegativeCache cache = new NegativeCache(100);
+        cache.record("a", NegativeCache.Kind.NICKED, NOW);
+        cache.record("b", NegativeCache.Kind.NICKED, NOW);
+        cache.record("c", NegativeCache.Kind.TIMEOUT, NOW - NegativeCache.Kind.TIMEOUT.ttlMs);
+
+        int[] counts = cache.activeCounts(NOW);
+        assertEquals(2, counts[NegativeCache.Kind.NICKED.ordinal()]);
+        assertEquals(0, counts[NegativeCache.Kind.TIMEOUT.ordinal()]);
+    }
+
+    @Test
+    public void boundedByEntryCount() {
+        NegativeCache cache = new NegativeCache(2);
+        cache.record("a", NegativeCache.Kind.NICKED, NOW);
+        cache.record("b", NegativeCache.Kind.NICKED, NOW);
+        cache.record("c", NegativeCache.Kind.NICKED, NOW);
+
+        assertNull(cache.active("a", NOW));
+        assertNotNull(cache.active("c", NOW));
+    }
+}
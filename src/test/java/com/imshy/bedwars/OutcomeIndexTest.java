@@ -0,0 +1,127 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link OutcomeIndex}: lookback counts and totals match a walk of
+ * the raw encounters, and survive rolling up into day buckets and a JSON
+ * round trip.
+ */
+public class OutcomeIndexTest {
+
+    private static final long DAY = OutcomeIndex.DAY_MS;
+    private static final long NOW = 20000L * DAY + DAY / 2;
+
+    private static PlayerDatabase.EncounterEntry entry(PlayerDatabase.GameOutcome outcome, long timestamp) {
+        return new PlayerDatabase.EncounterEntry(null, outcome, timestamp);
+    }
+
+    @Test
+    public void countsSinceAreInclusiveOfTheBoundary() {
+        OutcomeIndex index = new OutcomeIndex();
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, NOW - 10 * DAY);
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, NOW - 3 * DAY);
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, NOW - DAY);
+        index.add("steve", PlayerDatabase.GameOutcome.WIN, NOW - DAY);
+
+        assertEquals(2, index.countSince("steve", PlayerDatabase.GameOutcome.LOSS, NOW - 3 * DAY));
+        assertEquals(1, index.countSince("steve", PlayerDatabase.GameOutcome.LOSS, NOW - 3 * DAY + 1));
+        assertEquals(3, index.countSince("steve", PlayerDatabase.GameOutcome.LOSS, 0));
+        assertEquals(0, index.countSince("alex", PlayerDatabase.GameOutcome.LOSS, 0));
+    }
+
+    @Test
+    public void outOfOrderAddsStaySorted() {
+        OutcomeIndex index = new OutcomeIndex();
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, NOW);
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, NOW - 5 * DAY);
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, NOW - 2 * DAY);
+
+        assertEquals(2, index.countSince("steve", PlayerDatabase.GameOutcome.LOSS, NOW - 2 * DAY));
+    }
+
+    @Test
+    public void totalsPerOutcomeAndOverall() {
+        OutcomeIndex index = new OutcomeIndex();
+        index.rebuild("steve", Arrays.asList(
+                entry(PlayerDatabase.GameOutcome.WIN, NOW),
+                entry(PlayerDatabase.GameOutcome.LOSS, NOW - DAY),
+                entry(PlayerDatabase.GameOutcome.WIN, NOW - 2 * DAY),
+                entry(PlayerDatabase.GameOutcome.UNKNOWN, NOW)));
+
+        assertEquals(2, index.total("steve", PlayerDatabase.GameOutcome.WIN));
+        assertEquals(1, index.total("steve", PlayerDatabase.GameOutcome.LOSS));
+        assertEquals(4, index.total("steve"));
+        assertTrue(index.contains("steve"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void rebuildWithNothingForgetsThePlayer() {
+        OutcomeIndex index = new OutcomeIndex();
+        index.add("steve", PlayerDatabase.GameOutcome.WIN, NOW);
+        index.rebuild("steve", Arrays.<PlayerDatabase.EncounterEntry>asList());
+
+        assertFalse(index.contains("steve"));
+    }
+
+    @Test
+    public void rollUpKeepsTotalsAndDayGranularCounts() {
+        OutcomeIndex index = new OutcomeIndex();
+        long old = NOW - 400 * DAY;
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, old);
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, old + 1000);
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, old + 2 * DAY);
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, NOW - DAY);
+
+        assertEquals(3, index.rollUp("steve", NOW - 180 * DAY));
+        assertEquals(0, index.rollUp("steve", NOW - 180 * DAY));
+
+        assertEquals(4, index.total("steve", PlayerDatabase.GameOutcome.LOSS));
+        assertEquals(1, index.countSince("steve", PlayerDatabase.GameOutcome.LOSS, NOW - 30 * DAY));
+        // Buckets count from the start of the day containing the boundary.
+        assertEquals(2, index.countSince("steve", PlayerDatabase.GameOutcome.LOSS, old + 2 * DAY + 1));
+        assertEquals(4, index.countSince("steve", PlayerDatabase.GameOutcome.LOSS, old + 1));
+    }
+
+    @Test
+    public void rollUpMergesIntoExistingBuckets() {
+        OutcomeIndex index = new OutcomeIndex();
+        long old = NOW - 400 * DAY;
+        index.add("steve", PlayerDatabase.GameOutcome.WIN, old);
+        index.rollUp("steve", NOW - 180 * DAY);
+        index.add("steve", PlayerDatabase.GameOutcome.WIN, old + 1);
+        index.add("steve", PlayerDatabase.GameOutcome.WIN, old - DAY);
+        index.rollUp("steve", NOW - 180 * DAY);
+
+        assertEquals(3, index.total("steve", PlayerDatabase.GameOutcome.WIN));
+        assertEquals(2, index.countSince("steve", PlayerDatabase.GameOutcome.WIN, old));
+    }
+
+    @Test
+    public void rollupsSurviveAJsonRoundTrip() {
+        OutcomeIndex index = new OutcomeIndex();
+        long old = NOW - 400 * DAY;
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, old);
+        index.add("steve", PlayerDatabase.GameOutcome.LOSS, old + 5 * DAY);
+        index.add("steve", PlayerDatabase.GameOutcome.WIN, old);
+        index.add("steve", PlayerDatabase.GameOutcome.WIN, NOW);
+        index.add("alex", PlayerDatabase.GameOutcome.WIN, NOW);
+        index.rollUp("steve", NOW - 180 * DAY);
+
+        OutcomeIndex restored = new OutcomeIndex();
+        restored.loadRollups(index.rollupsToJson());
+        restored.rebuild("steve", Arrays.asList(entry(PlayerDatabase.GameOutcome.WIN, NOW)));
+
+        assertFalse("raw-only players are left to the history", restored.contains("alex"));
+        assertEquals(2, restored.total("steve", PlayerDatabase.GameOutcome.LOSS));
+        assertEquals(2, restored.total("steve", PlayerDatabase.GameOutcome.WIN));
+        assertEquals(1, restored.countSince("steve", PlayerDatabase.GameOutcome.LOSS, old + DAY));
+    }
+}
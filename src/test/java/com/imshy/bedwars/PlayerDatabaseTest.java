@@ -0,0 +1,216 @@
+package com.imshy.bedwars;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link PlayerDatabase#batch}: however many mutations and purges
+ * a batch holds, and however deeply it nests, it hands the writer one save
+ * when the outermost batch returns, and a snapshot taken meanwhile sees all
+ * of it or none. Also that a save deferred by the startup load still lands,
+ * and that the blacklist-name snapshot neither purges nor saves.
+ */
+public class PlayerDatabaseTest {
+
+    private File dir;
+    private PlayerDatabase db;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("playerdb-test").toFile();
+        db = new PlayerDatabase(dir);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void mutationsAndPurgeInOneBatchSaveOnce() {
+        db.addOrRefreshAutoBlacklist("Expired", "auto", 7);
+        db.getBlacklistEntry("Expired").expiresAt = 1L;
+        final int before = db.saveRequestsForTests();
+
+        int size = db.batch(new PlayerDatabase.Transaction<Integer>() {
+            @Override
+            public Integer run(PlayerDatabase db) {
+                db.addToBlacklist("Steve", "rusher");
+                db.addToBlacklist("Alex", "camper");
+                db.addOrRefreshAutoBlacklist("Notch", "auto", 7);
+                db.removeFromBlacklist("Alex");
+                // Purges the expired entry, which asks for a save too.
+                return db.getBlacklistSize();
+            }
+        });
+
+        assertEquals(2, size);
+        assertEquals(before + 1, db.saveRequestsForTests());
+    }
+
+    @Test
+    public void blacklistNamesSnapshotSkipsExpiredEntriesWithoutSaving() {
+        db.addToBlacklist("Steve", "rusher");
+        db.addOrRefreshAutoBlacklist("Expired", "auto", 7);
+        db.getBlacklistEntry("Expired").expiresAt = 1L;
+        int before = db.saveRequestsForTests();
+
+        java.util.Set<String> names = db.getBlacklistedNamesSnapshot();
+
+        assertEquals(1, names.size());
+        assertTrue(names.contains("Steve"));
+        assertEquals(before, db.saveRequestsForTests());
+        // Still there for the purge that owns the save.
+        assertEquals(1, db.getBlacklistSize());
+    }
+
+    @Test
+    public void batchWithoutChangesDoesNotSave() {
+        int before = db.saveRequestsForTests();
+        db.batch(new PlayerDatabase.Transaction<Boolean>() {
+            @Override
+            public Boolean run(PlayerDatabase db) {
+                return db.isBlacklisted("Nobody");
+            }
+        });
+
+        assertEquals(before, db.saveRequestsForTests());
+    }
+
+    @Test
+    public void nestedBatchesCommitAtTheOutermost() {
+        final int before = db.saveRequestsForTests();
+        final int[] insideOuter = new int[1];
+
+        db.batch(new PlayerDatabase.Transaction<Void>() {
+            @Override
+            public Void run(PlayerDatabase outer) {
+                outer.addToBlacklist("Steve", "rusher");
+                outer.batch(new PlayerDatabase.Transaction<Void>() {
+                    @Override
+                    public Void run(PlayerDatabase inner) {
+                        inner.addToBlacklist("Alex", "camper");
+                        return null;
+                    }
+                });
+                // The inner batch returned without committing.
+                insideOuter[0] = outer.saveRequestsForTests();
+                outer.addToBlacklist("Notch", "bridger");
+                return null;
+            }
+        });
+
+        assertEquals(before, insideOuter[0]);
+        assertEquals(before + 1, db.saveRequestsForTests());
+    }
+
+    @Test
+    public void snapshotNeverSeesHalfABatch() throws Exception {
+        // Leave something unsaved so flush() has a snapshot to write.
+        db.addToBlacklist("Earlier", "seed");
+
+        final CountDownLatch halfway = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        Thread batcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                db.batch(new PlayerDatabase.Transaction<Void>() {
+                    @Override
+                    public Void run(PlayerDatabase db) {
+                        db.addToBlacklist("First", "half");
+                        halfway.countDown();
+                        try {
+                            finish.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        db.addToBlacklist("Second", "half");
+                        return null;
+                    }
+                });
+            }
+        });
+        batcher.start();
+        assertTrue(halfway.await(5, TimeUnit.SECONDS));
+
+        Thread flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                db.flush();
+            }
+        });
+        flusher.start();
+        // The snapshot waits on the batch's lock rather than writing half of it.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flusher.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Thread.State.BLOCKED, flusher.getState());
+        finish.countDown();
+        batcher.join(5000);
+        flusher.join(5000);
+
+        String json = new String(Files.readAllBytes(new File(dir, "playerdata.json").toPath()),
+                StandardCharsets.UTF_8);
+        JsonObject blacklist = new JsonParser().parse(json).getAsJsonObject().getAsJsonObject("blacklist");
+        assertTrue(blacklist.has("earlier"));
+        assertTrue(blacklist.has("first"));
+        assertTrue(blacklist.has("second"));
+    }
+
+    @Test
+    public void saveSkippedWhileLoadingIsWrittenOnceLoaded() throws Exception {
+        final CountDownLatch gate = new CountDownLatch(1);
+        db.holdLoadForTests(gate, 20);
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                // Starts the load; the empty batch itself saves nothing.
+                db.batch(new PlayerDatabase.Transaction<Void>() {
+                    @Override
+                    public Void run(PlayerDatabase db) {
+                        return null;
+                    }
+                });
+            }
+        });
+        loader.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loader.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        db.save();
+        db.flush();
+        File data = new File(dir, "playerdata.json");
+        assertFalse(data.exists());
+
+        gate.countDown();
+        loader.join(5000);
+        db.flush();
+
+        assertTrue(data.exists());
+    }
+}
@@ -0,0 +1,48 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link PlayerKey}: every spelling of a name resolves to one key
+ * with one shared lowercase string, distinct names stay distinct, and the
+ * table stays bounded without invalidating keys handed out earlier.
+ */
+public class PlayerKeyTest {
+
+    @Test
+    public void everySpellingResolvesToOneKey() {
+        PlayerKey key = PlayerKey.of("KeyTest_Steve");
+
+        assertSame(key, PlayerKey.of("keytest_steve"));
+        assertSame(key, PlayerKey.of("KEYTEST_STEVE"));
+        assertEquals("keytest_steve", key.name);
+        assertSame(key.name, PlayerKey.canonicalName("KeyTest_STEVE"));
+    }
+
+    @Test
+    public void distinctNamesAreDistinctKeys() {
+        PlayerKey first = PlayerKey.of("KeyTest_Alex");
+        PlayerKey second = PlayerKey.of("KeyTest_Herobrine");
+
+        assertNotEquals(first, second);
+        assertEquals(first.name.hashCode(), first.hashCode());
+    }
+
+    @Test
+    public void tableStartsOverPastItsCapAndOldKeysStayEqual() {
+        PlayerKey early = PlayerKey.of("KeyTest_Early");
+        for (int i = 0; i <= PlayerKey.MAX_NAMES; i++) {
+            PlayerKey.of("KeyTest_Filler" + i);
+        }
+
+        assertTrue(PlayerKey.size() <= PlayerKey.MAX_NAMES);
+        PlayerKey again = PlayerKey.of("KEYTEST_EARLY");
+        assertEquals(early, again);
+        assertEquals(early.hashCode(), again.hashCode());
+    }
+}
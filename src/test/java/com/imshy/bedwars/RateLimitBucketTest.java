@@ -0,0 +1,184 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link RateLimitBucket}: fixed-window refill, header re-sync, the
+ * EXPLICIT reserve, BACKGROUND pacing and the ledger shared between clients.
+ */
+public class RateLimitBucketTest {
+
+    private static final long WINDOW_MS = 60 * 1000;
+    private static final long T0 = 1_000_000L;
+
+    private static final HypixelAPI.FetchPriority EXPLICIT = HypixelAPI.FetchPriority.EXPLICIT;
+    private static final HypixelAPI.FetchPriority NORMAL = HypixelAPI.FetchPriority.NORMAL;
+    private static final HypixelAPI.FetchPriority BACKGROUND = HypixelAPI.FetchPriority.BACKGROUND;
+
+    private static int drain(RateLimitBucket bucket, HypixelAPI.FetchPriority priority, long now) {
+        int granted = 0;
+        while (bucket.tryAcquire(priority, now) == 0) {
+            granted++;
+        }
+        return granted;
+    }
+
+    // ==================== WINDOW + RESERVE ====================
+
+    @Test
+    public void normalStopsAtReserveAndExplicitSpendsTheRest() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+
+        assertEquals(120 - RateLimitBucket.EXPLICIT_RESERVE, drain(bucket, NORMAL, T0));
+        assertEquals(RateLimitBucket.EXPLICIT_RESERVE, drain(bucket, EXPLICIT, T0));
+        assertEquals(0, bucket.snapshot(T0).tokens);
+    }
+
+    @Test
+    public void refusalReportsTimeUntilWindowReset() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+        drain(bucket, EXPLICIT, T0);
+
+        assertEquals(WINDOW_MS - 5000, bucket.tryAcquire(EXPLICIT, T0 + 5000));
+    }
+
+    @Test
+    public void tokensRefillAllAtOnceAtReset() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+        drain(bucket, EXPLICIT, T0);
+
+        assertEquals(0, bucket.snapshot(T0 + WINDOW_MS - 1).tokens);
+        assertEquals(120, bucket.snapshot(T0 + WINDOW_MS).tokens);
+        assertEquals(0, bucket.tryAcquire(EXPLICIT, T0 + WINDOW_MS));
+    }
+
+    // ==================== HEADER SYNC ====================
+
+    @Test
+    public void syncAdoptsServerRemainingAndReset() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+        bucket.tryAcquire(EXPLICIT, T0);
+
+        bucket.sync(300, 3, 10, T0);
+        RateLimitBucket.State state = bucket.snapshot(T0);
+        assertEquals(300, state.capacity);
+        assertEquals(3, state.tokens);
+        assertEquals(T0 + 10_000, state.resetAt);
+        assertEquals(3, drain(bucket, EXPLICIT, T0));
+        assertEquals(300, bucket.snapshot(T0 + 10_000).tokens);
+    }
+
+    @Test
+    public void missingHeadersKeepLocalValues() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+        bucket.tryAcquire(EXPLICIT, T0);
+
+        bucket.sync(-1, 50, -1, T0);
+        RateLimitBucket.State state = bucket.snapshot(T0);
+        assertEquals(120, state.capacity);
+        assertEquals(50, state.tokens);
+        assertEquals(T0 + WINDOW_MS, state.resetAt);
+    }
+
+    @Test
+    public void drainEmptiesUntilGivenTime() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+        bucket.drainUntil(T0 + 30_000);
+
+        assertEquals(30_000, bucket.tryAcquire(EXPLICIT, T0));
+        assertEquals(0, bucket.tryAcquire(EXPLICIT, T0 + 30_000));
+    }
+
+    // ==================== BACKGROUND PACING ====================
+
+    @Test
+    public void backgroundOnlyGetsItsBurstAtWindowStart() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+        bucket.tryAcquire(EXPLICIT, T0); // opens the window at T0
+
+        assertEquals(RateLimitBucket.BACKGROUND_BURST - 1, drain(bucket, BACKGROUND, T0));
+        long wait = bucket.tryAcquire(BACKGROUND, T0);
+        assertTrue("wait " + wait, wait > 0 && wait < WINDOW_MS);
+        // Higher priorities are not held back by the pacing line.
+        assertEquals(0, bucket.tryAcquire(NORMAL, T0));
+    }
+
+    @Test
+    public void backgroundSpreadsAcrossTheWindowAndKeepsReserve() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+        bucket.tryAcquire(EXPLICIT, T0);
+
+        int halfway = drain(bucket, BACKGROUND, T0 + WINDOW_MS / 2);
+        int total = halfway + drain(bucket, BACKGROUND, T0 + WINDOW_MS - 1);
+
+        assertTrue("halfway " + halfway, halfway > 40 && halfway < 70);
+        // Just before reset the line sits a hair above the reserve, never below it.
+        int left = bucket.snapshot(T0 + WINDOW_MS - 1).tokens;
+        assertTrue("left " + left, left >= RateLimitBucket.EXPLICIT_RESERVE
+                && left <= RateLimitBucket.EXPLICIT_RESERVE + 1);
+        assertEquals(120 - 1 - left, total);
+    }
+
+    @Test
+    public void predictedBackgroundWaitIsHonoured() {
+        RateLimitBucket bucket = new RateLimitBucket(120, WINDOW_MS);
+        bucket.tryAcquire(EXPLICIT, T0);
+        drain(bucket, BACKGROUND, T0);
+
+        long wait = bucket.tryAcquire(BACKGROUND, T0);
+        assertEquals(0, bucket.tryAcquire(BACKGROUND, T0 + wait));
+    }
+
+    // ==================== SHARED LEDGER ====================
+
+    @Test
+    public void bucketsOnOneLedgerSpendOneBudget() throws Exception {
+        File file = File.createTempFile("ratelimit", ".bin");
+        file.delete();
+        SharedRateLedger firstLedger = new SharedRateLedger(file);
+        SharedRateLedger secondLedger = new SharedRateLedger(file);
+        try {
+            RateLimitBucket first = new RateLimitBucket(120, WINDOW_MS, firstLedger);
+            RateLimitBucket second = new RateLimitBucket(120, WINDOW_MS, secondLedger);
+
+            int firstGranted = 0;
+            for (int i = 0; i < 50; i++) {
+                if (first.tryAcquire(NORMAL, T0) == 0) {
+                    firstGranted++;
+                }
+            }
+            assertEquals(50, firstGranted);
+            assertEquals(70, second.snapshot(T0).tokens);
+            assertEquals(120 - RateLimitBucket.EXPLICIT_RESERVE - 50, drain(second, NORMAL, T0));
+            assertEquals(RateLimitBucket.EXPLICIT_RESERVE, first.snapshot(T0).tokens);
+        } finally {
+            firstLedger.close();
+            secondLedger.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void headerSyncIsSeenByTheOtherBucket() throws Exception {
+        File file = File.createTempFile("ratelimit", ".bin");
+        file.delete();
+        SharedRateLedger firstLedger = new SharedRateLedger(file);
+        SharedRateLedger secondLedger = new SharedRateLedger(file);
+        try {
+            RateLimitBucket first = new RateLimitBucket(120, WINDOW_MS, firstLedger);
+            RateLimitBucket second = new RateLimitBucket(120, WINDOW_MS, secondLedger);
+
+            first.sync(120, 7, 30, T0);
+            assertEquals(7, second.snapshot(T0).tokens);
+        } finally {
+            firstLedger.close();
+            secondLedger.close();
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link StartupLoader}: loads run off the calling thread, their
+ * tasks report completion, and a failing store does not take the others down.
+ */
+public class StartupLoaderTest {
+
+    @Test
+    public void loadRunsInTheBackgroundAndCompletes() {
+        final CountDownLatch release = new CountDownLatch(1);
+        StartupLoader.Task task = StartupLoader.load("slow store", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        assertFalse(task.isDone());
+        assertFalse(task.await(20));
+
+        release.countDown();
+        assertTrue(task.await(5000));
+        assertTrue(task.describe().startsWith("slow store "));
+    }
+
+    @Test
+    public void storesLoadInParallel() {
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        Runnable load = new Runnable() {
+            @Override
+            public void run() {
+                bothRunning.countDown();
+                try {
+                    bothRunning.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        StartupLoader.Task first = StartupLoader.load("first", load);
+        StartupLoader.Task second = StartupLoader.load("second", load);
+
+        assertTrue(first.await(5000));
+        assertTrue(second.await(5000));
+    }
+
+    @Test
+    public void failureIsReportedNotThrown() {
+        StartupLoader.Task task = StartupLoader.load("broken store", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("corrupt");
+            }
+        });
+
+        assertTrue(task.await(5000));
+        assertTrue(task.describe().equals("broken store failed"));
+        assertTrue(StartupLoader.describe().contains("broken store failed"));
+    }
+}
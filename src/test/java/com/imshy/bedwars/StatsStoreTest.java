@@ -0,0 +1,325 @@
+package com.imshy.bedwars;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link StatsStore}, the memory-mapped warm-start stats cache:
+ * record round-trips, expiry, case-insensitive lookup, persistence across
+ * reopen, torn-record detection, in-place growth, remembered misses and
+ * sharing one file between clients.
+ */
+public class StatsStoreTest {
+
+    private static final long HOUR_MS = 60L * 60L * 1000L;
+    private static final long T0 = 1_700_000_000_000L;
+    private static final String UUID = "069a79f4-44e9-4726-a5be-fca90e38aaf5";
+
+    private File file;
+    private StatsStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("statscache", ".bin");
+        file.delete();
+        store = new StatsStore(file, HOUR_MS, 16);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        file.delete();
+    }
+
+    private static BedwarsStats parsed(String name, String uuid, String bedwarsBody) {
+        BedwarsStats stats = new BedwarsStats(name, uuid);
+        stats.parseFromJson("{\"success\":true,\"player\":{\"stats\":{\"Bedwars\":{" + bedwarsBody + "}}}}");
+        return stats;
+    }
+
+    private static BedwarsStats sample(String name) {
+        return parsed(name, UUID, "\"Experience\":9000,\"final_kills_bedwars\":120,"
+                + "\"final_deaths_bedwars\":40,\"wins_bedwars\":30,\"losses_bedwars\":20,"
+                + "\"beds_broken_bedwars\":55,\"final_kills_bedwars_monthly_a\":10,"
+                + "\"final_deaths_bedwars_weekly_b\":3,\"four_four_final_kills_bedwars\":70,"
+                + "\"eight_one_wins_bedwars\":4");
+    }
+
+    // ==================== RECORD ROUND-TRIP ====================
+
+    @Test
+    public void storedStatsRoundTripEveryCounter() {
+        BedwarsStats original = sample("Steve");
+        store.put(original, T0);
+
+        StatsStore.Entry entry = store.get("Steve", T0 + 1000);
+        assertNotNull(entry);
+        BedwarsStats copy = entry.stats;
+        assertEquals(T0, entry.savedAt);
+        assertEquals("Steve", copy.getPlayerName());
+        assertEquals(UUID, copy.getUuid());
+        assertTrue(copy.isLoaded());
+        assertFalse(copy.isNicked());
+        assertEquals(original.getStars(), copy.getStars());
+        assertEquals(original.getFinalKills(), copy.getFinalKills());
+        assertEquals(original.getBedsBroken(), copy.getBedsBroken());
+        assertEquals(original.getFkdr(), copy.getFkdr(), 1e-9);
+        assertEquals(original.getWlr(), copy.getWlr(), 1e-9);
+        assertEquals(original.getMonthlyFinalKills(), copy.getMonthlyFinalKills());
+        assertEquals(original.getWeeklyFinalDeaths(), copy.getWeeklyFinalDeaths());
+        assertEquals(70, copy.getModeFinalKills(BedwarsStats.Mode.FOURS));
+        assertEquals(4, copy.getModeWins(BedwarsStats.Mode.SOLO));
+        assertEquals(original.getModeFkdr(BedwarsStats.Mode.FOURS),
+                copy.getModeFkdr(BedwarsStats.Mode.FOURS), 1e-9);
+    }
+
+    @Test
+    public void nickedPlaceholderKeepsNickFlagAndEmptyUuid() {
+        store.put(BedwarsStats.createNicked("Alias_1"), T0);
+
+        BedwarsStats copy = store.get("Alias_1", T0).stats;
+        assertTrue(copy.isNicked());
+        assertEquals("", copy.getUuid());
+    }
+
+    @Test
+    public void fromRecordRejectsWrongLength() {
+        assertNull(BedwarsStats.fromRecord("Steve", UUID, false, new int[3]));
+        assertNull(BedwarsStats.fromRecord("Steve", UUID, false, null));
+    }
+
+    // ==================== LOOKUP RULES ====================
+
+    @Test
+    public void lookupIsCaseInsensitive() {
+        store.put(sample("Steve"), T0);
+        assertNotNull(store.get("sTEVE", T0));
+    }
+
+    @Test
+    public void expiredRecordsAreMisses() {
+        store.put(sample("Steve"), T0);
+        assertNotNull(store.get("Steve", T0 + HOUR_MS));
+        assertNull(store.get("Steve", T0 + HOUR_MS + 1));
+    }
+
+    @Test
+    public void rewriteReplacesInPlaceWithoutGrowingCount() {
+        store.put(sample("Steve"), T0);
+        store.put(BedwarsStats.createNicked("Steve"), T0 + 5);
+        assertEquals(1, store.size());
+        assertTrue(store.get("Steve", T0 + 5).stats.isNicked());
+    }
+
+    @Test
+    public void errorsAndOddNamesAreNotPersisted() {
+        BedwarsStats failed = new BedwarsStats("Steve", UUID);
+        failed.parseFromJson("{\"success\":false}");
+        store.put(failed, T0);
+        store.put(new BedwarsStats("Unloaded", UUID), T0);
+        store.put(BedwarsStats.createNicked("ThisNameIsFarTooLong"), T0);
+        store.put(BedwarsStats.createNicked("bad name"), T0);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void clearDropsEverything() {
+        store.put(sample("Steve"), T0);
+        store.clear();
+        assertEquals(0, store.size());
+        assertNull(store.get("Steve", T0));
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    @Test
+    public void recordsSurviveReopen() {
+        store.put(sample("Steve"), T0);
+        store.close();
+
+        store = new StatsStore(file, HOUR_MS, 16);
+        assertEquals(1, store.size());
+        assertEquals(120, store.get("Steve", T0).stats.getFinalKills());
+    }
+
+    @Test
+    public void tornRecordReadsAsMiss() throws Exception {
+        store.put(sample("Steve"), T0);
+        store.close();
+
+        // Flip one counter byte inside the only occupied slot.
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            byte[] all = new byte[(int) raf.length()];
+            raf.readFully(all);
+            int slotStart = -1;
+            for (int i = StatsStore.HEADER_BYTES; i + StatsStore.SLOT_BYTES <= all.length; i += StatsStore.SLOT_BYTES) {
+                if (all[i + 4 + 3] != 0) {
+                    slotStart = i;
+                    break;
+                }
+            }
+            assertTrue(slotStart > 0);
+            raf.seek(slotStart + StatsStore.SLOT_BYTES - 1);
+            raf.write(all[slotStart + StatsStore.SLOT_BYTES - 1] ^ 0x5A);
+        } finally {
+            raf.close();
+        }
+
+        store = new StatsStore(file, HOUR_MS, 16);
+        assertNull(store.get("Steve", T0));
+    }
+
+    @Test
+    public void foreignFileIsReinitialized() throws Exception {
+        store.close();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.writeBytes("not a stats cache at all");
+        } finally {
+            raf.close();
+        }
+
+        store = new StatsStore(file, HOUR_MS, 16);
+        assertEquals(0, store.size());
+        store.put(sample("Steve"), T0);
+        assertNotNull(store.get("Steve", T0));
+    }
+
+    @Test
+    public void tableGrowsPastInitialCapacityAndKeepsEveryRecord() {
+        for (int i = 0; i < 100; i++) {
+            store.put(BedwarsStats.createNicked("player" + i), T0);
+        }
+        assertEquals(100, store.size());
+        for (int i = 0; i < 100; i++) {
+            assertNotNull("player" + i, store.get("Player" + i, T0));
+        }
+    }
+
+    @Test
+    public void rehashDropsExpiredRecords() {
+        for (int i = 0; i < 12; i++) {
+            store.put(BedwarsStats.createNicked("old" + i), T0);
+        }
+        // Far past expiry: the next inserts trigger a rehash that frees the old slots.
+        long later = T0 + 2 * HOUR_MS;
+        for (int i = 0; i < 4; i++) {
+            store.put(BedwarsStats.createNicked("new" + i), later);
+        }
+        assertTrue(store.size() < 16);
+        assertNotNull(store.get("new3", later));
+        assertNull(store.get("old0", later));
+    }
+
+    // ==================== SHARED BETWEEN CLIENTS ====================
+
+    @Test
+    public void secondStoreOnTheFileSeesPutsAndGrowth() {
+        StatsStore other = new StatsStore(file, HOUR_MS, 16);
+        try {
+            store.put(sample("Steve"), T0);
+            assertEquals(120, other.get("Steve", T0).stats.getFinalKills());
+
+            // Growth by one store remaps the table under the other.
+            for (int i = 0; i < 100; i++) {
+                other.put(BedwarsStats.createNicked("player" + i), T0);
+            }
+            assertEquals(101, store.size());
+            assertNotNull(store.get("player99", T0));
+            assertNotNull(store.get("Steve", T0));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void rememberedMissIsForgottenWhenAnyClientWrites() {
+        StatsStore other = new StatsStore(file, HOUR_MS, 16);
+        try {
+            assertNull(store.get("Steve", T0));
+            assertNull(store.get("steve", T0));
+
+            other.put(sample("Steve"), T0);
+            assertNotNull(store.get("Steve", T0));
+
+            // The writer's own misses are forgotten too.
+            assertNull(other.get("Alex", T0));
+            other.put(sample("Alex"), T0);
+            assertNotNull(other.get("Alex", T0));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void rememberedMissIsForgottenOnClear() {
+        store.put(sample("Steve"), T0);
+        assertNull(store.get("Alex", T0));
+        store.clear();
+        store.put(sample("Alex"), T0);
+        assertNotNull(store.get("Alex", T0));
+    }
+
+    @Test
+    public void tryGetMissesWithoutWaitingWhileTheFileIsLocked() throws Exception {
+        store.put(sample("Steve"), T0);
+        RandomAccessFile holder = new RandomAccessFile(file, "rw");
+        try {
+            java.nio.channels.FileLock lock = FileLocks.lock(holder.getChannel());
+            assertNull(store.tryGet("Steve", T0));
+            FileLocks.release(lock);
+            // Contention was not remembered as a miss.
+            assertNotNull(store.tryGet("Steve", T0));
+        } finally {
+            holder.close();
+        }
+    }
+
+    @Test
+    public void tryGetMissesUntilTheStoreIsOpened() {
+        StatsStore other = new StatsStore(file, HOUR_MS, 16);
+        try {
+            store.put(sample("Steve"), T0);
+            assertNull(other.tryGet("Steve", T0));
+            other.open();
+            assertEquals(120, other.tryGet("Steve", T0).stats.getFinalKills());
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void olderFetchDoesNotOverwriteNewerRecord() {
+        StatsStore other = new StatsStore(file, HOUR_MS, 16);
+        try {
+            other.put(BedwarsStats.createNicked("Steve"), T0 + 1000);
+            store.put(sample("Steve"), T0);
+            assertTrue(store.get("Steve", T0 + 1000).stats.isNicked());
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void uuidOutlivesStatsExpiry() {
+        store.put(sample("Steve"), T0);
+        long later = T0 + 3 * HOUR_MS;
+
+        assertNull(store.get("Steve", later));
+        assertEquals(UUID, store.uuidFor("steve", later, 24 * HOUR_MS));
+        assertNull(store.uuidFor("Steve", later, HOUR_MS));
+        store.put(BedwarsStats.createNicked("Alias_1"), T0);
+        assertNull(store.uuidFor("Alias_1", T0, HOUR_MS));
+    }
+}
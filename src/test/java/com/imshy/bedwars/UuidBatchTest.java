@@ -0,0 +1,63 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the Mojang bulk-lookup wire format in {@link UuidBatch}: the
+ * request array and the name -> id map read back from a response, which is
+ * what decides found (Mojang-confirmed) versus absent (nicked) per name.
+ */
+public class UuidBatchTest {
+
+    private static Map<String, String> parse(String json) {
+        return UuidBatch.parseResponse(new StringReader(json));
+    }
+
+    @Test
+    public void requestIsAJsonArrayOfNames() {
+        assertEquals("[\"Steve\",\"alex_2\"]", UuidBatch.requestBody(Arrays.asList("Steve", "alex_2")));
+    }
+
+    @Test
+    public void responseMapsLowercasedNameToId() {
+        Map<String, String> ids = parse("[{\"id\":\"069a79f444e94726a5befca90e38aaf5\",\"name\":\"Notch\"},"
+                + "{\"id\":\"853c80ef3c3749fdaa49938b674adae6\",\"name\":\"jeb_\"}]");
+
+        assertEquals(2, ids.size());
+        assertEquals("069a79f444e94726a5befca90e38aaf5", ids.get("notch"));
+        assertEquals("853c80ef3c3749fdaa49938b674adae6", ids.get("jeb_"));
+    }
+
+    @Test
+    public void namesMissingFromResponseAreAbsent() {
+        Map<String, String> ids = parse("[{\"id\":\"069a79f444e94726a5befca90e38aaf5\",\"name\":\"Notch\"}]");
+        assertNull(ids.get("somenick"));
+        assertFalse(ids.containsKey("somenick"));
+    }
+
+    @Test
+    public void emptyArrayMeansEveryNameIsUnknown() {
+        assertEquals(0, parse("[]").size());
+    }
+
+    @Test
+    public void malformedEntriesAreSkipped() {
+        Map<String, String> ids = parse("[5,{\"name\":\"NoId\"},{\"id\":{},\"name\":\"Odd\"},"
+                + "{\"id\":\"853c80ef3c3749fdaa49938b674adae6\",\"name\":\"jeb_\"}]");
+        assertEquals(1, ids.size());
+        assertEquals("853c80ef3c3749fdaa49938b674adae6", ids.get("jeb_"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void errorObjectInsteadOfArrayThrows() {
+        parse("{\"errorMessage\":\"Not more that 10 profile name per call is allowed.\"}");
+    }
+}
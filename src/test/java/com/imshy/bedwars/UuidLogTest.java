@@ -0,0 +1,192 @@
+package com.imshy.bedwars;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link UuidLog}: appends replay in order, a torn tail is skipped
+ * and then overwritten, clients sharing the file see each other's appends,
+ * and a rewrite replaces everything under a new generation.
+ */
+public class UuidLogTest {
+
+    private static final String UUID_A = "069a79f4-44e9-4726-a5be-fca90e38aaf5";
+    private static final String UUID_B = "853c80ef-3c37-49fd-aa49-938b674adae6";
+
+    private File file;
+    private File lockFile;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("uuidcache", ".log");
+        file.delete();
+        lockFile = new File(file.getPath() + ".lock");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        lockFile.delete();
+    }
+
+    private UuidLog newLog() {
+        return new UuidLog(file, lockFile);
+    }
+
+    private static final class Collect implements UuidLog.Sink {
+        final List<UuidLog.Record> records = new ArrayList<UuidLog.Record>();
+
+        @Override
+        public void accept(UuidLog.Record record) {
+            records.add(record);
+        }
+    }
+
+    private static List<UuidLog.Record> records(UuidLog.Record... records) {
+        return Arrays.asList(records);
+    }
+
+    @Test
+    public void appendsReplayInOrder() throws Exception {
+        UuidLog log = newLog();
+        log.append(records(new UuidLog.Record("steve", UUID_A, 1000L)), new Collect());
+        log.append(records(new UuidLog.Record("alex", UUID_B, 2000L),
+                new UuidLog.Record("steve", UUID_B, 3000L)), new Collect());
+
+        Collect replay = new Collect();
+        assertEquals(3, newLog().catchUp(replay));
+        assertEquals("steve", replay.records.get(0).name);
+        assertEquals(UUID_A, replay.records.get(0).uuid);
+        assertEquals(1000L, replay.records.get(0).recordedAt);
+        assertEquals(UUID_B, replay.records.get(2).uuid);
+    }
+
+    @Test
+    public void appendWritesOnlyTheNewRecords() throws Exception {
+        UuidLog log = newLog();
+        log.append(records(new UuidLog.Record("steve", UUID_A, 1000L)), new Collect());
+        long before = file.length();
+        log.append(records(new UuidLog.Record("alex", UUID_B, 2000L)), new Collect());
+
+        long oneRecord = UuidLog.encode(records(new UuidLog.Record("alex", UUID_B, 2000L))).length;
+        assertEquals(before + oneRecord, file.length());
+    }
+
+    @Test
+    public void tornTailIsSkippedThenOverwritten() throws Exception {
+        UuidLog writer = newLog();
+        writer.append(records(new UuidLog.Record("steve", UUID_A, 1000L),
+                new UuidLog.Record("alex", UUID_B, 2000L)), new Collect());
+        // A crash partway through the second record.
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() - 5);
+        } finally {
+            raf.close();
+        }
+
+        UuidLog reader = newLog();
+        Collect replay = new Collect();
+        assertEquals(1, reader.catchUp(replay));
+
+        reader.append(records(new UuidLog.Record("notch", UUID_B, 4000L)), new Collect());
+        Collect after = new Collect();
+        assertEquals(2, newLog().catchUp(after));
+        assertEquals("notch", after.records.get(1).name);
+    }
+
+    @Test
+    public void corruptRecordEndsTheReplay() throws Exception {
+        newLog().append(records(new UuidLog.Record("steve", UUID_A, 1000L),
+                new UuidLog.Record("alex", UUID_B, 2000L)), new Collect());
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(raf.length() - 3);
+            raf.write(0x7F);
+        } finally {
+            raf.close();
+        }
+
+        assertEquals(1, newLog().catchUp(new Collect()));
+    }
+
+    @Test
+    public void sharingClientsSeeEachOthersAppends() throws Exception {
+        UuidLog first = newLog();
+        UuidLog second = newLog();
+        first.catchUp(new Collect());
+        second.catchUp(new Collect());
+
+        first.append(records(new UuidLog.Record("steve", UUID_A, 1000L)), new Collect());
+        Collect seen = new Collect();
+        assertEquals(1, second.append(records(new UuidLog.Record("alex", UUID_B, 2000L)), seen));
+        assertEquals("steve", seen.records.get(0).name);
+
+        Collect back = new Collect();
+        assertEquals(1, first.catchUp(back));
+        assertEquals("alex", back.records.get(0).name);
+    }
+
+    @Test
+    public void rewriteIsReadFromTheTopByOtherClients() throws Exception {
+        UuidLog first = newLog();
+        UuidLog second = newLog();
+        first.append(records(new UuidLog.Record("steve", UUID_A, 1000L),
+                new UuidLog.Record("steve", UUID_B, 2000L)), new Collect());
+        second.catchUp(new Collect());
+
+        first.rewrite(new Collect(), new UuidLog.Snapshot() {
+            @Override
+            public List<UuidLog.Record> records() {
+                return UuidLogTest.records(new UuidLog.Record("steve", UUID_B, 2000L));
+            }
+        });
+        assertEquals(1, first.recordsInFile());
+
+        Collect reread = new Collect();
+        assertEquals(1, second.catchUp(reread));
+        assertEquals(UUID_B, reread.records.get(0).uuid);
+    }
+
+    @Test
+    public void clearingRewriteLeavesAnEmptyLog() throws Exception {
+        UuidLog log = newLog();
+        log.append(records(new UuidLog.Record("steve", UUID_A, 1000L)), new Collect());
+        log.rewrite(null, new UuidLog.Snapshot() {
+            @Override
+            public List<UuidLog.Record> records() {
+                return Collections.emptyList();
+            }
+        });
+
+        assertEquals(0, newLog().catchUp(new Collect()));
+    }
+
+    @Test
+    public void foreignFileIsRejected() throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.writeBytes("{\"version\":2,\"entries\":{}}");
+        } finally {
+            raf.close();
+        }
+        try {
+            newLog().catchUp(new Collect());
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // the caller quarantines it
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link WeightedLruCache}: weight accounting, least-recently-used
+ * eviction past the ceiling, pinned keys surviving eviction, and the
+ * hit/miss/eviction counters shown in /bw status.
+ */
+public class WeightedLruCacheTest {
+
+    /** Weight = the value itself, so tests can size entries directly. */
+    private static WeightedLruCache<String, Integer> cache(long maxWeight) {
+        return new WeightedLruCache<String, Integer>(maxWeight, new WeightedLruCache.Weigher<String, Integer>() {
+            @Override
+            public long weigh(String key, Integer value) {
+                return value;
+            }
+        });
+    }
+
+    @Test
+    public void tracksTotalWeightAcrossPutReplaceAndRemove() {
+        WeightedLruCache<String, Integer> cache = cache(100);
+        cache.put("a", 10);
+        cache.put("b", 20);
+        assertEquals(30, cache.weight());
+
+        cache.put("a", 5);
+        assertEquals(25, cache.weight());
+
+        cache.remove("b");
+        assertEquals(5, cache.weight());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPastCeiling() {
+        WeightedLruCache<String, Integer> cache = cache(30);
+        cache.put("a", 10);
+        cache.put("b", 10);
+        cache.put("c", 10);
+        cache.get("a"); // a is now most recent; b is eldest
+
+        cache.put("d", 10);
+
+        assertNull(cache.peek("b"));
+        assertTrue(cache.containsKey("a"));
+        assertTrue(cache.containsKey("c"));
+        assertTrue(cache.containsKey("d"));
+        assertEquals(30, cache.weight());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    public void peekDoesNotRefreshRecency() {
+        WeightedLruCache<String, Integer> cache = cache(20);
+        cache.put("a", 10);
+        cache.put("b", 10);
+        cache.peek("a");
+
+        cache.put("c", 10);
+
+        assertFalse(cache.containsKey("a"));
+        assertEquals(0, cache.hits());
+        assertEquals(0, cache.misses());
+    }
+
+    @Test
+    public void pinnedKeysAreNeverEvicted() {
+        WeightedLruCache<String, Integer> cache = cache(20);
+        cache.setPinned(new HashSet<String>(Arrays.asList("a")));
+        cache.put("a", 10);
+        cache.put("b", 10);
+
+        cache.put("c", 10);
+
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("c"));
+    }
+
+    @Test
+    public void pinnedEntriesMayHoldTheCacheOverItsCeiling() {
+        WeightedLruCache<String, Integer> cache = cache(10);
+        cache.setPinned(new HashSet<String>(Arrays.asList("a", "b")));
+        cache.put("a", 10);
+        cache.put("b", 10);
+
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.weight());
+
+        cache.setPinned(Collections.<String>emptySet());
+        cache.put("c", 1);
+
+        assertEquals(1, cache.size());
+        assertTrue(cache.containsKey("c"));
+    }
+
+    @Test
+    public void shrinkingTheCeilingEvictsImmediately() {
+        WeightedLruCache<String, Integer> cache = cache(100);
+        cache.put("a", 40);
+        cache.put("b", 40);
+
+        cache.setMaxWeight(50);
+
+        assertFalse(cache.containsKey("a"));
+        assertTrue(cache.containsKey("b"));
+        assertEquals(40, cache.weight());
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        WeightedLruCache<String, Integer> cache = cache(100);
+        cache.put("a", 1);
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void conditionalRemoveOnlyRemovesMatchingValue() {
+        WeightedLruCache<String, Integer> cache = cache(100);
+        cache.put("a", 7);
+
+        assertFalse(cache.remove("a", 8));
+        assertTrue(cache.remove("a", 7));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void snapshotsAreLeastRecentlyUsedFirst() {
+        WeightedLruCache<String, Integer> cache = cache(100);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+
+        assertEquals(Arrays.asList(2, 1), cache.valuesSnapshot());
+        assertEquals("b", cache.entriesSnapshot().get(0).getKey());
+    }
+}
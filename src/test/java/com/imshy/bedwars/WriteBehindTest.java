@@ -0,0 +1,134 @@
+package com.imshy.bedwars;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link WriteBehind}: a burst of changes costs one write, nothing
+ * is written when clean, a failed write is retried, and shutdown never loses
+ * an unsaved change.
+ */
+public class WriteBehindTest {
+
+    private final AtomicInteger writes = new AtomicInteger();
+    // Writes that report failure before one succeeds.
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    private WriteBehind writeBehind(long delayMs) {
+        return new WriteBehind("test", delayMs, new WriteBehind.WriteAction() {
+            @Override
+            public boolean write() {
+                if (failuresLeft.getAndDecrement() > 0) {
+                    return false;
+                }
+                writes.incrementAndGet();
+                return true;
+            }
+        });
+    }
+
+    private void awaitWrites(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writes.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void burstOfChangesIsOneWrite() throws InterruptedException {
+        WriteBehind persister = writeBehind(50);
+        for (int i = 0; i < 100; i++) {
+            persister.markDirty();
+        }
+
+        awaitWrites(1);
+        Thread.sleep(100);
+
+        assertEquals(1, writes.get());
+        assertFalse(persister.isDirty());
+        persister.shutdown(1000);
+    }
+
+    @Test
+    public void changeAfterAWriteSchedulesAnother() throws InterruptedException {
+        WriteBehind persister = writeBehind(10);
+        persister.markDirty();
+        awaitWrites(1);
+
+        persister.markDirty();
+        awaitWrites(2);
+
+        assertEquals(2, writes.get());
+        persister.shutdown(1000);
+    }
+
+    @Test
+    public void flushWritesOnlyWhenDirty() {
+        WriteBehind persister = writeBehind(60000);
+        persister.flush();
+        assertEquals(0, writes.get());
+
+        persister.markDirty();
+        persister.flush();
+        persister.flush();
+
+        assertEquals(1, writes.get());
+        persister.shutdown(1000);
+    }
+
+    @Test
+    public void shutdownWritesPendingChangeWithoutWaitingOutTheDelay() {
+        WriteBehind persister = writeBehind(60000);
+        persister.markDirty();
+        assertTrue(persister.isDirty());
+
+        long start = System.currentTimeMillis();
+        persister.shutdown(1000);
+
+        assertEquals(1, writes.get());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void changesAfterShutdownAreWrittenInline() {
+        WriteBehind persister = writeBehind(60000);
+        persister.shutdown(1000);
+
+        persister.markDirty();
+
+        assertEquals(1, writes.get());
+        assertFalse(persister.isDirty());
+    }
+
+    @Test
+    public void failedWriteStaysDirtyAndIsRetried() throws InterruptedException {
+        failuresLeft.set(2);
+        WriteBehind persister = writeBehind(10);
+        persister.markDirty();
+
+        awaitWrites(1);
+
+        assertEquals(1, writes.get());
+        assertFalse(persister.isDirty());
+        persister.shutdown(1000);
+    }
+
+    @Test
+    public void failedFlushLeavesTheChangeForShutdown() {
+        failuresLeft.set(1);
+        WriteBehind persister = writeBehind(60000);
+        persister.markDirty();
+        persister.flush();
+        assertTrue(persister.isDirty());
+
+        persister.shutdown(1000);
+
+        assertEquals(1, writes.get());
+        assertFalse(persister.isDirty());
+    }
+}
@@ -0,0 +1,247 @@
+package com.imshy.bedwars.runtime;
+
+import com.imshy.bedwars.runtime.MapLearningService.BedPoint;
+import com.imshy.bedwars.runtime.MapLearningService.GeneratorPoint;
+import com.imshy.bedwars.runtime.MapLearningService.MapObservation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link LearnedMapStore}: segment round-trips, index-only opening,
+ * consolidation at write time, crash-safe appends and compaction.
+ */
+public class LearnedMapStoreTest {
+
+    private File file;
+    private LearnedMapStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("learnedmaps", ".bin");
+        file.delete();
+        store = new LearnedMapStore(file);
+        store.open();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    private static MapObservation observation(long epochMs, GeneratorPoint... points) {
+        return new MapObservation(epochMs, new ArrayList<GeneratorPoint>(Arrays.asList(points)), null);
+    }
+
+    private static List<MapObservation> twoGames() {
+        MapObservation first = observation(1000L,
+                new GeneratorPoint(10, 64, -20, true), new GeneratorPoint(0, 70, 0, false));
+        first.bed = new BedPoint(5, 65, 5, "c");
+        MapObservation second = observation(2000L, new GeneratorPoint(10, 64, -20, true));
+        second.bed = new BedPoint(5, 65, 5, null);
+        return new ArrayList<MapObservation>(Arrays.asList(first, second));
+    }
+
+    private LearnedMapStore reopened() throws IOException {
+        LearnedMapStore fresh = new LearnedMapStore(file);
+        fresh.open();
+        return fresh;
+    }
+
+    @Test
+    public void missingFileIsAnEmptyStore() throws Exception {
+        assertEquals(0, store.size());
+        assertNull(store.segment("lighthouse"));
+    }
+
+    @Test
+    public void segmentRoundTripsThroughReopen() throws Exception {
+        store.put("lighthouse", twoGames());
+
+        LearnedMapStore.Segment segment = reopened().segment("lighthouse");
+        assertEquals(2, segment.observations.size());
+        MapObservation first = segment.observations.get(0);
+        assertEquals(1000L, first.epochMs);
+        assertEquals(2, first.generators.size());
+        assertEquals(-20, first.generators.get(0).z);
+        assertTrue(first.generators.get(0).diamond);
+        assertFalse(first.generators.get(1).diamond);
+        assertEquals("c", first.bed.team);
+        assertNull(segment.observations.get(1).bed.team);
+    }
+
+    @Test
+    public void consolidationIsStoredWithTheSegment() throws Exception {
+        store.put("lighthouse", twoGames());
+
+        LearnedMapStore.Segment segment = reopened().segment("lighthouse");
+        assertEquals(1, segment.consolidated.size());
+        assertEquals(10, segment.consolidated.get(0).x);
+        assertEquals(2, segment.consolidated.get(0).agreement);
+    }
+
+    @Test
+    public void openingReadsTheIndexOnly() throws Exception {
+        store.put("lighthouse", twoGames());
+        store.put("archway", twoGames().subList(0, 1));
+
+        LearnedMapStore fresh = reopened();
+        List<LearnedMapStore.IndexEntry> entries = fresh.entries();
+        assertEquals("archway", entries.get(0).name);
+        assertEquals("lighthouse", entries.get(1).name);
+        assertEquals(2, entries.get(1).observationCount);
+        assertEquals(1, entries.get(1).consolidatedCount);
+        assertEquals(2000L, entries.get(1).lastSeenEpochMs);
+        assertFalse(fresh.isDecoded("lighthouse"));
+
+        fresh.segment("lighthouse");
+        assertTrue(fresh.isDecoded("lighthouse"));
+        assertFalse(fresh.isDecoded("archway"));
+    }
+
+    @Test
+    public void putReplacesOneMapAndLeavesTheOthers() throws Exception {
+        store.put("lighthouse", twoGames());
+        store.put("archway", twoGames());
+        store.put("lighthouse", twoGames().subList(1, 2));
+
+        LearnedMapStore fresh = reopened();
+        assertEquals(2, fresh.size());
+        assertEquals(1, fresh.segment("lighthouse").observations.size());
+        assertEquals(2, fresh.segment("archway").observations.size());
+    }
+
+    @Test
+    public void appendCutShortLeavesThePreviousIndex() throws Exception {
+        store.put("lighthouse", twoGames());
+        long committedIndex = indexOffset();
+        store.put("lighthouse", twoGames().subList(1, 2));
+        assertTrue(indexOffset() > committedIndex);
+
+        // A crash before the header was repointed: the new segment and index
+        // are on disk but the header still names the old index.
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(8);
+            raf.writeLong(committedIndex);
+        } finally {
+            raf.close();
+        }
+
+        assertEquals(2, reopened().segment("lighthouse").observations.size());
+    }
+
+    private long indexOffset() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            raf.seek(8);
+            return raf.readLong();
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void garbageIsCompactedAway() throws Exception {
+        List<MapObservation> observations = new ArrayList<MapObservation>();
+        for (int i = 0; i < 10; i++) {
+            GeneratorPoint[] points = new GeneratorPoint[40];
+            for (int j = 0; j < points.length; j++) {
+                points[j] = new GeneratorPoint(j, 64, i, j % 2 == 0);
+            }
+            observations.add(observation(i, points));
+        }
+        for (int i = 0; i < 100; i++) {
+            store.put("lighthouse", observations);
+        }
+
+        long oneCopy = LearnedMapStore.encodeSegment(store.segment("lighthouse")).length;
+        assertTrue("file " + file.length(), file.length() < 4 * oneCopy + 64 * 1024);
+        assertEquals(10, reopened().segment("lighthouse").observations.size());
+    }
+
+    @Test
+    public void writeAllImportsEveryMap() throws Exception {
+        Map<String, List<MapObservation>> maps = new LinkedHashMap<String, List<MapObservation>>();
+        maps.put("lighthouse", twoGames());
+        maps.put("archway", twoGames());
+        store.writeAll(maps);
+
+        LearnedMapStore fresh = reopened();
+        assertEquals(2, fresh.size());
+        assertEquals(1, fresh.segment("archway").consolidated.size());
+    }
+
+    @Test
+    public void foreignFileIsRejected() throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.writeBytes("{\"maps\":{}} and then some");
+        } finally {
+            raf.close();
+        }
+        try {
+            reopened();
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // caller quarantines the file
+        }
+    }
+
+    @Test
+    public void failedReopenKeepsTheIndexItHad() throws Exception {
+        store.put("lighthouse", twoGames());
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(8);
+            raf.writeLong(file.length());
+        } finally {
+            raf.close();
+        }
+        try {
+            store.open();
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // nothing read from the bad file replaced what was there
+        }
+        assertEquals(1, store.size());
+        assertTrue(store.contains("lighthouse"));
+    }
+
+    @Test
+    public void corruptSegmentFailsItsChecksum() throws Exception {
+        store.put("lighthouse", twoGames());
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(16 + 12);
+            int b = raf.read();
+            raf.seek(16 + 12);
+            raf.write(b ^ 0x5A);
+        } finally {
+            raf.close();
+        }
+        try {
+            reopened().segment("lighthouse");
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // the next match on the map writes a fresh segment
+        }
+    }
+}
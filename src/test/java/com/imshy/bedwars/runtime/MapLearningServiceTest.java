@@ -11,6 +11,7 @@ import com.imshy.bedwars.runtime.MapLearningService.MapObservation;
 
 import org.junit.Test;
 
+import java.io.File;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -27,9 +28,10 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
- * Tests for the pure consolidation core, the observation-bounding policy, and
- * the JSON round-trip of the MapLearningService model classes. No Minecraft
- * types are involved — the core deliberately works on int triples / long keys.
+ * Tests for the pure consolidation core, the observation-bounding policy, the
+ * queued match-end commit, and the JSON round-trip of the MapLearningService
+ * model classes. No Minecraft types are involved — the core deliberately works
+ * on int triples / long keys.
  */
 public class MapLearningServiceTest {
 
@@ -309,4 +311,32 @@ public class MapLearningServiceTest {
         assertEquals(-8, reloaded.bed.x);
         assertNull(reloaded.bed.team);
     }
+
+    // ==================== queued commits ====================
+
+    @Test
+    public void matchEndsQueuedDuringLoadAreWrittenOnceTheStoreOpens() throws Exception {
+        File file = File.createTempFile("learnedmaps", ".bin");
+        file.delete();
+        try {
+            LearnedMapStore store = new LearnedMapStore(file);
+            store.open();
+            store.put("lighthouse", Arrays.asList(observation(new GeneratorPoint(1, 70, 1, true))));
+
+            MapLearningService.queue("lighthouse", observation(new GeneratorPoint(1, 70, 1, true)));
+            MapLearningService.queue("aquarium", observation(new GeneratorPoint(2, 70, 2, false)));
+            MapLearningService.commitQueued(store);
+
+            assertEquals(2, store.segment("lighthouse").observations.size());
+            assertEquals(1, store.segment("lighthouse").consolidated.size());
+            assertEquals(1, store.segment("aquarium").observations.size());
+
+            // Drained: a second pass writes nothing new.
+            MapLearningService.commitQueued(store);
+            assertEquals(2, store.segment("lighthouse").observations.size());
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".tmp").delete();
+        }
+    }
 }
@@ -0,0 +1,106 @@
+package com.imshy.bedwars.runtime;
+
+import com.imshy.bedwars.HypixelMessages;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link MatchChatHandler}: non-final deaths start a respawn
+ * countdown and a victim-only kill feed entry, final kills land in the ledger
+ * with the killer attached, the local player is never tallied, and the
+ * game-start line (not a player typing it) resets the trackers.
+ */
+public class MatchChatHandlerTest {
+
+    private static final long T0 = 1_000_000L;
+
+    private static final MatchChatHandler.Teams TEAMS = new MatchChatHandler.Teams() {
+        @Override
+        public String colorCode(String playerName) {
+            return "Alice".equals(playerName) ? "§c" : "§7";
+        }
+
+        @Override
+        public String teamName(String playerName, String colorCode) {
+            return "§c".equals(colorCode) ? "Red" : null;
+        }
+    };
+
+    private FinalKillLedger ledger;
+    private KillFeedTracker killFeed;
+    private RespawnTracker respawns;
+    private MatchChatHandler handler;
+
+    @Before
+    public void setUp() {
+        ledger = new FinalKillLedger();
+        killFeed = new KillFeedTracker();
+        respawns = new RespawnTracker();
+        handler = new MatchChatHandler(ledger, killFeed, respawns, new BridgeRadarService());
+    }
+
+    @Test
+    public void nonFinalDeathStartsRespawnAndFeedsVictimOnly() {
+        String message = "Alice was killed by Bob.";
+        assertEquals("Alice", handler.handleDeath(message, "Me", TEAMS, T0));
+        assertNull(handler.handleFinalKill(message, "Me", TEAMS, T0));
+
+        assertTrue(respawns.getRemainingMs("Alice", T0) > 0);
+        List<KillFeedTracker.Entry> entries = killFeed.getActiveEntries(T0);
+        assertEquals(1, entries.size());
+        assertEquals("Alice", entries.get(0).victimName);
+        assertNull(entries.get(0).killerName);
+        assertEquals("§c", entries.get(0).victimTeamColorCode);
+        assertEquals(0, ledger.getTotalFinalKills());
+    }
+
+    @Test
+    public void finalKillIsTalliedWithItsKiller() {
+        String message = "Alice was killed by Bob. FINAL KILL!";
+        assertEquals("Alice", handler.handleDeath(message, "Me", TEAMS, T0));
+        assertEquals("Bob", handler.handleFinalKill(message, "Me", TEAMS, T0));
+
+        assertEquals(-1, respawns.getRemainingMs("Alice", T0));
+        assertEquals(1, ledger.getTallies().get("Red").finalKills);
+        assertEquals(1, ledger.getKillerFinals("Bob"));
+        List<KillFeedTracker.Entry> entries = killFeed.getActiveEntries(T0);
+        assertEquals(1, entries.size());
+        assertEquals("Bob", entries.get(0).killerName);
+        assertTrue(entries.get(0).isFinal);
+    }
+
+    @Test
+    public void localPlayerIsNeverTallied() {
+        handler.handleDeath("Me was killed by Bob.", "Me", TEAMS, T0);
+        assertNull(handler.handleFinalKill("Me was killed by Bob. FINAL KILL!", "Me", TEAMS, T0));
+
+        assertTrue(killFeed.isEmpty());
+        assertEquals(0, ledger.getTotalFinalKills());
+    }
+
+    @Test
+    public void otherLinesAreIgnored() {
+        assertNull(handler.handleDeath("[100✫] Alice: gl hf", "Me", TEAMS, T0));
+        assertNull(handler.handleFinalKill("[100✫] Alice: gl hf", "Me", TEAMS, T0));
+        assertTrue(killFeed.isEmpty());
+    }
+
+    @Test
+    public void gameStartLineResetsButPlayerTypedOneDoesNot() {
+        assertTrue(MatchChatHandler.isGameStart(HypixelMessages.GAME_START));
+        assertFalse(MatchChatHandler.isGameStart("Alice: " + HypixelMessages.GAME_START));
+
+        handler.handleFinalKill("Alice was killed by Bob. FINAL KILL!", "Me", TEAMS, T0);
+        handler.resetMatch();
+
+        assertEquals(0, ledger.getTotalFinalKills());
+        assertTrue(killFeed.isEmpty());
+    }
+}
@@ -0,0 +1,208 @@
+package com.imshy.bedwars.runtime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link MatchRecording}: every event kind round-trips with its
+ * timestamp, unchanged snapshots and repeated strings cost little or
+ * nothing, and a recording cut short replays up to the cut.
+ */
+public class MatchRecordingTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("match", ".bwrec");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /** Renders every event as one line so whole replays compare as lists. */
+    private static final class Transcript implements MatchRecording.Visitor {
+        final List<String> lines = new ArrayList<String>();
+        MatchRecording.Header header;
+
+        @Override
+        public void start(MatchRecording.Header header) {
+            this.header = header;
+        }
+
+        @Override
+        public void tick(long nowMs) {
+            lines.add((nowMs - T0) + " tick");
+        }
+
+        @Override
+        public void chat(long nowMs, int type, String message) {
+            lines.add((nowMs - T0) + " chat " + type + " " + message);
+        }
+
+        @Override
+        public void sidebar(long nowMs, List<String> rows) {
+            lines.add((nowMs - T0) + " sidebar " + rows);
+        }
+
+        @Override
+        public void tabList(long nowMs, List<String> names, List<String> displayNames) {
+            lines.add((nowMs - T0) + " tab " + names + " " + displayNames);
+        }
+
+        @Override
+        public void entity(long nowMs, String name, double x, double y, double z) {
+            lines.add((nowMs - T0) + " entity " + name + " " + x + " " + y + " " + z);
+        }
+
+        @Override
+        public void blockChange(long nowMs, int x, int y, int z, boolean isAir) {
+            lines.add((nowMs - T0) + " block " + x + " " + y + " " + z + " " + isAir);
+        }
+    }
+
+    private MatchRecording.Writer newWriter() throws IOException {
+        return new MatchRecording.Writer(file, T0, "Steve");
+    }
+
+    private Transcript replay() throws IOException {
+        Transcript transcript = new Transcript();
+        MatchRecording.read(file, transcript);
+        return transcript;
+    }
+
+    @Test
+    public void everyEventRoundTripsInOrder() throws Exception {
+        MatchRecording.Writer writer = newWriter();
+        writer.tick(T0 + 50);
+        writer.chat(T0 + 60, 0, "Alex was killed by Steve. FINAL KILL!");
+        writer.sidebar(T0 + 100, Arrays.asList("§cR §fRed: §a✓", "Diamond II in: 4:59"));
+        writer.tabList(T0 + 100, Arrays.asList("Steve", "Alex"), Arrays.asList("§c§lR §r§cSteve", ""));
+        writer.entity(T0 + 100, "Alex", 12.5, 80.0, -300.25);
+        writer.blockChange(T0 + 150, -64, 79, 1_000_000, false);
+        writer.blockChange(T0 + 150, 3, 0, -1, true);
+        writer.close();
+
+        Transcript transcript = replay();
+        assertEquals(T0, transcript.header.startEpochMs);
+        assertEquals("Steve", transcript.header.localPlayer);
+        assertEquals(Arrays.asList(
+                "50 tick",
+                "60 chat 0 Alex was killed by Steve. FINAL KILL!",
+                "100 sidebar [§cR §fRed: §a✓, Diamond II in: 4:59]",
+                "100 tab [Steve, Alex] [§c§lR §r§cSteve, ]",
+                "100 entity Alex 12.5 80.0 -300.25",
+                "150 block -64 79 1000000 false",
+                "150 block 3 0 -1 true"), transcript.lines);
+    }
+
+    @Test
+    public void unchangedSnapshotsAreNotWrittenAgain() throws Exception {
+        MatchRecording.Writer writer = newWriter();
+        List<String> rows = Arrays.asList("Red: ✓", "Blue: ✓");
+        writer.sidebar(T0, rows);
+        writer.sidebar(T0 + 50, new ArrayList<String>(rows));
+        writer.sidebar(T0 + 100, Arrays.asList("Red: ✓", "Blue: 2"));
+        writer.tabList(T0, Arrays.asList("Steve"), Arrays.asList("§cSteve"));
+        writer.tabList(T0 + 50, Arrays.asList("Steve"), Arrays.asList("§cSteve"));
+        assertEquals(3, writer.events());
+        writer.close();
+
+        assertEquals(3, replay().lines.size());
+    }
+
+    @Test
+    public void repeatedStringsAreWrittenOnce() throws Exception {
+        MatchRecording.Writer writer = newWriter();
+        for (int i = 0; i < 2000; i++) {
+            writer.entity(T0 + i * 50L, "SomeLongPlayerName", 0, 0, 0);
+        }
+        writer.close();
+        long once = Files.size(file.toPath());
+
+        File single = File.createTempFile("single", ".bwrec");
+        try {
+            MatchRecording.Writer one = new MatchRecording.Writer(single, T0, "Steve");
+            one.entity(T0, "SomeLongPlayerName", 0, 0, 0);
+            one.close();
+            // 1999 more events, each a few bytes before compression.
+            assertTrue("file " + once, once < Files.size(single.toPath()) + 2000 * 4);
+        } finally {
+            single.delete();
+        }
+        assertEquals(2000, replay().lines.size());
+    }
+
+    @Test
+    public void stringsBeyondTheTableAreWrittenInline() throws Exception {
+        MatchRecording.Writer writer = newWriter();
+        for (int i = 0; i < MatchRecording.MAX_STRINGS + 10; i++) {
+            writer.chat(T0, 0, "line " + i);
+        }
+        writer.chat(T0, 0, "line 0");
+        writer.chat(T0, 0, "line " + (MatchRecording.MAX_STRINGS + 5));
+        writer.close();
+
+        List<String> lines = replay().lines;
+        assertEquals(MatchRecording.MAX_STRINGS + 12, lines.size());
+        assertEquals("0 chat 0 line 0", lines.get(lines.size() - 2));
+        assertEquals("0 chat 0 line " + (MatchRecording.MAX_STRINGS + 5), lines.get(lines.size() - 1));
+    }
+
+    @Test
+    public void recordingCutShortReplaysUpToTheCut() throws Exception {
+        MatchRecording.Writer writer = newWriter();
+        for (int i = 0; i < 200; i++) {
+            writer.tick(T0 + i * 50L);
+            writer.entity(T0 + i * 50L, "Alex", i, 64, 0);
+        }
+        writer.close();
+
+        // The game closed mid-recording: no gzip trailer, last event partial.
+        byte[] whole = Files.readAllBytes(file.toPath());
+        byte[] cut = Arrays.copyOf(whole, whole.length - 20);
+        Transcript transcript = new Transcript();
+        try {
+            MatchRecording.read(new ByteArrayInputStream(cut), transcript);
+        } catch (IOException e) {
+            // a truncated deflate block may surface as a plain IOException
+        }
+        assertTrue(transcript.lines.size() > 0);
+        assertTrue(transcript.lines.size() < 400);
+        assertEquals("0 tick", transcript.lines.get(0));
+    }
+
+    @Test
+    public void foreignFileIsRejected() throws Exception {
+        GZIPOutputStream out = new GZIPOutputStream(Files.newOutputStream(file.toPath()));
+        try {
+            out.write("{\"maps\":{}} and then some".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        try {
+            replay();
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // not a recording
+        }
+    }
+}
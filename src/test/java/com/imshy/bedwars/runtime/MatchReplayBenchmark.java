@@ -0,0 +1,343 @@
+package com.imshy.bedwars.runtime;
+
+import com.imshy.bedwars.HypixelMessages;
+
+import net.minecraft.util.BlockPos;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Manual benchmark: replays a {@link MatchRecording} (from {@code /bw record})
+ * through the runtime's client-free services at full speed and reports time
+ * and allocation per subsystem. Not a JUnit test — run its {@code main} with
+ * the test classpath:
+ *
+ * <pre>java -cp &lt;test classpath&gt; com.imshy.bedwars.runtime.MatchReplayBenchmark [match-123.bwrec]</pre>
+ *
+ * Without an argument it synthesizes a ten-minute 4v4 match. The replay
+ * mirrors what {@link BedwarsRuntime} does with each input, minus the parts
+ * that need a live client (world lookups, rendering, audio, network):
+ * <ul>
+ *   <li>chat: the runtime's own {@link MatchChatHandler}, with teams taken
+ *       from the replayed tab list instead of the world;</li>
+ *   <li>sidebar: the {@link SidebarSnapshot} update (change check, then
+ *       team-status, map and upcoming-event parsing);</li>
+ *   <li>tab: team and star parsing of every entry;</li>
+ *   <li>tick.bridge-radar: block-change clustering and bridge geometry,
+ *       on the radar's own rebuild cadence;</li>
+ *   <li>tick.trackers: the kill feed and respawn pruning the HUD triggers.</li>
+ * </ul>
+ * The file is decoded on every round, outside the timed sections; each round
+ * starts from fresh services, so every round does identical work.
+ */
+public class MatchReplayBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final int RADAR_REBUILD_TICKS = 10;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) throws IOException {
+        byte[] recording;
+        if (args.length > 0) {
+            recording = Files.readAllBytes(new File(args[0]).toPath());
+        } else {
+            File tmp = File.createTempFile("synthetic", ".bwrec");
+            try {
+                writeSyntheticMatch(tmp, 10 * 60 * 20, 42L);
+                recording = Files.readAllBytes(tmp.toPath());
+            } finally {
+                tmp.delete();
+            }
+        }
+        System.out.printf("recording: %,d bytes%n", recording.length);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            replay(recording);
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            Replay result = replay(recording);
+            System.out.printf("round %d: %,d ticks, %,d events, %d final kills%n",
+                    i + 1, result.ticks, result.events, result.finalKillLedger.getTotalFinalKills());
+            for (Subsystem s : result.subsystems.values()) {
+                System.out.printf("  %-18s %,9d calls  %8.1f ms  %8.0f ns/call  %,8d B/call%n",
+                        s.name, s.calls, s.nanos / 1e6, s.calls == 0 ? 0.0 : (double) s.nanos / s.calls,
+                        s.calls == 0 || s.bytes < 0 ? -1 : s.bytes / s.calls);
+            }
+        }
+    }
+
+    /** Replays {@code recording} once through fresh services. */
+    static Replay replay(byte[] recording) throws IOException {
+        Replay replay = new Replay();
+        MatchRecording.read(new ByteArrayInputStream(recording), replay);
+        sink += replay.events;
+        return replay;
+    }
+
+    /** Accumulated cost of one subsystem over a replay. */
+    static final class Subsystem {
+        final String name;
+        long calls;
+        long nanos;
+        long bytes;
+
+        Subsystem(String name) {
+            this.name = name;
+        }
+    }
+
+    /** The services under replay plus the per-subsystem meters. */
+    static final class Replay implements MatchRecording.Visitor {
+        final FinalKillLedger finalKillLedger = new FinalKillLedger();
+        final KillFeedTracker killFeedTracker = new KillFeedTracker();
+        final RespawnTracker respawnTracker = new RespawnTracker();
+        final BridgeRadarService bridgeRadarService = new BridgeRadarService();
+        final SidebarSnapshot sidebarSnapshot = new SidebarSnapshot(null);
+        final MatchChatHandler matchChatHandler = new MatchChatHandler(finalKillLedger, killFeedTracker,
+                respawnTracker, bridgeRadarService);
+        final Map<String, Subsystem> subsystems = new LinkedHashMap<String, Subsystem>();
+
+        String localPlayer = "";
+        long ticks;
+        long events;
+        int bridgeAlerts;
+
+        private final Map<String, TabListScanner.TabListPlayer> tabByName =
+                new HashMap<String, TabListScanner.TabListPlayer>();
+        private final Map<String, double[]> positions = new HashMap<String, double[]>();
+        private final List<BlockChangeFeed.BlockChangeEvent> pendingBlocks =
+                new ArrayList<BlockChangeFeed.BlockChangeEvent>();
+        private int ticksSinceRebuild;
+
+        // Meter state for the section in progress.
+        private long sectionStartNanos;
+        private long sectionStartBytes;
+
+        Replay() {
+            for (String name : new String[] { "chat", "sidebar", "tab", "tick.bridge-radar", "tick.trackers" }) {
+                subsystems.put(name, new Subsystem(name));
+            }
+        }
+
+        @Override
+        public void start(MatchRecording.Header header) {
+            localPlayer = header.localPlayer;
+        }
+
+        @Override
+        public void tick(long nowMs) {
+            events++;
+            ticks++;
+
+            begin();
+            boolean placements = bridgeRadarService.attachPlacements(pendingBlocks);
+            pendingBlocks.clear();
+            ticksSinceRebuild++;
+            if (placements || ticksSinceRebuild >= RADAR_REBUILD_TICKS) {
+                ticksSinceRebuild = 0;
+                double[] self = positions.get(localPlayer);
+                if (self != null) {
+                    bridgeAlerts += bridgeRadarService.analyzeClusters(self[0], self[2], nowMs).size();
+                }
+            }
+            end("tick.bridge-radar");
+
+            begin();
+            sink += killFeedTracker.getActiveEntries(nowMs).size();
+            respawnTracker.prune(nowMs);
+            end("tick.trackers");
+        }
+
+        @Override
+        public void chat(long nowMs, int type, String message) {
+            events++;
+            begin();
+            if (MatchChatHandler.isGameStart(message)) {
+                matchChatHandler.resetMatch();
+            }
+            matchChatHandler.handleDeath(message, localPlayer, tabTeams, nowMs);
+            matchChatHandler.handleFinalKill(message, localPlayer, tabTeams, nowMs);
+            end("chat");
+        }
+
+        @Override
+        public void sidebar(long nowMs, List<String> rows) {
+            events++;
+            begin();
+            if (sidebarSnapshot.update(rows, nowMs)) {
+                sink += sidebarSnapshot.teamStatuses().size();
+            }
+            end("sidebar");
+        }
+
+        @Override
+        public void tabList(long nowMs, List<String> names, List<String> displayNames) {
+            events++;
+            begin();
+            tabByName.clear();
+            for (int i = 0; i < names.size(); i++) {
+                TabListScanner.TabListPlayer player = TabListScanner.parseEntry(names.get(i), null,
+                        displayNames.get(i), names.get(i).equals(localPlayer));
+                if (player != null) {
+                    tabByName.put(player.name, player);
+                    sink += TabListScanner.parseStarCount(player.teamName);
+                }
+            }
+            end("tab");
+        }
+
+        @Override
+        public void entity(long nowMs, String name, double x, double y, double z) {
+            events++;
+            double[] pos = positions.get(name);
+            if (pos == null) {
+                positions.put(name, new double[] { x, y, z });
+            } else {
+                pos[0] = x;
+                pos[1] = y;
+                pos[2] = z;
+            }
+        }
+
+        @Override
+        public void blockChange(long nowMs, int x, int y, int z, boolean isAir) {
+            events++;
+            pendingBlocks.add(new BlockChangeFeed.BlockChangeEvent(new BlockPos(x, y, z), isAir, nowMs));
+        }
+
+        // Teams from the last tab list, where the live client asks the world.
+        private final MatchChatHandler.Teams tabTeams = new MatchChatHandler.Teams() {
+            @Override
+            public String colorCode(String playerName) {
+                TabListScanner.TabListPlayer entry = tabByName.get(playerName);
+                return entry == null ? "§7" : entry.teamColorPrefix;
+            }
+
+            @Override
+            public String teamName(String playerName, String colorCode) {
+                TabListScanner.TabListPlayer entry = tabByName.get(playerName);
+                return entry == null ? null : entry.teamName;
+            }
+        };
+
+        private void begin() {
+            sectionStartBytes = allocatedBytes();
+            sectionStartNanos = System.nanoTime();
+        }
+
+        private void end(String subsystem) {
+            long elapsed = System.nanoTime() - sectionStartNanos;
+            long bytes = allocatedBytes();
+            Subsystem s = subsystems.get(subsystem);
+            s.calls++;
+            s.nanos += elapsed;
+            s.bytes = bytes < 0 ? -1 : s.bytes + (bytes - sectionStartBytes);
+        }
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // ==================== SYNTHETIC MATCH ====================
+
+    private static final String[] TEAMS = { "Red", "Blue", "Green", "Yellow" };
+    private static final char[] TEAM_COLORS = { 'c', '9', 'a', 'e' };
+
+    /**
+     * A 4v4 shaped like a real game: eight players wandering and bridging,
+     * a death every few seconds, final kills once beds fall, sidebar and tab
+     * refreshes. Deterministic for a given {@code seed}.
+     */
+    static void writeSyntheticMatch(File file, int ticks, long seed) throws IOException {
+        Random random = new Random(seed);
+        long now = 1_700_000_000_000L;
+        String[] players = new String[8];
+        double[][] pos = new double[players.length][];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = "Player" + i;
+            double angle = Math.PI / 2 * (i / 2);
+            pos[i] = new double[] { Math.cos(angle) * 60, 80, Math.sin(angle) * 60 };
+        }
+        boolean[] bedAlive = { true, true, true, true };
+
+        MatchRecording.Writer writer = new MatchRecording.Writer(file, now, players[0]);
+        try {
+            writer.chat(now, 0, HypixelMessages.GAME_START);
+            for (int t = 0; t < ticks; t++) {
+                now += 50;
+                writer.tick(now);
+
+                List<String> names = new ArrayList<String>();
+                List<String> displays = new ArrayList<String>();
+                for (int i = 0; i < players.length; i++) {
+                    int team = i / 2;
+                    names.add(players[i]);
+                    displays.add("§" + TEAM_COLORS[team] + "§l" + TEAMS[team].charAt(0)
+                            + " §r§" + TEAM_COLORS[team] + players[i]);
+                }
+                writer.tabList(now, names, displays);
+
+                List<String> rows = new ArrayList<String>();
+                int remaining = (ticks - t) / 20;
+                rows.add("Diamond II in: " + (remaining / 60 % 10) + ":"
+                        + String.format("%02d", remaining % 60));
+                for (int team = 0; team < TEAMS.length; team++) {
+                    rows.add("§" + TEAM_COLORS[team] + TEAMS[team].charAt(0) + " §f" + TEAMS[team]
+                            + ": " + (bedAlive[team] ? "§a✓" : "§f2") + (team == 0 ? " §7YOU" : ""));
+                }
+                writer.sidebar(now, rows);
+
+                for (int i = 0; i < players.length; i++) {
+                    pos[i][0] += random.nextGaussian() * 0.2;
+                    pos[i][2] += random.nextGaussian() * 0.2;
+                    writer.entity(now, players[i], pos[i][0], pos[i][1], pos[i][2]);
+                }
+
+                // A bridge block every few ticks, an enemy bridging toward us.
+                if (t % 5 == 0) {
+                    int step = (t / 5) % 40;
+                    writer.blockChange(now, -40 + step, 79, 0, false);
+                }
+                if (t % 7 == 0) {
+                    writer.blockChange(now, random.nextInt(120) - 60, 70 + random.nextInt(20),
+                            random.nextInt(120) - 60, random.nextBoolean());
+                }
+
+                if (t % 100 == 50) {
+                    int victim = 1 + random.nextInt(players.length - 1);
+                    int killer = (victim + 2 + random.nextInt(players.length - 2)) % players.length;
+                    int team = victim / 2;
+                    if (t > ticks / 2) {
+                        bedAlive[team] = false;
+                    }
+                    writer.chat(now, 0, players[victim] + " was killed by " + players[killer] + "."
+                            + (bedAlive[team] ? "" : " FINAL KILL!"));
+                }
+                if (t % 40 == 0) {
+                    writer.chat(now, 0, "[" + (random.nextInt(300) + 1) + "✫] "
+                            + players[random.nextInt(players.length)] + ": gl hf " + t);
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
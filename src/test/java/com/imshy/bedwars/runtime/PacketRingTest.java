@@ -0,0 +1,127 @@
+package com.imshy.bedwars.runtime;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link PacketRing}: events come out in order, a full ring drops
+ * new events instead of overwriting unread ones, and a producer thread
+ * hands every event across intact.
+ */
+public class PacketRingTest {
+
+    /** BlockPos.toLong's layout: x in the top 26 bits, y the middle 12, z the low 26. */
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) y & 0xFFFL) << 26 | ((long) z & 0x3FFFFFFL);
+    }
+
+    @Test
+    public void eventsComeOutInOrderAcrossTheWrap() {
+        PacketRing.Swings ring = new PacketRing.Swings(8);
+        int next = 0;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 5; i++) {
+                ring.offer(next + i, 1000L + next + i);
+            }
+            assertEquals(5, ring.readable());
+            for (int i = 0; i < 5; i++) {
+                int slot = ring.slot(i);
+                assertEquals(next + i, ring.entityId[slot]);
+                assertEquals(1000L + next + i, ring.when[slot]);
+            }
+            ring.release(5);
+            next += 5;
+            assertEquals(0, ring.readable());
+        }
+    }
+
+    @Test
+    public void fullRingDropsNewEvents() {
+        PacketRing.Swings ring = new PacketRing.Swings(4);
+        for (int i = 0; i < 6; i++) {
+            ring.offer(i, i);
+        }
+        assertEquals(4, ring.readable());
+        assertEquals(2, ring.dropped());
+        assertEquals(0, ring.entityId[ring.slot(0)]);
+        assertEquals(3, ring.entityId[ring.slot(3)]);
+
+        ring.release(1);
+        ring.offer(9, 9);
+        assertEquals(9, ring.entityId[ring.slot(3)]);
+    }
+
+    @Test
+    public void clearDiscardsTheBacklog() {
+        PacketRing.BlockChanges ring = new PacketRing.BlockChanges(16, true);
+        ring.offer(pack(1, 2, 3), 5L, false);
+        ring.offer(pack(4, 5, 6), 6L, true);
+        ring.clear();
+        assertEquals(0, ring.readable());
+        ring.offer(pack(7, 8, 9), 7L, true);
+        assertEquals(1, ring.readable());
+        assertTrue(ring.isAir[ring.slot(0)]);
+    }
+
+    @Test
+    public void positionsUnpackLikeBlockPos() {
+        int[][] cases = {
+                { 0, 0, 0 }, { 1, 64, -1 }, { -30_000_000, 0, 29_999_999 },
+                { 123_456, 255, -654_321 }, { -1, -1, -1 } };
+        for (int[] c : cases) {
+            long packed = pack(c[0], c[1], c[2]);
+            assertEquals(c[0], PacketRing.BlockChanges.unpackX(packed));
+            assertEquals(c[1], PacketRing.BlockChanges.unpackY(packed));
+            assertEquals(c[2], PacketRing.BlockChanges.unpackZ(packed));
+        }
+    }
+
+    @Test
+    public void capacityMustBeAPowerOfTwo() {
+        try {
+            new PacketRing.Swings(100);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // 100 is not a power of two
+        }
+    }
+
+    @Test
+    public void producerThreadHandsOverEveryEvent() throws Exception {
+        final PacketRing.BlockChanges ring = new PacketRing.BlockChanges(64, true);
+        final int total = 200_000;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < total; i++) {
+                    // Retry on full, so the consumer must see every value.
+                    while (ring.readable() == ring.capacity()) {
+                        Thread.yield();
+                    }
+                    ring.offer(pack(i & 0xFFFF, i & 0xFF, -i), i, (i & 1) == 0);
+                }
+            }
+        }, "ring-producer");
+        producer.start();
+
+        int expected = 0;
+        long deadline = System.currentTimeMillis() + 30_000L;
+        while (expected < total && System.currentTimeMillis() < deadline) {
+            int count = ring.readable();
+            for (int i = 0; i < count; i++) {
+                int slot = ring.slot(i);
+                assertEquals(expected, ring.when[slot]);
+                assertEquals(-expected, PacketRing.BlockChanges.unpackZ(ring.packedPos[slot]));
+                assertEquals((expected & 1) == 0, ring.isAir[slot]);
+                expected++;
+            }
+            ring.release(count);
+        }
+        producer.join();
+        assertEquals(total, expected);
+        assertEquals(0, ring.dropped());
+    }
+}
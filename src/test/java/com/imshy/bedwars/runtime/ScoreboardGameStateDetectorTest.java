@@ -9,26 +9,40 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
- * Tests for the MC-decoupled surface of {@link ScoreboardGameStateDetector}:
- * the null-Minecraft guards and {@link TeamStatus} value semantics. The core
- * scoreboard parsing requires a live Minecraft instance and is verified
- * in-game instead.
+ * Tests for {@link ScoreboardGameStateDetector}: one sidebar row at a time
+ * through {@link ScoreboardGameStateDetector#parseRow}, and {@link TeamStatus}
+ * value semantics. Reading the rows off a live scoreboard is
+ * {@link SidebarSnapshot}'s job.
  */
 public class ScoreboardGameStateDetectorTest {
 
     @Test
-    public void parseTeamStatusesReturnsEmptyForNullMinecraft() {
-        assertTrue(ScoreboardGameStateDetector.parseTeamStatuses(null).isEmpty());
+    public void bedAliveRowParses() {
+        TeamStatus status = ScoreboardGameStateDetector.parseRow("§cRed§f: §a✓", "Red: ✓");
+        assertEquals("Red", status.teamName);
+        assertEquals('B', status.statusType);
+        assertFalse(status.isOwnTeam);
+    }
+
+    @Test
+    public void bedGoneRowCarriesAliveCountOwnTeamAndColour() {
+        TeamStatus status = ScoreboardGameStateDetector.parseRow("§9Blue: 2 YOU", "Blue: 2 YOU");
+        assertEquals('D', status.statusType);
+        assertEquals(2, status.bedGoneCount);
+        assertTrue(status.isOwnTeam);
+        assertEquals("§9", status.colorCode);
     }
 
     @Test
-    public void isMatchInProgressFalseForNullMinecraft() {
-        assertFalse(ScoreboardGameStateDetector.isMatchInProgress(null));
+    public void eliminatedRowParses() {
+        assertEquals('E', ScoreboardGameStateDetector.parseRow("Pink: ✘", "Pink: ✘").statusType);
     }
 
     @Test
-    public void getOwnTeamColorCodeNullForNullMinecraft() {
-        assertNull(ScoreboardGameStateDetector.getOwnTeamColorCode(null));
+    public void otherRowsAreNotTeamStatuses() {
+        assertNull(ScoreboardGameStateDetector.parseRow("Map: Lighthouse", "Map: Lighthouse"));
+        assertNull(ScoreboardGameStateDetector.parseRow("Players: 7/8", "Players: 7/8"));
+        assertNull(ScoreboardGameStateDetector.parseRow(null, null));
     }
 
     @Test
@@ -0,0 +1,113 @@
+package com.imshy.bedwars.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the row-replay core of {@link SidebarSnapshot}: one pass yields
+ * every field, identical rows are not re-parsed, and the version moves only
+ * when the content can have changed. The packet-driven refresh needs a live
+ * client and is verified in-game.
+ */
+public class SidebarSnapshotTest {
+
+    private static List<String> sidebar(String... rows) {
+        return new ArrayList<String>(Arrays.asList(rows));
+    }
+
+    private static List<String> inGame(String eventRow, String blueStatus) {
+        return sidebar("§7Map: §aLighthouse", eventRow, "§cRed§f: §a✓", "§9Blue: " + blueStatus + " YOU",
+                "§aGreen§f: §c✗", "§ewww.hypixel.net");
+    }
+
+    @Test
+    public void oneUpdateParsesEveryField() {
+        SidebarSnapshot snapshot = new SidebarSnapshot(null);
+        assertTrue(snapshot.update(inGame("Diamond II in §a3:45", "✓"), 10_000L));
+
+        assertEquals(3, snapshot.teamStatuses().size());
+        assertEquals("Red", snapshot.teamStatuses().get(0).teamName);
+        assertEquals('E', snapshot.teamStatuses().get(2).statusType);
+        assertTrue(snapshot.isMatchInProgress());
+        assertEquals("§9", snapshot.ownTeamColorCode());
+        assertEquals("Lighthouse", snapshot.mapName());
+        assertEquals("Diamond II", snapshot.nextEvent().label);
+        assertEquals(10_000L + 225_000L, snapshot.nextEvent().deadlineMs);
+        assertTrue(snapshot.nextEvent().isGeneratorTier);
+    }
+
+    @Test
+    public void identicalRowsDoNotBumpTheVersion() {
+        SidebarSnapshot snapshot = new SidebarSnapshot(null);
+        snapshot.update(inGame("Diamond II in 3:45", "✓"), 0L);
+        int version = snapshot.version();
+        List<ScoreboardGameStateDetector.TeamStatus> statuses = snapshot.teamStatuses();
+
+        assertFalse(snapshot.update(inGame("Diamond II in 3:45", "✓"), 500L));
+        assertEquals(version, snapshot.version());
+        assertSame(statuses, snapshot.teamStatuses());
+    }
+
+    @Test
+    public void changedRowBumpsTheVersion() {
+        SidebarSnapshot snapshot = new SidebarSnapshot(null);
+        snapshot.update(inGame("Diamond II in 3:45", "✓"), 0L);
+        int version = snapshot.version();
+
+        assertTrue(snapshot.update(inGame("Diamond II in 3:45", "2"), 800L));
+        assertNotEquals(version, snapshot.version());
+        ScoreboardGameStateDetector.TeamStatus blue = snapshot.teamStatuses().get(1);
+        assertEquals('D', blue.statusType);
+        assertEquals(2, blue.bedGoneCount);
+    }
+
+    @Test
+    public void unchangedEventRowKeepsItsFirstDeadline() {
+        SidebarSnapshot snapshot = new SidebarSnapshot(null);
+        snapshot.update(inGame("Emerald II in 1:00", "✓"), 0L);
+        SidebarEventClock.NextEvent first = snapshot.nextEvent();
+
+        // Another row changed 0.8s later; the countdown text did not.
+        snapshot.update(inGame("Emerald II in 1:00", "3"), 800L);
+        assertSame(first, snapshot.nextEvent());
+
+        snapshot.update(inGame("Emerald II in 0:59", "3"), 1_000L);
+        assertEquals(60_000L, snapshot.nextEvent().deadlineMs);
+    }
+
+    @Test
+    public void lobbySidebarHasNoMatchFields() {
+        SidebarSnapshot snapshot = new SidebarSnapshot(null);
+        snapshot.update(sidebar("§fPlayers: §a7/8", "§fStarting in §a0:20", "§fMode: §aSolo"), 0L);
+
+        assertFalse(snapshot.isMatchInProgress());
+        assertNull(snapshot.ownTeamColorCode());
+        assertNull(snapshot.mapName());
+    }
+
+    @Test
+    public void clearEmptiesTheSnapshot() {
+        SidebarSnapshot snapshot = new SidebarSnapshot(null);
+        snapshot.update(inGame("Diamond II in 3:45", "✓"), 0L);
+        int version = snapshot.version();
+
+        snapshot.clear();
+        assertNotEquals(version, snapshot.version());
+        assertTrue(snapshot.teamStatuses().isEmpty());
+        assertNull(snapshot.mapName());
+        assertNull(snapshot.nextEvent());
+
+        // The same rows after a clear are new content again.
+        assertTrue(snapshot.update(inGame("Diamond II in 3:45", "✓"), 0L));
+    }
+}
@@ -0,0 +1,140 @@
+package com.imshy.bedwars.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SpatialGrid}: every query agrees with a brute-force scan
+ * over the same points, across clears, negative coordinates and points
+ * spread far apart.
+ */
+public class SpatialGridTest {
+
+    private static final double EPS = 1e-9;
+
+    private static double distSq(SpatialGrid grid, int i, double x, double y, double z) {
+        double dx = grid.x(i) - x;
+        double dy = grid.y(i) - y;
+        double dz = grid.z(i) - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static void fill(SpatialGrid grid, Random random, int count, double spread) {
+        grid.clear();
+        for (int i = 0; i < count; i++) {
+            grid.add((random.nextDouble() - 0.5) * spread, 60 + random.nextDouble() * 30,
+                    (random.nextDouble() - 0.5) * spread);
+        }
+    }
+
+    @Test
+    public void withinMatchesBruteForce() {
+        Random random = new Random(42);
+        SpatialGrid grid = new SpatialGrid(4.0);
+        for (int round = 0; round < 50; round++) {
+            fill(grid, random, 1 + random.nextInt(200), 150);
+            double x = (random.nextDouble() - 0.5) * 150;
+            double y = 75;
+            double z = (random.nextDouble() - 0.5) * 150;
+            double radius = random.nextDouble() * 30;
+
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < grid.size(); i++) {
+                if (distSq(grid, i, x, y, z) <= radius * radius) {
+                    expected.add(i);
+                }
+            }
+            int count = grid.within(x, y, z, radius, null);
+            List<Integer> actual = new ArrayList<Integer>();
+            for (int i = 0; i < count; i++) {
+                actual.add(grid.hit(i));
+            }
+            Collections.sort(actual);
+            assertEquals(expected, actual);
+            assertEquals(!expected.isEmpty(), grid.anyWithin(x, y, z, radius, null));
+        }
+    }
+
+    @Test
+    public void kNearestMatchesBruteForce() {
+        Random random = new Random(7);
+        SpatialGrid grid = new SpatialGrid(4.0);
+        for (int round = 0; round < 200; round++) {
+            // Some rounds dense, some a handful of points hundreds of blocks apart.
+            double spread = round % 2 == 0 ? 60 : 600;
+            fill(grid, random, 1 + random.nextInt(120), spread);
+            double x = (random.nextDouble() - 0.5) * spread;
+            double z = (random.nextDouble() - 0.5) * spread;
+            int k = 1 + random.nextInt(5);
+            double maxDistance = round % 3 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble() * 80;
+
+            List<Double> expected = new ArrayList<Double>();
+            for (int i = 0; i < grid.size(); i++) {
+                double dSq = distSq(grid, i, x, 70, z);
+                if (dSq < maxDistance * maxDistance) {
+                    expected.add(dSq);
+                }
+            }
+            Collections.sort(expected);
+            int count = grid.nearest(x, 70, z, k, maxDistance, null);
+            assertEquals(Math.min(k, expected.size()), count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected.get(i), grid.hitDistanceSq(i), EPS);
+                assertEquals(expected.get(i), distSq(grid, grid.hit(i), x, 70, z), EPS);
+            }
+        }
+    }
+
+    @Test
+    public void nearestSkipsRejectedPoints() {
+        SpatialGrid grid = new SpatialGrid(4.0);
+        grid.add(1, 64, 1);
+        grid.add(2, 64, 2);
+        grid.add(30, 64, 30);
+        final int rejected = 0;
+        SpatialGrid.Filter notFirst = new SpatialGrid.Filter() {
+            @Override
+            public boolean accept(int index) {
+                return index != rejected;
+            }
+        };
+        assertEquals(0, grid.nearest(0, 64, 0, Double.POSITIVE_INFINITY, null));
+        assertEquals(1, grid.nearest(0, 64, 0, Double.POSITIVE_INFINITY, notFirst));
+        assertEquals(-1, grid.nearest(20, 64, 20, 5, null));
+        assertFalse(grid.anyWithin(0, 64, 0, 2, notFirst));
+        assertTrue(grid.anyWithin(0, 64, 0, 3, notFirst));
+    }
+
+    @Test
+    public void maxDistanceIsExclusiveAndRadiusInclusive() {
+        SpatialGrid grid = new SpatialGrid(4.0);
+        grid.add(6, 0, 0);
+        assertEquals(-1, grid.nearest(0, 0, 0, 6, null));
+        assertEquals(0, grid.nearest(0, 0, 0, 6.001, null));
+        assertEquals(1, grid.within(0, 0, 0, 6, null));
+    }
+
+    @Test
+    public void clearForgetsEveryPoint() {
+        SpatialGrid grid = new SpatialGrid(4.0);
+        for (int i = 0; i < 500; i++) {
+            grid.add(i, 64, -i);
+        }
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertEquals(-1, grid.nearest(10, 64, -10, Double.POSITIVE_INFINITY, null));
+        assertEquals(0, grid.within(10, 64, -10, 100, null));
+
+        grid.add(-3.5, 64, -3.5);
+        assertEquals(0, grid.nearest(10, 64, -10, Double.POSITIVE_INFINITY, null));
+        assertEquals(1, grid.within(-4, 64, -4, 1, null));
+    }
+}
@@ -106,6 +106,17 @@ public class TabStatsInjectorTest {
         assertEquals(" §8| §d[NICK]", TabStatsInjector.buildSuffix(BedwarsStats.createNicked("SomeNick")));
     }
 
+    @Test
+    public void staleStatsGetDimTrailer() {
+        BedwarsStats stale = statsWith(10, 15, 10);
+        stale.markStale();
+        assertEquals(" §8| §a10✫ §71.5 §8*", TabStatsInjector.buildSuffix(stale));
+
+        BedwarsStats staleNick = BedwarsStats.createNicked("SomeNick");
+        staleNick.markStale();
+        assertEquals(" §8| §d[NICK] §8*", TabStatsInjector.buildSuffix(staleNick));
+    }
+
     @Test
     public void suffixStartsWithMarkerAndNeverPrepends() {
         // Append-only contract: every suffix opens with the marker, so the
@@ -0,0 +1,185 @@
+package com.imshy.bedwars.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TickScheduler}: jobs run on their period, expensive jobs
+ * are staggered apart, LOW jobs slip (but never by a whole period) when the
+ * tick is over budget, and costs are recorded. Time is a fake clock that
+ * only moves when a test advances it, so budget decisions are exact.
+ */
+public class TickSchedulerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static final class Counter implements Runnable {
+        final List<Integer> ticks = new ArrayList<Integer>();
+        int now;
+
+        @Override
+        public void run() {
+            ticks.add(now);
+        }
+    }
+
+    private static final class FakeClock implements TickScheduler.Clock {
+        long now = 1000 * MS;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+
+    private final FakeClock clock = new FakeClock();
+
+    private TickScheduler scheduler(long tickBudgetNanos) {
+        return new TickScheduler(tickBudgetNanos, clock);
+    }
+
+    private void runTicks(TickScheduler scheduler, int from, int to, Counter... counters) {
+        for (int tick = from; tick < to; tick++) {
+            for (Counter c : counters) {
+                c.now = tick;
+            }
+            scheduler.runTick(tick, clock.now);
+        }
+    }
+
+    @Test
+    public void jobsRunOncePerPeriod() {
+        TickScheduler scheduler = scheduler(10 * MS);
+        Counter counter = new Counter();
+        int phase = scheduler.register("job", 5, TickScheduler.Priority.HIGH, MS, counter);
+        runTicks(scheduler, 0, 50, counter);
+
+        assertEquals(10, counter.ticks.size());
+        for (int i = 0; i < counter.ticks.size(); i++) {
+            assertEquals(phase + 5 * i, (int) counter.ticks.get(i));
+        }
+        assertEquals(10, scheduler.runs("job"));
+    }
+
+    @Test
+    public void equalPeriodsGetDistinctPhases() {
+        TickScheduler scheduler = scheduler(10 * MS);
+        List<Integer> phases = new ArrayList<Integer>();
+        for (int i = 0; i < 4; i++) {
+            phases.add(scheduler.register("job" + i, 4, TickScheduler.Priority.HIGH, MS, new Counter()));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(phases.contains(i));
+        }
+    }
+
+    @Test
+    public void cheapJobsShareTheLighterTick() {
+        TickScheduler scheduler = scheduler(10 * MS);
+        int heavy = scheduler.register("heavy", 2, TickScheduler.Priority.LOW, 5 * MS, new Counter());
+        int light = scheduler.register("light", 2, TickScheduler.Priority.LOW, MS / 10, new Counter());
+        // Every tick of a 4-tick job meets one of the two; it should meet
+        // the cheap one.
+        int mixed = scheduler.register("mixed", 4, TickScheduler.Priority.LOW, MS, new Counter());
+
+        assertNotEquals(heavy, light);
+        assertEquals(light, mixed % 2);
+    }
+
+    @Test
+    public void lowJobSlipsWhenTickIsOverBudgetAndKeepsItsPhase() {
+        TickScheduler scheduler = scheduler(MS);
+        Counter low = new Counter();
+        int phase = scheduler.register("low", 10, TickScheduler.Priority.LOW, MS / 10, low);
+
+        // Due tick already over budget before the scheduler runs: deferred.
+        low.now = phase;
+        scheduler.runTick(phase, clock.now - 5 * MS);
+        assertEquals(0, low.ticks.size());
+        assertEquals(1, scheduler.deferrals("low"));
+
+        // Next tick has room: the pending run happens.
+        runTicks(scheduler, phase + 1, phase + 2, low);
+        assertEquals(1, low.ticks.size());
+        assertEquals(phase + 1, (int) low.ticks.get(0));
+
+        // And the cadence is unchanged afterwards.
+        runTicks(scheduler, phase + 2, phase + 21, low);
+        assertEquals(3, low.ticks.size());
+        assertEquals(phase + 10, (int) low.ticks.get(1));
+        assertEquals(phase + 20, (int) low.ticks.get(2));
+    }
+
+    @Test
+    public void deferredJobRunsAnywayAfterAFullPeriod() {
+        TickScheduler scheduler = scheduler(MS);
+        Counter low = new Counter();
+        int phase = scheduler.register("low", 5, TickScheduler.Priority.LOW, MS / 10, low);
+
+        for (int tick = phase; tick < phase + 5; tick++) {
+            low.now = tick;
+            scheduler.runTick(tick, clock.now - 5 * MS);
+        }
+        assertEquals(0, low.ticks.size());
+
+        low.now = phase + 5;
+        scheduler.runTick(phase + 5, clock.now - 5 * MS);
+        assertEquals(1, low.ticks.size());
+        assertEquals(1, scheduler.deferrals("low"));
+    }
+
+    @Test
+    public void highJobRunsAndLowWorkAfterItSeesTheSpend() {
+        TickScheduler scheduler = scheduler(2 * MS);
+        final Counter high = new Counter();
+        Runnable slow = new Runnable() {
+            @Override
+            public void run() {
+                high.run();
+                clock.now += 3 * MS;
+            }
+        };
+        Counter low = new Counter();
+        // Registered LOW first; the HIGH job still runs ahead of it.
+        scheduler.register("low", 1, TickScheduler.Priority.LOW, MS / 10, low);
+        scheduler.register("high", 1, TickScheduler.Priority.HIGH, MS, slow);
+
+        // The tick starts with room; only the HIGH job's spend exhausts it.
+        high.now = 0;
+        low.now = 0;
+        scheduler.runTick(0, clock.now);
+        assertEquals(1, high.ticks.size());
+        assertEquals(0, low.ticks.size());
+        assertEquals(1, scheduler.deferrals("low"));
+        assertEquals(1, scheduler.overBudget("high"));
+        assertEquals(3 * MS, scheduler.worstTickNanos());
+    }
+
+    @Test
+    public void reportListsEveryJob() {
+        TickScheduler scheduler = scheduler(MS);
+        scheduler.register("alpha", 20, TickScheduler.Priority.LOW, MS / 2, new Counter());
+        scheduler.register("beta", 10, TickScheduler.Priority.HIGH, MS / 4, new Counter());
+        runTicks(scheduler, 0, 40);
+
+        List<String> rows = scheduler.report();
+        assertEquals(2, rows.size());
+        assertTrue(rows.get(0), rows.get(0).startsWith("beta: every 10t"));
+        assertTrue(rows.get(1), rows.get(1).startsWith("alpha: every 20t"));
+        assertTrue(rows.get(1), rows.get(1).contains("over 0/2"));
+
+        scheduler.resetStats();
+        assertEquals(0, scheduler.runs("alpha"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void periodMustBePositive() {
+        scheduler(MS).register("bad", 0, TickScheduler.Priority.LOW, MS, new Counter());
+    }
+}